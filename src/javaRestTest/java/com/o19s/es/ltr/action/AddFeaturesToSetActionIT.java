@@ -27,6 +27,7 @@ import java.util.List;
 import java.util.concurrent.ExecutionException;
 
 import org.opensearch.action.DocWriteResponse;
+import org.opensearch.common.action.ActionFuture;
 
 import com.o19s.es.ltr.action.AddFeaturesToSetAction.AddFeaturesToSetRequestBuilder;
 import com.o19s.es.ltr.action.AddFeaturesToSetAction.AddFeaturesToSetResponse;
@@ -202,4 +203,26 @@ public class AddFeaturesToSetActionIT extends BaseIntegrationTest {
         assertTrue(set.hasFeature("another_feature"));
         assertEquals(0, set.featureOrdinal("feature0"));
     }
+
+    public void testConcurrentAppends() throws Exception {
+        // Each request conflicts at most once per other request, within the retries allowed
+        int nRequests = random().nextInt(3) + 2;
+        List<ActionFuture<AddFeaturesToSetResponse>> responses = new ArrayList<>(nRequests);
+        for (int i = 0; i < nRequests; i++) {
+            AddFeaturesToSetRequestBuilder builder = new AddFeaturesToSetRequestBuilder(client());
+            builder.request().setFeatureSet("concurrent_set");
+            builder.request().setFeatures(Collections.singletonList(randomFeature("feature" + i)));
+            builder.request().setStore(IndexFeatureStore.DEFAULT_STORE);
+            responses.add(builder.execute());
+        }
+        for (ActionFuture<AddFeaturesToSetResponse> response : responses) {
+            response.get();
+        }
+        // No update is lost, conflicting requests are applied again on the latest version of the set
+        StoredFeatureSet set = getElement(StoredFeatureSet.class, StoredFeatureSet.TYPE, "concurrent_set");
+        assertEquals(nRequests, set.size());
+        for (int i = 0; i < nRequests; i++) {
+            assertTrue(set.hasFeature("feature" + i));
+        }
+    }
 }
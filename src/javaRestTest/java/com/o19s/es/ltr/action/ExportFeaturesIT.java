@@ -0,0 +1,134 @@
+/*
+ * Copyright [2017] Wikimedia Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.o19s.es.ltr.action;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.startsWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.opensearch.index.query.QueryBuilders;
+
+import com.o19s.es.ltr.action.ExportFeaturesAction.ExportFeaturesRequest;
+import com.o19s.es.ltr.action.ExportFeaturesAction.ExportFeaturesRequestBuilder;
+import com.o19s.es.ltr.action.ExportFeaturesAction.ExportFeaturesResponse;
+import com.o19s.es.ltr.action.ExportFeaturesAction.ExportFormat;
+import com.o19s.es.ltr.action.ExportFeaturesAction.Judgment;
+import com.o19s.es.ltr.action.ExportFeaturesAction.Record;
+import com.o19s.es.ltr.feature.store.StoredFeature;
+import com.o19s.es.ltr.feature.store.StoredFeatureSet;
+
+public class ExportFeaturesIT extends BaseIntegrationTest {
+    private static final String INDEX = "export_index";
+
+    public void testExportKeepsJudgmentOrderAcrossPages() throws Exception {
+        prepare();
+        List<Judgment> judgments = new ArrayList<>();
+        judgments.add(new Judgment("1", 3));
+        // Enough missing docs to push the last judgment of the record to a second page
+        for (int i = 0; i < 1000; i++) {
+            judgments.add(new Judgment("missing" + i, 0));
+        }
+        judgments.add(new Judgment("2", 1));
+        List<Record> records = Arrays
+            .asList(
+                new Record("q1", Collections.singletonMap("query", "hello"), judgments),
+                new Record("q2", Collections.singletonMap("query", "bonjour"), Collections.singletonList(new Judgment("3", 2)))
+            );
+
+        ExportFeaturesResponse response = export(ExportFormat.CSV, records);
+        assertTrue(response.getFailures().isEmpty());
+        assertEquals(3, response.getRows());
+        String[] lines = response.getContent().utf8ToString().split("\n");
+        assertEquals(4, lines.length);
+        assertEquals("qid,doc_id,grade,title_match,body_match", lines[0]);
+        // Doc 1 matches the title only, the body feature is missing and left empty
+        assertThat(lines[1], startsWith("q1,1,3,"));
+        assertTrue(lines[1].endsWith(","));
+        assertThat(lines[2], startsWith("q1,2,1,"));
+        assertThat(lines[3], startsWith("q2,3,2,"));
+        assertFalse(lines[3].endsWith(","));
+    }
+
+    public void testFailedRecordIsDropped() throws Exception {
+        prepare();
+        List<Record> records = Arrays
+            .asList(
+                // The query param required by the features is missing
+                new Record("broken", Collections.emptyMap(), Collections.singletonList(new Judgment("1", 1))),
+                new Record("q1", Collections.singletonMap("query", "hello"), Arrays.asList(new Judgment("2", 2), new Judgment("1", 0)))
+            );
+
+        ExportFeaturesResponse response = export(ExportFormat.SVMRANK, records);
+        assertEquals(2, response.getRows());
+        Map<String, Exception> failures = response.getFailures();
+        assertEquals(Collections.singleton("broken"), failures.keySet());
+        String[] lines = response.getContent().utf8ToString().split("\n");
+        assertEquals(2, lines.length);
+        // No header with svmrank and the rows follow the judgments
+        assertThat(lines[0], startsWith("2 qid:q1 1:"));
+        assertTrue(lines[0].endsWith(" # 2"));
+        assertThat(lines[1], startsWith("0 qid:q1 1:"));
+        assertTrue(lines[1].endsWith(" # 1"));
+    }
+
+    public void testAllRecordsFailed() throws Exception {
+        prepare();
+        List<Record> records = Collections
+            .singletonList(new Record("broken", Collections.emptyMap(), Collections.singletonList(new Judgment("1", 1))));
+        Exception e = expectThrows(Exception.class, () -> export(ExportFormat.CSV, records));
+        assertThat(e.getMessage(), containsString("Failed to export features for qid [broken]"));
+    }
+
+    private ExportFeaturesResponse export(ExportFormat format, List<Record> records) {
+        ExportFeaturesRequestBuilder builder = new ExportFeaturesRequestBuilder(client());
+        ExportFeaturesRequest request = builder.request();
+        request.setFeatureSetName("export_set");
+        request.setIndex(INDEX);
+        request.setFormat(format);
+        request.setRecords(records);
+        return builder.get();
+    }
+
+    private void prepare() throws Exception {
+        List<StoredFeature> features = Arrays
+            .asList(
+                new StoredFeature(
+                    "title_match",
+                    Collections.singletonList("query"),
+                    "mustache",
+                    QueryBuilders.matchQuery("title", "{{query}}").toString()
+                ),
+                new StoredFeature(
+                    "body_match",
+                    Collections.singletonList("query"),
+                    "mustache",
+                    QueryBuilders.matchQuery("body", "{{query}}").toString()
+                )
+            );
+        addElement(new StoredFeatureSet("export_set", features));
+
+        client().prepareIndex(INDEX).setId("1").setSource("title", "hello world", "body", "nothing to see").get();
+        client().prepareIndex(INDEX).setId("2").setSource("title", "hello again", "body", "hello there").get();
+        client().prepareIndex(INDEX).setId("3").setSource("title", "unrelated", "body", "bonjour").get();
+        client().admin().indices().prepareRefresh(INDEX).get();
+    }
+}
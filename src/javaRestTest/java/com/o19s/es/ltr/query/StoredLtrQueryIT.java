@@ -31,6 +31,9 @@ import org.opensearch.index.query.QueryBuilders;
 import org.opensearch.index.query.WrapperQueryBuilder;
 import org.opensearch.search.SearchHit;
 import org.opensearch.search.builder.SearchSourceBuilder;
+import org.opensearch.search.profile.ProfileResult;
+import org.opensearch.search.profile.ProfileShardResult;
+import org.opensearch.search.profile.query.QueryProfileShardResult;
 import org.opensearch.search.rescore.QueryRescoreMode;
 import org.opensearch.search.rescore.QueryRescorerBuilder;
 
@@ -267,6 +270,37 @@ public class StoredLtrQueryIT extends BaseIntegrationTest {
 
         sr = sb.get();
         assertThat(sr.getProfileResults().isEmpty(), Matchers.equalTo(false));
+
+        // Every feature, script and derived ones included, is profiled as its own node under the sltr query
+        sb = client()
+            .prepareSearch("test_index")
+            .setProfile(true)
+            .setQuery(
+                QueryBuilders
+                    .boolQuery()
+                    .filter(QueryBuilders.matchQuery("field1", "world"))
+                    .must(
+                        new WrapperQueryBuilder(
+                            new StoredLtrQueryBuilder(LtrTestUtils.nullLoader()).modelName("my_model").params(params).toString()
+                        )
+                    )
+            );
+        sr = sb.get();
+        assertEquals(1, sr.getHits().getTotalHits().value());
+        Map<String, ProfileResult> featureNodes = new HashMap<>();
+        for (ProfileShardResult shardResult : sr.getProfileResults().values()) {
+            for (QueryProfileShardResult queryResult : shardResult.getQueryProfileResults()) {
+                for (ProfileResult result : queryResult.getQueryResults()) {
+                    collectFeatureNodes(result, featureNodes);
+                }
+            }
+        }
+        for (int ordinal = 0; ordinal < 6; ordinal++) {
+            String feature = "feature[" + ordinal + ":feature" + (ordinal + 1) + "]";
+            ProfileResult node = featureNodes.get(feature);
+            assertNotNull("no profile node for " + feature + " in " + featureNodes.keySet(), node);
+            assertThat(node.getTimeBreakdown().get("create_weight_count"), Matchers.greaterThan(0L));
+        }
         // we use only feature4 score and ignore other scores
         params.put("query", "hello");
         sb = client()
@@ -380,6 +414,19 @@ public class StoredLtrQueryIT extends BaseIntegrationTest {
 
     }
 
+    /**
+     * Index the profile nodes of the sltr features by their "feature[ordinal:name]" prefix
+     */
+    private static void collectFeatureNodes(ProfileResult result, Map<String, ProfileResult> featureNodes) {
+        String description = result.getLuceneDescription();
+        if (description.startsWith("feature[")) {
+            featureNodes.put(description.substring(0, description.indexOf(']') + 1), result);
+        }
+        for (ProfileResult child : result.getProfiledChildren()) {
+            collectFeatureNodes(child, featureNodes);
+        }
+    }
+
     public void testInvalidDerived() throws Exception {
         addElement(new StoredFeature("bad_df", Collections.singletonList("query"), "derived_expression", "what + is + this"));
 
@@ -23,7 +23,6 @@ import java.util.Set;
 
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.Term;
-import org.apache.lucene.index.TermStates;
 import org.apache.lucene.search.BooleanClause;
 import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.ConstantScoreScorer;
@@ -47,11 +46,20 @@ public class ExplorerQuery extends Query {
     private final Query query;
     private final String type;
     private final LTRStats ltrStats;
+    private final TermCollectionStatsCache statsCache;
 
     public ExplorerQuery(Query query, String type, LTRStats ltrStats) {
+        this(query, type, ltrStats, null);
+    }
+
+    /**
+     * @param statsCache node cache of the collection statistics of the terms, null to compute them on every request
+     */
+    public ExplorerQuery(Query query, String type, LTRStats ltrStats, TermCollectionStatsCache statsCache) {
         this.query = query;
         this.type = type;
         this.ltrStats = ltrStats;
+        this.statsCache = statsCache;
     }
 
     private boolean isCollectionScoped() {
@@ -81,7 +89,7 @@ public class ExplorerQuery extends Query {
         Query rewritten = query.rewrite(reader);
 
         if (rewritten != query) {
-            return new ExplorerQuery(rewritten, type, ltrStats);
+            return new ExplorerQuery(rewritten, type, ltrStats, statsCache);
         }
 
         return this;
@@ -119,8 +127,11 @@ public class ExplorerQuery extends Query {
             StatisticsHelper ttf_stats = new StatisticsHelper();
 
             for (Term term : terms) {
-                TermStates ctx = TermStates.build(searcher, term, scoreMode.needsScores());
-                if (ctx != null && ctx.docFreq() > 0) {
+                // Raw stats are cached per reader, termStatistics still applies DFS stats when available
+                TermCollectionStatsCache.TermCollectionStats ctx = statsCache != null
+                    ? statsCache.get(searcher, term)
+                    : TermCollectionStatsCache.build(searcher, term);
+                if (ctx.docFreq() > 0) {
                     TermStatistics tStats = searcher.termStatistics(term, ctx.docFreq(), ctx.totalTermFreq());
                     df_stats.add(tStats.docFreq());
                     idf_stats.add(sim.idf(tStats.docFreq(), searcher.collectionStatistics(term.field()).docCount()));
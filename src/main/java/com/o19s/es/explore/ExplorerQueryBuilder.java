@@ -52,17 +52,20 @@ public class ExplorerQueryBuilder extends AbstractQueryBuilder<ExplorerQueryBuil
     private QueryBuilder query;
     private String type;
     private LTRStats ltrStats;
+    private TermCollectionStatsCache statsCache;
 
     public ExplorerQueryBuilder() {}
 
-    public ExplorerQueryBuilder(StreamInput in, LTRStats ltrStats) throws IOException {
+    public ExplorerQueryBuilder(StreamInput in, LTRStats ltrStats, TermCollectionStatsCache statsCache) throws IOException {
         super(in);
         query = in.readNamedWriteable(QueryBuilder.class);
         type = in.readString();
         this.ltrStats = ltrStats;
+        this.statsCache = statsCache;
     }
 
-    public static ExplorerQueryBuilder fromXContent(XContentParser parser, LTRStats ltrStats) throws IOException {
+    public static ExplorerQueryBuilder fromXContent(XContentParser parser, LTRStats ltrStats, TermCollectionStatsCache statsCache)
+        throws IOException {
         final ExplorerQueryBuilder builder;
 
         try {
@@ -78,6 +81,7 @@ public class ExplorerQueryBuilder extends AbstractQueryBuilder<ExplorerQueryBuil
             throw new ParsingException(parser.getTokenLocation(), "Field [" + TYPE_NAME + "] is mandatory.");
         }
         builder.ltrStats(ltrStats);
+        builder.statsCache(statsCache);
         return builder;
     }
 
@@ -99,7 +103,7 @@ public class ExplorerQueryBuilder extends AbstractQueryBuilder<ExplorerQueryBuil
     @Override
     protected Query doToQuery(QueryShardContext context) throws IOException {
         ltrStats.getStat(StatName.LTR_REQUEST_TOTAL_COUNT.getName()).increment();
-        return new ExplorerQuery(query.toQuery(context), type, ltrStats);
+        return new ExplorerQuery(query.toQuery(context), type, ltrStats, statsCache);
     }
 
     @Override
@@ -110,6 +114,7 @@ public class ExplorerQueryBuilder extends AbstractQueryBuilder<ExplorerQueryBuil
             rewritten.type = this.type;
             rewritten.query = Rewriteable.rewrite(query, queryRewriteContext);
             rewritten.ltrStats = this.ltrStats;
+            rewritten.statsCache = this.statsCache;
             rewritten.boost(boost());
             rewritten.queryName(queryName());
 
@@ -149,6 +154,11 @@ public class ExplorerQueryBuilder extends AbstractQueryBuilder<ExplorerQueryBuil
         return this;
     }
 
+    public ExplorerQueryBuilder statsCache(TermCollectionStatsCache statsCache) {
+        this.statsCache = statsCache;
+        return this;
+    }
+
     public String statsType() {
         return type;
     }
@@ -17,8 +17,6 @@
 package com.o19s.es.explore;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Objects;
 import java.util.Set;
 
@@ -224,29 +222,32 @@ public class PostingsExplorerQuery extends Query {
 
         @Override
         public float score() throws IOException {
-            if (this.postingsEnum.freq() <= 0) {
+            int freq = this.postingsEnum.freq();
+            if (freq <= 0) {
                 return 0.0f;
             }
 
-            ArrayList<Float> positions = new ArrayList<Float>();
-            for (int i = 0; i < this.postingsEnum.freq(); i++) {
-                positions.add((float) this.postingsEnum.nextPosition() + 1);
+            // Aggregate positions in a single pass, this runs for every doc so avoid boxing
+            float sum = 0.0f;
+            float min = Float.MAX_VALUE;
+            float max = 0.0f;
+            for (int i = 0; i < freq; i++) {
+                float position = (float) this.postingsEnum.nextPosition() + 1;
+                sum += position;
+                min = Math.min(min, position);
+                max = Math.max(max, position);
             }
 
             float retval;
             switch (this.typeConditional) {
                 case ("avg_raw_tp"):
-                    float sum = 0.0f;
-                    for (float position : positions) {
-                        sum += position;
-                    }
-                    retval = sum / positions.size();
+                    retval = sum / freq;
                     break;
                 case ("max_raw_tp"):
-                    retval = Collections.max(positions);
+                    retval = max;
                     break;
                 case ("min_raw_tp"):
-                    retval = Collections.min(positions);
+                    retval = min;
                     break;
                 default:
                     retval = 0.0f;
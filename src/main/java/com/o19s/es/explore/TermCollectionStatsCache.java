@@ -0,0 +1,207 @@
+/*
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.o19s.es.explore;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.TermStates;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.store.AlreadyClosedException;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.opensearch.common.cache.Cache;
+import org.opensearch.common.cache.CacheBuilder;
+import org.opensearch.common.settings.Setting;
+import org.opensearch.common.settings.Settings;
+import org.opensearch.core.common.unit.ByteSizeValue;
+import org.opensearch.monitor.jvm.JvmInfo;
+
+/**
+ * Caches the raw collection statistics (doc freq and total term freq) of terms per top level reader.
+ *
+ * A shard exposes the same top level reader to every search until it is refreshed, the entries
+ * are dropped as soon as that reader is closed. Only the raw index statistics are cached, callers
+ * must still go through {@link IndexSearcher#termStatistics} so that DFS stats are honored.
+ *
+ * One cache is shared by all the shards of the node, its total size is bounded by
+ * {@link #LTR_EXPLORER_STATS_CACHE_MEM_SETTING}, the least recently used entries are evicted first.
+ */
+public class TermCollectionStatsCache {
+    public static final Setting<ByteSizeValue> LTR_EXPLORER_STATS_CACHE_MEM_SETTING = Setting
+        .memorySizeSetting(
+            "ltr.explorer.stats_cache.max_mem",
+            (s) -> new ByteSizeValue(Math.min(RamUsageEstimator.ONE_MB, JvmInfo.jvmInfo().getMem().getHeapMax().getBytes() / 100))
+                .toString(),
+            Setting.Property.NodeScope
+        );
+
+    // Key, term and statistics of an entry, the field name and the term bytes are added per entry
+    private static final long ENTRY_BYTES = RamUsageEstimator.shallowSizeOfInstance(CacheKey.class)
+        + RamUsageEstimator.shallowSizeOfInstance(Term.class)
+        + RamUsageEstimator.shallowSizeOfInstance(BytesRef.class)
+        + RamUsageEstimator.NUM_BYTES_ARRAY_HEADER
+        + RamUsageEstimator.shallowSizeOfInstance(TermCollectionStats.class);
+
+    private final Cache<CacheKey, TermCollectionStats> cache;
+    // Readers whose closed listener is registered, entries are only added for these readers
+    private final Set<IndexReader.CacheKey> openReaders = ConcurrentHashMap.newKeySet();
+
+    public TermCollectionStatsCache(Settings settings) {
+        this(LTR_EXPLORER_STATS_CACHE_MEM_SETTING.get(settings).getBytes());
+    }
+
+    TermCollectionStatsCache(long maxWeight) {
+        this.cache = CacheBuilder
+            .<CacheKey, TermCollectionStats>builder()
+            .setMaximumWeight(maxWeight)
+            .weigher((k, v) -> ENTRY_BYTES + k.term.field().length() * Character.BYTES + k.term.bytes().length)
+            .build();
+    }
+
+    /**
+     * Get the raw collection statistics of the term, computing them with
+     * {@link TermStates#build(IndexSearcher, Term, boolean)} on cache miss.
+     */
+    public TermCollectionStats get(IndexSearcher searcher, Term term) throws IOException {
+        IndexReader reader = searcher.getIndexReader();
+        IndexReader.CacheHelper helper = reader.getReaderCacheHelper();
+        if (helper == null) {
+            return build(searcher, term);
+        }
+
+        CacheKey key = new CacheKey(helper.getKey(), term);
+        TermCollectionStats termStats = cache.get(key);
+        if (termStats == null) {
+            termStats = build(searcher, term);
+            if (track(reader, helper)) {
+                cache.put(key, termStats);
+                if (!openReaders.contains(key.reader)) {
+                    // Closed while the entry was added: its closed listener may have already evicted the reader
+                    cache.invalidate(key);
+                }
+            }
+        }
+        return termStats;
+    }
+
+    /**
+     * Register the closed listener of the reader once
+     *
+     * @return false if the reader is already closed, its statistics must not be cached
+     */
+    private boolean track(IndexReader reader, IndexReader.CacheHelper helper) {
+        IndexReader.CacheKey readerKey = helper.getKey();
+        if (openReaders.contains(readerKey)) {
+            return true;
+        }
+        if (reader.getRefCount() <= 0) {
+            return false;
+        }
+        if (openReaders.add(readerKey)) {
+            try {
+                helper.addClosedListener(this::evict);
+            } catch (AlreadyClosedException e) {
+                openReaders.remove(readerKey);
+                return false;
+            }
+        }
+        return reader.getRefCount() > 0 && openReaders.contains(readerKey);
+    }
+
+    private void evict(IndexReader.CacheKey readerKey) {
+        // Removed first so that no entry of the reader is added once it is evicted
+        openReaders.remove(readerKey);
+        Iterator<CacheKey> ite = cache.keys().iterator();
+        while (ite.hasNext()) {
+            if (ite.next().reader == readerKey) {
+                ite.remove();
+            }
+        }
+    }
+
+    /**
+     * Number of readers currently tracked by the cache
+     */
+    int readerCount() {
+        return openReaders.size();
+    }
+
+    /**
+     * Number of cached terms, all readers included
+     */
+    int count() {
+        return cache.count();
+    }
+
+    static TermCollectionStats build(IndexSearcher searcher, Term term) throws IOException {
+        TermStates ctx = TermStates.build(searcher, term, true);
+        if (ctx == null || ctx.docFreq() == 0) {
+            return TermCollectionStats.MISSING;
+        }
+        return new TermCollectionStats(ctx.docFreq(), ctx.totalTermFreq());
+    }
+
+    private static class CacheKey {
+        private final IndexReader.CacheKey reader;
+        private final Term term;
+
+        CacheKey(IndexReader.CacheKey reader, Term term) {
+            this.reader = Objects.requireNonNull(reader);
+            this.term = Objects.requireNonNull(term);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (o == null || getClass() != o.getClass())
+                return false;
+            CacheKey cacheKey = (CacheKey) o;
+            return reader == cacheKey.reader && term.equals(cacheKey.term);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * reader.hashCode() + term.hashCode();
+        }
+    }
+
+    public static class TermCollectionStats {
+        static final TermCollectionStats MISSING = new TermCollectionStats(0, 0);
+
+        private final int docFreq;
+        private final long totalTermFreq;
+
+        TermCollectionStats(int docFreq, long totalTermFreq) {
+            this.docFreq = docFreq;
+            this.totalTermFreq = totalTermFreq;
+        }
+
+        public int docFreq() {
+            return docFreq;
+        }
+
+        public long totalTermFreq() {
+            return totalTermFreq;
+        }
+    }
+}
@@ -47,6 +47,7 @@ import org.opensearch.common.settings.Settings;
 import org.opensearch.common.settings.SettingsFilter;
 import org.opensearch.core.ParseField;
 import org.opensearch.core.action.ActionResponse;
+import org.opensearch.core.common.breaker.CircuitBreaker;
 import org.opensearch.core.common.io.stream.NamedWriteableRegistry;
 import org.opensearch.core.common.io.stream.NamedWriteableRegistry.Entry;
 import org.opensearch.core.index.Index;
@@ -54,17 +55,24 @@ import org.opensearch.core.xcontent.NamedXContentRegistry;
 import org.opensearch.core.xcontent.XContentParser;
 import org.opensearch.env.Environment;
 import org.opensearch.env.NodeEnvironment;
+import org.opensearch.index.IndexModule;
 import org.opensearch.index.analysis.PreConfiguredTokenFilter;
 import org.opensearch.index.analysis.PreConfiguredTokenizer;
 import org.opensearch.indices.SystemIndexDescriptor;
+import org.opensearch.indices.breaker.BreakerSettings;
 import org.opensearch.ltr.breaker.LTRCircuitBreakerService;
+import org.opensearch.ltr.breaker.LTRLoadShedder;
+import org.opensearch.ltr.breaker.LTRRequestBreaker;
 import org.opensearch.ltr.rest.RestStatsLTRAction;
 import org.opensearch.ltr.settings.LTRSettings;
 import org.opensearch.ltr.stats.LTRStat;
 import org.opensearch.ltr.stats.LTRStats;
+import org.opensearch.ltr.stats.LatencyHistogram;
 import org.opensearch.ltr.stats.StatName;
 import org.opensearch.ltr.stats.suppliers.CacheStatsOnNodeSupplier;
 import org.opensearch.ltr.stats.suppliers.CounterSupplier;
+import org.opensearch.ltr.stats.suppliers.LatencyStatsSupplier;
+import org.opensearch.ltr.stats.suppliers.ModelStatsSupplier;
 import org.opensearch.ltr.stats.suppliers.PluginHealthStatusSupplier;
 import org.opensearch.ltr.stats.suppliers.StoreStatsSupplier;
 import org.opensearch.ltr.transport.LTRStatsAction;
@@ -72,6 +80,7 @@ import org.opensearch.ltr.transport.TransportLTRStatsAction;
 import org.opensearch.monitor.jvm.JvmService;
 import org.opensearch.plugins.ActionPlugin;
 import org.opensearch.plugins.AnalysisPlugin;
+import org.opensearch.plugins.CircuitBreakerPlugin;
 import org.opensearch.plugins.Plugin;
 import org.opensearch.plugins.ScriptPlugin;
 import org.opensearch.plugins.SearchPlugin;
@@ -88,16 +97,19 @@ import org.opensearch.transport.client.Client;
 import org.opensearch.watcher.ResourceWatcherService;
 
 import com.o19s.es.explore.ExplorerQueryBuilder;
+import com.o19s.es.explore.TermCollectionStatsCache;
 import com.o19s.es.ltr.action.AddFeaturesToSetAction;
 import com.o19s.es.ltr.action.CachesStatsAction;
 import com.o19s.es.ltr.action.ClearCachesAction;
 import com.o19s.es.ltr.action.CreateModelFromSetAction;
+import com.o19s.es.ltr.action.ExportFeaturesAction;
 import com.o19s.es.ltr.action.FeatureStoreAction;
 import com.o19s.es.ltr.action.ListStoresAction;
 import com.o19s.es.ltr.action.TransportAddFeatureToSetAction;
 import com.o19s.es.ltr.action.TransportCacheStatsAction;
 import com.o19s.es.ltr.action.TransportClearCachesAction;
 import com.o19s.es.ltr.action.TransportCreateModelFromSetAction;
+import com.o19s.es.ltr.action.TransportExportFeaturesAction;
 import com.o19s.es.ltr.action.TransportFeatureStoreAction;
 import com.o19s.es.ltr.action.TransportListStoresAction;
 import com.o19s.es.ltr.feature.store.StorableElement;
@@ -107,11 +119,16 @@ import com.o19s.es.ltr.feature.store.StoredLtrModel;
 import com.o19s.es.ltr.feature.store.index.CachedFeatureStore;
 import com.o19s.es.ltr.feature.store.index.Caches;
 import com.o19s.es.ltr.feature.store.index.IndexFeatureStore;
+import com.o19s.es.ltr.logging.FeatureLogSink;
 import com.o19s.es.ltr.logging.LoggingFetchSubPhase;
+import com.o19s.es.ltr.logging.LoggingRateLimiter;
 import com.o19s.es.ltr.logging.LoggingSearchExtBuilder;
 import com.o19s.es.ltr.query.LtrQueryBuilder;
+import com.o19s.es.ltr.query.LtrRescorerBuilder;
 import com.o19s.es.ltr.query.StoredLtrQueryBuilder;
 import com.o19s.es.ltr.query.ValidatingLtrQueryBuilder;
+import com.o19s.es.ltr.ranker.parser.LightGBMJsonParser;
+import com.o19s.es.ltr.ranker.parser.LightGBMTextParser;
 import com.o19s.es.ltr.ranker.parser.LinearRankerParser;
 import com.o19s.es.ltr.ranker.parser.LtrRankerParserFactory;
 import com.o19s.es.ltr.ranker.parser.XGBoostJsonParser;
@@ -120,6 +137,7 @@ import com.o19s.es.ltr.ranker.ranklib.RankLibScriptEngine;
 import com.o19s.es.ltr.ranker.ranklib.RanklibModelParser;
 import com.o19s.es.ltr.rest.RestAddFeatureToSet;
 import com.o19s.es.ltr.rest.RestCreateModelFromSet;
+import com.o19s.es.ltr.rest.RestExportFeatures;
 import com.o19s.es.ltr.rest.RestFeatureManager;
 import com.o19s.es.ltr.rest.RestFeatureStoreCaches;
 import com.o19s.es.ltr.rest.RestSearchStoreElements;
@@ -130,15 +148,26 @@ import com.o19s.es.termstat.TermStatQueryBuilder;
 
 import ciir.umass.edu.learning.RankerFactory;
 
-public class LtrQueryParserPlugin extends Plugin implements SearchPlugin, ScriptPlugin, ActionPlugin, AnalysisPlugin, SystemIndexPlugin {
+public class LtrQueryParserPlugin extends Plugin
+    implements
+        SearchPlugin,
+        ScriptPlugin,
+        ActionPlugin,
+        AnalysisPlugin,
+        SystemIndexPlugin,
+        CircuitBreakerPlugin {
     public static final String LTR_BASE_URI = "/_plugins/_ltr";
     public static final String LTR_LEGACY_BASE_URI = "/_opendistro/_ltr";
     private final LtrRankerParserFactory parserFactory;
     private final Caches caches;
+    private final TermCollectionStatsCache termStatsCache;
     private final LTRStats ltrStats;
+    private final FeatureLogSink logSink;
 
     public LtrQueryParserPlugin(Settings settings) {
         caches = new Caches(settings);
+        termStatsCache = new TermCollectionStatsCache(settings);
+        logSink = new FeatureLogSink(settings);
         // Use memoize to Lazy load the RankerFactory as it's a heavy object to construct
         Supplier<RankerFactory> ranklib = Suppliers.memoize(RankerFactory::new);
         parserFactory = new LtrRankerParserFactory.Builder()
@@ -146,6 +175,8 @@ public class LtrQueryParserPlugin extends Plugin implements SearchPlugin, Script
             .register(LinearRankerParser.TYPE, LinearRankerParser::new)
             .register(XGBoostJsonParser.TYPE, XGBoostJsonParser::new)
             .register(XGBoostRawJsonParser.TYPE, XGBoostRawJsonParser::new)
+            .register(LightGBMTextParser.TYPE, LightGBMTextParser::new)
+            .register(LightGBMJsonParser.TYPE, LightGBMJsonParser::new)
             .build();
         ltrStats = getInitialStats();
     }
@@ -156,8 +187,8 @@ public class LtrQueryParserPlugin extends Plugin implements SearchPlugin, Script
         return asList(
             new QuerySpec<>(
                 ExplorerQueryBuilder.NAME,
-                (input) -> new ExplorerQueryBuilder(input, ltrStats),
-                (ctx) -> ExplorerQueryBuilder.fromXContent(ctx, ltrStats)
+                (input) -> new ExplorerQueryBuilder(input, ltrStats, termStatsCache),
+                (ctx) -> ExplorerQueryBuilder.fromXContent(ctx, ltrStats, termStatsCache)
             ),
             new QuerySpec<>(
                 LtrQueryBuilder.NAME,
@@ -180,7 +211,8 @@ public class LtrQueryParserPlugin extends Plugin implements SearchPlugin, Script
 
     @Override
     public List<FetchSubPhase> getFetchSubPhases(FetchPhaseConstructionContext context) {
-        return singletonList(new LoggingFetchSubPhase());
+        LatencyHistogram loggingLatency = ltrStats.getLatencyHistogram(LatencyStatsSupplier.Metric.LOGGING);
+        return singletonList(new LoggingFetchSubPhase(new LoggingRateLimiter(), logSink, loggingLatency));
     }
 
     @Override
@@ -190,6 +222,11 @@ public class LtrQueryParserPlugin extends Plugin implements SearchPlugin, Script
         );
     }
 
+    @Override
+    public List<RescorerSpec<?>> getRescorers() {
+        return singletonList(new RescorerSpec<>(LtrRescorerBuilder.NAME, LtrRescorerBuilder::new, LtrRescorerBuilder::fromXContent));
+    }
+
     @Override
     public ScriptEngine getScriptEngine(Settings settings, Collection<ScriptContext<?>> contexts) {
         return new RankLibScriptEngine(parserFactory);
@@ -216,6 +253,7 @@ public class LtrQueryParserPlugin extends Plugin implements SearchPlugin, Script
         list.add(new RestFeatureStoreCaches());
         list.add(new RestCreateModelFromSet());
         list.add(new RestAddFeatureToSet());
+        list.add(new RestExportFeatures());
         list.add(new RestStatsLTRAction(ltrStats));
         return unmodifiableList(list);
     }
@@ -229,6 +267,7 @@ public class LtrQueryParserPlugin extends Plugin implements SearchPlugin, Script
                 new ActionHandler<>(ClearCachesAction.INSTANCE, TransportClearCachesAction.class),
                 new ActionHandler<>(AddFeaturesToSetAction.INSTANCE, TransportAddFeatureToSetAction.class),
                 new ActionHandler<>(CreateModelFromSetAction.INSTANCE, TransportCreateModelFromSetAction.class),
+                new ActionHandler<>(ExportFeaturesAction.INSTANCE, TransportExportFeaturesAction.class),
                 new ActionHandler<>(ListStoresAction.INSTANCE, TransportListStoresAction.class),
                 new ActionHandler<>(LTRStatsAction.INSTANCE, TransportLTRStatsAction.class)
             )
@@ -283,12 +322,40 @@ public class LtrQueryParserPlugin extends Plugin implements SearchPlugin, Script
             IndexFeatureStore.STORE_VERSION_PROP,
             Caches.LTR_CACHE_MEM_SETTING,
             Caches.LTR_CACHE_EXPIRE_AFTER_READ,
-            Caches.LTR_CACHE_EXPIRE_AFTER_WRITE
+            Caches.LTR_CACHE_EXPIRE_AFTER_WRITE,
+            TermCollectionStatsCache.LTR_EXPLORER_STATS_CACHE_MEM_SETTING,
+            FeatureLogSink.LTR_LOG_SINK_QUEUE_SIZE,
+            FeatureLogSink.LTR_LOG_SINK_BULK_SIZE,
+            FeatureLogSink.LTR_LOG_SINK_FLUSH_INTERVAL,
+            LTRRequestBreaker.LTR_BREAKER_REQUEST_LIMIT,
+            LTRRequestBreaker.LTR_BREAKER_REQUEST_OVERHEAD,
+            LTRLoadShedder.LTR_DEGRADATION_ENABLED,
+            LTRLoadShedder.LTR_DEGRADATION_SEARCH_QUEUE_THRESHOLD,
+            LTRLoadShedder.LTR_DEGRADATION_DOC_SCORING_BUDGET,
+            LTRLoadShedder.LTR_DEGRADATION_BREAKER_THRESHOLD,
+            LTRLoadShedder.LTR_DEGRADATION_MIN_WINDOW_SIZE,
+            LTRLoadShedder.LTR_DEGRADATION_FALLBACK_MODEL
         );
 
         return unmodifiableList(Stream.concat(list1.stream(), list2.stream()).collect(Collectors.toList()));
     }
 
+    @Override
+    public BreakerSettings getCircuitBreaker(Settings settings) {
+        return LTRRequestBreaker.breakerSettings(settings);
+    }
+
+    @Override
+    public void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+        LTRRequestBreaker.getInstance().setBreaker(circuitBreaker);
+    }
+
+    @Override
+    public void onIndexModule(IndexModule indexModule) {
+        // Memory held by LTR queries is released with the search context of the request
+        indexModule.addSearchOperationListener(LTRRequestBreaker.getInstance().searchOperationListener());
+    }
+
     @Override
     public Collection<Object> createComponents(
         Client client,
@@ -312,12 +379,23 @@ public class LtrQueryParserPlugin extends Plugin implements SearchPlugin, Script
         });
 
         LTRSettings.getInstance().init(clusterService);
+        LTRLoadShedder
+            .getInstance()
+            .init(
+                clusterService.getClusterSettings(),
+                clusterService.getSettings(),
+                threadPool,
+                ltrStats.getLatencyHistogram(LatencyStatsSupplier.Metric.DOC_SCORING)
+            );
 
         final JvmService jvmService = new JvmService(environment.settings());
         final LTRCircuitBreakerService ltrCircuitBreakerService = new LTRCircuitBreakerService(jvmService).init();
 
+        // Started and stopped with the node as a lifecycle component
+        logSink.init(client, threadPool);
+
         addStats(client, clusterService, ltrCircuitBreakerService);
-        return asList(caches, parserFactory, ltrCircuitBreakerService, ltrStats);
+        return asList(caches, parserFactory, ltrCircuitBreakerService, ltrStats, logSink);
     }
 
     private void addStats(
@@ -338,6 +416,13 @@ public class LtrQueryParserPlugin extends Plugin implements SearchPlugin, Script
         stats.put(StatName.LTR_CACHE_STATS.getName(), new LTRStat<>(false, new CacheStatsOnNodeSupplier(caches)));
         stats.put(StatName.LTR_REQUEST_TOTAL_COUNT.getName(), new LTRStat<>(false, new CounterSupplier()));
         stats.put(StatName.LTR_REQUEST_ERROR_COUNT.getName(), new LTRStat<>(false, new CounterSupplier()));
+        stats.put(StatName.LTR_REQUEST_BUDGET_EXHAUSTED_COUNT.getName(), new LTRStat<>(false, new CounterSupplier()));
+        stats.put(StatName.LTR_LOG_SINK_STATS.getName(), new LTRStat<>(false, logSink::stats));
+        stats.put(StatName.LTR_LATENCY_STATS.getName(), new LTRStat<>(false, new LatencyStatsSupplier()));
+        ModelStatsSupplier modelStats = new ModelStatsSupplier();
+        caches.setModelRemovalListener(modelStats::remove);
+        stats.put(StatName.LTR_MODEL_STATS.getName(), new LTRStat<>(false, modelStats));
+        stats.put(StatName.LTR_DEGRADATION_STATS.getName(), new LTRStat<>(false, LTRLoadShedder.getInstance()::stats));
         return new LTRStats((stats));
     }
 
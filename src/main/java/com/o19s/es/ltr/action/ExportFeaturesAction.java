@@ -0,0 +1,378 @@
+/*
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.o19s.es.ltr.action;
+
+import static org.opensearch.action.ValidateActions.addValidationError;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+import org.opensearch.action.ActionRequest;
+import org.opensearch.action.ActionRequestBuilder;
+import org.opensearch.action.ActionRequestValidationException;
+import org.opensearch.action.ActionType;
+import org.opensearch.core.action.ActionResponse;
+import org.opensearch.core.common.bytes.BytesReference;
+import org.opensearch.core.common.io.stream.StreamInput;
+import org.opensearch.core.common.io.stream.StreamOutput;
+import org.opensearch.core.common.io.stream.Writeable;
+import org.opensearch.transport.client.OpenSearchClient;
+
+import com.o19s.es.ltr.action.ExportFeaturesAction.ExportFeaturesResponse;
+
+/**
+ * Export the feature values of a stored feature set for judged documents, formatted as training data.
+ */
+public class ExportFeaturesAction extends ActionType<ExportFeaturesResponse> {
+    public static final String NAME = "cluster:admin/ltr/featurestore/export";
+    public static final ExportFeaturesAction INSTANCE = new ExportFeaturesAction();
+
+    protected ExportFeaturesAction() {
+        super(NAME, ExportFeaturesResponse::new);
+    }
+
+    public static class ExportFeaturesRequestBuilder extends ActionRequestBuilder<ExportFeaturesRequest, ExportFeaturesResponse> {
+        public ExportFeaturesRequestBuilder(OpenSearchClient client) {
+            super(client, INSTANCE, new ExportFeaturesRequest());
+        }
+    }
+
+    public static class ExportFeaturesRequest extends ActionRequest {
+        private String store;
+        private String featureSetName;
+        private String index;
+        private ExportFormat format = ExportFormat.SVMRANK;
+        private List<Record> records = new ArrayList<>();
+
+        public ExportFeaturesRequest() {}
+
+        public ExportFeaturesRequest(StreamInput in) throws IOException {
+            super(in);
+            store = in.readOptionalString();
+            featureSetName = in.readString();
+            index = in.readString();
+            format = in.readEnum(ExportFormat.class);
+            records = in.readList(Record::new);
+        }
+
+        @Override
+        public ActionRequestValidationException validate() {
+            ActionRequestValidationException arve = null;
+            if (featureSetName == null) {
+                arve = addValidationError("featureSetName must be set", null);
+            }
+            if (index == null) {
+                arve = addValidationError("index must be set", arve);
+            }
+            if (records.isEmpty()) {
+                arve = addValidationError("at least one record must be provided", arve);
+            }
+            for (Record record : records) {
+                arve = format.validate(record, arve);
+            }
+            return arve;
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            super.writeTo(out);
+            out.writeOptionalString(store);
+            out.writeString(featureSetName);
+            out.writeString(index);
+            out.writeEnum(format);
+            out.writeList(records);
+        }
+
+        /**
+         * The name of the feature store, null for the default store
+         */
+        public String getStore() {
+            return store;
+        }
+
+        public void setStore(String store) {
+            this.store = store;
+        }
+
+        public String getFeatureSetName() {
+            return featureSetName;
+        }
+
+        public void setFeatureSetName(String featureSetName) {
+            this.featureSetName = featureSetName;
+        }
+
+        public String getIndex() {
+            return index;
+        }
+
+        public void setIndex(String index) {
+            this.index = index;
+        }
+
+        public ExportFormat getFormat() {
+            return format;
+        }
+
+        public void setFormat(ExportFormat format) {
+            this.format = Objects.requireNonNull(format);
+        }
+
+        public List<Record> getRecords() {
+            return records;
+        }
+
+        public void setRecords(List<Record> records) {
+            this.records = Objects.requireNonNull(records);
+        }
+    }
+
+    /**
+     * A query, identified by its qid, with the params of the feature set and its judged documents
+     */
+    public static class Record implements Writeable {
+        private final String qid;
+        private final Map<String, Object> params;
+        private final List<Judgment> judgments;
+
+        public Record(String qid, Map<String, Object> params, List<Judgment> judgments) {
+            this.qid = Objects.requireNonNull(qid);
+            this.params = params != null ? params : Collections.emptyMap();
+            this.judgments = Objects.requireNonNull(judgments);
+        }
+
+        public Record(StreamInput in) throws IOException {
+            qid = in.readString();
+            params = in.readMap();
+            judgments = in.readList(Judgment::new);
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeString(qid);
+            out.writeMap(params);
+            out.writeList(judgments);
+        }
+
+        public String getQid() {
+            return qid;
+        }
+
+        public Map<String, Object> getParams() {
+            return params;
+        }
+
+        public List<Judgment> getJudgments() {
+            return judgments;
+        }
+    }
+
+    public static class Judgment implements Writeable {
+        private final String docId;
+        private final double grade;
+
+        public Judgment(String docId, double grade) {
+            this.docId = Objects.requireNonNull(docId);
+            this.grade = grade;
+        }
+
+        public Judgment(StreamInput in) throws IOException {
+            docId = in.readString();
+            grade = in.readDouble();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeString(docId);
+            out.writeDouble(grade);
+        }
+
+        public String getDocId() {
+            return docId;
+        }
+
+        public double getGrade() {
+            return grade;
+        }
+    }
+
+    /**
+     * Training data formats, missing feature values are NaN in the feature arrays.
+     */
+    public enum ExportFormat {
+        /**
+         * One line per judged doc: {@code grade qid:1 1:0.5 2:1.2 # docId}, missing features are omitted
+         */
+        SVMRANK {
+            /**
+             * Values are written as is: the qid is a token of the line and the doc id a comment ending it
+             */
+            @Override
+            ActionRequestValidationException validate(Record record, ActionRequestValidationException arve) {
+                String qid = record.getQid();
+                if (qid.isEmpty() || qid.chars().anyMatch(c -> Character.isWhitespace(c) || c == '#')) {
+                    String error = "qid [" + qid + "] must not be empty nor contain whitespaces or [#] with format [svmrank]";
+                    arve = addValidationError(error, arve);
+                }
+                for (Judgment judgment : record.getJudgments()) {
+                    String docId = judgment.getDocId();
+                    if (docId.indexOf('\n') >= 0 || docId.indexOf('\r') >= 0) {
+                        String error = "doc id [" + docId + "] of qid [" + qid + "] must not contain line breaks with format [svmrank]";
+                        arve = addValidationError(error, arve);
+                        // One error per record is enough
+                        break;
+                    }
+                }
+                return arve;
+            }
+
+            @Override
+            void writeHeader(StringBuilder out, List<String> featureNames) {}
+
+            @Override
+            void writeRow(StringBuilder out, String qid, Judgment judgment, float[] values) {
+                out.append(formatGrade(judgment.getGrade())).append(" qid:").append(qid);
+                for (int i = 0; i < values.length; i++) {
+                    if (!Float.isNaN(values[i])) {
+                        // SVMRank feature ids are 1-based
+                        out.append(' ').append(i + 1).append(':').append(values[i]);
+                    }
+                }
+                out.append(" # ").append(judgment.getDocId()).append('\n');
+            }
+        },
+        /**
+         * A header line followed by one line per judged doc: {@code qid,doc_id,grade,feature1,...}, missing features are empty
+         */
+        CSV {
+            @Override
+            void writeHeader(StringBuilder out, List<String> featureNames) {
+                out.append("qid,doc_id,grade");
+                for (String name : featureNames) {
+                    out.append(',').append(csvEscape(name));
+                }
+                out.append('\n');
+            }
+
+            @Override
+            void writeRow(StringBuilder out, String qid, Judgment judgment, float[] values) {
+                out.append(csvEscape(qid)).append(',').append(csvEscape(judgment.getDocId()));
+                out.append(',').append(formatGrade(judgment.getGrade()));
+                for (float value : values) {
+                    out.append(',');
+                    if (!Float.isNaN(value)) {
+                        out.append(value);
+                    }
+                }
+                out.append('\n');
+            }
+        };
+
+        /**
+         * Check that the values of the record can be written in this format
+         */
+        ActionRequestValidationException validate(Record record, ActionRequestValidationException arve) {
+            return arve;
+        }
+
+        abstract void writeHeader(StringBuilder out, List<String> featureNames);
+
+        abstract void writeRow(StringBuilder out, String qid, Judgment judgment, float[] values);
+
+        public static ExportFormat fromString(String format) {
+            for (ExportFormat f : values()) {
+                if (f.getName().equals(format)) {
+                    return f;
+                }
+            }
+            throw new IllegalArgumentException("Unknown export format [" + format + "], expected [svmrank] or [csv]");
+        }
+
+        public String getName() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+
+        private static String formatGrade(double grade) {
+            if (grade == Math.rint(grade) && !Double.isInfinite(grade)) {
+                return Long.toString((long) grade);
+            }
+            return Double.toString(grade);
+        }
+
+        private static String csvEscape(String value) {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+    }
+
+    public static class ExportFeaturesResponse extends ActionResponse {
+        private final long rows;
+        private final BytesReference content;
+        private final Map<String, Exception> failures;
+
+        /**
+         * @param failures failures of the records not exported, by qid
+         */
+        public ExportFeaturesResponse(long rows, BytesReference content, Map<String, Exception> failures) {
+            this.rows = rows;
+            this.content = Objects.requireNonNull(content);
+            this.failures = Objects.requireNonNull(failures);
+        }
+
+        public ExportFeaturesResponse(StreamInput in) throws IOException {
+            super(in);
+            rows = in.readVLong();
+            content = in.readBytesReference();
+            failures = in.readMap(StreamInput::readString, StreamInput::readException);
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeVLong(rows);
+            out.writeBytesReference(content);
+            out.writeMap(failures, StreamOutput::writeString, StreamOutput::writeException);
+        }
+
+        /**
+         * Number of exported feature rows
+         */
+        public long getRows() {
+            return rows;
+        }
+
+        /**
+         * The formatted feature rows, UTF-8 encoded
+         */
+        public BytesReference getContent() {
+            return content;
+        }
+
+        /**
+         * Failures of the records whose rows were not exported, by qid
+         */
+        public Map<String, Exception> getFailures() {
+            return failures;
+        }
+    }
+}
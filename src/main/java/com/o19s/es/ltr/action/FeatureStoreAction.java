@@ -33,8 +33,10 @@ import org.opensearch.core.common.io.stream.StreamOutput;
 import org.opensearch.core.common.io.stream.Writeable.Reader;
 import org.opensearch.core.rest.RestStatus;
 import org.opensearch.core.xcontent.XContentBuilder;
+import org.opensearch.index.seqno.SequenceNumbers;
 import org.opensearch.transport.client.OpenSearchClient;
 
+import com.o19s.es.ltr.Constants;
 import com.o19s.es.ltr.action.FeatureStoreAction.FeatureStoreResponse;
 import com.o19s.es.ltr.feature.FeatureValidation;
 import com.o19s.es.ltr.feature.store.StorableElement;
@@ -63,7 +65,9 @@ public class FeatureStoreAction extends ActionType<FeatureStoreResponse> {
         private String store;
         private Action action;
         private StorableElement storableElement;
-        private Long updatedVersion;
+        // Sequence number and primary term of the element being updated, to detect concurrent updates
+        private long ifSeqNo = SequenceNumbers.UNASSIGNED_SEQ_NO;
+        private long ifPrimaryTerm = SequenceNumbers.UNASSIGNED_PRIMARY_TERM;
         private String routing;
 
         private FeatureValidation validation;
@@ -77,6 +81,10 @@ public class FeatureStoreAction extends ActionType<FeatureStoreResponse> {
             action = Action.values()[in.readVInt()];
             storableElement = in.readNamedWriteable(StorableElement.class);
             validation = in.readOptionalWriteable(FeatureValidation::new);
+            if (in.getVersion().onOrAfter(Constants.VERSION_3_7_0)) {
+                ifSeqNo = in.readZLong();
+                ifPrimaryTerm = in.readVLong();
+            }
         }
 
         public FeatureStoreRequest(String store, StorableElement storableElement, Action action) {
@@ -85,11 +93,18 @@ public class FeatureStoreAction extends ActionType<FeatureStoreResponse> {
             this.action = Objects.requireNonNull(action);
         }
 
-        public FeatureStoreRequest(String store, StorableElement storableElement, long updatedVersion) {
+        /**
+         * Update an element only if it was not modified since it was read
+         *
+         * @param ifSeqNo       sequence number of the element when it was read
+         * @param ifPrimaryTerm primary term of the element when it was read
+         */
+        public FeatureStoreRequest(String store, StorableElement storableElement, long ifSeqNo, long ifPrimaryTerm) {
             this.store = Objects.requireNonNull(store);
             this.storableElement = Objects.requireNonNull(storableElement);
             this.action = Action.UPDATE;
-            this.updatedVersion = updatedVersion;
+            this.ifSeqNo = ifSeqNo;
+            this.ifPrimaryTerm = ifPrimaryTerm;
         }
 
         @Override
@@ -107,7 +122,7 @@ public class FeatureStoreAction extends ActionType<FeatureStoreResponse> {
             if (action == Action.UPDATE && !storableElement.updatable()) {
                 arve = addValidationError("Elements of type [" + storableElement.type() + "] are not updatable.", arve);
             }
-            if (updatedVersion != null && action != Action.UPDATE) {
+            if (ifSeqNo != SequenceNumbers.UNASSIGNED_SEQ_NO && action != Action.UPDATE) {
                 arve = addValidationError("Only UPDATE supports a version.", arve);
             }
             return arve;
@@ -145,8 +160,12 @@ public class FeatureStoreAction extends ActionType<FeatureStoreResponse> {
             this.routing = routing;
         }
 
-        public Long getUpdatedVersion() {
-            return updatedVersion;
+        public long getIfSeqNo() {
+            return ifSeqNo;
+        }
+
+        public long getIfPrimaryTerm() {
+            return ifPrimaryTerm;
         }
 
         public FeatureValidation getValidation() {
@@ -165,6 +184,10 @@ public class FeatureStoreAction extends ActionType<FeatureStoreResponse> {
             out.writeVInt(action.ordinal());
             out.writeNamedWriteable(storableElement);
             out.writeOptionalWriteable(validation);
+            if (out.getVersion().onOrAfter(Constants.VERSION_3_7_0)) {
+                out.writeZLong(ifSeqNo);
+                out.writeVLong(ifPrimaryTerm);
+            }
         }
 
         public enum Action {
@@ -21,9 +21,11 @@ import static org.opensearch.core.action.ActionListener.wrap;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
+import org.opensearch.ExceptionsHelper;
 import org.opensearch.action.get.GetRequest;
 import org.opensearch.action.get.GetResponse;
 import org.opensearch.action.get.TransportGetAction;
@@ -38,9 +40,11 @@ import org.opensearch.common.inject.Inject;
 import org.opensearch.common.settings.Settings;
 import org.opensearch.common.util.concurrent.CountDown;
 import org.opensearch.core.action.ActionListener;
+import org.opensearch.index.engine.VersionConflictEngineException;
 import org.opensearch.index.query.BoolQueryBuilder;
 import org.opensearch.index.query.QueryBuilder;
 import org.opensearch.index.query.QueryBuilders;
+import org.opensearch.index.seqno.SequenceNumbers;
 import org.opensearch.ltr.breaker.LTRCircuitBreakerService;
 import org.opensearch.ltr.exception.LimitExceededException;
 import org.opensearch.search.SearchHit;
@@ -105,8 +109,12 @@ public class TransportAddFeatureToSetAction extends HandledTransportAction<AddFe
      * - synchronize on CountDown, the last action to return will trigger the next step
      * - merge the StoredFeature and the new list of features
      * - send an async FeatureStoreAction to save the modified (or new) StoredFeatureSet
+     *   if it was not modified since it was fetched, otherwise fetch it again and retry
      */
     private static class AsyncAction {
+        // Concurrent updates of the same set are retried on the updated set
+        private static final int MAX_CONFLICT_RETRIES = 3;
+
         private final Task task;
         private final String store;
         private final ActionListener<AddFeaturesToSetResponse> listener;
@@ -119,8 +127,10 @@ public class TransportAddFeatureToSetAction extends HandledTransportAction<AddFe
         private final AtomicReference<Exception> getException = new AtomicReference<>();
         private final AtomicReference<StoredFeatureSet> setRef = new AtomicReference<>();
         private final AtomicReference<List<StoredFeature>> featuresRef = new AtomicReference<>();
-        private final CountDown countdown;
-        private final AtomicLong version = new AtomicLong(-1L);
+        private volatile CountDown countdown;
+        private final AtomicLong seqNo = new AtomicLong(SequenceNumbers.UNASSIGNED_SEQ_NO);
+        private final AtomicLong primaryTerm = new AtomicLong(SequenceNumbers.UNASSIGNED_PRIMARY_TERM);
+        private final AtomicInteger conflicts = new AtomicInteger();
         private final ClusterService clusterService;
         private final TransportSearchAction searchAction;
         private final TransportGetAction getAction;
@@ -166,6 +176,10 @@ public class TransportAddFeatureToSetAction extends HandledTransportAction<AddFe
             } else {
                 featuresRef.set(features);
             }
+            fetchSet();
+        }
+
+        private void fetchSet() {
             GetRequest getRequest = new GetRequest(store)
                 .id(StorableElement.generateId(StoredFeatureSet.TYPE, featureSetName))
                 .routing(routing);
@@ -213,10 +227,12 @@ public class TransportAddFeatureToSetAction extends HandledTransportAction<AddFe
             try {
                 StoredFeatureSet featureSet;
                 if (getResponse.isExists()) {
-                    version.set(getResponse.getVersion());
+                    seqNo.set(getResponse.getSeqNo());
+                    primaryTerm.set(getResponse.getPrimaryTerm());
                     featureSet = IndexFeatureStore.parse(StoredFeatureSet.class, StoredFeatureSet.TYPE, getResponse.getSourceAsBytesRef());
                 } else {
-                    version.set(-1L);
+                    seqNo.set(SequenceNumbers.UNASSIGNED_SEQ_NO);
+                    primaryTerm.set(SequenceNumbers.UNASSIGNED_PRIMARY_TERM);
                     featureSet = new StoredFeatureSet(featureSetName, Collections.emptyList());
                 }
                 setRef.set(featureSet);
@@ -291,10 +307,10 @@ public class TransportAddFeatureToSetAction extends HandledTransportAction<AddFe
         }
 
         private void updateSet(StoredFeatureSet set) {
-            long version = this.version.get();
+            long seqNo = this.seqNo.get();
             final FeatureStoreRequest frequest;
-            if (version > 0) {
-                frequest = new FeatureStoreRequest(store, set, version);
+            if (seqNo != SequenceNumbers.UNASSIGNED_SEQ_NO) {
+                frequest = new FeatureStoreRequest(store, set, seqNo, primaryTerm.get());
             } else {
                 frequest = new FeatureStoreRequest(store, set, FeatureStoreRequest.Action.CREATE);
             }
@@ -302,7 +318,20 @@ public class TransportAddFeatureToSetAction extends HandledTransportAction<AddFe
             frequest.setParentTask(clusterService.localNode().getId(), task.getId());
             frequest.setValidation(validation);
             featureStoreAction
-                .execute(frequest, wrap((r) -> listener.onResponse(new AddFeaturesToSetResponse(r.getResponse())), listener::onFailure));
+                .execute(frequest, wrap((r) -> listener.onResponse(new AddFeaturesToSetResponse(r.getResponse())), this::onStoreFailure));
+        }
+
+        private void onStoreFailure(Exception e) {
+            if (ExceptionsHelper.unwrapCause(e) instanceof VersionConflictEngineException
+                && conflicts.incrementAndGet() <= MAX_CONFLICT_RETRIES) {
+                // The set was created or updated since it was fetched, apply the features to its latest version.
+                // Features fetched from the store are kept.
+                countdown = new CountDown(1);
+                setRef.set(null);
+                fetchSet();
+                return;
+            }
+            listener.onFailure(e);
         }
     }
 
@@ -0,0 +1,222 @@
+/*
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.o19s.es.ltr.action;
+
+import static org.opensearch.core.action.ActionListener.wrap;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.opensearch.action.search.MultiSearchRequest;
+import org.opensearch.action.search.MultiSearchResponse;
+import org.opensearch.action.search.SearchRequest;
+import org.opensearch.action.support.ActionFilters;
+import org.opensearch.action.support.HandledTransportAction;
+import org.opensearch.cluster.service.ClusterService;
+import org.opensearch.common.document.DocumentField;
+import org.opensearch.common.inject.Inject;
+import org.opensearch.common.io.stream.BytesStreamOutput;
+import org.opensearch.core.action.ActionListener;
+import org.opensearch.index.query.QueryBuilders;
+import org.opensearch.ltr.breaker.LTRCircuitBreakerService;
+import org.opensearch.ltr.exception.LimitExceededException;
+import org.opensearch.ltr.settings.LTRSettings;
+import org.opensearch.ltr.stats.LTRStats;
+import org.opensearch.search.SearchHit;
+import org.opensearch.search.builder.SearchSourceBuilder;
+import org.opensearch.tasks.Task;
+import org.opensearch.transport.TransportService;
+import org.opensearch.transport.client.Client;
+
+import com.o19s.es.ltr.action.ExportFeaturesAction.ExportFeaturesRequest;
+import com.o19s.es.ltr.action.ExportFeaturesAction.ExportFeaturesResponse;
+import com.o19s.es.ltr.action.ExportFeaturesAction.ExportFormat;
+import com.o19s.es.ltr.action.ExportFeaturesAction.Judgment;
+import com.o19s.es.ltr.action.ExportFeaturesAction.Record;
+import com.o19s.es.ltr.feature.store.index.CachedFeatureStore;
+import com.o19s.es.ltr.feature.store.index.Caches;
+import com.o19s.es.ltr.feature.store.index.IndexFeatureStore;
+import com.o19s.es.ltr.logging.LoggingSearchExtBuilder;
+import com.o19s.es.ltr.query.StoredLtrQueryBuilder;
+import com.o19s.es.ltr.ranker.parser.LtrRankerParserFactory;
+import com.o19s.es.ltr.utils.FeatureStoreLoader;
+
+/**
+ * Runs one search per page of judged docs of each record, logging the features with the compact log format,
+ * and formats the logged values as training data rows. Records that fail are reported by qid with the rows of the others.
+ */
+public class TransportExportFeaturesAction extends HandledTransportAction<ExportFeaturesRequest, ExportFeaturesResponse> {
+    // Name of the sltr query and of its logger
+    private static final String LOGGER_NAME = "_ltr_export";
+    private static final String LOG_FIELD = "_ltrlog";
+    private static final String NAMES_FIELD = "_ltrlog_features";
+    // Judgments searched at once, well below the default index.max_result_window
+    private static final int PAGE_SIZE = 1000;
+
+    private final ClusterService clusterService;
+    private final Client client;
+    private final FeatureStoreLoader storeLoader;
+    private final LTRCircuitBreakerService ltrCircuitBreakerService;
+    private final LTRStats ltrStats;
+
+    @Inject
+    public TransportExportFeaturesAction(
+        TransportService transportService,
+        ActionFilters actionFilters,
+        ClusterService clusterService,
+        Client client,
+        Caches caches,
+        LtrRankerParserFactory parserFactory,
+        LTRCircuitBreakerService ltrCircuitBreakerService,
+        LTRStats ltrStats
+    ) {
+        super(ExportFeaturesAction.NAME, false, transportService, actionFilters, ExportFeaturesRequest::new);
+        this.clusterService = clusterService;
+        this.client = client;
+        this.storeLoader = (storeName, clientSupplier) -> new CachedFeatureStore(
+            new IndexFeatureStore(storeName, clientSupplier, parserFactory),
+            caches
+        );
+        this.ltrCircuitBreakerService = ltrCircuitBreakerService;
+        this.ltrStats = ltrStats;
+    }
+
+    @Override
+    protected void doExecute(Task task, ExportFeaturesRequest request, ActionListener<ExportFeaturesResponse> listener) {
+        String storeIndex = request.getStore() != null ? IndexFeatureStore.indexName(request.getStore()) : IndexFeatureStore.DEFAULT_STORE;
+        if (!clusterService.state().routingTable().hasIndex(storeIndex)) {
+            throw new IllegalArgumentException("Store [" + storeIndex + "] does not exist, please create it first.");
+        }
+        if (this.ltrCircuitBreakerService.isOpen()) {
+            throw new LimitExceededException("Exporting features is not allowed as memory circuit is broken.");
+        }
+
+        int judgments = request.getRecords().stream().mapToInt(r -> r.getJudgments().size()).sum();
+        if (judgments > LTRSettings.getExportMaxJudgments()) {
+            throw new IllegalArgumentException(
+                "Cannot export ["
+                    + judgments
+                    + "] judgments in a single request, the limit is ["
+                    + LTRSettings.getExportMaxJudgments()
+                    + "]. This limit can be set by changing the ["
+                    + LTRSettings.LTR_EXPORT_MAX_JUDGMENTS
+                    + "] setting."
+            );
+        }
+
+        // Judgments are searched by pages so that a record never asks for more hits than the result window of the index
+        MultiSearchRequest multiSearch = new MultiSearchRequest();
+        for (Record record : request.getRecords()) {
+            List<Judgment> recordJudgments = record.getJudgments();
+            for (int from = 0; from < recordJudgments.size(); from += PAGE_SIZE) {
+                List<Judgment> page = recordJudgments.subList(from, Math.min(from + PAGE_SIZE, recordJudgments.size()));
+                multiSearch.add(buildSearch(request, record, page));
+            }
+        }
+        multiSearch.setParentTask(clusterService.localNode().getId(), task.getId());
+        client.multiSearch(multiSearch, wrap((r) -> listener.onResponse(toResponse(request, r)), listener::onFailure));
+    }
+
+    private SearchRequest buildSearch(ExportFeaturesRequest request, Record record, List<Judgment> page) {
+        StoredLtrQueryBuilder sltr = new StoredLtrQueryBuilder(storeLoader)
+            .featureSetName(request.getFeatureSetName())
+            .storeName(request.getStore())
+            .params(record.getParams())
+            .ltrStats(ltrStats)
+            .queryName(LOGGER_NAME);
+        String[] ids = page.stream().map(Judgment::getDocId).toArray(String[]::new);
+        LoggingSearchExtBuilder logging = new LoggingSearchExtBuilder()
+            .addQueryLogging(LOGGER_NAME, LOGGER_NAME, false, LoggingSearchExtBuilder.LogFormat.COMPACT);
+        // The sltr query is only there to be found by its logger, which scores the fetched hits: as a filter it is
+        // not scored by the query phase
+        SearchSourceBuilder source = new SearchSourceBuilder()
+            .query(QueryBuilders.boolQuery().filter(QueryBuilders.idsQuery().addIds(ids)).filter(sltr))
+            .size(ids.length)
+            .fetchSource(false)
+            .trackTotalHits(false)
+            .ext(List.of(logging));
+        return new SearchRequest(request.getIndex()).source(source);
+    }
+
+    private ExportFeaturesResponse toResponse(ExportFeaturesRequest request, MultiSearchResponse response) throws IOException {
+        ExportFormat format = request.getFormat();
+        Map<String, Exception> failures = new LinkedHashMap<>();
+        List<String> featureNames = null;
+        boolean headerWritten = false;
+        int failedRecords = 0;
+        long rowCount = 0;
+        MultiSearchResponse.Item[] items = response.getResponses();
+        int item = 0;
+        // Rows are formatted one at a time and written to paged bytes, the content is never copied into a single String
+        StringBuilder row = new StringBuilder();
+        BytesStreamOutput out = new BytesStreamOutput();
+        for (Record record : request.getRecords()) {
+            int pages = (record.getJudgments().size() + PAGE_SIZE - 1) / PAGE_SIZE;
+            Exception failure = null;
+            Map<String, float[]> valuesById = new HashMap<>();
+            for (int page = 0; page < pages; page++, item++) {
+                if (items[item].isFailure()) {
+                    failure = items[item].getFailure();
+                    continue;
+                }
+                for (SearchHit hit : items[item].getResponse().getHits()) {
+                    DocumentField log = hit.getFields().get(LOG_FIELD);
+                    if (log == null) {
+                        continue;
+                    }
+                    Map<String, Object> logs = log.getValue();
+                    valuesById.put(hit.getId(), (float[]) logs.get(LOGGER_NAME));
+                    DocumentField names = hit.getFields().get(NAMES_FIELD);
+                    if (featureNames == null && names != null) {
+                        Map<String, List<String>> namesByLogger = names.getValue();
+                        featureNames = namesByLogger.get(LOGGER_NAME);
+                    }
+                }
+            }
+            if (failure != null) {
+                // A record is exported whole or not at all, partial query groups would bias the training data
+                failures.put(record.getQid(), failure);
+                failedRecords++;
+                continue;
+            }
+            if (!headerWritten && featureNames != null) {
+                format.writeHeader(row, featureNames);
+                headerWritten = true;
+            }
+            // Keep the order of the judgments, docs not found in the index are skipped
+            for (Judgment judgment : record.getJudgments()) {
+                float[] values = valuesById.get(judgment.getDocId());
+                if (values != null) {
+                    format.writeRow(row, record.getQid(), judgment, values);
+                    out.write(row.toString().getBytes(StandardCharsets.UTF_8));
+                    row.setLength(0);
+                    rowCount++;
+                }
+            }
+        }
+        assert item == items.length;
+        if (failedRecords == request.getRecords().size()) {
+            Map.Entry<String, Exception> first = failures.entrySet().iterator().next();
+            throw new IllegalStateException("Failed to export features for qid [" + first.getKey() + "]", first.getValue());
+        }
+        return new ExportFeaturesResponse(rowCount, out.bytes(), failures);
+    }
+}
@@ -34,6 +34,7 @@ import org.opensearch.action.support.WriteRequest;
 import org.opensearch.cluster.service.ClusterService;
 import org.opensearch.common.inject.Inject;
 import org.opensearch.core.action.ActionListener;
+import org.opensearch.index.seqno.SequenceNumbers;
 import org.opensearch.ltr.breaker.LTRCircuitBreakerService;
 import org.opensearch.ltr.exception.LimitExceededException;
 import org.opensearch.ltr.stats.LTRStats;
@@ -132,6 +133,10 @@ public class TransportFeatureStoreAction extends HandledTransportAction<FeatureS
             .setSource(IndexFeatureStore.toSource(elt))
             .setRefreshPolicy(WriteRequest.RefreshPolicy.IMMEDIATE)
             .request();
+        if (request.getIfSeqNo() != SequenceNumbers.UNASSIGNED_SEQ_NO) {
+            indexRequest.setIfSeqNo(request.getIfSeqNo());
+            indexRequest.setIfPrimaryTerm(request.getIfPrimaryTerm());
+        }
         indexRequest.setParentTask(clusterService.localNode().getId(), parentTask.getId());
         return indexRequest;
     }
@@ -19,12 +19,15 @@ package com.o19s.es.ltr.feature.store;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
@@ -45,22 +48,30 @@ import org.apache.lucene.search.ScoreMode;
 import org.apache.lucene.search.Scorer;
 import org.apache.lucene.search.ScorerSupplier;
 import org.apache.lucene.search.Weight;
+import org.opensearch.Version;
+import org.opensearch.common.cache.Cache;
+import org.opensearch.common.cache.CacheBuilder;
 import org.opensearch.common.lucene.search.function.LeafScoreFunction;
 import org.opensearch.common.lucene.search.function.ScriptScoreFunction;
+import org.opensearch.common.unit.TimeValue;
 import org.opensearch.common.xcontent.LoggingDeprecationHandler;
 import org.opensearch.common.xcontent.XContentType;
 import org.opensearch.core.xcontent.NamedXContentRegistry;
 import org.opensearch.core.xcontent.XContentParser;
 import org.opensearch.index.mapper.MappedFieldType;
+import org.opensearch.index.query.QueryShardContext;
 import org.opensearch.ltr.settings.LTRSettings;
 import org.opensearch.script.ScoreScript;
 import org.opensearch.script.Script;
+import org.opensearch.search.lookup.SearchLookup;
 
 import com.o19s.es.ltr.LtrQueryContext;
 import com.o19s.es.ltr.feature.Feature;
 import com.o19s.es.ltr.feature.FeatureSet;
+import com.o19s.es.ltr.query.FeatureVectorWeight;
 import com.o19s.es.ltr.query.LtrRewritableQuery;
 import com.o19s.es.ltr.query.LtrRewriteContext;
+import com.o19s.es.ltr.query.LtrScorerContext;
 import com.o19s.es.ltr.ranker.LogLtrRanker;
 import com.o19s.es.termstat.TermStatSupplier;
 
@@ -74,18 +85,24 @@ public class ScriptFeature implements Feature {
     public static final String EXTRA_SCRIPT_PARAMS = "extra_script_params";
 
     /**
-     * A thread local allowing for term stats to made available for the script score feature.
-     * This is needed as the parameters for the script score are created up-front when creating the
-     * lucene query with their values being swapped out for each document using a Supplier. A thread
-     * local is used to allow for different documents to have their scores computed concurrently.
+     * Analyzed term_stat terms, shared across requests. Analyzing the same terms with the same analyzer
+     * always produces the same terms so there is no need to run the analysis chain on every request.
      */
-    private static final ThreadLocal<TermStatSupplier> CURRENT_TERM_STATS = new ThreadLocal<>();
+    private static final Cache<AnalyzedTermsKey, Set<Term>> ANALYZED_TERMS = CacheBuilder
+        .<AnalyzedTermsKey, Set<Term>>builder()
+        .setMaximumWeight(1024)
+        .setExpireAfterAccess(TimeValue.timeValueMinutes(10))
+        .build();
 
     private final String name;
     private final Script script;
     private final Collection<String> queryParams;
     private final Map<String, Object> baseScriptParams;
     private final Map<String, String> extraScriptParams;
+    private final Map<String, Object> termStatSpec;
+    // query params copied as is, and query params renamed through extra_script_params
+    private final List<String> plainQueryParams;
+    private final Map<String, String> extraQueryParams;
 
     @SuppressWarnings("unchecked")
     public ScriptFeature(String name, Script script, Collection<String> queryParams) {
@@ -103,6 +120,20 @@ public class ScriptFeature implements Feature {
         }
         this.baseScriptParams = ltrScriptParams;
         this.extraScriptParams = ltrExtraScriptParams;
+        this.termStatSpec = (Map<String, Object>) baseScriptParams.get("term_stat");
+
+        List<String> plain = new ArrayList<>();
+        Map<String, String> extra = new HashMap<>();
+        for (String x : queryParams) {
+            /* If extra_script_param then add the appropriate param name for the script else add name:value as is */
+            if (extraScriptParams.containsKey(x)) {
+                extra.put(x, extraScriptParams.get(x));
+            } else {
+                plain.add(x);
+            }
+        }
+        this.plainQueryParams = plain;
+        this.extraQueryParams = extra;
     }
 
     public static ScriptFeature compile(StoredFeature feature) {
@@ -137,35 +168,18 @@ public class ScriptFeature implements Feature {
             throw new IllegalArgumentException("Missing required param(s): [" + names + "]");
         }
 
-        Map<String, Object> queryTimeParams = new HashMap<>();
-        Map<String, Object> extraQueryTimeParams = new HashMap<>();
-        for (String x : queryParams) {
-            if (params.containsKey(x)) {
-                /* If extra_script_param then add the appropriate param name for the script else add name:value as is */
-                if (extraScriptParams.containsKey(x)) {
-                    extraQueryTimeParams.put(extraScriptParams.get(x), params.get(x));
-                } else {
-                    queryTimeParams.put(x, params.get(x));
-                }
-            }
-        }
-
-        FeatureSupplier supplier = new FeatureSupplier(featureSet);
-        ExtraLoggingSupplier extraLoggingSupplier = new ExtraLoggingSupplier();
         Map<String, Object> nparams = new HashMap<>();
 
         // Parse terms if set
         Set<Term> terms = new HashSet<>();
-        if (baseScriptParams.containsKey("term_stat")) {
-            HashMap<String, Object> termspec = (HashMap<String, Object>) baseScriptParams.get("term_stat");
-
+        if (termStatSpec != null) {
             String analyzerName = null;
             ArrayList<String> fields = null;
             ArrayList<String> termList = null;
 
-            final Object analyzerNameObj = termspec.get("analyzer");
-            final Object fieldsObj = termspec.get("fields");
-            final Object termListObj = termspec.get("terms");
+            final Object analyzerNameObj = termStatSpec.get("analyzer");
+            final Object fieldsObj = termStatSpec.get("fields");
+            final Object termListObj = termStatSpec.get("terms");
 
             // Support lookup via params or direct assignment
             if (analyzerNameObj != null) {
@@ -212,32 +226,19 @@ public class ScriptFeature implements Feature {
                     throw new IllegalArgumentException("No analyzer found for [" + analyzerName + "]");
                 }
 
-                for (String termString : termList) {
-                    final TokenStream ts = analyzer.tokenStream(field, termString);
-                    final TermToBytesRefAttribute termAtt = ts.getAttribute(TermToBytesRefAttribute.class);
-
-                    try {
-                        ts.reset();
-                        while (ts.incrementToken()) {
-                            terms.add(new Term(field, termAtt.getBytesRef()));
-                        }
-                        ts.close();
-                    } catch (IOException ex) {
-                        // No-op
-                    }
-                }
+                terms.addAll(analyzeTerms(analyzer, field, termList));
             }
 
-            nparams.put(TERM_STAT, (Supplier<TermStatSupplier>) CURRENT_TERM_STATS::get);
-            nparams.put(MATCH_COUNT, (Supplier<Integer>) () -> CURRENT_TERM_STATS.get().getMatchedTermCount());
             nparams.put(UNIQUE_TERMS, terms.size());
         }
 
         nparams.putAll(baseScriptParams);
-        nparams.putAll(queryTimeParams);
-        nparams.putAll(extraQueryTimeParams);
-        nparams.put(FEATURE_VECTOR, supplier);
-        nparams.put(EXTRA_LOGGING, extraLoggingSupplier);
+        for (String x : plainQueryParams) {
+            nparams.put(x, params.get(x));
+        }
+        for (Map.Entry<String, String> x : extraQueryParams.entrySet()) {
+            nparams.put(x.getValue(), params.get(x.getKey()));
+        }
         Script script = new Script(
             this.script.getType(),
             this.script.getLang(),
@@ -245,44 +246,135 @@ public class ScriptFeature implements Feature {
             this.script.getOptions(),
             nparams
         );
-        ScoreScript.Factory factoryFactory = context.getQueryShardContext().compile(script, ScoreScript.CONTEXT);
-        ScoreScript.LeafFactory leafFactory = factoryFactory
-            .newFactory(nparams, context.getQueryShardContext().lookup(), context.getQueryShardContext().searcher());
-        ScriptScoreFunction function = new ScriptScoreFunction(
+        // Params are not part of the compiled script, the feature's own script is compiled so that every request
+        // hits the script service cache with the same key. Compiling through the shard context also keeps the
+        // request from being cached, as for any other script.
+        QueryShardContext shardContext = context.getQueryShardContext();
+        ScoreScript.Factory factoryFactory = shardContext.compile(this.script, ScoreScript.CONTEXT);
+        SearchLookup lookup = shardContext.lookup();
+        IndexSearcher searcher = shardContext.searcher();
+        String indexName = shardContext.index().getName();
+        int shardId = shardContext.getShardId();
+        Version indexVersion = shardContext.indexVersionCreated();
+        ScriptFunctionFactory functionFactory = (leafParams) -> new ScriptScoreFunction(
             script,
-            leafFactory,
-            context.getQueryShardContext().index().getName(),
-            context.getQueryShardContext().getShardId(),
-            context.getQueryShardContext().indexVersionCreated(),
+            factoryFactory.newFactory(leafParams, lookup, searcher),
+            indexName,
+            shardId,
+            indexVersion,
             null // TODO: this is different from ES LTR
         );
-        return new LtrScript(function, supplier, extraLoggingSupplier, terms);
+        return new LtrScript(script, functionFactory, nparams, featureSet, termStatSpec != null, terms, new ExtraLoggingSupplier(), null);
+    }
+
+    private static Set<Term> analyzeTerms(Analyzer analyzer, String field, List<String> termList) {
+        AnalyzedTermsKey key = new AnalyzedTermsKey(analyzer, field, termList);
+        try {
+            return ANALYZED_TERMS.computeIfAbsent(key, (k) -> {
+                Set<Term> terms = new HashSet<>();
+                for (String termString : k.terms) {
+                    final TokenStream ts = analyzer.tokenStream(field, termString);
+                    final TermToBytesRefAttribute termAtt = ts.getAttribute(TermToBytesRefAttribute.class);
+
+                    try {
+                        ts.reset();
+                        while (ts.incrementToken()) {
+                            terms.add(new Term(field, termAtt.getBytesRef()));
+                        }
+                        ts.close();
+                    } catch (IOException ex) {
+                        // No-op
+                    }
+                }
+                return Collections.unmodifiableSet(terms);
+            });
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to analyze terms for field [" + field + "]", e.getCause());
+        }
+    }
+
+    /**
+     * Analyzers are compared by identity, a mapping update or an index re-creation produce new instances.
+     */
+    private static class AnalyzedTermsKey {
+        private final Analyzer analyzer;
+        private final String field;
+        private final List<String> terms;
+
+        AnalyzedTermsKey(Analyzer analyzer, String field, List<String> terms) {
+            this.analyzer = analyzer;
+            this.field = field;
+            this.terms = new ArrayList<>(terms);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (o == null || getClass() != o.getClass())
+                return false;
+            AnalyzedTermsKey that = (AnalyzedTermsKey) o;
+            return analyzer == that.analyzer && field.equals(that.field) && terms.equals(that.terms);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(analyzer), field, terms);
+        }
+    }
+
+    /**
+     * Builds the script function of a lane from its script params.
+     */
+    @FunctionalInterface
+    interface ScriptFunctionFactory {
+        ScriptScoreFunction build(Map<String, Object> params) throws IOException;
     }
 
     static class LtrScript extends Query implements LtrRewritableQuery {
-        private final ScriptScoreFunction function;
-        private final FeatureSupplier supplier;
+        private final Script script;
+        private final ScriptFunctionFactory functionFactory;
+        private final Map<String, Object> params;
+        private final FeatureSet featureSet;
+        private final boolean termStats;
         private final ExtraLoggingSupplier extraLoggingSupplier;
         private final Set<Term> terms;
-
-        LtrScript(ScriptScoreFunction function, FeatureSupplier supplier, ExtraLoggingSupplier extraLoggingSupplier, Set<Term> terms) {
-            this.function = function;
-            this.supplier = supplier;
-            this.extraLoggingSupplier = extraLoggingSupplier;
+        // null until the query is rewritten by its RankerQuery
+        private final LtrRewriteContext rewriteContext;
+
+        LtrScript(
+            Script script,
+            ScriptFunctionFactory functionFactory,
+            Map<String, Object> params,
+            FeatureSet featureSet,
+            boolean termStats,
+            Set<Term> terms,
+            ExtraLoggingSupplier extraLoggingSupplier,
+            LtrRewriteContext rewriteContext
+        ) {
+            this.script = script;
+            this.functionFactory = functionFactory;
+            this.params = params;
+            this.featureSet = featureSet;
+            this.termStats = termStats;
             this.terms = terms;
+            this.extraLoggingSupplier = extraLoggingSupplier;
+            this.rewriteContext = rewriteContext;
         }
 
         @Override
         public boolean equals(Object o) {
             if (this == o)
                 return true;
+            if (!sameClassAs(o))
+                return false;
             LtrScript ol = (LtrScript) o;
-            return sameClassAs(o) && Objects.equals(function, ol.function);
+            return Objects.equals(script, ol.script) && Objects.equals(terms, ol.terms) && rewriteContext == ol.rewriteContext;
         }
 
         @Override
         public int hashCode() {
-            return Objects.hash(classHash(), function);
+            return Objects.hash(classHash(), script, terms, System.identityHashCode(rewriteContext));
         }
 
         @Override
@@ -299,20 +391,39 @@ public class ScriptFeature implements Feature {
             if (!scoreMode.needsScores()) {
                 return new MatchAllDocsQuery().createWeight(searcher, scoreMode, 1F);
             }
-            return new LtrScriptWeight(this, this.function, terms, searcher, scoreMode);
+            return new LtrScriptWeight(this, searcher, scoreMode);
         }
 
         @Override
         public Query ltrRewrite(LtrRewriteContext context) throws IOException {
-            supplier.set(context.getFeatureVectorSupplier());
-
+            ExtraLoggingSupplier extraLoggingSupplier = new ExtraLoggingSupplier();
             LogLtrRanker.LogConsumer consumer = context.getLogConsumer();
             if (consumer != null) {
                 extraLoggingSupplier.setSupplier(consumer::getExtraLoggingMap);
             } else {
                 extraLoggingSupplier.setSupplier(() -> null);
             }
-            return this;
+            return new LtrScript(script, functionFactory, params, featureSet, termStats, terms, extraLoggingSupplier, context);
+        }
+
+        /**
+         * Build the script function of a thread scoring with a weight of this query, its params read the term stats
+         * and the feature vector bound to the lane by the scorer running the script.
+         */
+        ScriptLane newLane() throws IOException {
+            ScriptLane lane = new ScriptLane();
+            Map<String, Object> laneParams = new HashMap<>();
+            if (termStats) {
+                laneParams.put(TERM_STAT, (Supplier<TermStatSupplier>) () -> lane.termStatSupplier);
+                laneParams.put(MATCH_COUNT, (Supplier<Integer>) () -> lane.termStatSupplier.getMatchedTermCount());
+            }
+            laneParams.putAll(params);
+            FeatureSupplier supplier = new FeatureSupplier(featureSet);
+            supplier.set(() -> lane.scorerContext != null ? lane.scorerContext.get() : null);
+            laneParams.put(FEATURE_VECTOR, supplier);
+            laneParams.put(EXTRA_LOGGING, extraLoggingSupplier);
+            lane.function = functionFactory.build(laneParams);
+            return lane;
         }
 
         @Override
@@ -327,18 +438,35 @@ public class ScriptFeature implements Feature {
         }
     }
 
-    static class LtrScriptWeight extends Weight {
+    /**
+     * Script function of a thread scoring documents with a {@link LtrScriptWeight}. The script factory is built once per
+     * lane, the scorer calling the script binds its term stats and scorer context to the lane beforehand.
+     */
+    static class ScriptLane {
+        private ScriptScoreFunction function;
+        private TermStatSupplier termStatSupplier;
+        private LtrScorerContext scorerContext;
+
+        void bind(TermStatSupplier termStatSupplier, LtrScorerContext scorerContext) {
+            this.termStatSupplier = termStatSupplier;
+            this.scorerContext = scorerContext;
+        }
+    }
+
+    static class LtrScriptWeight extends Weight implements FeatureVectorWeight {
+        private final LtrScript query;
         private final IndexSearcher searcher;
         private final ScoreMode scoreMode;
-        private final ScriptScoreFunction function;
         private final Set<Term> terms;
         private final HashMap<Term, TermStates> termContexts;
+        // A scorer runs on the thread that built it and a thread runs one script at a time: segments scored
+        // concurrently use their own lane, segments scored one after the other share the script factory
+        private final Map<Thread, ScriptLane> lanes = new ConcurrentHashMap<>();
 
-        LtrScriptWeight(Query query, ScriptScoreFunction function, Set<Term> terms, IndexSearcher searcher, ScoreMode scoreMode)
-            throws IOException {
+        LtrScriptWeight(LtrScript query, IndexSearcher searcher, ScoreMode scoreMode) throws IOException {
             super(query);
-            this.function = function;
-            this.terms = terms;
+            this.query = query;
+            this.terms = query.terms;
             this.searcher = searcher;
             this.scoreMode = scoreMode;
             this.termContexts = new HashMap<>();
@@ -355,15 +483,37 @@ public class ScriptFeature implements Feature {
             }
         }
 
+        private ScriptLane lane() throws IOException {
+            Thread thread = Thread.currentThread();
+            ScriptLane lane = lanes.get(thread);
+            if (lane == null) {
+                lane = query.newLane();
+                lanes.put(thread, lane);
+            }
+            return lane;
+        }
+
         @Override
         public Explanation explain(LeafReaderContext context, int doc) throws IOException {
-            return function.getLeafScoreFunction(context).explainScore(doc, Explanation.noMatch("none"));
+            return explain(context, doc, new LtrScorerContext());
         }
 
-        public Scorer getScorer(LeafReaderContext context) throws IOException {
-            LeafScoreFunction leafScoreFunction = function.getLeafScoreFunction(context);
-            DocIdSetIterator iterator = DocIdSetIterator.all(context.reader().maxDoc());
+        @Override
+        public Explanation explain(LeafReaderContext context, int doc, LtrScorerContext scorerContext) throws IOException {
+            TermStatSupplier termStatSupplier = new TermStatSupplier();
+            if (terms.size() > 0) {
+                termStatSupplier.bump(searcher, context, doc, terms, scoreMode, termContexts);
+            }
+            ScriptLane lane = lane();
+            lane.bind(termStatSupplier, scorerContext);
+            return lane.function.getLeafScoreFunction(context).explainScore(doc, Explanation.noMatch("none"));
+        }
+
+        public Scorer getScorer(LeafReaderContext context, LtrScorerContext scorerContext) throws IOException {
             TermStatSupplier termStatSupplier = new TermStatSupplier();
+            ScriptLane lane = lane();
+            LeafScoreFunction leafScoreFunction = lane.function.getLeafScoreFunction(context);
+            DocIdSetIterator iterator = DocIdSetIterator.all(context.reader().maxDoc());
             return new Scorer() {
                 @Override
                 public int docID() {
@@ -372,15 +522,12 @@ public class ScriptFeature implements Feature {
 
                 @Override
                 public float score() throws IOException {
-                    CURRENT_TERM_STATS.set(termStatSupplier);
                     // Do the terms magic if the user asked for it
                     if (terms.size() > 0) {
                         termStatSupplier.bump(searcher, context, docID(), terms, scoreMode, termContexts);
                     }
-
-                    float score = (float) leafScoreFunction.score(iterator.docID(), 0F);
-                    CURRENT_TERM_STATS.remove();
-                    return score;
+                    lane.bind(termStatSupplier, scorerContext);
+                    return (float) leafScoreFunction.score(iterator.docID(), 0F);
                 }
 
                 @Override
@@ -403,7 +550,13 @@ public class ScriptFeature implements Feature {
 
         @Override
         public ScorerSupplier scorerSupplier(LeafReaderContext context) throws IOException {
-            Scorer scorer = getScorer(context);
+            // Not built by a RankerQuery scorer: there is no feature vector to read
+            return scorerSupplier(context, new LtrScorerContext());
+        }
+
+        @Override
+        public ScorerSupplier scorerSupplier(LeafReaderContext context, LtrScorerContext scorerContext) throws IOException {
+            Scorer scorer = getScorer(context, scorerContext);
             return new ScorerSupplier() {
                 @Override
                 public Scorer get(long leadCost) throws IOException {
@@ -93,13 +93,26 @@ public class StoredFeatureSet implements FeatureSet, Accountable, StorableElemen
         for (StoredFeature feature : features) {
             ordinal++;
             if (featureMap.put(feature.name(), ordinal) != null) {
-                throw new IllegalArgumentException(
-                    "Feature [" + feature.name() + "] defined twice in this set: " + "feature names must be unique in a set."
-                );
+                throw duplicateFeature(feature.name());
             }
         }
     }
 
+    /**
+     * Features and their ordinals are already validated
+     */
+    private StoredFeatureSet(String name, List<StoredFeature> features, Map<String, Integer> featureMap) {
+        this.name = name;
+        this.features = features;
+        this.featureMap = featureMap;
+    }
+
+    private static IllegalArgumentException duplicateFeature(String featureName) {
+        return new IllegalArgumentException(
+            "Feature [" + featureName + "] defined twice in this set: " + "feature names must be unique in a set."
+        );
+    }
+
     @Override
     public FeatureSet optimize() {
         List<Feature> optimizedFeatures = new ArrayList<>(this.features.size());
@@ -172,8 +185,15 @@ public class StoredFeatureSet implements FeatureSet, Accountable, StorableElemen
         }
         List<StoredFeature> newFeatures = new ArrayList<>(nFeature);
         newFeatures.addAll(this.features);
-        newFeatures.addAll(features);
-        return new StoredFeatureSet(name, newFeatures);
+        // Ordinals of the existing features do not change, only the appended features are checked
+        Map<String, Integer> newFeatureMap = new HashMap<>(featureMap);
+        for (StoredFeature feature : features) {
+            if (newFeatureMap.putIfAbsent(feature.name(), newFeatures.size()) != null) {
+                throw duplicateFeature(feature.name());
+            }
+            newFeatures.add(feature);
+        }
+        return new StoredFeatureSet(name, newFeatures, newFeatureMap);
     }
 
     /**
@@ -192,15 +212,18 @@ public class StoredFeatureSet implements FeatureSet, Accountable, StorableElemen
         }
         List<StoredFeature> newFeatures = new ArrayList<>(this.features.size() + mergedFeatures.size() - merged);
         newFeatures.addAll(this.features);
+        Map<String, Integer> newFeatureMap = new HashMap<>(featureMap);
         for (StoredFeature f : mergedFeatures) {
             if (hasFeature(f.name())) {
                 newFeatures.set(featureOrdinal(f.name()), f);
-            } else {
+            } else if (newFeatureMap.putIfAbsent(f.name(), newFeatures.size()) == null) {
                 newFeatures.add(f);
+            } else {
+                throw duplicateFeature(f.name());
             }
         }
         assert newFeatures.size() <= MAX_FEATURES;
-        return new StoredFeatureSet(name, newFeatures);
+        return new StoredFeatureSet(name, newFeatures, newFeatureMap);
     }
 
     @Override
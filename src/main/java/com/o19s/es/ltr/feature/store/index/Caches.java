@@ -25,6 +25,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
 import org.apache.lucene.util.Accountable;
@@ -67,6 +68,7 @@ public class Caches {
     }
     private final Map<String, PerStoreStats> perStoreStats = new ConcurrentHashMap<>();
     private final long maxWeight;
+    private volatile Consumer<String> modelRemovalListener = (name) -> {};
 
     public Caches(TimeValue expAfterWrite, TimeValue expAfterAccess, ByteSizeValue maxWeight) {
         this.featureCache = configCache(CacheBuilder.<CacheKey, Feature>builder(), expAfterWrite, expAfterAccess, maxWeight)
@@ -79,7 +81,10 @@ public class Caches {
             .build();
         this.modelCache = configCache(CacheBuilder.<CacheKey, CompiledLtrModel>builder(), expAfterWrite, expAfterAccess, maxWeight)
             .weigher((s, w) -> w.ramBytesUsed())
-            .removalListener((l) -> this.onRemove(l.getKey(), l.getValue()))
+            .removalListener((l) -> {
+                this.onRemove(l.getKey(), l.getValue());
+                modelRemovalListener.accept(l.getKey().getId());
+            })
             .build();
         this.maxWeight = maxWeight.getBytes();
     }
@@ -111,6 +116,13 @@ public class Caches {
         this(LTR_CACHE_EXPIRE_AFTER_WRITE.get(settings), LTR_CACHE_EXPIRE_AFTER_READ.get(settings), LTR_CACHE_MEM_SETTING.get(settings));
     }
 
+    /**
+     * Called with the name of the models removed from the cache: deleted, updated, expired or evicted
+     */
+    public void setModelRemovalListener(Consumer<String> modelRemovalListener) {
+        this.modelRemovalListener = Objects.requireNonNull(modelRemovalListener);
+    }
+
     private void onAdd(CacheKey k, Object acc) {
         perStoreStats.compute(k.getStoreName(), (k2, v) -> v != null ? v.add(acc) : new PerStoreStats(acc));
     }
@@ -0,0 +1,237 @@
+/*
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.o19s.es.ltr.logging;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.opensearch.action.bulk.BulkItemResponse;
+import org.opensearch.action.bulk.BulkRequest;
+import org.opensearch.action.bulk.BulkResponse;
+import org.opensearch.action.index.IndexRequest;
+import org.opensearch.common.lifecycle.AbstractLifecycleComponent;
+import org.opensearch.common.lifecycle.Lifecycle;
+import org.opensearch.common.metrics.CounterMetric;
+import org.opensearch.common.settings.Setting;
+import org.opensearch.common.settings.Settings;
+import org.opensearch.common.unit.TimeValue;
+import org.opensearch.common.util.concurrent.ThreadContext;
+import org.opensearch.core.action.ActionListener;
+import org.opensearch.threadpool.Scheduler;
+import org.opensearch.threadpool.ThreadPool;
+import org.opensearch.transport.client.Client;
+
+/**
+ * Node local sink of feature logs, bulk indexed into the index requested by the log spec.
+ * <p>
+ * Logs are queued by the fetch phase without blocking and indexed by a background task.
+ * Logs are indexed with the thread context of the search that produced them, captured with {@link #captureContext()}:
+ * the user who sent the search needs the privileges to write into the sink index.
+ * When the queue is full new logs are dropped and counted, search requests are never slowed down by the sink.
+ */
+public class FeatureLogSink extends AbstractLifecycleComponent {
+    public static final Setting<Integer> LTR_LOG_SINK_QUEUE_SIZE = Setting
+        .intSetting("ltr.logging.sink.queue_size", 10000, 1, Setting.Property.NodeScope);
+    public static final Setting<Integer> LTR_LOG_SINK_BULK_SIZE = Setting
+        .intSetting("ltr.logging.sink.bulk_size", 500, 1, Setting.Property.NodeScope);
+    public static final Setting<TimeValue> LTR_LOG_SINK_FLUSH_INTERVAL = Setting
+        .timeSetting(
+            "ltr.logging.sink.flush_interval",
+            TimeValue.timeValueSeconds(1),
+            TimeValue.timeValueMillis(10),
+            Setting.Property.NodeScope
+        );
+
+    private static final Logger logger = LogManager.getLogger(FeatureLogSink.class);
+
+    private final BlockingQueue<Entry> queue;
+    private final int bulkSize;
+    private final TimeValue flushInterval;
+    // Only one flush is in flight at a time, a flush sends one bulk request per captured context
+    private final AtomicBoolean flushing = new AtomicBoolean();
+    private final CounterMetric dropped = new CounterMetric();
+    private final CounterMetric indexed = new CounterMetric();
+    private final CounterMetric failed = new CounterMetric();
+    private Client client;
+    private ThreadPool threadPool;
+    private Scheduler.Cancellable scheduledFlush;
+
+    public FeatureLogSink(Settings settings) {
+        this.queue = new ArrayBlockingQueue<>(LTR_LOG_SINK_QUEUE_SIZE.get(settings));
+        this.bulkSize = LTR_LOG_SINK_BULK_SIZE.get(settings);
+        this.flushInterval = LTR_LOG_SINK_FLUSH_INTERVAL.get(settings);
+    }
+
+    /**
+     * Must be called before the sink is started.
+     */
+    public void init(Client client, ThreadPool threadPool) {
+        this.client = Objects.requireNonNull(client);
+        this.threadPool = Objects.requireNonNull(threadPool);
+    }
+
+    @Override
+    protected void doStart() {
+        scheduledFlush = threadPool.scheduleWithFixedDelay(this::flush, flushInterval, ThreadPool.Names.GENERIC);
+    }
+
+    @Override
+    protected void doStop() {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel();
+        }
+        // Best effort: logs still queued after this last bulk are lost
+        flush();
+    }
+
+    @Override
+    protected void doClose() {}
+
+    /**
+     * Queue a log without blocking.
+     *
+     * @return false if the log was dropped because the queue is full or the sink is not started
+     */
+    public boolean offer(Entry entry) {
+        if (lifecycleState() != Lifecycle.State.STARTED || !queue.offer(entry)) {
+            dropped.inc();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Capture the thread context of the caller, to be given to the entries it sends
+     */
+    public Supplier<ThreadContext.StoredContext> captureContext() {
+        return threadPool.getThreadContext().newRestorableContext(false);
+    }
+
+    void flush() {
+        if (!flushing.compareAndSet(false, true)) {
+            return;
+        }
+        List<Entry> batch = new ArrayList<>(Math.min(bulkSize, queue.size()));
+        queue.drainTo(batch, bulkSize);
+        if (batch.isEmpty()) {
+            flushing.set(false);
+            return;
+        }
+        // Entries of the same search share their captured context
+        Map<Supplier<ThreadContext.StoredContext>, BulkRequest> bulks = new LinkedHashMap<>();
+        for (Entry entry : batch) {
+            bulks.computeIfAbsent(entry.context, (c) -> new BulkRequest()).add(new IndexRequest(entry.index).source(entry.source));
+        }
+        AtomicInteger pending = new AtomicInteger(bulks.size());
+        for (Map.Entry<Supplier<ThreadContext.StoredContext>, BulkRequest> bulk : bulks.entrySet()) {
+            int count = bulk.getValue().numberOfActions();
+            ActionListener<BulkResponse> listener = ActionListener
+                .wrap((r) -> onBulkResponse(r, pending), (e) -> onBulkFailure(count, e, pending));
+            // Logs are indexed on behalf of the user who sent the search, not with the privileges of the plugin
+            try (ThreadContext.StoredContext ignore = bulk.getKey().get()) {
+                client.bulk(bulk.getValue(), listener);
+            } catch (Exception e) {
+                listener.onFailure(e);
+            }
+        }
+    }
+
+    private void onBulkResponse(BulkResponse response, AtomicInteger pending) {
+        int failures = 0;
+        for (BulkItemResponse item : response.getItems()) {
+            if (item.isFailed()) {
+                failures++;
+            }
+        }
+        if (failures > 0) {
+            logger.warn("Failed to index [{}] feature logs: {}", failures, response.buildFailureMessage());
+        }
+        failed.inc(failures);
+        indexed.inc(response.getItems().length - failures);
+        onBulkDone(pending);
+    }
+
+    private void onBulkFailure(int count, Exception e, AtomicInteger pending) {
+        logger.warn("Failed to index [" + count + "] feature logs", e);
+        failed.inc(count);
+        onBulkDone(pending);
+    }
+
+    private void onBulkDone(AtomicInteger pending) {
+        if (pending.decrementAndGet() > 0) {
+            return;
+        }
+        flushing.set(false);
+        // Keep draining without waiting for the next scheduled flush when logs come in faster than the flush interval
+        if (queue.size() >= bulkSize && lifecycleState() == Lifecycle.State.STARTED) {
+            // The next flush must not run in the context of the user of the last bulk
+            try (ThreadContext.StoredContext ignore = threadPool.getThreadContext().stashContext()) {
+                threadPool.generic().execute(this::flush);
+            }
+        }
+    }
+
+    /**
+     * Counters of the sink, exposed by the plugin stats
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("queued", queue.size());
+        stats.put("dropped", dropped.count());
+        stats.put("indexed", indexed.count());
+        stats.put("failed", failed.count());
+        return Collections.unmodifiableMap(stats);
+    }
+
+    /**
+     * A feature log, the index it is sent to and the context it is indexed with
+     */
+    public static class Entry {
+        private final String index;
+        private final Map<String, Object> source;
+        private final Supplier<ThreadContext.StoredContext> context;
+
+        /**
+         * @param context the context of the search that produced the log, from {@link FeatureLogSink#captureContext()}
+         */
+        public Entry(String index, Map<String, Object> source, Supplier<ThreadContext.StoredContext> context) {
+            this.index = Objects.requireNonNull(index);
+            this.source = Objects.requireNonNull(source);
+            this.context = Objects.requireNonNull(context);
+        }
+
+        public String getIndex() {
+            return index;
+        }
+
+        public Map<String, Object> getSource() {
+            return source;
+        }
+    }
+}
@@ -18,66 +18,112 @@ package com.o19s.es.ltr.logging;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import org.apache.lucene.index.LeafReaderContext;
-import org.apache.lucene.search.BooleanClause;
-import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.BoostQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreMode;
 import org.apache.lucene.search.Scorer;
 import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.opensearch.common.Nullable;
+import org.opensearch.common.Randomness;
 import org.opensearch.common.collect.Tuple;
 import org.opensearch.common.document.DocumentField;
+import org.opensearch.common.util.concurrent.ThreadContext;
+import org.opensearch.ltr.breaker.LTRRequestBreaker;
+import org.opensearch.ltr.stats.LatencyHistogram;
 import org.opensearch.search.SearchHit;
+import org.opensearch.search.SearchShardTask;
 import org.opensearch.search.fetch.FetchContext;
 import org.opensearch.search.fetch.FetchSubPhase;
 import org.opensearch.search.fetch.FetchSubPhaseProcessor;
+import org.opensearch.search.internal.SearchContext;
 import org.opensearch.search.rescore.QueryRescorer;
 import org.opensearch.search.rescore.RescoreContext;
+import org.opensearch.tasks.TaskId;
 
 import com.o19s.es.ltr.feature.FeatureSet;
 import com.o19s.es.ltr.query.RankerQuery;
 import com.o19s.es.ltr.ranker.LogLtrRanker;
 
 public class LoggingFetchSubPhase implements FetchSubPhase {
+    private final LoggingRateLimiter rateLimiter;
+    private final FeatureLogSink logSink;
+    private final LatencyHistogram loggingLatency;
+
+    public LoggingFetchSubPhase() {
+        this(new LoggingRateLimiter(), null, null);
+    }
+
+    /**
+     * @param rateLimiter node wide budget of logged hits
+     * @param logSink sink of the log specs sending their logs to an index, null if not available
+     * @param loggingLatency histogram of the time spent logging each hit, null if not tracked
+     */
+    public LoggingFetchSubPhase(
+        LoggingRateLimiter rateLimiter,
+        @Nullable FeatureLogSink logSink,
+        @Nullable LatencyHistogram loggingLatency
+    ) {
+        this.rateLimiter = rateLimiter;
+        this.logSink = logSink;
+        this.loggingLatency = loggingLatency;
+    }
+
     @Override
     public FetchSubPhaseProcessor getProcessor(FetchContext context) throws IOException {
         LoggingSearchExtBuilder ext = (LoggingSearchExtBuilder) context.getSearchExt(LoggingSearchExtBuilder.NAME);
-        if (ext == null) {
+        if (ext == null || !rateLimiter.hasCapacity()) {
+            return null;
+        }
+        // Sampling is decided per search request: every shard of a sampled request logs its hits
+        long requestSeed = requestSeed(context.getSearchContext());
+        List<LoggingSearchExtBuilder.LogSpec> allLogSpecs = ext.logSpecsStream().collect(Collectors.toList());
+        List<LoggingSearchExtBuilder.LogSpec> logSpecs = new ArrayList<>(allLogSpecs.size());
+        for (int i = 0; i < allLogSpecs.size(); i++) {
+            if (isSampled(allLogSpecs.get(i).getSampleRate(), requestSeed, i)) {
+                logSpecs.add(allLogSpecs.get(i));
+            }
+        }
+        if (logSpecs.isEmpty()) {
             return null;
         }
 
-        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        List<RankerQuery> queries = new ArrayList<>();
         List<HitLogConsumer> loggers = new ArrayList<>();
         Map<String, Query> namedQueries = context.parsedQuery().namedFilters();
-        boolean hasNamedQueryLogSpecs = ext.logSpecsStream().anyMatch((l) -> l.getNamedQuery() != null);
+        boolean hasNamedQueryLogSpecs = logSpecs.stream().anyMatch((l) -> l.getNamedQuery() != null);
 
         if (namedQueries.size() > 0) {
             // Named queries exist: process both named query and rescore logging
-            ext.logSpecsStream().filter((l) -> l.getNamedQuery() != null).forEach((l) -> {
-                Tuple<RankerQuery, HitLogConsumer> query = extractQuery(l, namedQueries);
-                builder.add(new BooleanClause(query.v1(), BooleanClause.Occur.MUST));
+            logSpecs.stream().filter((l) -> l.getNamedQuery() != null).forEach((l) -> {
+                Tuple<RankerQuery, HitLogConsumer> query = extractQuery(l, namedQueries, context.getIndexName());
+                queries.add(query.v1());
                 loggers.add(query.v2());
             });
 
-            ext.logSpecsStream().filter((l) -> l.getRescoreIndex() != null).forEach((l) -> {
-                Tuple<RankerQuery, HitLogConsumer> query = extractRescore(l, context.rescore());
-                builder.add(new BooleanClause(query.v1(), BooleanClause.Occur.MUST));
+            logSpecs.stream().filter((l) -> l.getRescoreIndex() != null).forEach((l) -> {
+                Tuple<RankerQuery, HitLogConsumer> query = extractRescore(l, context.rescore(), context.getIndexName());
+                queries.add(query.v1());
                 loggers.add(query.v2());
             });
         } else if (!hasNamedQueryLogSpecs) {
             // Rescore-only: user only requested rescore logging, not named query logging.
             List<RescoreContext> rescoreContexts = context.rescore();
             if (rescoreContexts != null && rescoreContexts.size() > 0) {
-                ext.logSpecsStream().filter((l) -> l.getRescoreIndex() != null).forEach((l) -> {
-                    Tuple<RankerQuery, HitLogConsumer> query = extractRescore(l, rescoreContexts);
-                    builder.add(new BooleanClause(query.v1(), BooleanClause.Occur.MUST));
+                logSpecs.stream().filter((l) -> l.getRescoreIndex() != null).forEach((l) -> {
+                    Tuple<RankerQuery, HitLogConsumer> query = extractRescore(l, rescoreContexts, context.getIndexName());
+                    queries.add(query.v1());
                     loggers.add(query.v2());
                 });
             }
@@ -88,18 +134,55 @@ public class LoggingFetchSubPhase implements FetchSubPhase {
             return null;
         }
 
-        Weight w = context.searcher().rewrite(builder.build()).createWeight(context.searcher(), ScoreMode.COMPLETE, 1.0F);
+        // One weight per logger: loggers are evaluated independently of each other
+        List<Weight> weights = new ArrayList<>(queries.size());
+        for (RankerQuery query : queries) {
+            weights.add(context.searcher().rewrite(query).createWeight(context.searcher(), ScoreMode.COMPLETE, 1.0F));
+        }
+        return new LoggingFetchSubPhaseProcessor(weights, loggers, rateLimiter, loggingLatency);
+    }
+
+    /**
+     * Seed of the sampling decisions, the same on every shard of a search request: derived from the id of the
+     * coordinating search task, the parent of the shard requests.
+     */
+    private static long requestSeed(SearchContext searchContext) {
+        SearchShardTask task = searchContext != null ? searchContext.getTask() : null;
+        if (task == null || !task.getParentTaskId().isSet()) {
+            // Not part of a distributed search request, sampled on this shard only
+            return Randomness.get().nextLong();
+        }
+        TaskId parent = task.getParentTaskId();
+        return ((long) parent.getNodeId().hashCode() << 32) ^ parent.getId();
+    }
 
-        return new LoggingFetchSubPhaseProcessor(w, loggers);
+    /**
+     * Whether the log spec at the given index is sampled, log specs of the same request are sampled independently
+     */
+    static boolean isSampled(double sampleRate, long requestSeed, int logSpecIndex) {
+        if (sampleRate >= 1D) {
+            return true;
+        }
+        // SplitMix64 finalizer: uniformly distributed even for sequential task ids
+        long z = requestSeed + (logSpecIndex + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z ^= z >>> 31;
+        return (z >>> 11) * 0x1.0p-53 < sampleRate;
     }
 
-    private Tuple<RankerQuery, HitLogConsumer> extractQuery(LoggingSearchExtBuilder.LogSpec logSpec, Map<String, Query> namedQueries) {
+    private Tuple<RankerQuery, HitLogConsumer> extractQuery(
+        LoggingSearchExtBuilder.LogSpec logSpec,
+        Map<String, Query> namedQueries,
+        String indexName
+    ) {
         Query q = namedQueries.get(logSpec.getNamedQuery());
         if (q == null) {
             throw new IllegalArgumentException("No query named [" + logSpec.getNamedQuery() + "] found");
         }
         return toLogger(
             logSpec,
+            indexName,
             inspectQuery(q)
                 .orElseThrow(
                     () -> new IllegalArgumentException(
@@ -115,7 +198,11 @@ public class LoggingFetchSubPhase implements FetchSubPhase {
         );
     }
 
-    private Tuple<RankerQuery, HitLogConsumer> extractRescore(LoggingSearchExtBuilder.LogSpec logSpec, List<RescoreContext> contexts) {
+    private Tuple<RankerQuery, HitLogConsumer> extractRescore(
+        LoggingSearchExtBuilder.LogSpec logSpec,
+        List<RescoreContext> contexts,
+        String indexName
+    ) {
         if (logSpec.getRescoreIndex() >= contexts.size()) {
             throw new IllegalArgumentException(
                 "rescore index ["
@@ -141,6 +228,7 @@ public class LoggingFetchSubPhase implements FetchSubPhase {
         QueryRescorer.QueryRescoreContext qrescore = (QueryRescorer.QueryRescoreContext) context;
         return toLogger(
             logSpec,
+            indexName,
             inspectQuery(qrescore.parsedQuery().query())
                 .orElseThrow(
                     () -> new IllegalArgumentException(
@@ -165,44 +253,132 @@ public class LoggingFetchSubPhase implements FetchSubPhase {
         return Optional.empty();
     }
 
-    private Tuple<RankerQuery, HitLogConsumer> toLogger(LoggingSearchExtBuilder.LogSpec logSpec, RankerQuery query) {
-        HitLogConsumer consumer = new HitLogConsumer(logSpec.getLoggerName(), query.featureSet(), logSpec.isMissingAsZero());
+    private Tuple<RankerQuery, HitLogConsumer> toLogger(LoggingSearchExtBuilder.LogSpec logSpec, String indexName, RankerQuery query) {
+        HitLogConsumer consumer = new HitLogConsumer(
+            logSpec.getLoggerName(),
+            query.featureSet(),
+            logSpec.isMissingAsZero(),
+            logSpec.getFormat()
+        );
+        if (logSpec.getMaxHits() != null) {
+            consumer.setMaxHits(logSpec.getMaxHits());
+        }
+        consumer.setRequestedModel(query.requestedModel());
+        if (logSpec.getSinkIndex() != null) {
+            if (logSink == null) {
+                throw new IllegalArgumentException("Logger [" + logSpec.getLoggerName() + "] requires a log sink but none is available");
+            }
+            consumer.sendTo(logSink, logSpec.getSinkIndex(), indexName);
+        }
         query = query.toLoggerQuery(consumer);
         return new Tuple<>(query, consumer);
     }
 
+    /**
+     * Logs the hits of a segment with one scorer per logger.
+     * <p>
+     * Hits are fetched in doc id order within a segment so each scorer only moves forward over the segment.
+     * A scorer is created again if a hit comes out of order, and a logger that does not match a hit does not
+     * prevent the other loggers from logging it.
+     * Hits are no longer logged once the node wide rate limit is reached or all the loggers logged their maximum number of hits.
+     */
     static class LoggingFetchSubPhaseProcessor implements FetchSubPhaseProcessor {
-        private final Weight weight;
+        // Memory reserved at once in the breaker for the logs of the hits
+        private static final long LOG_RESERVATION_CHUNK_BYTES = 32 * 1024;
+        private final List<Weight> weights;
         private final List<HitLogConsumer> loggers;
-        private Scorer scorer;
+        private final LoggingRateLimiter rateLimiter;
+        private final LatencyHistogram loggingLatency;
+        private final LTRRequestBreaker.Account.Reservation logReservation;
+        private final Scorer[] scorers;
+        private LeafReaderContext readerContext;
 
-        LoggingFetchSubPhaseProcessor(Weight weight, List<HitLogConsumer> loggers) {
-            this.weight = weight;
+        LoggingFetchSubPhaseProcessor(List<Weight> weights, List<HitLogConsumer> loggers) {
+            this(weights, loggers, new LoggingRateLimiter(() -> -1, System::nanoTime));
+        }
+
+        LoggingFetchSubPhaseProcessor(List<Weight> weights, List<HitLogConsumer> loggers, LoggingRateLimiter rateLimiter) {
+            this(weights, loggers, rateLimiter, null);
+        }
+
+        LoggingFetchSubPhaseProcessor(
+            List<Weight> weights,
+            List<HitLogConsumer> loggers,
+            LoggingRateLimiter rateLimiter,
+            @Nullable LatencyHistogram loggingLatency
+        ) {
+            assert weights.size() == loggers.size();
+            this.weights = weights;
             this.loggers = loggers;
+            this.rateLimiter = rateLimiter;
+            this.loggingLatency = loggingLatency;
+            // Logs are attached to the hits until the fetch phase of the request completes
+            this.logReservation = LTRRequestBreaker.getInstance().account("ltr_feature_logs").reservation(LOG_RESERVATION_CHUNK_BYTES);
+            this.scorers = new Scorer[weights.size()];
         }
 
         @Override
         public void setNextReader(LeafReaderContext readerContext) throws IOException {
-            scorer = weight.scorer(readerContext);
+            this.readerContext = readerContext;
+            // Scorers are created on the first hit of the segment that needs them
+            Arrays.fill(scorers, null);
         }
 
         @Override
         public void process(HitContext hitContext) throws IOException {
-            if (scorer != null && scorer.iterator().advance(hitContext.docId()) == hitContext.docId()) {
-                loggers.forEach((l) -> l.nextDoc(hitContext.hit()));
-                // Scoring will trigger log collection
-                scorer.score();
+            if (loggers.stream().allMatch(HitLogConsumer::isFull) || !rateLimiter.tryAcquire()) {
+                return;
+            }
+            long start = System.nanoTime();
+            logHit(hitContext);
+            if (loggingLatency != null) {
+                loggingLatency.record(System.nanoTime() - start);
+            }
+        }
+
+        private void logHit(HitContext hitContext) throws IOException {
+            int docId = hitContext.docId();
+            for (int i = 0; i < scorers.length; i++) {
+                if (loggers.get(i).isFull()) {
+                    continue;
+                }
+                Scorer scorer = scorers[i];
+                if (scorer == null || scorer.docID() > docId) {
+                    scorer = weights.get(i).scorer(readerContext);
+                    scorers[i] = scorer;
+                    if (scorer == null) {
+                        continue;
+                    }
+                }
+                int doc = scorer.docID() < docId ? scorer.iterator().advance(docId) : scorer.docID();
+                if (doc == docId) {
+                    logReservation.reserve(loggers.get(i).estimatedHitBytes());
+                    loggers.get(i).nextDoc(hitContext.hit());
+                    // Scoring will trigger log collection
+                    scorer.score();
+                    loggers.get(i).endDoc();
+                }
             }
         }
     }
 
     static class HitLogConsumer implements LogLtrRanker.LogConsumer {
         private static final String FIELD_NAME = "_ltrlog";
+        // Compact format only: feature names logged on the first hit logged by the shard (see LogFormat#COMPACT), and
+        // extra logging kept apart from the values
+        private static final String NAMES_FIELD_NAME = "_ltrlog_features";
+        private static final String EXTRA_FIELD_NAME = "_ltrlog_extra";
         private static final String EXTRA_LOGGING_NAME = "extra_logging";
+        // Loggers of a query that ran the fallback of its model under load, with the name of the model requested
+        private static final String FALLBACK_FIELD_NAME = "_ltrlog_fallback";
+        // Verbose format: a map holding the name and the boxed value of a feature
+        private static final long VERBOSE_FEATURE_BYTES = 224;
         private final String name;
         private final FeatureSet set;
         private final boolean missingAsZero;
+        private final LoggingSearchExtBuilder.LogFormat format;
 
+        // Verbose format:
         // [
         // {
         // "name": "featureName",
@@ -213,16 +389,77 @@ public class LoggingFetchSubPhase implements FetchSubPhase {
         // }
         // ]
         private List<Map<String, Object>> currentLog;
+        // Compact format: [1.33, NaN]
+        private float[] currentValues;
+        private boolean namesLogged;
+        private int maxHits = -1;
+        private int loggedHits;
+        // Logs sent to a sink instead of being added to the hits
+        private FeatureLogSink sink;
+        private String sinkIndex;
+        private Supplier<ThreadContext.StoredContext> sinkContext;
+        private String indexName;
         private SearchHit currentHit;
         private Map<String, Object> extraLogging;
+        private String requestedModel;
 
         HitLogConsumer(String name, FeatureSet set, boolean missingAsZero) {
+            this(name, set, missingAsZero, LoggingSearchExtBuilder.LogFormat.VERBOSE);
+        }
+
+        HitLogConsumer(String name, FeatureSet set, boolean missingAsZero, LoggingSearchExtBuilder.LogFormat format) {
             this.name = name;
             this.set = set;
             this.missingAsZero = missingAsZero;
+            this.format = format;
+        }
+
+        void setMaxHits(int maxHits) {
+            this.maxHits = maxHits;
+        }
+
+        /**
+         * Flag the logged hits: the features logged are the ones of the fallback of the requested model
+         */
+        void setRequestedModel(String requestedModel) {
+            this.requestedModel = requestedModel;
+        }
+
+        /**
+         * Send the logs to the sink, the hits of indexName are left untouched. Must be called in the thread context of
+         * the search: the logs are indexed with it.
+         */
+        void sendTo(FeatureLogSink sink, String sinkIndex, String indexName) {
+            this.sink = sink;
+            this.sinkIndex = sinkIndex;
+            this.sinkContext = sink.captureContext();
+            this.indexName = indexName;
+        }
+
+        /**
+         * @return true if this logger logged its maximum number of hits
+         */
+        boolean isFull() {
+            return maxHits >= 0 && loggedHits >= maxHits;
+        }
+
+        /**
+         * Rough size of the log of a hit, reserved in the LTR circuit breaker before the hit is logged
+         */
+        long estimatedHitBytes() {
+            if (format == LoggingSearchExtBuilder.LogFormat.COMPACT || sink != null) {
+                return RamUsageEstimator.alignObjectSize(RamUsageEstimator.NUM_BYTES_ARRAY_HEADER + (long) Float.BYTES * set.size());
+            }
+            return VERBOSE_FEATURE_BYTES * set.size();
         }
 
         private void rebuild() {
+            extraLogging = null;
+            if (format == LoggingSearchExtBuilder.LogFormat.COMPACT || sink != null) {
+                currentValues = new float[set.size()];
+                Arrays.fill(currentValues, missingAsZero ? 0F : Float.NaN);
+                return;
+            }
             // Allocate one Map per feature, plus one placeholder for an extra logging Map
             // that will only be added if used.
             List<Map<String, Object>> ini = new ArrayList<>(set.size() + 1);
@@ -236,13 +473,16 @@ public class LoggingFetchSubPhase implements FetchSubPhase {
                 ini.add(i, defaultKeyVal);
             }
             currentLog = ini;
-            extraLogging = null;
         }
 
         @Override
         public void accept(int featureOrdinal, float score) {
-            assert currentLog != null;
             assert currentHit != null;
+            if (currentValues != null) {
+                currentValues[featureOrdinal] = score;
+                return;
+            }
+            assert currentLog != null;
             currentLog.get(featureOrdinal).put("value", score);
         }
 
@@ -255,29 +495,85 @@ public class LoggingFetchSubPhase implements FetchSubPhase {
         public Map<String, Object> getExtraLoggingMap() {
             if (extraLogging == null) {
                 extraLogging = new HashMap<>();
-                Map<String, Object> logEntry = new HashMap<>();
-                logEntry.put("name", EXTRA_LOGGING_NAME);
-                logEntry.put("value", extraLogging);
-                currentLog.add(logEntry);
+                // Logs sent to a sink get the map from endDoc
+                if (sink == null && currentValues != null) {
+                    logEntries(currentHit, EXTRA_FIELD_NAME).put(name, extraLogging);
+                } else if (sink == null) {
+                    Map<String, Object> logEntry = new HashMap<>();
+                    logEntry.put("name", EXTRA_LOGGING_NAME);
+                    logEntry.put("value", extraLogging);
+                    currentLog.add(logEntry);
+                }
             }
             return extraLogging;
         }
 
         void nextDoc(SearchHit hit) {
-            DocumentField logs = hit.getFields().get(FIELD_NAME);
-            if (logs == null) {
-                logs = newLogField();
-                hit.setDocumentField(FIELD_NAME, logs);
-            }
-            Map<String, List<Map<String, Object>>> entries = logs.getValue();
             rebuild();
             currentHit = hit;
-            entries.put(name, currentLog);
+            loggedHits++;
+            if (sink != null) {
+                return;
+            }
+            if (requestedModel != null) {
+                logEntries(hit, FALLBACK_FIELD_NAME).put(name, requestedModel);
+            }
+            Map<String, Object> entries = logEntries(hit, FIELD_NAME);
+            if (currentValues != null) {
+                entries.put(name, currentValues);
+                if (!namesLogged) {
+                    List<String> names = new ArrayList<>(set.size());
+                    for (int i = 0; i < set.size(); i++) {
+                        names.add(set.feature(i).name());
+                    }
+                    logEntries(hit, NAMES_FIELD_NAME).put(name, names);
+                    namesLogged = true;
+                }
+            } else {
+                entries.put(name, currentLog);
+            }
+        }
+
+        /**
+         * Called once the current doc is scored and its features are collected
+         */
+        void endDoc() {
+            if (sink == null) {
+                return;
+            }
+            Map<String, Object> features = new LinkedHashMap<>();
+            for (int i = 0; i < currentValues.length; i++) {
+                if (!Float.isNaN(currentValues[i])) {
+                    features.put(set.feature(i).name(), currentValues[i]);
+                }
+            }
+            Map<String, Object> source = new HashMap<>();
+            source.put("@timestamp", System.currentTimeMillis());
+            source.put("logger", name);
+            source.put("index", indexName);
+            source.put("doc_id", currentHit.getId());
+            source.put("features", features);
+            if (extraLogging != null) {
+                source.put(EXTRA_LOGGING_NAME, extraLogging);
+            }
+            if (requestedModel != null) {
+                source.put("fallback_for", requestedModel);
+            }
+            sink.offer(new FeatureLogSink.Entry(sinkIndex, source, sinkContext));
+        }
+
+        private static Map<String, Object> logEntries(SearchHit hit, String fieldName) {
+            DocumentField logs = hit.getFields().get(fieldName);
+            if (logs == null) {
+                logs = newLogField(fieldName);
+                hit.setDocumentField(fieldName, logs);
+            }
+            return logs.getValue();
         }
 
-        DocumentField newLogField() {
-            List<Object> logList = Collections.singletonList(new HashMap<String, List<Map<String, Object>>>());
-            return new DocumentField(FIELD_NAME, logList);
+        private static DocumentField newLogField(String fieldName) {
+            List<Object> logList = Collections.singletonList(new HashMap<String, Object>());
+            return new DocumentField(fieldName, logList);
         }
     }
 }
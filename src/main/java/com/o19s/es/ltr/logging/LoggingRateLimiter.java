@@ -0,0 +1,90 @@
+/*
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.o19s.es.ltr.logging;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+import org.opensearch.ltr.settings.LTRSettings;
+
+/**
+ * Node wide budget of logged hits per second, shared by all the requests logging features.
+ * <p>
+ * The budget is counted over fixed one second windows, a negative budget disables the limit.
+ */
+public class LoggingRateLimiter {
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final IntSupplier maxLogsPerSecond;
+    private final LongSupplier nanoClock;
+    // guarded by this
+    private long windowStart;
+    private int logged;
+
+    public LoggingRateLimiter() {
+        this(LTRSettings::getLoggingMaxLogsPerSecond, System::nanoTime);
+    }
+
+    public LoggingRateLimiter(IntSupplier maxLogsPerSecond, LongSupplier nanoClock) {
+        this.maxLogsPerSecond = maxLogsPerSecond;
+        this.nanoClock = nanoClock;
+        this.windowStart = nanoClock.getAsLong();
+    }
+
+    /**
+     * @return true if the budget of the current window is not exhausted
+     */
+    public boolean hasCapacity() {
+        int max = maxLogsPerSecond.getAsInt();
+        if (max < 0) {
+            return true;
+        }
+        synchronized (this) {
+            rollWindow();
+            return logged < max;
+        }
+    }
+
+    /**
+     * Take one log from the budget of the current window.
+     *
+     * @return true if the hit can be logged
+     */
+    public boolean tryAcquire() {
+        int max = maxLogsPerSecond.getAsInt();
+        if (max < 0) {
+            return true;
+        }
+        synchronized (this) {
+            rollWindow();
+            if (logged < max) {
+                logged++;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private void rollWindow() {
+        long now = nanoClock.getAsLong();
+        if (now - windowStart >= WINDOW_NANOS) {
+            windowStart = now;
+            logged = 0;
+        }
+    }
+}
@@ -19,6 +19,7 @@ package com.o19s.es.ltr.logging;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Objects;
 import java.util.stream.Stream;
 
@@ -34,6 +35,8 @@ import org.opensearch.core.xcontent.XContentBuilder;
 import org.opensearch.core.xcontent.XContentParser;
 import org.opensearch.search.SearchExtBuilder;
 
+import com.o19s.es.ltr.Constants;
+
 public class LoggingSearchExtBuilder extends SearchExtBuilder {
     public static final String NAME = "ltr_log";
 
@@ -99,6 +102,49 @@ public class LoggingSearchExtBuilder extends SearchExtBuilder {
         return this;
     }
 
+    public LoggingSearchExtBuilder addQueryLogging(String name, String namedQuery, boolean missingAsZero, LogFormat format) {
+        LogSpec spec = new LogSpec(name, Objects.requireNonNull(namedQuery), missingAsZero);
+        spec.format = Objects.requireNonNull(format);
+        addLogSpec(spec);
+        return this;
+    }
+
+    public LoggingSearchExtBuilder addRescoreLogging(String name, int rescoreIndex, boolean missingAsZero, LogFormat format) {
+        LogSpec spec = new LogSpec(name, rescoreIndex, missingAsZero);
+        spec.format = Objects.requireNonNull(format);
+        addLogSpec(spec);
+        return this;
+    }
+
+    /**
+     * Sample the last added log spec: log only a fraction of the requests, and at most maxHits hits per shard.
+     *
+     * @param sampleRate fraction of the requests to log, between 0 and 1
+     * @param maxHits maximum number of hits logged per shard, null for no limit
+     */
+    public LoggingSearchExtBuilder sampling(double sampleRate, @Nullable Integer maxHits) {
+        if (logSpecs == null || logSpecs.isEmpty()) {
+            throw new IllegalStateException("No log spec to sample");
+        }
+        LogSpec spec = logSpecs.get(logSpecs.size() - 1);
+        spec.setSampleRate(sampleRate);
+        spec.setMaxHits(maxHits);
+        return this;
+    }
+
+    /**
+     * Send the logs of the last added log spec to the node local log sink instead of the search response.
+     *
+     * @param sinkIndex the index the logs are bulk indexed into
+     */
+    public LoggingSearchExtBuilder sinkIndex(String sinkIndex) {
+        if (logSpecs == null || logSpecs.isEmpty()) {
+            throw new IllegalStateException("No log spec to send to a sink");
+        }
+        logSpecs.get(logSpecs.size() - 1).setSinkIndex(Objects.requireNonNull(sinkIndex));
+        return this;
+    }
+
     private void addLogSpec(LogSpec spec) {
         if (logSpecs == null) {
             logSpecs = new ArrayList<>();
@@ -123,11 +169,52 @@ public class LoggingSearchExtBuilder extends SearchExtBuilder {
         return Objects.equals(logSpecs, o.logSpecs);
     }
 
+    /**
+     * Layout of the feature logs added to the hits.
+     * <p>
+     * Whatever the layout, hits logged from a query that ran the fallback of its model under load also get a
+     * {@code _ltrlog_fallback} field, keyed by log name, holding the name of the model requested: the features logged
+     * are the ones of the fallback model.
+     */
+    public enum LogFormat {
+        /**
+         * One object holding the name and the value of each feature
+         */
+        VERBOSE,
+        /**
+         * One array of feature values per hit in feature set order, NaN standing for missing values.
+         * <p>
+         * The feature names are logged once per shard, not once per search response: each shard adds them, under the
+         * {@code _ltrlog_features} field keyed by log name, to the first hit it logs. A response thus holds one copy
+         * of the names per shard that logged hits, on whichever hits these are once the shards are merged, and the
+         * first hit of the response may have none. All the shards log the same feature set for a log spec, clients
+         * read the names from any hit holding them.
+         */
+        COMPACT;
+
+        public static LogFormat fromString(String format) {
+            for (LogFormat f : values()) {
+                if (f.getName().equals(format)) {
+                    return f;
+                }
+            }
+            throw new IllegalArgumentException("Unknown log format [" + format + "], expected [verbose] or [compact]");
+        }
+
+        public String getName() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
     public static class LogSpec implements Writeable, ToXContentObject {
         private static final ParseField LOGGER_NAME = new ParseField("name");
         private static final ParseField NAMED_QUERY = new ParseField("named_query");
         private static final ParseField RESCORE_INDEX = new ParseField("rescore_index");
         private static final ParseField MISSING_AS_ZERO = new ParseField("missing_as_zero");
+        private static final ParseField FORMAT = new ParseField("format");
+        private static final ParseField SAMPLE_RATE = new ParseField("sample_rate");
+        private static final ParseField MAX_HITS = new ParseField("max_hits");
+        private static final ParseField SINK_INDEX = new ParseField("sink_index");
 
         private static final ObjectParser<LogSpec, Void> PARSER;
 
@@ -137,11 +224,19 @@ public class LoggingSearchExtBuilder extends SearchExtBuilder {
             PARSER.declareString(LogSpec::setNamedQuery, NAMED_QUERY);
             PARSER.declareInt(LogSpec::setRescoreIndex, RESCORE_INDEX);
             PARSER.declareBoolean(LogSpec::setMissingAsZero, MISSING_AS_ZERO);
+            PARSER.declareString(LogSpec::setFormat, FORMAT);
+            PARSER.declareDouble(LogSpec::setSampleRate, SAMPLE_RATE);
+            PARSER.declareInt(LogSpec::setMaxHits, MAX_HITS);
+            PARSER.declareString(LogSpec::setSinkIndex, SINK_INDEX);
         }
         private String loggerName;
         private String namedQuery;
         private Integer rescoreIndex;
         private boolean missingAsZero;
+        private LogFormat format = LogFormat.VERBOSE;
+        private double sampleRate = 1D;
+        private Integer maxHits;
+        private String sinkIndex;
 
         private LogSpec() {}
 
@@ -162,6 +257,12 @@ public class LoggingSearchExtBuilder extends SearchExtBuilder {
             namedQuery = input.readOptionalString();
             rescoreIndex = input.readOptionalVInt();
             missingAsZero = input.readBoolean();
+            if (input.getVersion().onOrAfter(Constants.VERSION_3_7_0)) {
+                format = input.readEnum(LogFormat.class);
+                sampleRate = input.readDouble();
+                maxHits = input.readOptionalVInt();
+                sinkIndex = input.readOptionalString();
+            }
         }
 
         @Override
@@ -170,6 +271,12 @@ public class LoggingSearchExtBuilder extends SearchExtBuilder {
             out.writeOptionalString(namedQuery);
             out.writeOptionalVInt(rescoreIndex);
             out.writeBoolean(missingAsZero);
+            if (out.getVersion().onOrAfter(Constants.VERSION_3_7_0)) {
+                out.writeEnum(format);
+                out.writeDouble(sampleRate);
+                out.writeOptionalVInt(maxHits);
+                out.writeOptionalString(sinkIndex);
+            }
         }
 
         private static LogSpec parse(XContentParser parser, Void context) throws IOException {
@@ -204,6 +311,18 @@ public class LoggingSearchExtBuilder extends SearchExtBuilder {
             if (missingAsZero) {
                 builder.field(MISSING_AS_ZERO.getPreferredName(), missingAsZero);
             }
+            if (format != LogFormat.VERBOSE) {
+                builder.field(FORMAT.getPreferredName(), format.getName());
+            }
+            if (sampleRate < 1D) {
+                builder.field(SAMPLE_RATE.getPreferredName(), sampleRate);
+            }
+            if (maxHits != null) {
+                builder.field(MAX_HITS.getPreferredName(), maxHits);
+            }
+            if (sinkIndex != null) {
+                builder.field(SINK_INDEX.getPreferredName(), sinkIndex);
+            }
             return builder.endObject();
         }
 
@@ -218,6 +337,14 @@ public class LoggingSearchExtBuilder extends SearchExtBuilder {
 
             if (missingAsZero != logSpec.missingAsZero)
                 return false;
+            if (format != logSpec.format)
+                return false;
+            if (Double.compare(sampleRate, logSpec.sampleRate) != 0)
+                return false;
+            if (!Objects.equals(maxHits, logSpec.maxHits))
+                return false;
+            if (!Objects.equals(sinkIndex, logSpec.sinkIndex))
+                return false;
             if (loggerName != null ? !loggerName.equals(logSpec.loggerName) : logSpec.loggerName != null)
                 return false;
             if (namedQuery != null ? !namedQuery.equals(logSpec.namedQuery) : logSpec.namedQuery != null)
@@ -231,6 +358,10 @@ public class LoggingSearchExtBuilder extends SearchExtBuilder {
             result = 31 * result + (namedQuery != null ? namedQuery.hashCode() : 0);
             result = 31 * result + (rescoreIndex != null ? rescoreIndex.hashCode() : 0);
             result = 31 * result + (missingAsZero ? 1 : 0);
+            result = 31 * result + format.hashCode();
+            result = 31 * result + Double.hashCode(sampleRate);
+            result = 31 * result + Objects.hashCode(maxHits);
+            result = 31 * result + Objects.hashCode(sinkIndex);
             return result;
         }
 
@@ -268,5 +399,52 @@ public class LoggingSearchExtBuilder extends SearchExtBuilder {
         private void setMissingAsZero(boolean missingAsZero) {
             this.missingAsZero = missingAsZero;
         }
+
+        public LogFormat getFormat() {
+            return format;
+        }
+
+        private void setFormat(String format) {
+            this.format = LogFormat.fromString(format);
+        }
+
+        /**
+         * Fraction of the requests whose hits are logged, 1 to log all requests
+         */
+        public double getSampleRate() {
+            return sampleRate;
+        }
+
+        private void setSampleRate(double sampleRate) {
+            if (!(sampleRate >= 0D && sampleRate <= 1D)) {
+                throw new IllegalArgumentException("[" + SAMPLE_RATE + "] must be between 0 and 1 but was [" + sampleRate + "]");
+            }
+            this.sampleRate = sampleRate;
+        }
+
+        /**
+         * Maximum number of hits logged per shard, null for no limit
+         */
+        public Integer getMaxHits() {
+            return maxHits;
+        }
+
+        private void setMaxHits(Integer maxHits) {
+            if (maxHits != null && maxHits <= 0) {
+                throw new IllegalArgumentException("[" + MAX_HITS + "] must be a positive integer but was [" + maxHits + "]");
+            }
+            this.maxHits = maxHits;
+        }
+
+        /**
+         * The index the logs are sent to through the node log sink, null to return the logs with the hits
+         */
+        public String getSinkIndex() {
+            return sinkIndex;
+        }
+
+        private void setSinkIndex(String sinkIndex) {
+            this.sinkIndex = sinkIndex;
+        }
     }
 }
@@ -20,9 +20,7 @@ import java.io.IOException;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.function.Supplier;
 
-import org.apache.lucene.expressions.Bindings;
 import org.apache.lucene.expressions.Expression;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.Term;
@@ -31,7 +29,6 @@ import org.apache.lucene.search.ConstantScoreScorer;
 import org.apache.lucene.search.ConstantScoreWeight;
 import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.DoubleValues;
-import org.apache.lucene.search.DoubleValuesSource;
 import org.apache.lucene.search.Explanation;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
@@ -46,6 +43,8 @@ import com.o19s.es.ltr.feature.FeatureSet;
 import com.o19s.es.ltr.ranker.LtrRanker;
 
 public class DerivedExpressionQuery extends Query implements LtrRewritableQuery {
+    private static final int NO_FEATURE = -1;
+
     private final FeatureSet features;
     private final Expression expression;
     private final Map<String, Double> queryParamValues;
@@ -72,7 +71,7 @@ public class DerivedExpressionQuery extends Query implements LtrRewritableQuery
 
     @Override
     public Query ltrRewrite(LtrRewriteContext context) {
-        return new FVDerivedExpressionQuery(this, context.getFeatureVectorSupplier());
+        return new FVDerivedExpressionQuery(this, context);
     }
 
     @Override
@@ -87,11 +86,11 @@ public class DerivedExpressionQuery extends Query implements LtrRewritableQuery
 
     static final class FVDerivedExpressionQuery extends Query {
         private final DerivedExpressionQuery query;
-        private final Supplier<LtrRanker.FeatureVector> fvSupplier;
+        private final LtrRewriteContext rewriteContext;
 
-        FVDerivedExpressionQuery(DerivedExpressionQuery query, Supplier<LtrRanker.FeatureVector> fvSupplier) {
+        FVDerivedExpressionQuery(DerivedExpressionQuery query, LtrRewriteContext rewriteContext) {
             this.query = query;
-            this.fvSupplier = fvSupplier;
+            this.rewriteContext = rewriteContext;
         }
 
         @Override
@@ -139,14 +138,14 @@ public class DerivedExpressionQuery extends Query implements LtrRewritableQuery
             // Should not be called as it is likely an indication that it'll be cached but should not...
             return sameClassAs(obj)
                 && Objects.equals(this.query, ((FVDerivedExpressionQuery) obj).query)
-                && Objects.equals(this.fvSupplier, ((FVDerivedExpressionQuery) obj).fvSupplier);
+                && Objects.equals(this.rewriteContext, ((FVDerivedExpressionQuery) obj).rewriteContext);
         }
 
         @Override
         public int hashCode() {
             assert false;
             // Should not be called as it is likely an indication that it'll be cached but should not...
-            return Objects.hash(classHash(), query, fvSupplier);
+            return Objects.hash(classHash(), query, rewriteContext);
         }
 
         @Override
@@ -155,49 +154,118 @@ public class DerivedExpressionQuery extends Query implements LtrRewritableQuery
         }
     }
 
-    static class FVWeight extends Weight {
-        private final FeatureSet features;
+    /**
+     * The expression of the feature with its variables resolved to feature ordinals, a RankerQuery scorer evaluates it
+     * inline from the feature vector of the document it scores.
+     */
+    FeatureExpression featureExpression() {
+        return new FeatureExpression(this);
+    }
+
+    static final class FeatureExpression {
         private final Expression expression;
-        private final Supplier<LtrRanker.FeatureVector> vectorSupplier;
-        private final Map<String, Double> queryParamValues;
+        // Per variable of the expression: the feature ordinal to read, or NO_FEATURE for a query param
+        private final int[] ordinals;
+        private final double[] constants;
+
+        private FeatureExpression(DerivedExpressionQuery query) {
+            expression = query.expression;
+            // Resolve the variables once, scoring a doc then only reads the vector by ordinal
+            ordinals = new int[expression.variables.length];
+            constants = new double[expression.variables.length];
+            for (int i = 0; i < expression.variables.length; i++) {
+                String name = expression.variables[i];
+                Double queryParamValue = query.queryParamValues.get(name);
+                if (queryParamValue != null) {
+                    ordinals[i] = NO_FEATURE;
+                    constants[i] = queryParamValue;
+                } else {
+                    ordinals[i] = query.features.featureOrdinal(name);
+                }
+            }
+        }
 
-        FVWeight(FVDerivedExpressionQuery query) {
-            super(query.query);
-            features = query.query.features;
-            expression = query.query.expression;
-            queryParamValues = query.query.queryParamValues;
-            vectorSupplier = query.fvSupplier;
+        /**
+         * A new evaluator, evaluators hold the values of the variables and must not be shared between threads
+         */
+        Evaluator newEvaluator() {
+            return new Evaluator(this);
         }
+    }
 
-        public void extractTerms(Set<Term> terms) {
-            // No-op
+    /**
+     * Evaluates the expression of a derived feature on a feature vector
+     */
+    static final class Evaluator {
+        private final FeatureExpression featureExpression;
+        private final VariableValues[] values;
+
+        private Evaluator(FeatureExpression featureExpression) {
+            this.featureExpression = featureExpression;
+            this.values = new VariableValues[featureExpression.ordinals.length];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = new VariableValues();
+                values[i].value = featureExpression.constants[i];
+            }
         }
 
-        public Scorer getScorer(LeafReaderContext context) throws IOException {
-            Bindings bindings = new Bindings() {
-                @Override
-                public DoubleValuesSource getDoubleValuesSource(String name) {
-                    Double queryParamValue = queryParamValues.get(name);
-                    if (queryParamValue != null) {
-                        return DoubleValuesSource.constant(queryParamValue);
-                    }
-                    return new FVDoubleValuesSource(vectorSupplier, features.featureOrdinal(name));
+        double evaluate(LtrRanker.FeatureVector vector) {
+            int[] ordinals = featureExpression.ordinals;
+            for (int i = 0; i < ordinals.length; i++) {
+                if (ordinals[i] != NO_FEATURE) {
+                    values[i].value = vector.getFeatureScore(ordinals[i]);
                 }
-            };
+            }
+            return featureExpression.expression.evaluate(values);
+        }
+    }
 
-            DocIdSetIterator iterator = DocIdSetIterator.all(context.reader().maxDoc());
-            DoubleValuesSource src = expression.getDoubleValuesSource(bindings);
-            DoubleValues values = src.getValues(context, null);
+    /**
+     * Value of a variable of the expression, set before each evaluation
+     */
+    private static final class VariableValues extends DoubleValues {
+        private double value;
 
-            return new DValScorer(this, iterator, values);
+        @Override
+        public double doubleValue() {
+            return value;
+        }
+
+        @Override
+        public boolean advanceExact(int doc) {
+            return true;
+        }
+    }
+
+    /**
+     * Explains the feature for a RankerQuery. Its scorers are only used when the weight is scored on its own: a RankerQuery
+     * evaluates derived features inline, see {@link #featureExpression()}.
+     */
+    static class FVWeight extends Weight implements FeatureVectorWeight {
+        private final FeatureExpression featureExpression;
+
+        FVWeight(FVDerivedExpressionQuery query) {
+            super(query.query);
+            featureExpression = query.query.featureExpression();
+        }
+
+        public void extractTerms(Set<Term> terms) {
+            // No-op
         }
 
         @Override
         public ScorerSupplier scorerSupplier(LeafReaderContext context) throws IOException {
+            // Not built by a RankerQuery scorer: there is no feature vector to read
+            return scorerSupplier(context, new LtrScorerContext());
+        }
+
+        @Override
+        public ScorerSupplier scorerSupplier(LeafReaderContext context, LtrScorerContext scorerContext) throws IOException {
             return new ScorerSupplier() {
                 @Override
                 public Scorer get(long leadCost) throws IOException {
-                    return getScorer(context);
+                    DocIdSetIterator iterator = DocIdSetIterator.all(context.reader().maxDoc());
+                    return new DerivedScorer(iterator, featureExpression.newEvaluator(), scorerContext);
                 }
 
                 @Override
@@ -209,17 +277,14 @@ public class DerivedExpressionQuery extends Query implements LtrRewritableQuery
 
         @Override
         public Explanation explain(LeafReaderContext context, int doc) throws IOException {
-            Bindings bindings = new Bindings() {
-                @Override
-                public DoubleValuesSource getDoubleValuesSource(String name) {
-                    return new FVDoubleValuesSource(vectorSupplier, features.featureOrdinal(name));
-                }
-            };
+            return explain(context, doc, new LtrScorerContext());
+        }
 
-            DoubleValuesSource src = expression.getDoubleValuesSource(bindings);
-            DoubleValues values = src.getValues(context, null);
-            values.advanceExact(doc);
-            return Explanation.match((float) values.doubleValue(), "Evaluation of derived expression: " + expression.sourceText);
+        @Override
+        public Explanation explain(LeafReaderContext context, int doc, LtrScorerContext scorerContext) throws IOException {
+            assert scorerContext.get() != null;
+            float score = (float) featureExpression.newEvaluator().evaluate(scorerContext.get());
+            return Explanation.match(score, "Evaluation of derived expression: " + featureExpression.expression.sourceText);
         }
 
         @Override
@@ -228,14 +293,19 @@ public class DerivedExpressionQuery extends Query implements LtrRewritableQuery
         }
     }
 
-    static class DValScorer extends Scorer {
+    /**
+     * Evaluates the expression on the feature vector of the scorer context for every document
+     */
+    static class DerivedScorer extends Scorer {
         private final DocIdSetIterator iterator;
-        private final DoubleValues values;
+        private final Evaluator evaluator;
+        private final LtrScorerContext scorerContext;
 
-        DValScorer(Weight weight, DocIdSetIterator iterator, DoubleValues values) {
+        DerivedScorer(DocIdSetIterator iterator, Evaluator evaluator, LtrScorerContext scorerContext) {
             super();
             this.iterator = iterator;
-            this.values = values;
+            this.evaluator = evaluator;
+            this.scorerContext = scorerContext;
         }
 
         @Override
@@ -245,8 +315,8 @@ public class DerivedExpressionQuery extends Query implements LtrRewritableQuery
 
         @Override
         public float score() throws IOException {
-            values.advanceExact(docID());
-            return (float) values.doubleValue();
+            assert scorerContext.get() != null;
+            return (float) evaluator.evaluate(scorerContext.get());
         }
 
         @Override
@@ -265,72 +335,6 @@ public class DerivedExpressionQuery extends Query implements LtrRewritableQuery
         }
     }
 
-    static class FVDoubleValuesSource extends DoubleValuesSource {
-        private final int ordinal;
-        private final Supplier<LtrRanker.FeatureVector> vectorSupplier;
-
-        FVDoubleValuesSource(Supplier<LtrRanker.FeatureVector> vectorSupplier, int ordinal) {
-            this.vectorSupplier = vectorSupplier;
-            this.ordinal = ordinal;
-        }
-
-        @Override
-        public DoubleValues getValues(LeafReaderContext ctx, DoubleValues scores) throws IOException {
-            return new DoubleValues() {
-                @Override
-                public double doubleValue() throws IOException {
-                    assert vectorSupplier.get() != null;
-                    return vectorSupplier.get().getFeatureScore(ordinal);
-                }
-
-                @Override
-                public boolean advanceExact(int doc) throws IOException {
-                    return true;
-                }
-            };
-        }
-
-        /**
-         * Return true if document scores are needed to calculate values
-         */
-        @Override
-        public boolean needsScores() {
-            return true;
-        }
-
-        @Override
-        public DoubleValuesSource rewrite(IndexSearcher reader) throws IOException {
-            return this;
-        }
-
-        @Override
-        public boolean equals(Object o) {
-            if (this == o) {
-                return true;
-            }
-            if (o == null || getClass() != o.getClass()) {
-                return false;
-            }
-            FVDoubleValuesSource that = (FVDoubleValuesSource) o;
-            return ordinal == that.ordinal && Objects.equals(vectorSupplier, that.vectorSupplier);
-        }
-
-        @Override
-        public int hashCode() {
-            return Objects.hash(ordinal, vectorSupplier);
-        }
-
-        @Override
-        public String toString() {
-            return "FVDoubleValuesSource{" + "ordinal=" + ordinal + ", vectorSupplier=" + vectorSupplier + '}';
-        }
-
-        @Override
-        public boolean isCacheable(LeafReaderContext ctx) {
-            return false;
-        }
-    }
-
     @Override
     public void visit(QueryVisitor visitor) {
         // No-op
@@ -0,0 +1,42 @@
+/*
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.o19s.es.ltr.query;
+
+import java.io.IOException;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.Explanation;
+import org.apache.lucene.search.ScorerSupplier;
+
+/**
+ * Weight of a feature reading the feature vector of its parent RankerQuery scorer, created from the query returned by
+ * {@link LtrRewritableQuery#ltrRewrite(LtrRewriteContext)}.
+ * <p>
+ * The RankerQuery passes the {@link LtrScorerContext} of the scorer (or explanation) it is building, so that segments
+ * scored concurrently never share it.
+ */
+public interface FeatureVectorWeight {
+    /**
+     * @param scorerContext the context of the parent RankerQuery scorer, its feature vector is the one of the document being scored
+     */
+    ScorerSupplier scorerSupplier(LeafReaderContext context, LtrScorerContext scorerContext) throws IOException;
+
+    /**
+     * @param scorerContext the context holding the feature vector of the explained document
+     */
+    Explanation explain(LeafReaderContext context, int doc, LtrScorerContext scorerContext) throws IOException;
+}
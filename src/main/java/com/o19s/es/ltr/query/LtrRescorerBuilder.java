@@ -0,0 +1,204 @@
+/*
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.o19s.es.ltr.query;
+
+import java.io.IOException;
+import java.util.Objects;
+
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.Query;
+import org.opensearch.core.ParseField;
+import org.opensearch.core.common.ParsingException;
+import org.opensearch.core.common.io.stream.StreamInput;
+import org.opensearch.core.common.io.stream.StreamOutput;
+import org.opensearch.core.xcontent.ObjectParser;
+import org.opensearch.core.xcontent.XContentBuilder;
+import org.opensearch.core.xcontent.XContentParser;
+import org.opensearch.index.query.AbstractQueryBuilder;
+import org.opensearch.index.query.QueryBuilder;
+import org.opensearch.index.query.QueryRewriteContext;
+import org.opensearch.index.query.QueryShardContext;
+import org.opensearch.ltr.breaker.LTRLoadShedder;
+import org.opensearch.search.rescore.QueryRescoreMode;
+import org.opensearch.search.rescore.QueryRescorer;
+import org.opensearch.search.rescore.RescorerBuilder;
+
+/**
+ * Rescores the top hits with an LTR query, like the {@code query} rescorer, and shrinks its window when the node is
+ * under pressure, see {@link LTRLoadShedder}.
+ * <p>
+ * The window is shrunk when the rescore context is built, the shard request is not known yet: set
+ * {@code ltr.degradation.min_window_size} to at least the hits requested to keep them all rescored.
+ */
+public class LtrRescorerBuilder extends RescorerBuilder<LtrRescorerBuilder> {
+    public static final String NAME = "ltr";
+
+    private static final ParseField RESCORE_QUERY = new ParseField("rescore_query");
+    private static final ParseField QUERY_WEIGHT = new ParseField("query_weight");
+    private static final ParseField RESCORE_QUERY_WEIGHT = new ParseField("rescore_query_weight");
+    private static final ParseField SCORE_MODE = new ParseField("score_mode");
+
+    private static final ObjectParser<LtrRescorerBuilder, Void> PARSER;
+
+    static {
+        PARSER = new ObjectParser<>(NAME, LtrRescorerBuilder::new);
+        PARSER.declareObject(LtrRescorerBuilder::rescoreQuery, (p, c) -> AbstractQueryBuilder.parseInnerQueryBuilder(p), RESCORE_QUERY);
+        PARSER.declareFloat(LtrRescorerBuilder::queryWeight, QUERY_WEIGHT);
+        PARSER.declareFloat(LtrRescorerBuilder::rescoreQueryWeight, RESCORE_QUERY_WEIGHT);
+        PARSER.declareString((b, v) -> b.scoreMode(QueryRescoreMode.fromString(v)), SCORE_MODE);
+    }
+
+    private QueryBuilder rescoreQuery;
+    private float queryWeight = 1F;
+    private float rescoreQueryWeight = 1F;
+    private QueryRescoreMode scoreMode = QueryRescoreMode.Total;
+
+    private LtrRescorerBuilder() {}
+
+    public LtrRescorerBuilder(QueryBuilder rescoreQuery) {
+        this.rescoreQuery = Objects.requireNonNull(rescoreQuery);
+    }
+
+    public LtrRescorerBuilder(StreamInput in) throws IOException {
+        super(in);
+        rescoreQuery = in.readNamedWriteable(QueryBuilder.class);
+        queryWeight = in.readFloat();
+        rescoreQueryWeight = in.readFloat();
+        scoreMode = QueryRescoreMode.readFromStream(in);
+    }
+
+    public static LtrRescorerBuilder fromXContent(XContentParser parser) throws IOException {
+        final LtrRescorerBuilder builder;
+        try {
+            builder = PARSER.parse(parser, null);
+        } catch (IllegalArgumentException iae) {
+            throw new ParsingException(parser.getTokenLocation(), iae.getMessage(), iae);
+        }
+        if (builder.rescoreQuery == null) {
+            throw new ParsingException(parser.getTokenLocation(), "Field [" + RESCORE_QUERY + "] is mandatory");
+        }
+        return builder;
+    }
+
+    @Override
+    protected void doWriteTo(StreamOutput out) throws IOException {
+        out.writeNamedWriteable(rescoreQuery);
+        out.writeFloat(queryWeight);
+        out.writeFloat(rescoreQueryWeight);
+        scoreMode.writeTo(out);
+    }
+
+    @Override
+    public String getWriteableName() {
+        return NAME;
+    }
+
+    @Override
+    protected void doXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject(NAME);
+        builder.field(RESCORE_QUERY.getPreferredName(), rescoreQuery);
+        builder.field(QUERY_WEIGHT.getPreferredName(), queryWeight);
+        builder.field(RESCORE_QUERY_WEIGHT.getPreferredName(), rescoreQueryWeight);
+        builder.field(SCORE_MODE.getPreferredName(), scoreMode.toString());
+        builder.endObject();
+    }
+
+    @Override
+    protected QueryRescorer.QueryRescoreContext innerBuildContext(int windowSize, QueryShardContext context) throws IOException {
+        Query query = context.toQuery(rescoreQuery).query();
+        Query unwrapped = query;
+        while (unwrapped instanceof BoostQuery) {
+            unwrapped = ((BoostQuery) unwrapped).getQuery();
+        }
+        // Only the window of LTR queries is shrunk, the pressure of the node comes from scoring their models
+        int window = unwrapped instanceof RankerQuery ? LTRLoadShedder.getInstance().rescoreWindow(windowSize) : windowSize;
+        QueryRescorer.QueryRescoreContext rescoreContext = new QueryRescorer.QueryRescoreContext(window);
+        rescoreContext.setQuery(query);
+        rescoreContext.setQueryWeight(queryWeight);
+        rescoreContext.setRescoreQueryWeight(rescoreQueryWeight);
+        rescoreContext.setScoreMode(scoreMode);
+        return rescoreContext;
+    }
+
+    @Override
+    public LtrRescorerBuilder rewrite(QueryRewriteContext ctx) throws IOException {
+        QueryBuilder rewritten = rescoreQuery.rewrite(ctx);
+        if (rewritten == rescoreQuery) {
+            return this;
+        }
+        LtrRescorerBuilder builder = new LtrRescorerBuilder(rewritten);
+        builder.queryWeight = queryWeight;
+        builder.rescoreQueryWeight = rescoreQueryWeight;
+        builder.scoreMode = scoreMode;
+        if (windowSize() != null) {
+            builder.windowSize(windowSize());
+        }
+        return builder;
+    }
+
+    public QueryBuilder rescoreQuery() {
+        return rescoreQuery;
+    }
+
+    private void rescoreQuery(QueryBuilder rescoreQuery) {
+        this.rescoreQuery = rescoreQuery;
+    }
+
+    public LtrRescorerBuilder queryWeight(float queryWeight) {
+        this.queryWeight = queryWeight;
+        return this;
+    }
+
+    public float queryWeight() {
+        return queryWeight;
+    }
+
+    public LtrRescorerBuilder rescoreQueryWeight(float rescoreQueryWeight) {
+        this.rescoreQueryWeight = rescoreQueryWeight;
+        return this;
+    }
+
+    public float rescoreQueryWeight() {
+        return rescoreQueryWeight;
+    }
+
+    public LtrRescorerBuilder scoreMode(QueryRescoreMode scoreMode) {
+        this.scoreMode = Objects.requireNonNull(scoreMode);
+        return this;
+    }
+
+    public QueryRescoreMode scoreMode() {
+        return scoreMode;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!super.equals(obj)) {
+            return false;
+        }
+        LtrRescorerBuilder other = (LtrRescorerBuilder) obj;
+        return Objects.equals(rescoreQuery, other.rescoreQuery)
+            && queryWeight == other.queryWeight
+            && rescoreQueryWeight == other.rescoreQueryWeight
+            && scoreMode == other.scoreMode;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(super.hashCode(), rescoreQuery, queryWeight, rescoreQueryWeight, scoreMode);
+    }
+}
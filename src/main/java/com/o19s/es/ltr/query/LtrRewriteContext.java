@@ -16,25 +16,18 @@
 
 package com.o19s.es.ltr.query;
 
-import java.util.function.Supplier;
-
 import com.o19s.es.ltr.ranker.LogLtrRanker;
 import com.o19s.es.ltr.ranker.LtrRanker;
 
 /**
- * Contains context needed to rewrite queries to holds the vectorSupplier and provide extra logging support
+ * Contains context needed to rewrite queries to provide extra logging support, their weights are given the
+ * {@link LtrScorerContext} of each RankerQuery scorer through {@link FeatureVectorWeight}
  */
 public class LtrRewriteContext {
-    private final Supplier<LtrRanker.FeatureVector> vectorSupplier;
     private final LtrRanker ranker;
 
-    public LtrRewriteContext(LtrRanker ranker, Supplier<LtrRanker.FeatureVector> vectorSupplier) {
+    public LtrRewriteContext(LtrRanker ranker) {
         this.ranker = ranker;
-        this.vectorSupplier = vectorSupplier;
-    }
-
-    public Supplier<LtrRanker.FeatureVector> getFeatureVectorSupplier() {
-        return vectorSupplier;
     }
 
     /**
@@ -0,0 +1,45 @@
+/*
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.o19s.es.ltr.query;
+
+import java.util.function.Supplier;
+
+import com.o19s.es.ltr.ranker.LtrRanker;
+
+/**
+ * State shared between a {@link RankerQuery} scorer and the feature scorers it drives.
+ *
+ * A new instance is created for every RankerQuery scorer (one per segment) and handed to the feature
+ * scorers when they are built, so features deriving their score from other features (derived expressions,
+ * script features) read the feature vector of the document currently scored by their own parent scorer.
+ * Like scorers, it is not thread-safe and must only be used by the thread driving the parent scorer.
+ */
+public class LtrScorerContext implements Supplier<LtrRanker.FeatureVector> {
+    private LtrRanker.FeatureVector featureVector;
+
+    /**
+     * The feature vector of the document being scored, null if no document is being scored
+     */
+    @Override
+    public LtrRanker.FeatureVector get() {
+        return featureVector;
+    }
+
+    void setFeatureVector(LtrRanker.FeatureVector featureVector) {
+        this.featureVector = featureVector;
+    }
+}
@@ -18,6 +18,8 @@ package com.o19s.es.ltr.query;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
 import java.util.stream.Stream;
 
 import org.apache.lucene.index.LeafReaderContext;
@@ -36,15 +38,23 @@ import org.apache.lucene.search.ScoreMode;
 import org.apache.lucene.search.Scorer;
 import org.apache.lucene.search.ScorerSupplier;
 import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.opensearch.ltr.breaker.LTRRequestBreaker;
 import org.opensearch.ltr.settings.LTRSettings;
+import org.opensearch.ltr.stats.LTRStat;
 import org.opensearch.ltr.stats.LTRStats;
+import org.opensearch.ltr.stats.LatencyHistogram;
 import org.opensearch.ltr.stats.StatName;
+import org.opensearch.ltr.stats.suppliers.LatencyStatsSupplier;
+import org.opensearch.ltr.stats.suppliers.ModelStatsSupplier;
+import org.opensearch.search.internal.SearchContext;
 
 import com.o19s.es.ltr.LtrQueryContext;
 import com.o19s.es.ltr.feature.Feature;
 import com.o19s.es.ltr.feature.FeatureSet;
 import com.o19s.es.ltr.feature.LtrModel;
 import com.o19s.es.ltr.feature.PrebuiltLtrModel;
+import com.o19s.es.ltr.feature.store.ScriptFeature;
 import com.o19s.es.ltr.ranker.LogLtrRanker;
 import com.o19s.es.ltr.ranker.LtrRanker;
 import com.o19s.es.ltr.ranker.NullRanker;
@@ -56,44 +66,40 @@ import com.o19s.es.ltr.ranker.NullRanker;
  * or within a BooleanQuery and an appropriate filter clause.
  */
 public class RankerQuery extends Query {
-    /**
-     * A thread local to allow for sharing the current feature vector between features. This
-     * is used primarily for derived expression and script features which derive one feature
-     * score from another. It relies on the following invariants to work:
-     * <ul>
-     *     <li>
-     *         Any call to {@link LtrRanker#newFeatureVector(LtrRanker.FeatureVector)} is
-     *         followed by a subsequent call to {@link LtrRanker#score(LtrRanker.FeatureVector)}
-     *     </li>
-     *     <li>
-     *         All feature scorers are invoked only between the creation of the feature vector and
-     *         the final score being computed (the calls outlined above)
-     *     </li>
-     *     <li>
-     *         All calls described above happen on the same thread for a single document
-     *     </li>
-     * </ul>
-     */
-    private static final ThreadLocal<LtrRanker.FeatureVector> CURRENT_VECTOR = new ThreadLocal<>();
-
+    // HashMap entry and boxed doc id of a feature score cache entry, the scores array is added per feature set
+    // Cache entries reserved at once in the breaker by a segment scorer
+    private static final int CACHE_RESERVATION_ENTRIES = 64;
+    private static final long CACHE_ENTRY_OVERHEAD = RamUsageEstimator.HASHTABLE_RAM_BYTES_PER_ENTRY
+        + RamUsageEstimator.shallowSizeOfInstance(Integer.class);
     private final LTRStats ltrStats;
     private final List<Query> queries;
     private final FeatureSet features;
     private final LtrRanker ranker;
     private final Map<Integer, float[]> featureScoreCache;
+    private final ModelStatsSupplier.ModelStats modelStats;
+    // Script features are not computed, see LTRLoadShedder
+    private final boolean skipExpensiveFeatures;
+    // Model requested by the query when its model is the fallback used under load, see LTRLoadShedder
+    private final String requestedModel;
 
     private RankerQuery(
         List<Query> queries,
         FeatureSet features,
         LtrRanker ranker,
         Map<Integer, float[]> featureScoreCache,
-        LTRStats ltrStats
+        LTRStats ltrStats,
+        ModelStatsSupplier.ModelStats modelStats,
+        boolean skipExpensiveFeatures,
+        String requestedModel
     ) {
         this.queries = Objects.requireNonNull(queries);
         this.features = Objects.requireNonNull(features);
         this.ranker = Objects.requireNonNull(ranker);
         this.featureScoreCache = featureScoreCache;
         this.ltrStats = ltrStats;
+        this.modelStats = modelStats;
+        this.skipExpensiveFeatures = skipExpensiveFeatures;
+        this.requestedModel = requestedModel;
     }
 
     /**
@@ -145,7 +151,7 @@ public class RankerQuery extends Query {
         if (null != featureScoreCacheFlag && featureScoreCacheFlag) {
             featureScoreCache = new HashMap<>();
         }
-        return new RankerQuery(queries, features, ranker, featureScoreCache, ltrStats);
+        return new RankerQuery(queries, features, ranker, featureScoreCache, ltrStats, null, false, null);
     }
 
     public static RankerQuery buildLogQuery(
@@ -156,12 +162,52 @@ public class RankerQuery extends Query {
         LTRStats ltrStats
     ) {
         List<Query> queries = features.toQueries(context, params);
-        return new RankerQuery(queries, features, new LogLtrRanker(consumer, features.size()), null, ltrStats);
+        return new RankerQuery(queries, features, new LogLtrRanker(consumer, features.size()), null, ltrStats, null, false, null);
     }
 
     public RankerQuery toLoggerQuery(LogLtrRanker.LogConsumer consumer) {
         NullRanker newRanker = new NullRanker(features.size());
-        return new RankerQuery(queries, features, new LogLtrRanker(newRanker, consumer), featureScoreCache, ltrStats);
+        // Logged features are the ones of the model, even the expensive ones
+        LogLtrRanker logRanker = new LogLtrRanker(newRanker, consumer);
+        return new RankerQuery(queries, features, logRanker, featureScoreCache, ltrStats, null, false, null);
+    }
+
+    /**
+     * Copy of this query recording the documents it scores in the stats of its model
+     */
+    public RankerQuery trackModelStats(ModelStatsSupplier.ModelStats modelStats) {
+        Objects.requireNonNull(modelStats);
+        return new RankerQuery(queries, features, ranker, featureScoreCache, ltrStats, modelStats, skipExpensiveFeatures, requestedModel);
+    }
+
+    /**
+     * Copy of this query leaving the script features of its feature set to their default value, its scores are kept
+     * out of the feature score cache
+     */
+    public RankerQuery skipExpensiveFeatures() {
+        return new RankerQuery(queries, features, ranker, featureScoreCache, ltrStats, modelStats, true, requestedModel);
+    }
+
+    /**
+     * Copy of this query flagged as running the fallback of the requested model
+     */
+    public RankerQuery fallbackFor(String requestedModel) {
+        Objects.requireNonNull(requestedModel);
+        return new RankerQuery(queries, features, ranker, featureScoreCache, ltrStats, modelStats, skipExpensiveFeatures, requestedModel);
+    }
+
+    /**
+     * @return the model requested by the query when it runs the fallback of this model, null otherwise
+     */
+    public String requestedModel() {
+        return requestedModel;
+    }
+
+    /**
+     * Whether the feature at ordinal is skipped because it is expensive to compute
+     */
+    boolean isSkipped(int ordinal) {
+        return skipExpensiveFeatures && features.feature(ordinal) instanceof ScriptFeature;
     }
 
     @Override
@@ -173,7 +219,19 @@ public class RankerQuery extends Query {
             rewritten |= rewrittenQuery != query;
             rewrittenQueries.add(rewrittenQuery);
         }
-        return rewritten ? new RankerQuery(rewrittenQueries, features, ranker, featureScoreCache, ltrStats) : this;
+        if (!rewritten) {
+            return this;
+        }
+        return new RankerQuery(
+            rewrittenQueries,
+            features,
+            ranker,
+            featureScoreCache,
+            ltrStats,
+            modelStats,
+            skipExpensiveFeatures,
+            requestedModel
+        );
     }
 
     @SuppressWarnings("EqualsWhichDoesntCheckParameterClass")
@@ -267,35 +325,146 @@ public class RankerQuery extends Query {
         List<Weight> weights = new ArrayList<>(queries.size());
 
         FVLtrRankerWrapper ltrRankerWrapper = new FVLtrRankerWrapper(ranker);
-        LtrRewriteContext context = new LtrRewriteContext(ranker, CURRENT_VECTOR::get);
+        LtrRewriteContext context = new LtrRewriteContext(ranker);
+        // Skipped features keep their default value: a degraded query neither fills nor reads the feature score cache,
+        // loggers sharing the cache compute the real feature values
+        Map<Integer, float[]> scoreCache = skipExpensiveFeatures ? null : featureScoreCache;
+        BitSet usedFeatures = usedFeatures(scoreCache);
+        // Features reading the feature vector are scored after the others, derived ones are evaluated inline
+        BitSet readsFeatureVector = new BitSet(queries.size());
+        DerivedExpressionQuery.FeatureExpression[] derivedFeatures = new DerivedExpressionQuery.FeatureExpression[queries.size()];
         for (Query q : queries) {
+            int ordinal = weights.size();
+            if (usedFeatures != null && !usedFeatures.get(ordinal)) {
+                // Not read by the model: no weight, the feature keeps its default value
+                weights.add(null);
+                continue;
+            }
+            if (isSkipped(ordinal)) {
+                // Skipped under load: the feature keeps its default value
+                weights.add(null);
+                continue;
+            }
             if (q instanceof LtrRewritableQuery) {
+                readsFeatureVector.set(ordinal);
+                if (q instanceof DerivedExpressionQuery) {
+                    derivedFeatures[ordinal] = ((DerivedExpressionQuery) q).featureExpression();
+                }
                 q = ((LtrRewritableQuery) q).ltrRewrite(context);
             }
-            weights.add(searcher.createWeight(q, ScoreMode.COMPLETE, boost));
+            // Named per feature so that the profile API reports timings for each feature ordinal, the weight of a
+            // derived feature only explains it
+            Query featureQuery = new RankerFeatureQuery(q, ordinal, features.feature(ordinal).name(), readsFeatureVector.get(ordinal));
+            weights.add(searcher.createWeight(featureQuery, ScoreMode.COMPLETE, boost));
+        }
+        // Documents scored to log their features do not run the model
+        LatencyHistogram docScoringLatency = ltrStats == null || ranker instanceof LogLtrRanker
+            ? null
+            : ltrStats.getLatencyHistogram(LatencyStatsSupplier.Metric.DOC_SCORING);
+        int docScoringSampleInterval = docScoringLatency == null && modelStats == null ? 0 : LTRSettings.getDocScoringSampleInterval();
+        // Obtained on the thread of the search phase, segment slices may then be scored on other threads
+        LTRRequestBreaker.Account cacheAccount = scoreCache == null
+            ? null
+            : LTRRequestBreaker.getInstance().account("ltr_feature_score_cache");
+        // Logging must see every document, it is not bounded in time
+        ScoringBudget scoringBudget = ranker instanceof LogLtrRanker ? null : scoringBudget();
+        return new RankerWeight(
+            this,
+            weights,
+            ltrRankerWrapper,
+            features,
+            readsFeatureVector,
+            derivedFeatures,
+            scoreCache,
+            cacheAccount,
+            docScoringLatency,
+            modelStats,
+            docScoringSampleInterval,
+            scoringBudget
+        );
+    }
+
+    /**
+     * Budget of the shard request running on the current thread, null if it has no time limit nor can be cancelled
+     */
+    private ScoringBudget scoringBudget() {
+        SearchContext searchContext = LTRRequestBreaker.getInstance().currentSearchContext();
+        long budgetNanos = LTRSettings.getScoringTimeBudget().nanos();
+        if (searchContext == null && budgetNanos < 0) {
+            return null;
+        }
+        BooleanSupplier cancelled = searchContext == null ? () -> false : searchContext::isCancelled;
+        return new ScoringBudget(budgetNanos, LTRSettings.getScoringFallbackScore(), cancelled, System::nanoTime, () -> {
+            LTRStat<?> stat = ltrStats == null ? null : ltrStats.getStats().get(StatName.LTR_REQUEST_BUDGET_EXHAUSTED_COUNT.getName());
+            if (stat != null) {
+                stat.increment();
+            }
+        });
+    }
+
+    /**
+     * The features that must be computed to score a document, null if all of them are needed
+     */
+    private BitSet usedFeatures(Map<Integer, float[]> scoreCache) {
+        // Logging and the feature score cache need the value of every feature
+        BitSet usedFeatures = scoreCache == null ? ranker.usedFeatures() : null;
+        if (usedFeatures == null) {
+            return null;
+        }
+        for (int ordinal = usedFeatures.nextSetBit(0); ordinal >= 0; ordinal = usedFeatures.nextSetBit(ordinal + 1)) {
+            // Features reading the feature vector may depend on any other feature
+            if (ordinal < queries.size() && queries.get(ordinal) instanceof LtrRewritableQuery) {
+                return null;
+            }
         }
-        return new RankerWeight(this, weights, ltrRankerWrapper, features, featureScoreCache);
+        return usedFeatures;
     }
 
     public static class RankerWeight extends Weight {
         private final List<Weight> weights;
         private final FVLtrRankerWrapper ranker;
         private final FeatureSet features;
+        private final BitSet readsFeatureVector;
+        private final DerivedExpressionQuery.FeatureExpression[] derivedFeatures;
         private final Map<Integer, float[]> featureScoreCache;
+        private final LTRRequestBreaker.Account cacheAccount;
+        private final long cacheEntryBytes;
+        private final LatencyHistogram docScoringLatency;
+        private final ModelStatsSupplier.ModelStats modelStats;
+        // One doc scored out of this interval is timed, 0 if none is
+        private final int docScoringSampleInterval;
+        private final ScoringBudget scoringBudget;
 
         RankerWeight(
             RankerQuery query,
             List<Weight> weights,
             FVLtrRankerWrapper ranker,
             FeatureSet features,
-            Map<Integer, float[]> featureScoreCache
+            BitSet readsFeatureVector,
+            DerivedExpressionQuery.FeatureExpression[] derivedFeatures,
+            Map<Integer, float[]> featureScoreCache,
+            LTRRequestBreaker.Account cacheAccount,
+            LatencyHistogram docScoringLatency,
+            ModelStatsSupplier.ModelStats modelStats,
+            int docScoringSampleInterval,
+            ScoringBudget scoringBudget
         ) {
             super(query);
             assert weights instanceof RandomAccess;
+            // weights of the features not used by the model or skipped under load are null
             this.weights = weights;
             this.ranker = Objects.requireNonNull(ranker);
             this.features = Objects.requireNonNull(features);
+            this.readsFeatureVector = readsFeatureVector;
+            this.derivedFeatures = derivedFeatures;
             this.featureScoreCache = featureScoreCache;
+            this.cacheAccount = cacheAccount;
+            long scoresBytes = RamUsageEstimator.NUM_BYTES_ARRAY_HEADER + (long) Float.BYTES * weights.size();
+            this.cacheEntryBytes = CACHE_ENTRY_OVERHEAD + RamUsageEstimator.alignObjectSize(scoresBytes);
+            this.docScoringLatency = docScoringLatency;
+            this.modelStats = modelStats;
+            this.docScoringSampleInterval = docScoringSampleInterval;
+            this.scoringBudget = scoringBudget;
         }
 
         @Override
@@ -312,56 +481,126 @@ public class RankerQuery extends Query {
 
         @Override
         public Explanation explain(LeafReaderContext context, int doc) throws IOException {
-            List<Explanation> subs = new ArrayList<>(weights.size());
+            Explanation[] subs = new Explanation[weights.size()];
 
-            LtrRanker.FeatureVector d = ranker.newFeatureVector(null);
-            int ordinal = -1;
-            for (Weight weight : weights) {
-                ordinal++;
-                final Explanation explain;
-                explain = weight.explain(context, doc);
-                String featureString = "Feature " + Integer.toString(ordinal);
-                if (features.feature(ordinal).name() != null) {
-                    featureString += "(" + features.feature(ordinal).name() + ")";
-                }
-                featureString += ":";
-                if (!explain.isMatch()) {
-                    subs
-                        .add(
-                            Explanation
-                                .noMatch(
-                                    featureString + String
-                                        .format(Locale.ROOT, " [no match, default value of %.2f used]", d.getDefaultScore())
-                                )
-                        );
-                } else {
-                    subs.add(Explanation.match(explain.getValue(), featureString, explain));
-                    d.setFeatureScore(ordinal, explain.getValue().floatValue());
+            LtrScorerContext scorerContext = new LtrScorerContext();
+            LtrRanker.FeatureVector d = ranker.newFeatureVector(null, scorerContext);
+            // Same order as the scorer, see RankerScorer#scoreFeatures
+            for (int ordinal = 0; ordinal < subs.length; ordinal++) {
+                if (!readsFeatureVector.get(ordinal)) {
+                    subs[ordinal] = explainFeature(ordinal, context, doc, scorerContext, d);
                 }
             }
+            for (int ordinal = readsFeatureVector.nextSetBit(0); ordinal >= 0; ordinal = readsFeatureVector.nextSetBit(ordinal + 1)) {
+                subs[ordinal] = explainFeature(ordinal, context, doc, scorerContext, d);
+            }
             float modelScore = ranker.score(d);
             return Explanation.match(modelScore, " LtrModel: " + ranker.name() + " using features:", subs);
         }
 
+        private Explanation explainFeature(
+            int ordinal,
+            LeafReaderContext context,
+            int doc,
+            LtrScorerContext scorerContext,
+            LtrRanker.FeatureVector d
+        ) throws IOException {
+            Weight weight = weights.get(ordinal);
+            String featureString = "Feature " + Integer.toString(ordinal);
+            if (features.feature(ordinal).name() != null) {
+                featureString += "(" + features.feature(ordinal).name() + ")";
+            }
+            featureString += ":";
+            if (weight == null) {
+                boolean skipped = ((RankerQuery) getQuery()).isSkipped(ordinal);
+                return Explanation.noMatch(featureString + (skipped ? " [skipped under load]" : " [not used by the model]"));
+            }
+            Explanation explain = weight.getQuery() instanceof RankerFeatureQuery
+                ? ((RankerFeatureQuery) weight.getQuery()).explain(weight, context, doc, scorerContext)
+                : weight.explain(context, doc);
+            if (!explain.isMatch()) {
+                return Explanation
+                    .noMatch(featureString + String.format(Locale.ROOT, " [no match, default value of %.2f used]", d.getDefaultScore()));
+            }
+            d.setFeatureScore(ordinal, explain.getValue().floatValue());
+            return Explanation.match(explain.getValue(), featureString, explain);
+        }
+
         public RankerScorer getScorer(LeafReaderContext context) throws IOException {
-            List<Scorer> scorers = new ArrayList<>(weights.size());
-            DisiPriorityQueue disiPriorityQueue = DisiPriorityQueue.ofMaxSize(weights.size());
+            LeafFeatureScorers featureScorers = new LeafFeatureScorers(context);
+            if (featureScoreCache == null) {
+                featureScorers.build();
+            }
+            // else feature scorers are only built once a doc misses the cache: when logging the docs scored
+            // by the rescore phase no feature scorer is needed at all.
+
+            DisjunctionDISI rankerIterator = new DisjunctionDISI(
+                DocIdSetIterator.all(context.reader().maxDoc()),
+                featureScorers,
+                context.docBase,
+                featureScoreCache,
+                scoringBudget == null ? null : scoringBudget.new LeafBudget()
+            );
+            return new RankerScorer(featureScorers, rankerIterator, ranker, context.docBase, featureScoreCache);
+        }
+
+        /**
+         * The feature scorers of a segment
+         */
+        class LeafFeatureScorers {
+            private final LeafReaderContext context;
+            private final LtrScorerContext scorerContext = new LtrScorerContext();
+            private final DisiPriorityQueue disiPriorityQueue = DisiPriorityQueue.ofMaxSize(weights.size());
+            // Derived features have no scorer, they are evaluated inline
+            private final DerivedExpressionQuery.Evaluator[] evaluators = new DerivedExpressionQuery.Evaluator[weights.size()];
+            private List<Scorer> scorers;
+
+            LeafFeatureScorers(LeafReaderContext context) {
+                this.context = context;
+                for (int ordinal = 0; ordinal < evaluators.length; ordinal++) {
+                    if (derivedFeatures[ordinal] != null) {
+                        evaluators[ordinal] = derivedFeatures[ordinal].newEvaluator();
+                    }
+                }
+            }
+
+            void build() throws IOException {
+                if (scorers != null) {
+                    return;
+                }
+                List<Scorer> scorers = new ArrayList<>(weights.size());
+                buildScorers(context, scorerContext, scorers, disiPriorityQueue);
+                this.scorers = scorers;
+            }
+        }
+
+        /**
+         * Feature scorers reading the feature vector are given the scorer context of the segment through their
+         * {@link RankerFeatureQuery}, segments scored concurrently never share it.
+         */
+        private void buildScorers(
+            LeafReaderContext context,
+            LtrScorerContext scorerContext,
+            List<Scorer> scorers,
+            DisiPriorityQueue disiPriorityQueue
+        ) throws IOException {
+            int ordinal = -1;
             for (Weight weight : weights) {
-                Scorer scorer = weight.scorer(context);
+                ordinal++;
+                ScorerSupplier supplier = null;
+                // Derived features are evaluated inline by the RankerScorer
+                if (weight != null && derivedFeatures[ordinal] == null) {
+                    supplier = weight.getQuery() instanceof RankerFeatureQuery
+                        ? ((RankerFeatureQuery) weight.getQuery()).scorerSupplier(weight, context, scorerContext)
+                        : weight.scorerSupplier(context);
+                }
+                Scorer scorer = supplier != null ? supplier.get(Long.MAX_VALUE) : null;
                 if (scorer == null) {
                     scorer = new NoopScorer(this, DocIdSetIterator.empty());
                 }
                 scorers.add(scorer);
                 disiPriorityQueue.add(new DisiWrapper(scorer, false));
             }
-
-            DisjunctionDISI rankerIterator = new DisjunctionDISI(
-                DocIdSetIterator.all(context.reader().maxDoc()),
-                disiPriorityQueue,
-                context.docBase,
-                featureScoreCache
-            );
-            return new RankerScorer(scorers, rankerIterator, ranker, context.docBase, featureScoreCache);
         }
 
         @Override
@@ -384,26 +623,32 @@ public class RankerQuery extends Query {
              * NOTE: Switch to ChildScorer and {@link #getChildren()} if it appears
              * to be useful for logging
              */
-            private final List<Scorer> scorers;
+            private final LeafFeatureScorers featureScorers;
             private final DisjunctionDISI iterator;
             private final FVLtrRankerWrapper ranker;
+            private final LtrScorerContext scorerContext;
             private LtrRanker.FeatureVector fv;
             private final int docBase;
             private final Map<Integer, float[]> featureScoreCache;
+            private final LTRRequestBreaker.Account.Reservation cacheReservation;
+            // Docs scored since the last timed doc
+            private int untimedDocs;
 
             RankerScorer(
-                List<Scorer> scorers,
+                LeafFeatureScorers featureScorers,
                 DisjunctionDISI iterator,
                 FVLtrRankerWrapper ranker,
                 int docBase,
                 Map<Integer, float[]> featureScoreCache
             ) {
                 super();
-                this.scorers = scorers;
+                this.featureScorers = featureScorers;
                 this.iterator = iterator;
                 this.ranker = ranker;
+                this.scorerContext = featureScorers.scorerContext;
                 this.docBase = docBase;
                 this.featureScoreCache = featureScoreCache;
+                this.cacheReservation = cacheAccount == null ? null : cacheAccount.reservation(CACHE_RESERVATION_ENTRIES * cacheEntryBytes);
             }
 
             @Override
@@ -413,20 +658,31 @@ public class RankerQuery extends Query {
 
             @Override
             public float score() throws IOException {
-                fv = ranker.newFeatureVector(fv);
+                if (iterator.isSkipped()) {
+                    // The time budget is exhausted, the document is not scored by the model
+                    return scoringBudget.fallbackScore();
+                }
+                // Timing every doc would cost as much as scoring it with small models
+                if (docScoringSampleInterval == 0 || ++untimedDocs < docScoringSampleInterval) {
+                    return scoreDoc();
+                }
+                untimedDocs = 0;
+                long start = System.nanoTime();
+                float score = scoreDoc();
+                long took = System.nanoTime() - start;
+                if (docScoringLatency != null) {
+                    docScoringLatency.record(took);
+                }
+                if (modelStats != null) {
+                    modelStats.onDocsScored(docScoringSampleInterval, took);
+                }
+                return score;
+            }
+
+            private float scoreDoc() throws IOException {
+                fv = ranker.newFeatureVector(fv, scorerContext);
                 if (featureScoreCache == null) {  // Cache disabled
-                    int ordinal = -1;
-                    // a DisiPriorityQueue could help to avoid
-                    // looping on all scorers
-                    for (Scorer scorer : scorers) {
-                        ordinal++;
-                        // FIXME: Probably inefficient, again we loop over all scorers..
-                        if (scorer.docID() == docID()) {
-                            // XXX: bold assumption that all models are dense
-                            // do we need a some indirection to infer the featureId?
-                            fv.setFeatureScore(ordinal, scorer.score());
-                        }
-                    }
+                    scoreFeatures(null);
                 } else {
                     int perShardDocId = docBase + docID();
                     if (featureScoreCache.containsKey(perShardDocId)) {  // Cache hit
@@ -439,23 +695,59 @@ public class RankerQuery extends Query {
                             }
                         }
                     } else {  // Cache miss
-                        int ordinal = -1;
-                        float[] featureScores = new float[scorers.size()];
-                        for (Scorer scorer : scorers) {
-                            ordinal++;
-                            float score = Float.NaN;
-                            if (scorer.docID() == docID()) {
-                                score = scorer.score();
-                                fv.setFeatureScore(ordinal, score);
-                            }
-                            featureScores[ordinal] = score;
+                        // Normally built when the iterator advanced to the doc
+                        featureScorers.build();
+                        if (cacheReservation != null) {
+                            cacheReservation.reserve(cacheEntryBytes);
                         }
+                        float[] featureScores = new float[featureScorers.scorers.size()];
+                        scoreFeatures(featureScores);
                         featureScoreCache.put(perShardDocId, featureScores);
                     }
                 }
                 return ranker.score(fv);
             }
 
+            /**
+             * Set the features of the doc on the feature vector: first the features matching on their own, then, in
+             * ordinal order, the features reading the feature vector. The latter see the value of every other feature
+             * whatever its ordinal, and of the features reading the vector with a lower ordinal.
+             *
+             * @param featureScores the scores to cache, NaN for features not matching, or null
+             */
+            private void scoreFeatures(float[] featureScores) throws IOException {
+                List<Scorer> scorers = featureScorers.scorers;
+                int size = scorers.size();
+                for (int ordinal = 0; ordinal < size; ordinal++) {
+                    if (!readsFeatureVector.get(ordinal)) {
+                        scoreFeature(ordinal, scorers.get(ordinal), featureScores);
+                    }
+                }
+                for (int ordinal = readsFeatureVector.nextSetBit(0); ordinal >= 0; ordinal = readsFeatureVector.nextSetBit(ordinal + 1)) {
+                    DerivedExpressionQuery.Evaluator evaluator = featureScorers.evaluators[ordinal];
+                    if (evaluator == null) {
+                        scoreFeature(ordinal, scorers.get(ordinal), featureScores);
+                        continue;
+                    }
+                    float score = (float) evaluator.evaluate(fv);
+                    fv.setFeatureScore(ordinal, score);
+                    if (featureScores != null) {
+                        featureScores[ordinal] = score;
+                    }
+                }
+            }
+
+            private void scoreFeature(int ordinal, Scorer scorer, float[] featureScores) throws IOException {
+                float score = Float.NaN;
+                if (scorer.docID() == docID()) {
+                    score = scorer.score();
+                    fv.setFeatureScore(ordinal, score);
+                }
+                if (featureScores != null) {
+                    featureScores[ordinal] = score;
+                }
+            }
+
             // @Override
             // public int freq() throws IOException {
             // return scorers.size();
@@ -486,20 +778,29 @@ public class RankerQuery extends Query {
      */
     static class DisjunctionDISI extends DocIdSetIterator {
         private final DocIdSetIterator main;
-        private final DisiPriorityQueue subIteratorsPriorityQueue;
+        private final RankerWeight.LeafFeatureScorers featureScorers;
         private final int docBase;
         private final Map<Integer, float[]> featureScoreCache;
+        private final ScoringBudget.LeafBudget leafBudget;
+        // The current doc was reached without computing its features
+        private boolean skipped;
 
         DisjunctionDISI(
             DocIdSetIterator main,
-            DisiPriorityQueue subIteratorsPriorityQueue,
+            RankerWeight.LeafFeatureScorers featureScorers,
             int docBase,
-            Map<Integer, float[]> featureScoreCache
+            Map<Integer, float[]> featureScoreCache,
+            ScoringBudget.LeafBudget leafBudget
         ) {
             this.main = main;
-            this.subIteratorsPriorityQueue = subIteratorsPriorityQueue;
+            this.featureScorers = featureScorers;
             this.docBase = docBase;
             this.featureScoreCache = featureScoreCache;
+            this.leafBudget = leafBudget;
+        }
+
+        boolean isSkipped() {
+            return skipped;
         }
 
         @Override
@@ -509,6 +810,9 @@ public class RankerQuery extends Query {
 
         @Override
         public int nextDoc() throws IOException {
+            if (leafBudget != null && leafBudget.exhausted()) {
+                return skip(main.docID() + 1);
+            }
             int doc = main.nextDoc();
             advanceSubIterators(doc);
             return doc;
@@ -516,6 +820,9 @@ public class RankerQuery extends Query {
 
         @Override
         public int advance(int target) throws IOException {
+            if (leafBudget != null && leafBudget.exhausted()) {
+                return skip(target);
+            }
             int docId = main.advance(target);
             if (featureScoreCache != null && featureScoreCache.containsKey(docBase + target)) {
                 return docId;  // Cache hit. No need to advance sub iterators
@@ -524,10 +831,20 @@ public class RankerQuery extends Query {
             return docId;
         }
 
+        /**
+         * Move to the target without advancing the feature scorers, or stop matching if there is no fallback score
+         */
+        private int skip(int target) throws IOException {
+            skipped = true;
+            return main.advance(leafBudget.budget().hasFallbackScore() ? target : NO_MORE_DOCS);
+        }
+
         private void advanceSubIterators(int target) throws IOException {
             if (target == NO_MORE_DOCS) {
                 return;
             }
+            featureScorers.build();
+            DisiPriorityQueue subIteratorsPriorityQueue = featureScorers.disiPriorityQueue;
             DisiWrapper top = subIteratorsPriorityQueue.top();
             while (top.doc < target) {
                 top.doc = top.iterator.advance(target);
@@ -541,6 +858,145 @@ public class RankerQuery extends Query {
         }
     }
 
+    /**
+     * Wraps the query of a single feature so that it appears as its own node, named after the feature,
+     * in the search profile output. Profiling then reports weight creation, scorer creation, advance
+     * and score timings for every feature ordinal.
+     * Weights and scorers of the wrapped query are used as is.
+     * <p>
+     * The profiler wraps the weight of this query and only passes the segment to it. Scorers and explanations of
+     * features reading the feature vector are therefore built through {@link #scorerSupplier(Weight, LeafReaderContext,
+     * LtrScorerContext)} and {@link #explain(Weight, LeafReaderContext, int, LtrScorerContext)}, which hand the scorer
+     * context over to the {@link RankerFeatureWeight} for the segment while the call runs.
+     */
+    static class RankerFeatureQuery extends Query {
+        private final Query query;
+        private final int ordinal;
+        private final String name;
+        private final boolean readsFeatureVector;
+        // A segment is scored by a single thread at a time, the handover is keyed by segment
+        private final Map<LeafReaderContext, LtrScorerContext> scorerContexts;
+
+        RankerFeatureQuery(Query query, int ordinal, String name) {
+            this(query, ordinal, name, false);
+        }
+
+        /**
+         * @param readsFeatureVector the weight of the query is a {@link FeatureVectorWeight}
+         */
+        RankerFeatureQuery(Query query, int ordinal, String name, boolean readsFeatureVector) {
+            this.query = Objects.requireNonNull(query);
+            this.ordinal = ordinal;
+            this.name = name;
+            this.readsFeatureVector = readsFeatureVector;
+            this.scorerContexts = new ConcurrentHashMap<>();
+        }
+
+        @Override
+        public Weight createWeight(IndexSearcher searcher, ScoreMode scoreMode, float boost) throws IOException {
+            // A FeatureVectorWeight wrapped by the profiler would no longer receive the scorer context, its time is
+            // reported under this feature
+            Weight weight = readsFeatureVector
+                ? query.createWeight(searcher, scoreMode, boost)
+                : searcher.createWeight(query, scoreMode, boost);
+            return new RankerFeatureWeight(this, weight);
+        }
+
+        /**
+         * Build the scorer supplier of the feature from its weight, possibly wrapped by the profiler
+         */
+        ScorerSupplier scorerSupplier(Weight weight, LeafReaderContext context, LtrScorerContext scorerContext) throws IOException {
+            if (!readsFeatureVector) {
+                return weight.scorerSupplier(context);
+            }
+            scorerContexts.put(context, scorerContext);
+            try {
+                return weight.scorerSupplier(context);
+            } finally {
+                scorerContexts.remove(context);
+            }
+        }
+
+        /**
+         * Explain the feature from its weight, possibly wrapped by the profiler
+         */
+        Explanation explain(Weight weight, LeafReaderContext context, int doc, LtrScorerContext scorerContext) throws IOException {
+            if (!readsFeatureVector) {
+                return weight.explain(context, doc);
+            }
+            scorerContexts.put(context, scorerContext);
+            try {
+                return weight.explain(context, doc);
+            } finally {
+                scorerContexts.remove(context);
+            }
+        }
+
+        /**
+         * The scorer context handed over for the segment, an empty one when not called by a RankerQuery
+         */
+        private LtrScorerContext scorerContext(LeafReaderContext context) {
+            LtrScorerContext scorerContext = scorerContexts.get(context);
+            return scorerContext != null ? scorerContext : new LtrScorerContext();
+        }
+
+        @Override
+        public String toString(String field) {
+            return "feature[" + ordinal + (name != null ? ":" + name : "") + "](" + query.toString(field) + ")";
+        }
+
+        @Override
+        public void visit(QueryVisitor visitor) {
+            query.visit(visitor.getSubVisitor(BooleanClause.Occur.MUST, this));
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return sameClassAs(obj)
+                && ordinal == ((RankerFeatureQuery) obj).ordinal
+                && readsFeatureVector == ((RankerFeatureQuery) obj).readsFeatureVector
+                && Objects.equals(name, ((RankerFeatureQuery) obj).name)
+                && Objects.equals(query, ((RankerFeatureQuery) obj).query);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(classHash(), query, ordinal, name, readsFeatureVector);
+        }
+    }
+
+    static class RankerFeatureWeight extends Weight {
+        private final Weight weight;
+
+        RankerFeatureWeight(RankerFeatureQuery query, Weight weight) {
+            super(query);
+            this.weight = weight;
+        }
+
+        @Override
+        public Explanation explain(LeafReaderContext context, int doc) throws IOException {
+            if (weight instanceof FeatureVectorWeight) {
+                LtrScorerContext scorerContext = ((RankerFeatureQuery) getQuery()).scorerContext(context);
+                return ((FeatureVectorWeight) weight).explain(context, doc, scorerContext);
+            }
+            return weight.explain(context, doc);
+        }
+
+        @Override
+        public ScorerSupplier scorerSupplier(LeafReaderContext context) throws IOException {
+            if (weight instanceof FeatureVectorWeight) {
+                LtrScorerContext scorerContext = ((RankerFeatureQuery) getQuery()).scorerContext(context);
+                return ((FeatureVectorWeight) weight).scorerSupplier(context, scorerContext);
+            }
+            return weight.scorerSupplier(context);
+        }
+
+        @Override
+        public boolean isCacheable(LeafReaderContext ctx) {
+            return weight.isCacheable(ctx);
+        }
+    }
+
     static class FVLtrRankerWrapper implements LtrRanker {
         private final LtrRanker wrapped;
 
@@ -555,16 +1011,22 @@ public class RankerQuery extends Query {
 
         @Override
         public FeatureVector newFeatureVector(FeatureVector reuse) {
+            return wrapped.newFeatureVector(reuse);
+        }
+
+        /**
+         * Create or reuse the feature vector and make it available to the feature scorers
+         * through the scorer context.
+         */
+        FeatureVector newFeatureVector(FeatureVector reuse, LtrScorerContext scorerContext) {
             FeatureVector fv = wrapped.newFeatureVector(reuse);
-            CURRENT_VECTOR.set(fv);
+            scorerContext.setFeatureVector(fv);
             return fv;
         }
 
         @Override
         public float score(FeatureVector point) {
-            float score = wrapped.score(point);
-            CURRENT_VECTOR.remove();
-            return score;
+            return wrapped.score(point);
         }
 
         @Override
@@ -0,0 +1,117 @@
+/*
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.o19s.es.ltr.query;
+
+import java.util.function.BooleanSupplier;
+import java.util.function.LongSupplier;
+
+import org.opensearch.core.tasks.TaskCancelledException;
+
+/**
+ * Time a {@link RankerQuery} may spend scoring the documents of a shard request, shared by the scorers of all its segments.
+ * <p>
+ * Scorers check the budget and the cancellation of the search task every {@value #CHECK_INTERVAL} documents.
+ * Once the budget is exhausted the remaining documents are not scored by the model: they get the fallback score or,
+ * when there is none, they are not matched and keep their original score in a rescore phase.
+ */
+class ScoringBudget {
+    /**
+     * Documents scored between two checks of the clock and of the cancellation of the task
+     */
+    static final int CHECK_INTERVAL = 256;
+
+    private final long deadline;
+    private final float fallbackScore;
+    private final BooleanSupplier cancelled;
+    private final LongSupplier nanoClock;
+    private final Runnable onExhausted;
+    private volatile boolean exhausted;
+
+    /**
+     * @param budgetNanos   time allowed from now, negative for no limit
+     * @param fallbackScore score of the documents once the budget is exhausted, NaN to not match them
+     * @param cancelled     whether the search task is cancelled
+     * @param onExhausted   called once when the budget gets exhausted
+     */
+    ScoringBudget(long budgetNanos, float fallbackScore, BooleanSupplier cancelled, LongSupplier nanoClock, Runnable onExhausted) {
+        this.fallbackScore = fallbackScore;
+        this.cancelled = cancelled;
+        this.nanoClock = nanoClock;
+        this.onExhausted = onExhausted;
+        this.deadline = budgetNanos < 0 ? Long.MAX_VALUE : nanoClock.getAsLong() + budgetNanos;
+    }
+
+    /**
+     * Check the cancellation of the task and the clock
+     *
+     * @return true if the budget is exhausted
+     * @throws TaskCancelledException if the search task was cancelled
+     */
+    boolean check() {
+        if (cancelled.getAsBoolean()) {
+            throw new TaskCancelledException("cancelled");
+        }
+        if (!exhausted && deadline != Long.MAX_VALUE && nanoClock.getAsLong() - deadline >= 0) {
+            synchronized (this) {
+                if (!exhausted) {
+                    exhausted = true;
+                    onExhausted.run();
+                }
+            }
+        }
+        return exhausted;
+    }
+
+    boolean isExhausted() {
+        return exhausted;
+    }
+
+    /**
+     * @return true if the documents left once the budget is exhausted are matched with the fallback score
+     */
+    boolean hasFallbackScore() {
+        return !Float.isNaN(fallbackScore);
+    }
+
+    float fallbackScore() {
+        return fallbackScore;
+    }
+
+    /**
+     * Per segment view of the budget, counting the documents scored since the last check
+     */
+    class LeafBudget {
+        private int sinceLastCheck;
+
+        /**
+         * Called before moving to a new document
+         *
+         * @return true if the document must not be scored by the model
+         */
+        boolean exhausted() {
+            if (++sinceLastCheck < CHECK_INTERVAL) {
+                return ScoringBudget.this.isExhausted();
+            }
+            sinceLastCheck = 0;
+            return check();
+        }
+
+        ScoringBudget budget() {
+            return ScoringBudget.this;
+        }
+    }
+}
@@ -34,8 +34,12 @@ import org.opensearch.core.xcontent.XContentBuilder;
 import org.opensearch.core.xcontent.XContentParser;
 import org.opensearch.index.query.AbstractQueryBuilder;
 import org.opensearch.index.query.QueryShardContext;
+import org.opensearch.ltr.breaker.LTRLoadShedder;
 import org.opensearch.ltr.stats.LTRStats;
+import org.opensearch.ltr.stats.LatencyHistogram;
 import org.opensearch.ltr.stats.StatName;
+import org.opensearch.ltr.stats.suppliers.LatencyStatsSupplier;
+import org.opensearch.ltr.stats.suppliers.ModelStatsSupplier;
 
 import com.o19s.es.ltr.Constants;
 import com.o19s.es.ltr.LtrQueryContext;
@@ -172,11 +176,21 @@ public class StoredLtrQueryBuilder extends AbstractQueryBuilder<StoredLtrQueryBu
     @Override
     protected RankerQuery doToQuery(QueryShardContext context) throws IOException {
         this.ltrStats.getStat(StatName.LTR_REQUEST_TOTAL_COUNT.getName()).increment();
+        long start = System.nanoTime();
         try {
             return doToQueryInternal(context);
         } catch (Exception e) {
             ltrStats.getStat(StatName.LTR_REQUEST_ERROR_COUNT.getName()).increment();
             throw e;
+        } finally {
+            record(LatencyStatsSupplier.Metric.QUERY_BUILD, System.nanoTime() - start);
+        }
+    }
+
+    private void record(LatencyStatsSupplier.Metric metric, long nanos) {
+        LatencyHistogram histogram = ltrStats.getLatencyHistogram(metric);
+        if (histogram != null) {
+            histogram.record(nanos);
         }
     }
 
@@ -188,9 +202,27 @@ public class StoredLtrQueryBuilder extends AbstractQueryBuilder<StoredLtrQueryBu
             activeFeatures == null ? Collections.emptySet() : new HashSet<>(activeFeatures)
         );
         if (modelName != null) {
-            CompiledLtrModel model = store.loadModel(modelName);
+            // Whether the query is logged is not known here: the loggers of a query running a fallback model flag its
+            // hits, and loggers always compute the features skipped under load
+            String fallbackModel = LTRLoadShedder.getInstance().fallbackModel(modelName);
+            String loadedModel = fallbackModel != null ? fallbackModel : modelName;
+            long start = System.nanoTime();
+            CompiledLtrModel model = store.loadModel(loadedModel);
+            record(LatencyStatsSupplier.Metric.MODEL_LOAD, System.nanoTime() - start);
             validateActiveFeatures(model.featureSet(), ltrQueryContext);
-            return RankerQuery.build(model, ltrQueryContext, params, featureScoreCacheFlag, ltrStats);
+            RankerQuery query = RankerQuery.build(model, ltrQueryContext, params, featureScoreCacheFlag, ltrStats);
+            if (fallbackModel != null) {
+                query = query.fallbackFor(modelName);
+            }
+            if (LTRLoadShedder.getInstance().skipExpensiveFeatures()) {
+                query = query.skipExpensiveFeatures();
+            }
+            ModelStatsSupplier.ModelStats modelStats = ltrStats.getModelStats(loadedModel);
+            if (modelStats == null) {
+                return query;
+            }
+            modelStats.onRequest();
+            return query.trackModelStats(modelStats);
         } else {
             assert featureSetName != null;
             FeatureSet set = store.loadSet(featureSetName);
@@ -16,6 +16,8 @@
 
 package com.o19s.es.ltr.ranker;
 
+import java.util.BitSet;
+
 import org.opensearch.common.Nullable;
 
 /**
@@ -53,6 +55,17 @@ public interface LtrRanker {
      */
     float score(FeatureVector point);
 
+    /**
+     * The ordinals of the features read by {@link #score(FeatureVector)}, computed once when the model is built.
+     * Features outside of this set do not need to be computed to score a document.
+     * The returned set must not be modified.
+     *
+     * @return the ordinals of the features used by the model, null if unknown: all the features are then computed
+     */
+    default BitSet usedFeatures() {
+        return null;
+    }
+
     /**
      * A FeatureVector used to store individual feature scores
      */
@@ -0,0 +1,76 @@
+/*
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.o19s.es.ltr.ranker;
+
+/**
+ * Dense feature vector that tracks the ordinals of the features set since the last {@link #reset()}.
+ * <p>
+ * A reset only restores these features, and rankers can read the scores of these features only when few of them
+ * matched the document. Scores must be set with {@link #setFeatureScore(int, float)}: writes to {@link #scores} are
+ * not tracked.
+ */
+public class TrackingDenseFeatureVector extends DenseFeatureVector {
+    private final boolean[] active;
+    private final int[] activeOrdinals;
+    private int activeCount;
+
+    public TrackingDenseFeatureVector(int size) {
+        super(size);
+        active = new boolean[size];
+        activeOrdinals = new int[size];
+    }
+
+    @Override
+    public void setFeatureScore(int featureIdx, float score) {
+        if (active[featureIdx] == false) {
+            active[featureIdx] = true;
+            // Ordinals are kept sorted, features are mostly set in increasing ordinal order so that little is shifted
+            int i = activeCount++;
+            while (i > 0 && activeOrdinals[i - 1] > featureIdx) {
+                activeOrdinals[i] = activeOrdinals[i - 1];
+                i--;
+            }
+            activeOrdinals[i] = featureIdx;
+        }
+        scores[featureIdx] = score;
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < activeCount; i++) {
+            int ordinal = activeOrdinals[i];
+            scores[ordinal] = defaultScore;
+            active[ordinal] = false;
+        }
+        activeCount = 0;
+    }
+
+    /**
+     * @return the number of features set since the last reset
+     */
+    public int activeCount() {
+        return activeCount;
+    }
+
+    /**
+     * @return the ordinals of the features set since the last reset, in increasing order, only the first
+     * {@link #activeCount()} entries are valid
+     */
+    public int[] activeOrdinals() {
+        return activeOrdinals;
+    }
+}
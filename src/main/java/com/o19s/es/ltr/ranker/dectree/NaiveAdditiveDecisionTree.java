@@ -16,7 +16,14 @@
 
 package com.o19s.es.ltr.ranker.dectree;
 
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
 import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
 
 import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.RamUsageEstimator;
@@ -36,6 +43,8 @@ public class NaiveAdditiveDecisionTree extends SparseLtrRanker implements Accoun
     private final float[] weights;
     private final int modelSize;
     private final Normalizer normalizer;
+    private final BitSet usedFeatures;
+    private final long treesRamBytesUsed;
 
     /**
      * TODO: Constructor for these classes are strict and not really
@@ -53,6 +62,60 @@ public class NaiveAdditiveDecisionTree extends SparseLtrRanker implements Accoun
         this.weights = weights;
         this.modelSize = modelSize;
         this.normalizer = normalizer;
+        this.usedFeatures = usedFeatures(trees, weights, modelSize);
+        this.treesRamBytesUsed = nodesRamBytesUsed(trees);
+    }
+
+    /**
+     * Collect the features the trees split on, trees with a zero weight are ignored
+     */
+    private static BitSet usedFeatures(Node[] trees, float[] weights, int modelSize) {
+        BitSet used = new BitSet(modelSize);
+        Set<Node> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = 0; i < trees.length; i++) {
+            if (weights[i] == 0F) {
+                continue;
+            }
+            forEachNode(trees[i], seen, node -> {
+                if (!node.isLeaf()) {
+                    used.set(((Split) node).feature);
+                }
+            });
+        }
+        return used;
+    }
+
+    /**
+     * Memory used by the distinct nodes reachable from the given roots
+     */
+    private static long nodesRamBytesUsed(Node... roots) {
+        long[] ramBytesUsed = new long[1];
+        Set<Node> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Node root : roots) {
+            forEachNode(root, seen, node -> ramBytesUsed[0] += node.isLeaf() ? node.ramBytesUsed() : Split.BASE_RAM_USED);
+        }
+        return ramBytesUsed[0];
+    }
+
+    /**
+     * Visit once each node reachable from the root and not already seen. Compiled trees (e.g. LightGBM decisions)
+     * share subtrees between several branches, walking every path would cost exponentially in the depth of the tree.
+     */
+    private static void forEachNode(Node root, Set<Node> seen, Consumer<Node> visitor) {
+        Deque<Node> nodes = new ArrayDeque<>();
+        nodes.push(root);
+        while (!nodes.isEmpty()) {
+            Node node = nodes.pop();
+            if (!seen.add(node)) {
+                continue;
+            }
+            visitor.accept(node);
+            if (!node.isLeaf()) {
+                Split split = (Split) node;
+                nodes.push(split.left);
+                nodes.push(split.right);
+            }
+        }
     }
 
     @Override
@@ -70,6 +133,11 @@ public class NaiveAdditiveDecisionTree extends SparseLtrRanker implements Accoun
         return normalizer.normalize(sum);
     }
 
+    @Override
+    public BitSet usedFeatures() {
+        return usedFeatures;
+    }
+
     @Override
     protected int size() {
         return modelSize;
@@ -80,7 +148,8 @@ public class NaiveAdditiveDecisionTree extends SparseLtrRanker implements Accoun
      */
     @Override
     public long ramBytesUsed() {
-        return BASE_RAM_USED + RamUsageEstimator.sizeOf(weights) + RamUsageEstimator.sizeOf(trees);
+        return BASE_RAM_USED + RamUsageEstimator.sizeOf(weights) + RamUsageEstimator.shallowSizeOf(trees) + treesRamBytesUsed
+            + usedFeatures.size() / Byte.SIZE;
     }
 
     public interface Node extends Accountable {
@@ -95,12 +164,21 @@ public class NaiveAdditiveDecisionTree extends SparseLtrRanker implements Accoun
         private final Node right;
         private final int feature;
         private final float threshold;
+        private final boolean defaultLeft;
 
         public Split(Node left, Node right, int feature, float threshold) {
+            this(left, right, feature, threshold, false);
+        }
+
+        /**
+         * @param defaultLeft true to send documents missing the feature (a NaN score) to the left branch, they go right otherwise
+         */
+        public Split(Node left, Node right, int feature, float threshold, boolean defaultLeft) {
             this.left = Objects.requireNonNull(left);
             this.right = Objects.requireNonNull(right);
             this.feature = feature;
             this.threshold = threshold;
+            this.defaultLeft = defaultLeft;
         }
 
         @Override
@@ -114,7 +192,9 @@ public class NaiveAdditiveDecisionTree extends SparseLtrRanker implements Accoun
             while (!n.isLeaf()) {
                 assert n instanceof Split;
                 Split s = (Split) n;
-                if (s.threshold > scores[s.feature]) {
+                float value = scores[s.feature];
+                // NaN fails every comparison: non short-circuit operators route it with the default direction without a branch
+                if (s.threshold > value | (s.defaultLeft & value != value)) {
                     n = s.left;
                 } else {
                     n = s.right;
@@ -140,12 +220,17 @@ public class NaiveAdditiveDecisionTree extends SparseLtrRanker implements Accoun
             return this.threshold;
         }
 
+        public boolean isDefaultLeft() {
+            return this.defaultLeft;
+        }
+
         /**
          * Return the memory usage of this object in bytes. Negative values are illegal.
+         * Subtrees shared by several branches are counted once.
          */
         @Override
         public long ramBytesUsed() {
-            return BASE_RAM_USED + left.ramBytesUsed() + right.ramBytesUsed();
+            return nodesRamBytesUsed(this);
         }
     }
 
@@ -17,6 +17,7 @@
 package com.o19s.es.ltr.ranker.linear;
 
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Objects;
 
 import org.apache.lucene.util.Accountable;
@@ -24,16 +25,27 @@ import org.apache.lucene.util.RamUsageEstimator;
 
 import com.o19s.es.ltr.ranker.DenseFeatureVector;
 import com.o19s.es.ltr.ranker.DenseLtrRanker;
+import com.o19s.es.ltr.ranker.TrackingDenseFeatureVector;
 
 /**
  * Simple linear ranker that applies a dot product based
  * on the provided weights array.
  */
 public class LinearRanker extends DenseLtrRanker implements Accountable {
+    // Below one feature set out of SPARSE_RATIO the scores are read through the ordinals of the features set
+    private static final int SPARSE_RATIO = 4;
+
     private final float[] weights;
+    private final BitSet usedFeatures;
 
     public LinearRanker(float[] weights) {
         this.weights = Objects.requireNonNull(weights);
+        this.usedFeatures = new BitSet(weights.length);
+        for (int i = 0; i < weights.length; i++) {
+            if (weights[i] != 0F) {
+                usedFeatures.set(i);
+            }
+        }
     }
 
     @Override
@@ -41,16 +53,53 @@ public class LinearRanker extends DenseLtrRanker implements Accountable {
         return "linear";
     }
 
+    /**
+     * Vectors of this ranker track the features set so that a reset only restores these features
+     */
+    @Override
+    public DenseFeatureVector newFeatureVector(FeatureVector reuse) {
+        if (reuse instanceof TrackingDenseFeatureVector) {
+            TrackingDenseFeatureVector vector = (TrackingDenseFeatureVector) reuse;
+            vector.reset();
+            return vector;
+        }
+        return new TrackingDenseFeatureVector(size());
+    }
+
+    /**
+     * Features that did not match score 0: when few features are set the dot product only reads them. Both paths sum
+     * in ordinal order so that a document gets the same score whichever path is taken.
+     */
     @Override
     protected float score(DenseFeatureVector point) {
         float[] scores = point.scores;
         float score = 0;
+        if (point instanceof TrackingDenseFeatureVector) {
+            TrackingDenseFeatureVector tracked = (TrackingDenseFeatureVector) point;
+            int activeCount = tracked.activeCount();
+            if (activeCount * SPARSE_RATIO < weights.length) {
+                int[] activeOrdinals = tracked.activeOrdinals();
+                for (int i = 0; i < activeCount; i++) {
+                    int ordinal = activeOrdinals[i];
+                    score += weights[ordinal] * scores[ordinal];
+                }
+                return score;
+            }
+        }
         for (int i = 0; i < weights.length; i++) {
             score += weights[i] * scores[i];
         }
         return score;
     }
 
+    /**
+     * Features with a zero weight are not used
+     */
+    @Override
+    public BitSet usedFeatures() {
+        return usedFeatures;
+    }
+
     @Override
     protected int size() {
         return weights.length;
@@ -78,6 +127,6 @@ public class LinearRanker extends DenseLtrRanker implements Accountable {
      */
     @Override
     public long ramBytesUsed() {
-        return RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + RamUsageEstimator.sizeOf(weights);
+        return RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + RamUsageEstimator.sizeOf(weights) + usedFeatures.size() / Byte.SIZE;
     }
 }
@@ -16,6 +16,7 @@
 
 package com.o19s.es.ltr.ranker.normalizer;
 
+import java.util.BitSet;
 import java.util.Map;
 import java.util.Objects;
 
@@ -65,6 +66,14 @@ public class FeatureNormalizingRanker implements LtrRanker, Accountable {
         return wrapped.score(point);
     }
 
+    /**
+     * Normalizing a feature that is not used has no effect on the score
+     */
+    @Override
+    public BitSet usedFeatures() {
+        return wrapped.usedFeatures();
+    }
+
     @Override
     public boolean equals(Object other) {
         if (other == null)
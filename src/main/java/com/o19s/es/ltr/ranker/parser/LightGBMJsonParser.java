@@ -0,0 +1,236 @@
+/*
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.o19s.es.ltr.ranker.parser;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.opensearch.common.xcontent.LoggingDeprecationHandler;
+import org.opensearch.common.xcontent.json.JsonXContent;
+import org.opensearch.core.common.ParsingException;
+import org.opensearch.core.xcontent.NamedXContentRegistry;
+import org.opensearch.core.xcontent.XContentParseException;
+import org.opensearch.core.xcontent.XContentParser;
+
+import com.o19s.es.ltr.feature.FeatureSet;
+import com.o19s.es.ltr.ranker.dectree.NaiveAdditiveDecisionTree;
+import com.o19s.es.ltr.ranker.dectree.NaiveAdditiveDecisionTree.Node;
+
+/**
+ * Parse LightGBM models saved in the JSON format (Booster.dump_model)
+ * <p>
+ * Like {@link XGBoostJsonParser} nodes are built while reading the tokens. The feature names of the model must
+ * come before its trees, as written by LightGBM.
+ */
+public class LightGBMJsonParser implements LtrRankerParser {
+    public static final String TYPE = "model/lightgbm+json";
+
+    @Override
+    public NaiveAdditiveDecisionTree parse(FeatureSet set, String model) {
+        LightGBMDefinition definition = new LightGBMDefinition(set);
+        try (
+            XContentParser parser = JsonXContent.jsonXContent
+                .createParser(NamedXContentRegistry.EMPTY, LoggingDeprecationHandler.INSTANCE, model)
+        ) {
+            XContentParser.Token startToken = parser.nextToken();
+            if (startToken != XContentParser.Token.START_OBJECT) {
+                throw new ParsingException(parser.getTokenLocation(), "Expected [START_OBJECT] but got [" + startToken + "]");
+            }
+            try {
+                definition.parseFields(parser);
+            } catch (XContentParseException | ParsingException | IllegalArgumentException e) {
+                throw new ParsingException(parser.getTokenLocation(), "Unable to parse LightGBM object", e);
+            }
+            if (definition.trees.isEmpty()) {
+                throw new ParsingException(parser.getTokenLocation(), "LightGBM model must define at least one tree");
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot parse model", e);
+        }
+
+        Node[] trees = definition.trees.toArray(new Node[0]);
+        LightGBMTrees.Objective objective = new LightGBMTrees.Objective(definition.objective);
+        return new NaiveAdditiveDecisionTree(
+            trees,
+            objective.weights(trees.length, definition.averageOutput),
+            set.size(),
+            objective.normalizer()
+        );
+    }
+
+    private static class LightGBMDefinition {
+        private final FeatureSet set;
+        private final List<Node> trees = new ArrayList<>();
+        private String objective = "regression";
+        private boolean averageOutput;
+        private int[] featureOrdinals;
+
+        LightGBMDefinition(FeatureSet set) {
+            this.set = set;
+        }
+
+        private void parseFields(XContentParser parser) throws IOException {
+            String field = null;
+            XContentParser.Token token;
+            while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+                if (token == XContentParser.Token.FIELD_NAME) {
+                    field = parser.currentName();
+                } else if ("objective".equals(field) && token == XContentParser.Token.VALUE_STRING) {
+                    objective = parser.text();
+                    // Validate the objective where it is defined
+                    new LightGBMTrees.Objective(objective);
+                } else if ("average_output".equals(field) && token == XContentParser.Token.VALUE_BOOLEAN) {
+                    averageOutput = parser.booleanValue();
+                } else if ("num_tree_per_iteration".equals(field) && token == XContentParser.Token.VALUE_NUMBER) {
+                    if (parser.intValue() != 1) {
+                        throw new ParsingException(parser.getTokenLocation(), "Multiclass LightGBM models are not supported");
+                    }
+                } else if ("feature_names".equals(field) && token == XContentParser.Token.START_ARRAY) {
+                    List<String> featureNames = new ArrayList<>();
+                    while (parser.nextToken() != XContentParser.Token.END_ARRAY) {
+                        featureNames.add(parser.text());
+                    }
+                    featureOrdinals = LightGBMTrees.featureOrdinals(set, featureNames);
+                } else if ("tree_info".equals(field) && token == XContentParser.Token.START_ARRAY) {
+                    if (featureOrdinals == null) {
+                        throw new ParsingException(parser.getTokenLocation(), "[feature_names] must be defined before [tree_info]");
+                    }
+                    while (parser.nextToken() != XContentParser.Token.END_ARRAY) {
+                        trees.add(parseTreeInfo(parser));
+                    }
+                } else {
+                    // Training metadata (feature_infos, feature_importances...) is not needed to score
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        private Node parseTreeInfo(XContentParser parser) throws IOException {
+            Node tree = null;
+            String field = null;
+            XContentParser.Token token;
+            while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+                if (token == XContentParser.Token.FIELD_NAME) {
+                    field = parser.currentName();
+                } else if ("tree_structure".equals(field) && token == XContentParser.Token.START_OBJECT) {
+                    tree = parseNode(parser);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (tree == null) {
+                throw new ParsingException(parser.getTokenLocation(), "LightGBM tree missing required field [tree_structure]");
+            }
+            return tree;
+        }
+
+        /**
+         * Parse the node starting at the current token and its children
+         */
+        private Node parseNode(XContentParser parser) throws IOException {
+            if (parser.currentToken() != XContentParser.Token.START_OBJECT) {
+                throw new ParsingException(
+                    parser.getTokenLocation(),
+                    "Expected [START_OBJECT] but got [" + parser.currentToken() + "]"
+                );
+            }
+            boolean hasLeaf = false;
+            boolean hasFeature = false;
+            boolean hasThreshold = false;
+            boolean categorical = false;
+            boolean defaultLeft = false;
+            int missingType = LightGBMTrees.MISSING_NONE;
+            int feature = 0;
+            double threshold = 0D;
+            int[] categories = null;
+            float leaf = 0F;
+            Node left = null;
+            Node right = null;
+
+            String field = null;
+            XContentParser.Token token;
+            while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+                if (token == XContentParser.Token.FIELD_NAME) {
+                    field = parser.currentName();
+                    continue;
+                }
+                switch (field) {
+                    case "leaf_value":
+                        // Rounded like the double leaf values of the text format
+                        leaf = (float) parser.doubleValue();
+                        hasLeaf = true;
+                        break;
+                    case "split_feature":
+                        feature = LightGBMTrees.feature(featureOrdinals, parser.intValue());
+                        hasFeature = true;
+                        break;
+                    case "threshold":
+                        // Categories of categorical splits are joined with "||"
+                        if (token == XContentParser.Token.VALUE_STRING) {
+                            categories = Arrays.stream(parser.text().split("\\|\\|")).mapToInt(Integer::parseInt).toArray();
+                        } else {
+                            threshold = parser.doubleValue();
+                        }
+                        hasThreshold = true;
+                        break;
+                    case "decision_type":
+                        categorical = "==".equals(parser.text());
+                        break;
+                    case "default_left":
+                        defaultLeft = parser.booleanValue();
+                        break;
+                    case "missing_type":
+                        missingType = missingType(parser);
+                        break;
+                    case "left_child":
+                        left = parseNode(parser);
+                        break;
+                    case "right_child":
+                        right = parseNode(parser);
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
+
+            if (hasLeaf) {
+                return new NaiveAdditiveDecisionTree.Leaf(leaf);
+            }
+            if (!hasFeature || !hasThreshold || left == null || right == null || categorical != (categories != null)) {
+                throw new ParsingException(parser.getTokenLocation(), "This split does not have all the required fields");
+            }
+            return categorical
+                ? LightGBMTrees.categorical(feature, categories, left, right)
+                : LightGBMTrees.numerical(feature, threshold, missingType, defaultLeft, left, right);
+        }
+
+        private static int missingType(XContentParser parser) throws IOException {
+            switch (parser.text()) {
+                case "None":
+                    return LightGBMTrees.MISSING_NONE;
+                case "Zero":
+                    return LightGBMTrees.MISSING_ZERO;
+                case "NaN":
+                    return LightGBMTrees.MISSING_NAN;
+                default:
+                    throw new ParsingException(parser.getTokenLocation(), "Unknown LightGBM missing type [" + parser.text() + "]");
+            }
+        }
+    }
+}
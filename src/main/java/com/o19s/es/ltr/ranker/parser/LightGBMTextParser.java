@@ -0,0 +1,182 @@
+/*
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.o19s.es.ltr.ranker.parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.o19s.es.ltr.feature.FeatureSet;
+import com.o19s.es.ltr.ranker.dectree.NaiveAdditiveDecisionTree;
+import com.o19s.es.ltr.ranker.dectree.NaiveAdditiveDecisionTree.Node;
+
+/**
+ * Parse LightGBM models saved in the text format (Booster.save_model / model_to_string)
+ */
+public class LightGBMTextParser implements LtrRankerParser {
+    public static final String TYPE = "model/lightgbm";
+
+    // Bits of the decision_type of a node, see Tree in LightGBM's tree.h
+    private static final int CATEGORICAL_MASK = 1;
+    private static final int DEFAULT_LEFT_MASK = 2;
+
+    @Override
+    public NaiveAdditiveDecisionTree parse(FeatureSet set, String model) {
+        Map<String, String> header = new HashMap<>();
+        List<Map<String, String>> treeSections = new ArrayList<>();
+        Map<String, String> section = header;
+        boolean averageOutput = false;
+        for (String line : model.split("\n")) {
+            line = line.trim();
+            if (line.equals("end of trees")) {
+                break;
+            }
+            if (line.startsWith("Tree=")) {
+                section = new HashMap<>();
+                treeSections.add(section);
+            } else if (line.equals("average_output")) {
+                averageOutput = true;
+            } else if (line.indexOf('=') > 0) {
+                section.put(line.substring(0, line.indexOf('=')), line.substring(line.indexOf('=') + 1));
+            }
+        }
+
+        if (!header.containsKey("feature_names")) {
+            throw new IllegalArgumentException("LightGBM model missing required field [feature_names]");
+        }
+        if (Integer.parseInt(header.getOrDefault("num_tree_per_iteration", "1")) != 1) {
+            throw new IllegalArgumentException("Multiclass LightGBM models are not supported");
+        }
+        if (treeSections.isEmpty()) {
+            throw new IllegalArgumentException("LightGBM model must define at least one tree");
+        }
+        LightGBMTrees.Objective objective = new LightGBMTrees.Objective(header.getOrDefault("objective", "regression"));
+        int[] featureOrdinals = LightGBMTrees.featureOrdinals(set, Arrays.asList(header.get("feature_names").split(" ")));
+
+        Node[] trees = new Node[treeSections.size()];
+        for (int i = 0; i < trees.length; i++) {
+            try {
+                trees[i] = new TextTree(treeSections.get(i)).toNode(featureOrdinals);
+            } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("Unable to parse LightGBM tree [" + i + "]", e);
+            }
+        }
+        return new NaiveAdditiveDecisionTree(trees, objective.weights(trees.length, averageOutput), set.size(), objective.normalizer());
+    }
+
+    /**
+     * Tree section of the model: nodes are described by arrays indexed by node, negative children reference leaves
+     */
+    private static class TextTree {
+        private final int[] splitFeature;
+        private final double[] threshold;
+        private final int[] decisionType;
+        private final int[] leftChild;
+        private final int[] rightChild;
+        private final double[] leafValue;
+        private final int[] catBoundaries;
+        private final int[] catThreshold;
+
+        TextTree(Map<String, String> fields) {
+            if ("1".equals(fields.get("is_linear"))) {
+                throw new IllegalArgumentException("LightGBM linear trees are not supported");
+            }
+            int numLeaves = Integer.parseInt(required(fields, "num_leaves"));
+            leafValue = doubles(required(fields, "leaf_value"));
+            if (leafValue.length != numLeaves) {
+                throw new IllegalArgumentException("Expected [" + numLeaves + "] leaf values but got [" + leafValue.length + "]");
+            }
+            if (numLeaves > 1) {
+                splitFeature = ints(required(fields, "split_feature"));
+                threshold = doubles(required(fields, "threshold"));
+                decisionType = ints(required(fields, "decision_type"));
+                leftChild = ints(required(fields, "left_child"));
+                rightChild = ints(required(fields, "right_child"));
+            } else {
+                splitFeature = new int[0];
+                threshold = new double[0];
+                decisionType = new int[0];
+                leftChild = new int[0];
+                rightChild = new int[0];
+            }
+            if (Integer.parseInt(fields.getOrDefault("num_cat", "0")) > 0) {
+                catBoundaries = ints(required(fields, "cat_boundaries"));
+                // Words are unsigned and may use their highest bit
+                catThreshold = Arrays
+                    .stream(required(fields, "cat_threshold").trim().split(" "))
+                    .mapToInt(Integer::parseUnsignedInt)
+                    .toArray();
+            } else {
+                catBoundaries = new int[0];
+                catThreshold = new int[0];
+            }
+        }
+
+        Node toNode(int[] featureOrdinals) {
+            // The root is a leaf when the tree has no splits
+            return leftChild.length == 0 ? node(-1, featureOrdinals) : node(0, featureOrdinals);
+        }
+
+        private Node node(int child, int[] featureOrdinals) {
+            if (child < 0) {
+                return new NaiveAdditiveDecisionTree.Leaf((float) leafValue[~child]);
+            }
+            Node left = node(leftChild[child], featureOrdinals);
+            Node right = node(rightChild[child], featureOrdinals);
+            int feature = LightGBMTrees.feature(featureOrdinals, splitFeature[child]);
+            if ((decisionType[child] & CATEGORICAL_MASK) != 0) {
+                return LightGBMTrees.categorical(feature, categories((int) threshold[child]), left, right);
+            }
+            boolean defaultLeft = (decisionType[child] & DEFAULT_LEFT_MASK) != 0;
+            int missingType = (decisionType[child] >> 2) & 3;
+            return LightGBMTrees.numerical(feature, threshold[child], missingType, defaultLeft, left, right);
+        }
+
+        /**
+         * Categories of a categorical split, stored as a bitset of 32 bits words in cat_threshold
+         */
+        private int[] categories(int catIndex) {
+            List<Integer> categories = new ArrayList<>();
+            for (int word = catBoundaries[catIndex]; word < catBoundaries[catIndex + 1]; word++) {
+                for (int bit = 0; bit < Integer.SIZE; bit++) {
+                    if ((catThreshold[word] & (1 << bit)) != 0) {
+                        categories.add((word - catBoundaries[catIndex]) * Integer.SIZE + bit);
+                    }
+                }
+            }
+            return categories.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        private static String required(Map<String, String> fields, String name) {
+            String value = fields.get(name);
+            if (value == null) {
+                throw new IllegalArgumentException("LightGBM tree missing required field [" + name + "]");
+            }
+            return value;
+        }
+
+        private static int[] ints(String value) {
+            return Arrays.stream(value.trim().split(" ")).mapToInt(Integer::parseInt).toArray();
+        }
+
+        private static double[] doubles(String value) {
+            return Arrays.stream(value.trim().split(" ")).mapToDouble(Double::parseDouble).toArray();
+        }
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.o19s.es.ltr.ranker.parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.DoublePredicate;
+
+import com.o19s.es.ltr.feature.FeatureSet;
+import com.o19s.es.ltr.ranker.dectree.NaiveAdditiveDecisionTree;
+import com.o19s.es.ltr.ranker.dectree.NaiveAdditiveDecisionTree.Node;
+import com.o19s.es.ltr.ranker.dectree.NaiveAdditiveDecisionTree.Split;
+import com.o19s.es.ltr.ranker.normalizer.Normalizer;
+import com.o19s.es.ltr.ranker.normalizer.Normalizers;
+
+/**
+ * Compiles the decisions of LightGBM trees into the nodes of a {@link NaiveAdditiveDecisionTree}.
+ * <p>
+ * LightGBM decisions (missing value handling, categorical splits) are turned into threshold splits whose documents
+ * missing the feature follow the default direction of the split, so that these models are evaluated as fast as the
+ * XGBoost ones. A decision is sliced into the ranges of feature values where its outcome is constant, the ranges
+ * are then looked up with a balanced tree of splits.
+ */
+final class LightGBMTrees {
+    static final int MISSING_NONE = 0;
+    static final int MISSING_ZERO = 1;
+    static final int MISSING_NAN = 2;
+
+    // Values LightGBM considers to be zero, see kZeroThreshold in LightGBM's meta.h
+    private static final float ZERO_THRESHOLD = 1e-35F;
+    // Largest category whose range of values can be represented with float boundaries
+    private static final int MAX_CATEGORY = 1 << 24;
+
+    private LightGBMTrees() {}
+
+    /**
+     * Decision of a numerical split, documents go left when their value is lower or equal to the threshold
+     *
+     * @param feature     ordinal of the feature in the feature set
+     * @param threshold   threshold of the split
+     * @param missingType how missing values are detected, one of {@link #MISSING_NONE}, {@link #MISSING_ZERO} or {@link #MISSING_NAN}
+     * @param defaultLeft true if missing values go left
+     */
+    static Node numerical(int feature, double threshold, int missingType, boolean defaultLeft, Node left, Node right) {
+        if (missingType < MISSING_NONE || missingType > MISSING_NAN) {
+            throw new IllegalArgumentException("Unknown LightGBM missing type [" + missingType + "]");
+        }
+        DoublePredicate goesLeft = value -> {
+            if (Double.isNaN(value) && missingType != MISSING_NAN) {
+                value = 0D;
+            }
+            if ((missingType == MISSING_ZERO && value >= -ZERO_THRESHOLD && value <= ZERO_THRESHOLD)
+                || (missingType == MISSING_NAN && Double.isNaN(value))) {
+                return defaultLeft;
+            }
+            return value <= threshold;
+        };
+        // Smallest float on the right of the threshold
+        float upper = (float) threshold;
+        if ((double) upper <= threshold) {
+            upper = Math.nextUp(upper);
+        }
+        float[] boundaries = missingType == MISSING_ZERO
+            ? new float[] { upper, -ZERO_THRESHOLD, Math.nextUp(ZERO_THRESHOLD) }
+            : new float[] { upper };
+        return compile(feature, boundaries, goesLeft, left, right);
+    }
+
+    /**
+     * Decision of a categorical split, documents go left when the integer part of their value is one of the categories
+     *
+     * @param feature    ordinal of the feature in the feature set
+     * @param categories categories sent to the left branch
+     */
+    static Node categorical(int feature, int[] categories, Node left, Node right) {
+        int[] sorted = categories.clone();
+        Arrays.sort(sorted);
+        DoublePredicate goesLeft = value -> {
+            if (Double.isNaN(value) || (int) value < 0) {
+                return false;
+            }
+            return Arrays.binarySearch(sorted, (int) value) >= 0;
+        };
+        float[] boundaries = new float[sorted.length * 2];
+        for (int i = 0; i < sorted.length; i++) {
+            int category = sorted[i];
+            if (category < 0 || category >= MAX_CATEGORY) {
+                throw new IllegalArgumentException("Invalid LightGBM category [" + category + "]");
+            }
+            // Values between -1 and 0 are truncated to category 0
+            boundaries[2 * i] = category == 0 ? Math.nextUp(-1F) : category;
+            boundaries[2 * i + 1] = category + 1;
+        }
+        return compile(feature, boundaries, goesLeft, left, right);
+    }
+
+    /**
+     * Build the splits routing the values of a feature as the given decision
+     *
+     * @param boundaries values where the outcome of the decision may change, the outcome must be constant between two boundaries
+     */
+    private static Node compile(int feature, float[] boundaries, DoublePredicate goesLeft, Node left, Node right) {
+        float[] sorted = boundaries.clone();
+        Arrays.sort(sorted);
+        // Keep the boundaries where the outcome actually changes, ranges alternate between the left and right nodes
+        List<Float> changes = new ArrayList<>();
+        boolean firstLeft = goesLeft.test(Double.NEGATIVE_INFINITY);
+        boolean current = firstLeft;
+        for (float boundary : sorted) {
+            boolean outcome = goesLeft.test(boundary);
+            if (outcome != current) {
+                changes.add(boundary);
+                current = outcome;
+            }
+        }
+        boolean missingLeft = goesLeft.test(Double.NaN);
+        Node first = firstLeft ? left : right;
+        if (changes.isEmpty()) {
+            if (missingLeft == firstLeft) {
+                return first;
+            }
+            // Every value is on the right of -Infinity, only missing values are sent left
+            return new Split(missingLeft ? left : right, first, feature, Float.NEGATIVE_INFINITY, true);
+        }
+        return balanced(feature, changes, 0, changes.size(), first, first == left ? right : left, missingLeft ? left : right);
+    }
+
+    /**
+     * Balanced tree looking up the ranges from index {@code from} to index {@code to} included, range i starts at the
+     * boundary i - 1.
+     */
+    private static Node balanced(int feature, List<Float> boundaries, int from, int to, Node first, Node second, Node missing) {
+        if (from == to) {
+            return from % 2 == 0 ? first : second;
+        }
+        int mid = (from + to) >>> 1;
+        Node left = balanced(feature, boundaries, from, mid, first, second, missing);
+        Node right = balanced(feature, boundaries, mid + 1, to, first, second, missing);
+        // Ranges alternate between the two nodes: a side with more than one range can reach the missing node
+        boolean defaultLeft = mid > from || left == missing;
+        return new Split(left, right, feature, boundaries.get(mid), defaultLeft);
+    }
+
+    /**
+     * @return the ordinals in the feature set of the features of the model
+     */
+    static int[] featureOrdinals(FeatureSet set, List<String> featureNames) {
+        List<String> unknownFeatures = new ArrayList<>();
+        int[] ordinals = new int[featureNames.size()];
+        for (int i = 0; i < featureNames.size(); i++) {
+            String name = featureNames.get(i);
+            if (set.hasFeature(name)) {
+                ordinals[i] = set.featureOrdinal(name);
+            } else {
+                unknownFeatures.add(name);
+            }
+        }
+        if (!unknownFeatures.isEmpty()) {
+            throw new IllegalArgumentException("Unknown features in model: [" + String.join(", ", unknownFeatures) + "]");
+        }
+        return ordinals;
+    }
+
+    static int feature(int[] featureOrdinals, int feature) {
+        if (feature < 0 || feature >= featureOrdinals.length) {
+            throw new IllegalArgumentException("Split feature index [" + feature + "] is invalid");
+        }
+        return featureOrdinals[feature];
+    }
+
+    /**
+     * Objective of a LightGBM model, e.g. "lambdarank" or "binary sigmoid:1"
+     */
+    static class Objective {
+        private final Normalizer normalizer;
+        // Sigmoid parameter of binary objectives, applied to tree outputs
+        private final float scale;
+
+        Objective(String objective) {
+            String[] parts = objective.trim().split(" ");
+            float scale = 1F;
+            switch (parts[0]) {
+                case "regression":
+                case "regression_l1":
+                case "huber":
+                case "fair":
+                case "quantile":
+                case "mape":
+                case "lambdarank":
+                case "rank_xendcg":
+                case "custom":
+                    if (Arrays.asList(parts).contains("sqrt")) {
+                        throw new IllegalArgumentException("Objective [" + objective + "] is not a supported LightGBM objective");
+                    }
+                    normalizer = Normalizers.get(Normalizers.NOOP_NORMALIZER_NAME);
+                    break;
+                case "binary":
+                case "cross_entropy":
+                    normalizer = Normalizers.get(Normalizers.SIGMOID_NORMALIZER_NAME);
+                    for (int i = 1; i < parts.length; i++) {
+                        if (parts[i].startsWith("sigmoid:")) {
+                            scale = Float.parseFloat(parts[i].substring("sigmoid:".length()));
+                        }
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("Objective [" + objective + "] is not a supported LightGBM objective");
+            }
+            this.scale = scale;
+        }
+
+        Normalizer normalizer() {
+            return normalizer;
+        }
+
+        /**
+         * @param averageOutput true if the model averages the outputs of its trees (random forest boosting)
+         */
+        float[] weights(int nTrees, boolean averageOutput) {
+            float[] weights = new float[nTrees];
+            Arrays.fill(weights, averageOutput ? scale / nTrees : scale);
+            return weights;
+        }
+    }
+}
@@ -20,14 +20,11 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.ListIterator;
 
 import org.opensearch.common.xcontent.LoggingDeprecationHandler;
 import org.opensearch.common.xcontent.json.JsonXContent;
-import org.opensearch.core.ParseField;
 import org.opensearch.core.common.ParsingException;
 import org.opensearch.core.xcontent.NamedXContentRegistry;
-import org.opensearch.core.xcontent.ObjectParser;
 import org.opensearch.core.xcontent.XContentParseException;
 import org.opensearch.core.xcontent.XContentParser;
 
@@ -39,6 +36,9 @@ import com.o19s.es.ltr.ranker.normalizer.Normalizers;
 
 /**
  * Parse XGBoost models generated by mjolnir (https://gerrit.wikimedia.org/r/search/MjoLniR)
+ * <p>
+ * Models are parsed in a single pass over the tokens: each node is built as soon as its object ends,
+ * without intermediate parsing state, so that large dumps can be loaded without producing much garbage.
  */
 public class XGBoostJsonParser implements LtrRankerParser {
     public static final String TYPE = "model/xgboost+json";
@@ -55,7 +55,7 @@ public class XGBoostJsonParser implements LtrRankerParser {
             throw new IllegalArgumentException("Cannot parse model", e);
         }
 
-        Node[] trees = modelDefinition.getTrees(set);
+        Node[] trees = modelDefinition.trees.toArray(new Node[0]);
         float[] weights = new float[trees.length];
         // Tree weights are already encoded in outputs
         Arrays.fill(weights, 1F);
@@ -63,18 +63,11 @@ public class XGBoostJsonParser implements LtrRankerParser {
     }
 
     private static class XGBoostDefinition {
-        private static final ObjectParser<XGBoostDefinition, FeatureSet> PARSER;
-        static {
-            PARSER = new ObjectParser<>("xgboost_definition", XGBoostDefinition::new);
-            PARSER.declareString(XGBoostDefinition::setNormalizer, new ParseField("objective"));
-            PARSER.declareObjectArray(XGBoostDefinition::setSplitParserStates, SplitParserState::parse, new ParseField("splits"));
-        }
-
         private Normalizer normalizer;
-        private List<SplitParserState> splitParserStates;
+        private List<Node> trees;
 
         public static XGBoostDefinition parse(XContentParser parser, FeatureSet set) throws IOException {
-            XGBoostDefinition definition;
+            XGBoostDefinition definition = new XGBoostDefinition();
             XContentParser.Token startToken = parser.nextToken();
 
             // The model definition can either be an array of tree definitions, or an object containing the
@@ -82,26 +75,22 @@ public class XGBoostJsonParser implements LtrRankerParser {
             // parameters.
             if (startToken == XContentParser.Token.START_OBJECT) {
                 try {
-                    definition = PARSER.apply(parser, set);
-                } catch (XContentParseException e) {
+                    definition.parseFields(parser, set);
+                } catch (XContentParseException | ParsingException | IllegalArgumentException e) {
                     throw new ParsingException(parser.getTokenLocation(), "Unable to parse XGBoost object", e);
                 }
-                if (definition.splitParserStates == null) {
+                if (definition.trees == null) {
                     throw new ParsingException(parser.getTokenLocation(), "XGBoost model missing required field [splits]");
                 }
             } else if (startToken == XContentParser.Token.START_ARRAY) {
-                definition = new XGBoostDefinition();
-                definition.splitParserStates = new ArrayList<>();
-                while (parser.nextToken() != XContentParser.Token.END_ARRAY) {
-                    definition.splitParserStates.add(SplitParserState.parse(parser, set));
-                }
+                definition.trees = parseTrees(parser, set);
             } else {
                 throw new ParsingException(
                     parser.getTokenLocation(),
                     "Expected [START_ARRAY] or [START_OBJECT] but got [" + startToken + "]"
                 );
             }
-            if (definition.splitParserStates.size() == 0) {
+            if (definition.trees.size() == 0) {
                 throw new ParsingException(parser.getTokenLocation(), "XGBoost model must define at lease one tree");
             }
             return definition;
@@ -111,6 +100,31 @@ public class XGBoostJsonParser implements LtrRankerParser {
             normalizer = Normalizers.get(Normalizers.NOOP_NORMALIZER_NAME);
         }
 
+        private void parseFields(XContentParser parser, FeatureSet set) throws IOException {
+            String field = null;
+            XContentParser.Token token;
+            while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+                if (token == XContentParser.Token.FIELD_NAME) {
+                    field = parser.currentName();
+                } else if ("objective".equals(field) && token == XContentParser.Token.VALUE_STRING) {
+                    setNormalizer(parser.text());
+                } else if ("splits".equals(field) && token == XContentParser.Token.START_ARRAY) {
+                    trees = parseTrees(parser, set);
+                } else {
+                    throw new ParsingException(parser.getTokenLocation(), "[xgboost_definition] unknown field [" + field + "]");
+                }
+            }
+        }
+
+        private static List<Node> parseTrees(XContentParser parser, FeatureSet set) throws IOException {
+            List<Node> trees = new ArrayList<>();
+            NodeParser nodeParser = new NodeParser(parser, set);
+            while (parser.nextToken() != XContentParser.Token.END_ARRAY) {
+                trees.add(nodeParser.parse());
+            }
+            return trees;
+        }
+
         /**
          * Set a normalizer based on the 'objective' parameter of the XGBoost model
          *
@@ -137,139 +151,146 @@ public class XGBoostJsonParser implements LtrRankerParser {
                     throw new IllegalArgumentException("Objective [" + objectiveName + "] is not a valid XGBoost objective");
             }
         }
-
-        void setSplitParserStates(List<SplitParserState> splitParserStates) {
-            this.splitParserStates = splitParserStates;
-        }
-
-        Node[] getTrees(FeatureSet set) {
-            Node[] trees = new Node[splitParserStates.size()];
-            ListIterator<SplitParserState> it = splitParserStates.listIterator();
-            while (it.hasNext()) {
-                trees[it.nextIndex()] = it.next().toNode(set);
-            }
-            return trees;
-        }
     }
 
-    private static class SplitParserState {
-        private static final ObjectParser<SplitParserState, FeatureSet> PARSER;
-        static {
-            PARSER = new ObjectParser<>("node", SplitParserState::new);
-            PARSER.declareInt(SplitParserState::setNodeId, new ParseField("nodeid"));
-            PARSER.declareInt(SplitParserState::setDepth, new ParseField("depth"));
-            PARSER.declareString(SplitParserState::setSplit, new ParseField("split"));
-            PARSER.declareFloat(SplitParserState::setThreshold, new ParseField("split_condition"));
-            PARSER.declareInt(SplitParserState::setRightNodeId, new ParseField("no"));
-            PARSER.declareInt(SplitParserState::setLeftNodeId, new ParseField("yes"));
-            PARSER.declareInt(SplitParserState::setMissingNodeId, new ParseField("missing"));
-            PARSER.declareFloat(SplitParserState::setLeaf, new ParseField("leaf"));
-            PARSER.declareObjectArray(SplitParserState::setChildren, SplitParserState::parse, new ParseField("children"));
-            PARSER.declareFloat(SplitParserState::setThreshold, new ParseField("split_condition"));
+    /**
+     * Builds the nodes of a tree while reading them.
+     * The state of a node lives in the frame of its {@link #parse()} call, children are built before their parent.
+     */
+    private static class NodeParser {
+        private final XContentParser parser;
+        private final FeatureSet set;
+        // Node id of the last node built, read by its parent to check its yes and no branches
+        private int lastNodeId;
+
+        NodeParser(XContentParser parser, FeatureSet set) {
+            this.parser = parser;
+            this.set = set;
         }
 
-        private Integer nodeId;
-        private Integer depth;
-        private String split;
-        private Float threshold;
-        private Integer rightNodeId;
-        private Integer leftNodeId;
-        // Ignored
-        private Integer missingNodeId;
-        private Float leaf;
-        private List<SplitParserState> children;
-
-        public static SplitParserState parse(XContentParser parser, FeatureSet set) {
-            SplitParserState split = PARSER.apply(parser, set);
-            if (split.isSplit()) {
-                if (!split.splitHasAllFields()) {
-                    throw new ParsingException(parser.getTokenLocation(), "This split does not have all the required fields");
-                }
-                if (!split.splitHasValidChildren()) {
-                    throw new ParsingException(
-                        parser.getTokenLocation(),
-                        "Split structure is invalid, yes, no and/or" + " missing branches does not point to the proper children."
-                    );
+        /**
+         * Parse the node starting at the current token and its children
+         */
+        Node parse() throws IOException {
+            if (parser.currentToken() != XContentParser.Token.START_OBJECT) {
+                throw new ParsingException(
+                    parser.getTokenLocation(),
+                    "Expected [START_OBJECT] but got [" + parser.currentToken() + "]"
+                );
+            }
+            boolean hasNodeId = false;
+            boolean hasDepth = false;
+            boolean hasThreshold = false;
+            boolean hasLeftNodeId = false;
+            boolean hasRightNodeId = false;
+            boolean hasMissingNodeId = false;
+            boolean hasLeaf = false;
+            boolean hasChildren = false;
+            int nodeId = 0;
+            int leftNodeId = 0;
+            int rightNodeId = 0;
+            int missingNodeId = 0;
+            String split = null;
+            float threshold = 0F;
+            float leaf = 0F;
+            int nChildren = 0;
+            Node left = null;
+            Node right = null;
+            int leftChildId = 0;
+            int rightChildId = 0;
+
+            String field = null;
+            XContentParser.Token token;
+            while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+                if (token == XContentParser.Token.FIELD_NAME) {
+                    field = parser.currentName();
+                    continue;
                 }
-                if (!set.hasFeature(split.split)) {
-                    throw new ParsingException(parser.getTokenLocation(), "Unknown feature [" + split.split + "]");
+                switch (field) {
+                    case "nodeid":
+                        nodeId = parser.intValue();
+                        hasNodeId = true;
+                        break;
+                    case "depth":
+                        parser.intValue();
+                        hasDepth = true;
+                        break;
+                    case "split":
+                        split = parser.text();
+                        break;
+                    case "split_condition":
+                        threshold = parser.floatValue();
+                        hasThreshold = true;
+                        break;
+                    case "yes":
+                        leftNodeId = parser.intValue();
+                        hasLeftNodeId = true;
+                        break;
+                    case "no":
+                        rightNodeId = parser.intValue();
+                        hasRightNodeId = true;
+                        break;
+                    case "missing":
+                        missingNodeId = parser.intValue();
+                        hasMissingNodeId = true;
+                        break;
+                    case "leaf":
+                        leaf = parser.floatValue();
+                        hasLeaf = true;
+                        break;
+                    case "children":
+                        if (token != XContentParser.Token.START_ARRAY) {
+                            throw new ParsingException(parser.getTokenLocation(), "[node] children must be an array");
+                        }
+                        hasChildren = true;
+                        while (parser.nextToken() != XContentParser.Token.END_ARRAY) {
+                            Node child = parse();
+                            if (nChildren == 0) {
+                                left = child;
+                                leftChildId = lastNodeId;
+                            } else if (nChildren == 1) {
+                                right = child;
+                                rightChildId = lastNodeId;
+                            }
+                            nChildren++;
+                        }
+                        break;
+                    default:
+                        throw new ParsingException(parser.getTokenLocation(), "[node] unknown field [" + field + "]");
                 }
-            } else if (!split.leafHasAllFields()) {
-                throw new ParsingException(parser.getTokenLocation(), "This leaf does not have all the required fields");
             }
-            return split;
-        }
-
-        void setNodeId(Integer nodeId) {
-            this.nodeId = nodeId;
-        }
 
-        void setDepth(Integer depth) {
-            this.depth = depth;
-        }
-
-        void setSplit(String split) {
-            this.split = split;
-        }
-
-        void setThreshold(Float threshold) {
-            this.threshold = threshold;
-        }
-
-        void setRightNodeId(Integer rightNodeId) {
-            this.rightNodeId = rightNodeId;
-        }
-
-        void setLeftNodeId(Integer leftNodeId) {
-            this.leftNodeId = leftNodeId;
-        }
-
-        void setMissingNodeId(Integer missingNodeId) {
-            this.missingNodeId = missingNodeId;
-        }
-
-        void setLeaf(Float leaf) {
-            this.leaf = leaf;
-        }
-
-        void setChildren(List<SplitParserState> children) {
-            this.children = children;
-        }
-
-        boolean splitHasAllFields() {
-            return nodeId != null
-                && threshold != null
-                && split != null
-                && leftNodeId != null
-                && rightNodeId != null
-                && depth != null
-                && children != null
-                && children.size() == 2;
-        }
-
-        boolean leafHasAllFields() {
-            return nodeId != null && leaf != null;
-        }
-
-        boolean splitHasValidChildren() {
-            return children.size() == 2 && leftNodeId.equals(children.get(0).nodeId) && rightNodeId.equals(children.get(1).nodeId);
-        }
-
-        boolean isSplit() {
-            return leaf == null;
-        }
-
-        Node toNode(FeatureSet set) {
-            if (isSplit()) {
-                return new NaiveAdditiveDecisionTree.Split(
-                    children.get(0).toNode(set),
-                    children.get(1).toNode(set),
-                    set.featureOrdinal(split),
-                    threshold
-                );
-            } else {
+            lastNodeId = nodeId;
+            if (hasLeaf) {
+                if (!hasNodeId) {
+                    throw new ParsingException(parser.getTokenLocation(), "This leaf does not have all the required fields");
+                }
                 return new NaiveAdditiveDecisionTree.Leaf(leaf);
             }
+            if (!hasNodeId
+                || !hasThreshold
+                || split == null
+                || !hasLeftNodeId
+                || !hasRightNodeId
+                || !hasDepth
+                || !hasChildren
+                || nChildren != 2) {
+                throw new ParsingException(parser.getTokenLocation(), "This split does not have all the required fields");
+            }
+            if (leftNodeId != leftChildId
+                || rightNodeId != rightChildId
+                || (hasMissingNodeId && missingNodeId != leftNodeId && missingNodeId != rightNodeId)) {
+                throw new ParsingException(
+                    parser.getTokenLocation(),
+                    "Split structure is invalid, yes, no and/or" + " missing branches does not point to the proper children."
+                );
+            }
+            if (!set.hasFeature(split)) {
+                throw new ParsingException(parser.getTokenLocation(), "Unknown feature [" + split + "]");
+            }
+            // Documents missing the feature follow the missing branch, the no branch when it is not set
+            boolean defaultLeft = hasMissingNodeId && missingNodeId == leftNodeId;
+            return new NaiveAdditiveDecisionTree.Split(left, right, set.featureOrdinal(split), threshold, defaultLeft);
         }
     }
 }
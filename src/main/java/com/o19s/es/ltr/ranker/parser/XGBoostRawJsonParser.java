@@ -19,10 +19,8 @@ package com.o19s.es.ltr.ranker.parser;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
 import java.util.ListIterator;
-import java.util.Map;
 import java.util.Optional;
 
 import org.opensearch.common.xcontent.LoggingDeprecationHandler;
@@ -55,46 +53,19 @@ public class XGBoostRawJsonParser implements LtrRankerParser {
             throw new IllegalArgumentException("Cannot parse model", e);
         }
 
-        NaiveAdditiveDecisionTree.Node[] trees = modelDefinition.getLearner().getTrees(set);
         List<String> modelFeatures = modelDefinition.learner.featureNames;
 
         // remap features according to the order in the feature set
-        Map<Integer, Integer> modelFeaturesReordering = new HashMap<>();
+        int[] modelFeaturesReordering = new int[modelFeatures.size()];
         for (int i = 0; i < modelFeatures.size(); i++) {
-            modelFeaturesReordering.put(i, set.featureOrdinal(modelFeatures.get(i)));
-        }
-
-        // Reorder features in each tree
-        NaiveAdditiveDecisionTree.Node[] adjustedTrees = new NaiveAdditiveDecisionTree.Node[trees.length];
-        for (int i = 0; i < trees.length; i++) {
-            adjustedTrees[i] = reorderTreeFeatures(trees[i], modelFeaturesReordering);
+            modelFeaturesReordering[i] = set.featureOrdinal(modelFeatures.get(i));
         }
 
+        // Trees are built once the feature names are known, with the ordinals of the feature set
+        NaiveAdditiveDecisionTree.Node[] trees = modelDefinition.getLearner().getTrees(modelFeaturesReordering);
         float[] weights = new float[trees.length];
         Arrays.fill(weights, 1F);
-        return new NaiveAdditiveDecisionTree(
-            adjustedTrees,
-            weights,
-            set.size(),
-            modelDefinition.getLearner().getObjective().getNormalizer()
-        );
-    }
-
-    private NaiveAdditiveDecisionTree.Node reorderTreeFeatures(
-        NaiveAdditiveDecisionTree.Node node,
-        Map<Integer, Integer> modelFeaturesReordering
-    ) {
-        if (node instanceof NaiveAdditiveDecisionTree.Split splitNode) {
-            return new NaiveAdditiveDecisionTree.Split(
-                reorderTreeFeatures(splitNode.getLeft(), modelFeaturesReordering),
-                reorderTreeFeatures(splitNode.getRight(), modelFeaturesReordering),
-                modelFeaturesReordering.get(splitNode.getFeature()),
-                splitNode.getThreshold()
-            );
-        }
-
-        // if the node is Leaf we don't do anything
-        return node;
+        return new NaiveAdditiveDecisionTree(trees, weights, set.size(), modelDefinition.getLearner().getObjective().getNormalizer());
     }
 
     private static class XGBoostDefinition {
@@ -225,8 +196,8 @@ public class XGBoostRawJsonParser implements LtrRankerParser {
 
         XGBoostLearner() {}
 
-        NaiveAdditiveDecisionTree.Node[] getTrees(FeatureSet set) {
-            return this.getGradientBooster().getModel().getTrees();
+        NaiveAdditiveDecisionTree.Node[] getTrees(int[] featureOrdinals) {
+            return this.getGradientBooster().getModel().getTrees(featureOrdinals);
         }
 
         public XGBoostObjective getObjective() {
@@ -277,7 +248,7 @@ public class XGBoostRawJsonParser implements LtrRankerParser {
     }
 
     static class XGBoostModel {
-        private NaiveAdditiveDecisionTree.Node[] trees;
+        private List<XGBoostTree> trees;
         private List<Integer> treeInfo;
 
         private static final ObjectParser<XGBoostRawJsonParser.XGBoostModel, FeatureSet> PARSER;
@@ -311,17 +282,20 @@ public class XGBoostRawJsonParser implements LtrRankerParser {
 
         XGBoostModel() {}
 
-        public NaiveAdditiveDecisionTree.Node[] getTrees() {
-            return trees;
+        /**
+         * @param featureOrdinals ordinal in the feature set of each feature of the model
+         */
+        public NaiveAdditiveDecisionTree.Node[] getTrees(int[] featureOrdinals) {
+            NaiveAdditiveDecisionTree.Node[] nodes = new NaiveAdditiveDecisionTree.Node[trees.size()];
+            ListIterator<XGBoostRawJsonParser.XGBoostTree> it = trees.listIterator();
+            while (it.hasNext()) {
+                nodes[it.nextIndex()] = it.next().toNode(featureOrdinals);
+            }
+            return nodes;
         }
 
         public void setTrees(List<XGBoostTree> parsedTrees) {
-            NaiveAdditiveDecisionTree.Node[] trees = new NaiveAdditiveDecisionTree.Node[parsedTrees.size()];
-            ListIterator<XGBoostRawJsonParser.XGBoostTree> it = parsedTrees.listIterator();
-            while (it.hasNext()) {
-                trees[it.nextIndex()] = it.next().getRootNode();
-            }
-            this.trees = trees;
+            this.trees = parsedTrees;
         }
     }
 
@@ -366,8 +340,6 @@ public class XGBoostRawJsonParser implements LtrRankerParser {
         private List<Integer> splitTypes;
         private List<Float> baseWeights;
 
-        private NaiveAdditiveDecisionTree.Node rootNode;
-
         private static final ObjectParser<XGBoostRawJsonParser.XGBoostTree, FeatureSet> PARSER;
 
         static {
@@ -385,7 +357,7 @@ public class XGBoostRawJsonParser implements LtrRankerParser {
 
         public static XGBoostRawJsonParser.XGBoostTree parse(XContentParser parser, FeatureSet set) throws IOException {
             XGBoostRawJsonParser.XGBoostTree tree = PARSER.apply(parser, set);
-            tree.rootNode = tree.asLibTree(0);
+            tree.checkChildren(0);
             return tree;
         }
 
@@ -457,20 +429,40 @@ public class XGBoostRawJsonParser implements LtrRankerParser {
             return leftChildren.get(nodeId) != -1 && rightChildren.get(nodeId) != -1;
         }
 
-        private NaiveAdditiveDecisionTree.Node asLibTree(Integer nodeId) {
+        /**
+         * Check the nodes reachable from nodeId while parsing, nodes are built once the features of the model are known
+         */
+        private void checkChildren(Integer nodeId) {
             if (nodeId >= leftChildren.size()) {
                 throw new IllegalArgumentException("Child node reference ID [" + nodeId + "] is invalid");
             }
             if (nodeId >= rightChildren.size()) {
                 throw new IllegalArgumentException("Child node reference ID [" + nodeId + "] is invalid");
             }
+            if (isSplit(nodeId)) {
+                checkChildren(leftChildren.get(nodeId));
+                checkChildren(rightChildren.get(nodeId));
+            }
+        }
+
+        NaiveAdditiveDecisionTree.Node toNode(int[] featureOrdinals) {
+            return asLibTree(0, featureOrdinals);
+        }
 
+        private NaiveAdditiveDecisionTree.Node asLibTree(int nodeId, int[] featureOrdinals) {
             if (isSplit(nodeId)) {
+                int feature = splitIndices.get(nodeId);
+                if (feature < 0 || feature >= featureOrdinals.length) {
+                    throw new IllegalArgumentException("Split feature index [" + feature + "] is invalid");
+                }
+                // Documents missing the feature go right when default_left is not set
+                boolean missingLeft = defaultLeft != null && nodeId < defaultLeft.size() && defaultLeft.get(nodeId) != 0;
                 return new NaiveAdditiveDecisionTree.Split(
-                    asLibTree(leftChildren.get(nodeId)),
-                    asLibTree(rightChildren.get(nodeId)),
-                    splitIndices.get(nodeId),
-                    splitConditions.get(nodeId)
+                    asLibTree(leftChildren.get(nodeId), featureOrdinals),
+                    asLibTree(rightChildren.get(nodeId), featureOrdinals),
+                    featureOrdinals[feature],
+                    splitConditions.get(nodeId),
+                    missingLeft
                 );
             } else {
                 return new NaiveAdditiveDecisionTree.Leaf(baseWeights.get(nodeId));
@@ -484,9 +476,5 @@ public class XGBoostRawJsonParser implements LtrRankerParser {
         public void setBaseWeights(List<Float> baseWeights) {
             this.baseWeights = baseWeights;
         }
-
-        public NaiveAdditiveDecisionTree.Node getRootNode() {
-            return rootNode;
-        }
     }
 }
@@ -0,0 +1,164 @@
+/*
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.o19s.es.ltr.rest;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.unmodifiableList;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.opensearch.core.ParseField;
+import org.opensearch.core.common.ParsingException;
+import org.opensearch.core.rest.RestStatus;
+import org.opensearch.core.xcontent.ObjectParser;
+import org.opensearch.core.xcontent.XContentBuilder;
+import org.opensearch.core.xcontent.XContentParser;
+import org.opensearch.ltr.settings.LTRSettings;
+import org.opensearch.rest.BytesRestResponse;
+import org.opensearch.rest.RestRequest;
+import org.opensearch.rest.RestResponse;
+import org.opensearch.rest.action.RestBuilderListener;
+import org.opensearch.transport.client.node.NodeClient;
+
+import com.o19s.es.ltr.action.ExportFeaturesAction;
+import com.o19s.es.ltr.action.ExportFeaturesAction.ExportFeaturesRequest;
+import com.o19s.es.ltr.action.ExportFeaturesAction.ExportFeaturesResponse;
+import com.o19s.es.ltr.action.ExportFeaturesAction.ExportFormat;
+import com.o19s.es.ltr.action.ExportFeaturesAction.Judgment;
+import com.o19s.es.ltr.action.ExportFeaturesAction.Record;
+
+/**
+ * Export the features of judged documents as SVMRank or CSV rows:
+ * <pre>
+ * POST /_ltr/_featureset/{name}/_export
+ * {
+ *   "index": "tmdb",
+ *   "format": "svmrank",
+ *   "records": [
+ *     { "qid": "1", "params": { "keywords": "rambo" }, "judgments": [ { "id": "7555", "grade": 4 } ] }
+ *   ]
+ * }
+ * </pre>
+ * Judgments of a request are limited by the ltr.export.max_judgments setting. Records that fail are left out of the
+ * rows and listed in the X-LTR-Export-Failed-Qids response header.
+ */
+public class RestExportFeatures extends FeatureStoreBaseRestHandler {
+    private static final String PLAIN_TEXT_CONTENT_TYPE = "text/plain; charset=UTF-8";
+    // Qids of the records that failed, their rows are missing from the response
+    private static final String FAILED_QIDS_HEADER = "X-LTR-Export-Failed-Qids";
+
+    @Override
+    public String getName() {
+        return "Export features of judged documents";
+    }
+
+    @Override
+    public List<Route> routes() {
+        return unmodifiableList(
+            asList(
+                new Route(RestRequest.Method.POST, "/_ltr/{store}/_featureset/{name}/_export"),
+                new Route(RestRequest.Method.POST, "/_ltr/_featureset/{name}/_export")
+            )
+        );
+    }
+
+    @Override
+    protected RestChannelConsumer prepareRequest(RestRequest request, NodeClient client) throws IOException {
+        if (!LTRSettings.isLTRPluginEnabled()) {
+            throw new IllegalStateException("LTR plugin is disabled. To enable, update ltr.plugin.enabled to true");
+        }
+
+        ExportFeaturesRequest exportRequest = new ExportFeaturesRequest();
+        exportRequest.setStore(request.param("store"));
+        exportRequest.setFeatureSetName(request.param("name"));
+        try (XContentParser parser = request.contentParser()) {
+            ParserState.parse(parser, exportRequest);
+        }
+        return (channel) -> client.execute(ExportFeaturesAction.INSTANCE, exportRequest, new RestBuilderListener<>(channel) {
+            @Override
+            public RestResponse buildResponse(ExportFeaturesResponse response, XContentBuilder builder) {
+                // Rows are returned as is, not wrapped in JSON
+                BytesRestResponse restResponse = new BytesRestResponse(RestStatus.OK, PLAIN_TEXT_CONTENT_TYPE, response.getContent());
+                if (!response.getFailures().isEmpty()) {
+                    restResponse.addHeader(FAILED_QIDS_HEADER, String.join(",", response.getFailures().keySet()));
+                }
+                return restResponse;
+            }
+        });
+    }
+
+    private static class ParserState {
+        private static final ObjectParser<ExportFeaturesRequest, Void> PARSER = new ObjectParser<>("export_features");
+        private static final ObjectParser<RecordState, Void> RECORD_PARSER = new ObjectParser<>("record", RecordState::new);
+        private static final ObjectParser<JudgmentState, Void> JUDGMENT_PARSER = new ObjectParser<>("judgment", JudgmentState::new);
+
+        static {
+            PARSER.declareString(ExportFeaturesRequest::setIndex, new ParseField("index"));
+            PARSER.declareString((r, f) -> r.setFormat(ExportFormat.fromString(f)), new ParseField("format"));
+            PARSER.declareObjectArray(ParserState::setRecords, (p, c) -> RECORD_PARSER.parse(p, null), new ParseField("records"));
+
+            // qids and doc ids are often numbers
+            RECORD_PARSER.declareField((r, v) -> r.qid = v, XContentParser::text, new ParseField("qid"), ObjectParser.ValueType.VALUE);
+            RECORD_PARSER.declareObject((r, v) -> r.params = v, (p, c) -> p.map(), new ParseField("params"));
+            RECORD_PARSER
+                .declareObjectArray((r, v) -> r.judgments = v, (p, c) -> JUDGMENT_PARSER.parse(p, null), new ParseField("judgments"));
+
+            JUDGMENT_PARSER.declareField((j, v) -> j.id = v, XContentParser::text, new ParseField("id"), ObjectParser.ValueType.VALUE);
+            JUDGMENT_PARSER.declareDouble((j, v) -> j.grade = v, new ParseField("grade"));
+        }
+
+        private static void setRecords(ExportFeaturesRequest request, List<RecordState> states) {
+            List<Record> records = new ArrayList<>(states.size());
+            for (RecordState state : states) {
+                if (state.qid == null || state.judgments == null) {
+                    throw new IllegalArgumentException("Records must define [qid] and [judgments]");
+                }
+                List<Judgment> judgments = new ArrayList<>(state.judgments.size());
+                for (JudgmentState judgment : state.judgments) {
+                    if (judgment.id == null) {
+                        throw new IllegalArgumentException("Judgments must define the [id] of the judged document");
+                    }
+                    judgments.add(new Judgment(judgment.id, judgment.grade));
+                }
+                records.add(new Record(state.qid, state.params, judgments));
+            }
+            request.setRecords(records);
+        }
+
+        static void parse(XContentParser parser, ExportFeaturesRequest request) throws IOException {
+            try {
+                PARSER.parse(parser, request, null);
+            } catch (IllegalArgumentException iae) {
+                throw new ParsingException(parser.getTokenLocation(), iae.getMessage(), iae);
+            }
+        }
+
+        private static class RecordState {
+            private String qid;
+            private Map<String, Object> params;
+            private List<JudgmentState> judgments;
+        }
+
+        private static class JudgmentState {
+            private String id;
+            private double grade;
+        }
+    }
+}
@@ -17,6 +17,7 @@
 package com.o19s.es.termstat;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
@@ -117,6 +118,7 @@ public class TermStatQuery extends Query {
         private final AggrType posAggr;
         private final Set<Term> terms;
         private final Map<Term, TermStates> termContexts;
+        private final boolean needsPositions;
 
         TermStatWeight(IndexSearcher searcher, TermStatQuery tsq, Set<Term> terms, ScoreMode scoreMode, AggrType aggr, AggrType posAggr)
             throws IOException {
@@ -128,6 +130,8 @@ public class TermStatQuery extends Query {
             this.aggr = aggr;
             this.posAggr = posAggr;
             this.termContexts = new HashMap<>();
+            // Only read positions from the postings when the expression uses them
+            this.needsPositions = Arrays.asList(expression.variables).contains("tp");
 
             // This is needed for proper DFS_QUERY_THEN_FETCH support
             if (scoreMode.needsScores()) {
@@ -159,7 +163,7 @@ public class TermStatQuery extends Query {
         }
 
         public Scorer getScorer(LeafReaderContext context) throws IOException {
-            return new TermStatScorer(this, searcher, context, expression, terms, scoreMode, aggr, posAggr, termContexts);
+            return new TermStatScorer(this, searcher, context, expression, terms, scoreMode, aggr, posAggr, termContexts, needsPositions);
         }
 
         @Override
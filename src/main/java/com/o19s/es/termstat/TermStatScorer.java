@@ -47,6 +47,7 @@ public class TermStatScorer extends Scorer {
     private final Set<Term> terms;
     private final ScoreMode scoreMode;
     private final Map<Term, TermStates> termContexts;
+    private final TermStatSupplier tsq;
 
     public TermStatScorer(
         TermStatQuery.TermStatWeight weight,
@@ -57,7 +58,8 @@ public class TermStatScorer extends Scorer {
         ScoreMode scoreMode,
         AggrType aggr,
         AggrType posAggr,
-        Map<Term, TermStates> termContexts
+        Map<Term, TermStates> termContexts,
+        boolean needsPositions
     ) {
         super();
         this.context = context;
@@ -68,6 +70,8 @@ public class TermStatScorer extends Scorer {
         this.aggr = aggr;
         this.posAggr = posAggr;
         this.termContexts = termContexts;
+        this.tsq = new TermStatSupplier(needsPositions);
+        this.tsq.setPosAggr(posAggr);
 
         this.iter = DocIdSetIterator.all(context.reader().maxDoc());
     }
@@ -84,10 +88,7 @@ public class TermStatScorer extends Scorer {
 
     @Override
     public float score() throws IOException {
-        TermStatSupplier tsq = new TermStatSupplier();
-
         // Refresh the term stats
-        tsq.setPosAggr(posAggr);
         tsq.bump(searcher, context, docID(), terms, scoreMode, termContexts);
 
         // Prepare computed statistics
@@ -48,16 +48,33 @@ public class TermStatSupplier extends AbstractMap<String, ArrayList<Float>> {
 
     private final ClassicSimilarity sim;
     private final StatisticsHelper df_stats, idf_stats, tf_stats, ttf_stats, tp_stats;
+    private final boolean needsPositions;
 
     private int matchedTermCount = 0;
 
+    // Per segment state, rebuilt whenever the leaf changes or docs are visited out of order
+    private LeafReaderContext currentContext;
+    private Set<Term> currentTerms;
+    private PostingsEnum[] postings;
+    private float[] dfs, idfs, ttfs;
+    private int lastDocID = -1;
+
     public TermStatSupplier() {
+        this(true);
+    }
+
+    /**
+     * @param needsPositions whether term positions must be read from the postings, this is only
+     *                       required when the {@code tp} statistic is used
+     */
+    public TermStatSupplier(boolean needsPositions) {
         this.sim = new ClassicSimilarity();
         this.df_stats = new StatisticsHelper();
         this.idf_stats = new StatisticsHelper();
         this.tf_stats = new StatisticsHelper();
         this.ttf_stats = new StatisticsHelper();
         this.tp_stats = new StatisticsHelper();
+        this.needsPositions = needsPositions;
     }
 
     public void bump(
@@ -75,45 +92,42 @@ public class TermStatSupplier extends AbstractMap<String, ArrayList<Float>> {
         tp_stats.getData().clear();
         matchedTermCount = 0;
 
-        PostingsEnum postingsEnum = null;
-        for (Term term : terms) {
-            if (docID == DocIdSetIterator.NO_MORE_DOCS) {
-                break;
-            }
-
-            TermStates termStates = termContexts.get(term);
-
-            assert termStates != null && termStates.wasBuiltFor(ReaderUtil.getTopLevelContext(context));
+        if (docID == DocIdSetIterator.NO_MORE_DOCS) {
+            return;
+        }
 
-            IOSupplier<TermState> termStateSupplier = termStates.get(context);
+        if (context != currentContext || terms != currentTerms || docID < lastDocID) {
+            resetSegment(searcher, context, terms, termContexts);
+        }
+        lastDocID = docID;
 
-            if (termStateSupplier == null || termStateSupplier.get() == null || termStates.docFreq() == 0) {
+        for (int i = 0; i < postings.length; i++) {
+            PostingsEnum postingsEnum = postings[i];
+            if (postingsEnum == null) {
                 insertZeroes(); // Zero out stats for terms we don't know about in the index
                 continue;
             }
-            TermState state = termStateSupplier.get();
-
-            TermStatistics indexStats = searcher.termStatistics(term, termStates.docFreq(), termStates.totalTermFreq());
 
             // Collection Statistics
-            df_stats.add(indexStats.docFreq());
-            idf_stats.add(sim.idf(indexStats.docFreq(), searcher.collectionStatistics(term.field()).docCount()));
-            ttf_stats.add(indexStats.totalTermFreq());
+            df_stats.add(dfs[i]);
+            idf_stats.add(idfs[i]);
+            ttf_stats.add(ttfs[i]);
 
-            // Doc specifics
-            TermsEnum termsEnum = context.reader().terms(term.field()).iterator();
-            termsEnum.seekExact(term.bytes(), state);
-            postingsEnum = termsEnum.postings(postingsEnum, PostingsEnum.ALL);
+            // Doc specifics, postings only ever move forward
+            if (postingsEnum.docID() < docID) {
+                postingsEnum.advance(docID);
+            }
 
             // Verify document is in postings
-            if (postingsEnum.advance(docID) == docID) {
+            if (postingsEnum.docID() == docID) {
                 matchedTermCount++;
 
-                tf_stats.add(postingsEnum.freq());
+                int freq = postingsEnum.freq();
+                tf_stats.add(freq);
 
-                if (postingsEnum.freq() > 0) {
+                if (needsPositions && freq > 0) {
                     StatisticsHelper positions = new StatisticsHelper();
-                    for (int i = 0; i < postingsEnum.freq(); i++) {
+                    for (int j = 0; j < freq; j++) {
                         positions.add((float) postingsEnum.nextPosition() + 1);
                     }
                     // TODO: Can we return an array of arrays for the ScriptFeature injection usage?
@@ -129,6 +143,50 @@ public class TermStatSupplier extends AbstractMap<String, ArrayList<Float>> {
         }
     }
 
+    /**
+     * Position one {@link PostingsEnum} per term on the given segment and compute the
+     * collection statistics once, so that scoring a document only streams the postings.
+     */
+    private void resetSegment(IndexSearcher searcher, LeafReaderContext context, Set<Term> terms, Map<Term, TermStates> termContexts)
+        throws IOException {
+        int size = terms.size();
+        postings = new PostingsEnum[size];
+        dfs = new float[size];
+        idfs = new float[size];
+        ttfs = new float[size];
+
+        int flags = needsPositions ? PostingsEnum.POSITIONS : PostingsEnum.FREQS;
+        int i = 0;
+        for (Term term : terms) {
+            int ord = i++;
+            TermStates termStates = termContexts.get(term);
+
+            assert termStates != null && termStates.wasBuiltFor(ReaderUtil.getTopLevelContext(context));
+
+            IOSupplier<TermState> termStateSupplier = termStates.get(context);
+
+            if (termStateSupplier == null || termStates.docFreq() == 0) {
+                continue;
+            }
+            TermState state = termStateSupplier.get();
+            if (state == null) {
+                continue;
+            }
+
+            TermStatistics indexStats = searcher.termStatistics(term, termStates.docFreq(), termStates.totalTermFreq());
+            dfs[ord] = indexStats.docFreq();
+            idfs[ord] = sim.idf(indexStats.docFreq(), searcher.collectionStatistics(term.field()).docCount());
+            ttfs[ord] = indexStats.totalTermFreq();
+
+            TermsEnum termsEnum = context.reader().terms(term.field()).iterator();
+            termsEnum.seekExact(term.bytes(), state);
+            postings[ord] = termsEnum.postings(null, flags);
+        }
+
+        currentContext = context;
+        currentTerms = terms;
+    }
+
     /**
      * Returns {@code true} if this map contains a mapping for the specified
      * stat type;
@@ -0,0 +1,247 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.opensearch.ltr.breaker;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+import org.opensearch.common.metrics.CounterMetric;
+import org.opensearch.common.settings.ClusterSettings;
+import org.opensearch.common.settings.Setting;
+import org.opensearch.common.settings.Settings;
+import org.opensearch.common.unit.TimeValue;
+import org.opensearch.core.common.breaker.CircuitBreaker;
+import org.opensearch.ltr.stats.LatencyHistogram;
+import org.opensearch.threadpool.ThreadPool;
+
+/**
+ * Degrades LTR queries when the node is under pressure, serving a slightly worse ranking rather than timing out.
+ * <p>
+ * The pressure of the node is the highest of its signals, each being 1 when it reaches its threshold:
+ * <ul>
+ *     <li>the depth of the search thread pool queue</li>
+ *     <li>the recent mean time to score a document with a model, against its budget</li>
+ *     <li>the memory used in the {@value LTRRequestBreaker#NAME} circuit breaker</li>
+ * </ul>
+ * Degradations add up as the pressure grows: the windows of the {@link com.o19s.es.ltr.query.LtrRescorerBuilder ltr}
+ * rescorers shrink as the pressure goes above 1, models with a fallback model configured are replaced by it above 1.5
+ * and script features are skipped above 2. Feature logs are not degraded: loggers compute the skipped features and
+ * flag the hits of queries running a fallback model.
+ */
+public class LTRLoadShedder {
+    public static final Setting<Boolean> LTR_DEGRADATION_ENABLED = Setting
+        .boolSetting("ltr.degradation.enabled", false, Setting.Property.NodeScope, Setting.Property.Dynamic);
+    public static final Setting<Integer> LTR_DEGRADATION_SEARCH_QUEUE_THRESHOLD = Setting
+        .intSetting("ltr.degradation.search_queue_threshold", 100, 1, Setting.Property.NodeScope, Setting.Property.Dynamic);
+    public static final Setting<TimeValue> LTR_DEGRADATION_DOC_SCORING_BUDGET = Setting
+        .timeSetting("ltr.degradation.doc_scoring_budget", TimeValue.MINUS_ONE, Setting.Property.NodeScope, Setting.Property.Dynamic);
+    public static final Setting<Double> LTR_DEGRADATION_BREAKER_THRESHOLD = Setting
+        .doubleSetting("ltr.degradation.breaker_threshold", 0.75D, 0.01D, 1D, Setting.Property.NodeScope, Setting.Property.Dynamic);
+    public static final Setting<Integer> LTR_DEGRADATION_MIN_WINDOW_SIZE = Setting
+        .intSetting("ltr.degradation.min_window_size", 10, 1, Setting.Property.NodeScope, Setting.Property.Dynamic);
+    public static final Setting.AffixSetting<String> LTR_DEGRADATION_FALLBACK_MODEL = Setting
+        .prefixKeySetting(
+            "ltr.degradation.fallback_model.",
+            (key) -> Setting.simpleString(key, Setting.Property.NodeScope, Setting.Property.Dynamic)
+        );
+
+    static final double SHRINK_WINDOW_PRESSURE = 1D;
+    static final double FALLBACK_MODEL_PRESSURE = 1.5D;
+    static final double SKIP_FEATURES_PRESSURE = 2D;
+    // Signals are sampled at most once per interval by the requests
+    private static final long EVALUATION_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private static final LTRLoadShedder INSTANCE = new LTRLoadShedder();
+
+    private volatile boolean enabled = LTR_DEGRADATION_ENABLED.getDefault(Settings.EMPTY);
+    private volatile int searchQueueThreshold = LTR_DEGRADATION_SEARCH_QUEUE_THRESHOLD.getDefault(Settings.EMPTY);
+    private volatile TimeValue docScoringBudget = LTR_DEGRADATION_DOC_SCORING_BUDGET.getDefault(Settings.EMPTY);
+    private volatile double breakerThreshold = LTR_DEGRADATION_BREAKER_THRESHOLD.getDefault(Settings.EMPTY);
+    private volatile int minWindowSize = LTR_DEGRADATION_MIN_WINDOW_SIZE.getDefault(Settings.EMPTY);
+    private volatile Map<String, String> fallbackModels = Collections.emptyMap();
+
+    private IntSupplier searchQueueSize = () -> 0;
+    private LatencyHistogram docScoring;
+    private final LongSupplier nanoClock;
+
+    // written while holding this
+    private volatile long lastEvaluation;
+    private volatile double pressure;
+    // guarded by this
+    private long lastDocScoringCount;
+    private long lastDocScoringSum;
+
+    private final CounterMetric shrunkWindows = new CounterMetric();
+    private final CounterMetric fallbackModelsUsed = new CounterMetric();
+    private final CounterMetric skippedFeatures = new CounterMetric();
+
+    LTRLoadShedder() {
+        this(System::nanoTime);
+    }
+
+    LTRLoadShedder(LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        this.lastEvaluation = nanoClock.getAsLong() - EVALUATION_INTERVAL_NANOS;
+    }
+
+    public static LTRLoadShedder getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Start following the settings and the signals of the node
+     *
+     * @param docScoring node histogram of the document scoring latencies, null if not tracked
+     */
+    public void init(ClusterSettings clusterSettings, Settings settings, ThreadPool threadPool, LatencyHistogram docScoring) {
+        enabled = LTR_DEGRADATION_ENABLED.get(settings);
+        searchQueueThreshold = LTR_DEGRADATION_SEARCH_QUEUE_THRESHOLD.get(settings);
+        docScoringBudget = LTR_DEGRADATION_DOC_SCORING_BUDGET.get(settings);
+        breakerThreshold = LTR_DEGRADATION_BREAKER_THRESHOLD.get(settings);
+        minWindowSize = LTR_DEGRADATION_MIN_WINDOW_SIZE.get(settings);
+        fallbackModels = LTR_DEGRADATION_FALLBACK_MODEL.getAsMap(settings);
+        clusterSettings.addSettingsUpdateConsumer(LTR_DEGRADATION_ENABLED, (v) -> enabled = v);
+        clusterSettings.addSettingsUpdateConsumer(LTR_DEGRADATION_SEARCH_QUEUE_THRESHOLD, (v) -> searchQueueThreshold = v);
+        clusterSettings.addSettingsUpdateConsumer(LTR_DEGRADATION_DOC_SCORING_BUDGET, (v) -> docScoringBudget = v);
+        clusterSettings.addSettingsUpdateConsumer(LTR_DEGRADATION_BREAKER_THRESHOLD, (v) -> breakerThreshold = v);
+        clusterSettings.addSettingsUpdateConsumer(LTR_DEGRADATION_MIN_WINDOW_SIZE, (v) -> minWindowSize = v);
+        clusterSettings.addAffixMapUpdateConsumer(LTR_DEGRADATION_FALLBACK_MODEL, (v) -> fallbackModels = v, (k, v) -> {});
+        init(() -> searchQueueSize(threadPool), docScoring);
+    }
+
+    synchronized void init(IntSupplier searchQueueSize, LatencyHistogram docScoring) {
+        this.searchQueueSize = searchQueueSize;
+        this.docScoring = docScoring;
+        if (docScoring != null) {
+            lastDocScoringCount = docScoring.count();
+            lastDocScoringSum = docScoring.sum();
+        }
+    }
+
+    void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    void setDocScoringBudget(TimeValue docScoringBudget) {
+        this.docScoringBudget = docScoringBudget;
+    }
+
+    void setFallbackModels(Map<String, String> fallbackModels) {
+        this.fallbackModels = fallbackModels;
+    }
+
+    private static int searchQueueSize(ThreadPool threadPool) {
+        ExecutorService executor = threadPool.executor(ThreadPool.Names.SEARCH);
+        return executor instanceof ThreadPoolExecutor ? ((ThreadPoolExecutor) executor).getQueue().size() : 0;
+    }
+
+    /**
+     * @return the current pressure of the node, 0 when degradation is disabled
+     */
+    public double pressure() {
+        if (!enabled) {
+            return 0D;
+        }
+        long now = nanoClock.getAsLong();
+        if (now - lastEvaluation >= EVALUATION_INTERVAL_NANOS) {
+            evaluate(now);
+        }
+        return pressure;
+    }
+
+    private synchronized void evaluate(long now) {
+        if (now - lastEvaluation < EVALUATION_INTERVAL_NANOS) {
+            return;
+        }
+        lastEvaluation = now;
+        double queuePressure = (double) searchQueueSize.getAsInt() / searchQueueThreshold;
+        pressure = Math.max(queuePressure, Math.max(docScoringPressure(), breakerPressure()));
+    }
+
+    private double docScoringPressure() {
+        if (docScoring == null) {
+            return 0D;
+        }
+        long count = docScoring.count();
+        long sum = docScoring.sum();
+        long scored = count - lastDocScoringCount;
+        long took = sum - lastDocScoringSum;
+        lastDocScoringCount = count;
+        lastDocScoringSum = sum;
+        long budget = docScoringBudget.nanos();
+        if (budget <= 0 || scored <= 0) {
+            return 0D;
+        }
+        return (double) took / scored / budget;
+    }
+
+    private double breakerPressure() {
+        CircuitBreaker breaker = LTRRequestBreaker.getInstance().getBreaker();
+        if (breaker.getLimit() <= 0) {
+            return 0D;
+        }
+        return (double) breaker.getUsed() / breaker.getLimit() / breakerThreshold;
+    }
+
+    /**
+     * The rescore window to use under the current pressure, never smaller than {@code ltr.degradation.min_window_size}
+     *
+     * @param windowSize the requested window
+     */
+    public int rescoreWindow(int windowSize) {
+        double pressure = pressure();
+        if (pressure < SHRINK_WINDOW_PRESSURE) {
+            return windowSize;
+        }
+        int shrunk = Math.max(minWindowSize, (int) Math.ceil(windowSize / pressure));
+        if (shrunk >= windowSize) {
+            return windowSize;
+        }
+        shrunkWindows.inc();
+        return shrunk;
+    }
+
+    /**
+     * The model to use in place of the requested model under the current pressure, null if it must not be replaced
+     */
+    public String fallbackModel(String modelName) {
+        String fallback = fallbackModels.get(modelName);
+        if (fallback == null || fallback.isEmpty() || pressure() < FALLBACK_MODEL_PRESSURE) {
+            return null;
+        }
+        fallbackModelsUsed.inc();
+        return fallback;
+    }
+
+    /**
+     * @return true if the features of the query that are expensive to compute must be skipped
+     */
+    public boolean skipExpensiveFeatures() {
+        if (pressure() < SKIP_FEATURES_PRESSURE) {
+            return false;
+        }
+        skippedFeatures.inc();
+        return true;
+    }
+
+    /**
+     * Degradations applied since the node started, exposed by the plugin stats
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("pressure", pressure());
+        stats.put("shrunk_rescore_windows", shrunkWindows.count());
+        stats.put("fallback_models", fallbackModelsUsed.count());
+        stats.put("skipped_expensive_features", skippedFeatures.count());
+        return Collections.unmodifiableMap(stats);
+    }
+}
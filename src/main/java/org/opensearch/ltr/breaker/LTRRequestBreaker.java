@@ -0,0 +1,220 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.opensearch.ltr.breaker;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.opensearch.common.lease.Releasable;
+import org.opensearch.common.settings.Setting;
+import org.opensearch.common.settings.Settings;
+import org.opensearch.core.common.breaker.CircuitBreaker;
+import org.opensearch.core.common.breaker.NoopCircuitBreaker;
+import org.opensearch.core.common.unit.ByteSizeValue;
+import org.opensearch.index.shard.SearchOperationListener;
+import org.opensearch.indices.breaker.BreakerSettings;
+import org.opensearch.ltr.settings.LTRSettings;
+import org.opensearch.search.internal.SearchContext;
+
+/**
+ * Accounts the memory held by LTR queries for the duration of a search request in the {@value #NAME} circuit breaker
+ * of the node, a child of the parent breaker of the {@link org.opensearch.core.indices.breaker.CircuitBreakerService}.
+ * <p>
+ * Memory is reserved before it is allocated and released when the search context of the shard request is closed.
+ * Outside of a search phase, e.g. explain requests, memory is only checked against the breaker and not held.
+ * The breaker trips only when {@link LTRSettings#isLTRBreakerEnabled()}, memory is still accounted otherwise.
+ * <p>
+ * The search context of a request is tracked per thread, it is only known on the thread running the search phase.
+ * With concurrent segment search segments are scored on the index_searcher threads: accounts and the search context
+ * must be obtained when the query weight is created (on the thread of the phase) and handed to the scorers.
+ * An account obtained from a scorer would not hold its memory for the request.
+ */
+public class LTRRequestBreaker {
+    public static final String NAME = "ltr";
+    public static final Setting<ByteSizeValue> LTR_BREAKER_REQUEST_LIMIT = Setting
+        .memorySizeSetting("ltr.breaker.request.limit", "10%", Setting.Property.NodeScope);
+    public static final Setting<Double> LTR_BREAKER_REQUEST_OVERHEAD = Setting
+        .doubleSetting("ltr.breaker.request.overhead", 1D, 0D, Setting.Property.NodeScope);
+
+    private static final LTRRequestBreaker INSTANCE = new LTRRequestBreaker();
+
+    private volatile CircuitBreaker breaker = new NoopCircuitBreaker(NAME);
+    // Search context of the phase running on the current thread
+    private final ThreadLocal<SearchContext> currentContext = new ThreadLocal<>();
+    private final SearchOperationListener searchOperationListener = new SearchOperationListener() {
+        @Override
+        public void onPreQueryPhase(SearchContext searchContext) {
+            currentContext.set(searchContext);
+        }
+
+        @Override
+        public void onFailedQueryPhase(SearchContext searchContext) {
+            currentContext.remove();
+        }
+
+        @Override
+        public void onQueryPhase(SearchContext searchContext, long tookInNanos) {
+            currentContext.remove();
+        }
+
+        @Override
+        public void onPreFetchPhase(SearchContext searchContext) {
+            currentContext.set(searchContext);
+        }
+
+        @Override
+        public void onFailedFetchPhase(SearchContext searchContext) {
+            currentContext.remove();
+        }
+
+        @Override
+        public void onFetchPhase(SearchContext searchContext, long tookInNanos) {
+            currentContext.remove();
+        }
+    };
+
+    LTRRequestBreaker() {}
+
+    public static LTRRequestBreaker getInstance() {
+        return INSTANCE;
+    }
+
+    public static BreakerSettings breakerSettings(Settings settings) {
+        return new BreakerSettings(
+            NAME,
+            LTR_BREAKER_REQUEST_LIMIT.get(settings).getBytes(),
+            LTR_BREAKER_REQUEST_OVERHEAD.get(settings),
+            CircuitBreaker.Type.MEMORY,
+            CircuitBreaker.Durability.TRANSIENT
+        );
+    }
+
+    /**
+     * Set the breaker created by the circuit breaker service of the node
+     */
+    public void setBreaker(CircuitBreaker breaker) {
+        this.breaker = Objects.requireNonNull(breaker);
+    }
+
+    public CircuitBreaker getBreaker() {
+        return breaker;
+    }
+
+    /**
+     * Listener tracking the search context of the running phase, to be registered on every index
+     */
+    public SearchOperationListener searchOperationListener() {
+        return searchOperationListener;
+    }
+
+    /**
+     * @return the search context of the phase running on the current thread, null outside of search phases and on the
+     * threads scoring the segment slices of concurrent segment search
+     */
+    public SearchContext currentSearchContext() {
+        return currentContext.get();
+    }
+
+    /**
+     * New account for the search request running on the current thread. Must be called on the thread running the
+     * search phase, e.g. when creating the weight of a query, the account may then be used from any thread.
+     *
+     * @param label reported when the breaker trips
+     */
+    public Account account(String label) {
+        SearchContext context = currentContext.get();
+        if (context == null) {
+            return new Account(label, false);
+        }
+        Account account = new Account(label, true);
+        context.addReleasable(account);
+        return account;
+    }
+
+    /**
+     * Memory reserved by a search request, released by {@link #close()}
+     */
+    public class Account implements Releasable {
+        private final String label;
+        private final boolean hold;
+        private final AtomicLong reserved = new AtomicLong();
+
+        private Account(String label, boolean hold) {
+            this.label = label;
+            this.hold = hold;
+        }
+
+        /**
+         * Reserve memory before allocating it
+         *
+         * @throws org.opensearch.core.common.breaker.CircuitBreakingException if the breaker trips
+         */
+        public void reserve(long bytes) {
+            if (bytes <= 0) {
+                return;
+            }
+            if (LTRSettings.isLTRBreakerEnabled()) {
+                breaker.addEstimateBytesAndMaybeBreak(bytes, label);
+            } else {
+                breaker.addWithoutBreaking(bytes);
+            }
+            if (hold) {
+                reserved.addAndGet(bytes);
+            } else {
+                breaker.addWithoutBreaking(-bytes);
+            }
+        }
+
+        public long getReserved() {
+            return reserved.get();
+        }
+
+        /**
+         * New reservation of this account for a caller reserving many small amounts: memory is reserved in the breaker
+         * one chunk at a time and held by this account until it is closed.
+         *
+         * @param chunkBytes minimum amount reserved at once in the breaker
+         */
+        public Reservation reservation(long chunkBytes) {
+            return new Reservation(chunkBytes);
+        }
+
+        /**
+         * Memory reserved chunk by chunk in an account, not thread safe: one per thread, e.g. per segment scorer
+         */
+        public class Reservation {
+            private final long chunkBytes;
+            // Reserved in the breaker but not yet used
+            private long available;
+
+            private Reservation(long chunkBytes) {
+                this.chunkBytes = chunkBytes;
+            }
+
+            /**
+             * Reserve memory before allocating it, the breaker is only updated when the current chunk is used up
+             *
+             * @throws org.opensearch.core.common.breaker.CircuitBreakingException if the breaker trips
+             */
+            public void reserve(long bytes) {
+                if (bytes > available) {
+                    long chunk = Math.max(chunkBytes, bytes - available);
+                    Account.this.reserve(chunk);
+                    available += chunk;
+                }
+                available -= bytes;
+            }
+        }
+
+        @Override
+        public void close() {
+            long bytes = reserved.getAndSet(0);
+            if (bytes > 0) {
+                breaker.addWithoutBreaking(-bytes);
+            }
+        }
+    }
+}
@@ -30,6 +30,7 @@ import org.apache.logging.log4j.Logger;
 import org.opensearch.cluster.service.ClusterService;
 import org.opensearch.common.settings.Setting;
 import org.opensearch.common.settings.Settings;
+import org.opensearch.common.unit.TimeValue;
 
 public class LTRSettings {
 
@@ -45,6 +46,11 @@ public class LTRSettings {
      */
     public static final String LTR_PLUGIN_ENABLED = "ltr.plugin.enabled";
     public static final String LTR_BREAKER_ENABLED = "ltr.breaker.enabled";
+    public static final String LTR_LOGGING_MAX_LOGS_PER_SECOND = "ltr.logging.max_logs_per_second";
+    public static final String LTR_SCORING_TIME_BUDGET = "ltr.scoring.time_budget";
+    public static final String LTR_SCORING_FALLBACK_SCORE = "ltr.scoring.fallback_score";
+    public static final String LTR_EXPORT_MAX_JUDGMENTS = "ltr.export.max_judgments";
+    public static final String LTR_STATS_DOC_SCORING_SAMPLE_INTERVAL = "ltr.stats.doc_scoring.sample_interval";
 
     private final Map<String, Setting<?>> settings = unmodifiableMap(new HashMap<String, Setting<?>>() {
         {
@@ -57,6 +63,35 @@ public class LTRSettings {
              * LTR breaker enable/disable setting
              */
             put(LTR_BREAKER_ENABLED, Setting.boolSetting(LTR_BREAKER_ENABLED, true, NodeScope, Dynamic));
+
+            /**
+             * Maximum number of hits logged per second on a node by the feature logging fetch phase, -1 for no limit
+             */
+            put(LTR_LOGGING_MAX_LOGS_PER_SECOND, Setting.intSetting(LTR_LOGGING_MAX_LOGS_PER_SECOND, -1, -1, NodeScope, Dynamic));
+
+            /**
+             * Time an LTR query may spend scoring documents on a shard, -1 for no limit
+             */
+            put(LTR_SCORING_TIME_BUDGET, Setting.timeSetting(LTR_SCORING_TIME_BUDGET, TimeValue.MINUS_ONE, NodeScope, Dynamic));
+
+            /**
+             * Score of the documents left once the time budget is exhausted, NaN to leave them unmatched
+             * so that they keep their original score when rescoring
+             */
+            put(LTR_SCORING_FALLBACK_SCORE, Setting.floatSetting(LTR_SCORING_FALLBACK_SCORE, Float.NaN, NodeScope, Dynamic));
+
+            /**
+             * Maximum number of judged documents in a single feature export request
+             */
+            put(LTR_EXPORT_MAX_JUDGMENTS, Setting.intSetting(LTR_EXPORT_MAX_JUDGMENTS, 100_000, 1, NodeScope, Dynamic));
+
+            /**
+             * One document scored out of this interval is timed for the doc scoring latency stats, 0 to disable them
+             */
+            put(
+                LTR_STATS_DOC_SCORING_SAMPLE_INTERVAL,
+                Setting.intSetting(LTR_STATS_DOC_SCORING_SAMPLE_INTERVAL, 64, 0, NodeScope, Dynamic)
+            );
         }
     });
 
@@ -110,6 +145,26 @@ public class LTRSettings {
         return LTRSettings.getInstance().getSettingValue(LTRSettings.LTR_BREAKER_ENABLED);
     }
 
+    public static int getLoggingMaxLogsPerSecond() {
+        return LTRSettings.getInstance().getSettingValue(LTRSettings.LTR_LOGGING_MAX_LOGS_PER_SECOND);
+    }
+
+    public static TimeValue getScoringTimeBudget() {
+        return LTRSettings.getInstance().getSettingValue(LTRSettings.LTR_SCORING_TIME_BUDGET);
+    }
+
+    public static float getScoringFallbackScore() {
+        return LTRSettings.getInstance().getSettingValue(LTRSettings.LTR_SCORING_FALLBACK_SCORE);
+    }
+
+    public static int getExportMaxJudgments() {
+        return LTRSettings.getInstance().getSettingValue(LTRSettings.LTR_EXPORT_MAX_JUDGMENTS);
+    }
+
+    public static int getDocScoringSampleInterval() {
+        return LTRSettings.getInstance().getSettingValue(LTRSettings.LTR_STATS_DOC_SCORING_SAMPLE_INTERVAL);
+    }
+
     public void init(ClusterService clusterService) {
         this.clusterService = clusterService;
         setSettingsUpdateConsumers();
@@ -55,6 +55,15 @@ public class LTRStat<T> {
         return supplier.get();
     }
 
+    /**
+     * Get the supplier of the stat
+     *
+     * @return the supplier
+     */
+    public Supplier<T> getSupplier() {
+        return supplier;
+    }
+
     /**
      * Increments the supplier if it can be incremented
      */
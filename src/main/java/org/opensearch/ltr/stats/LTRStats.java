@@ -18,6 +18,9 @@ package org.opensearch.ltr.stats;
 import java.util.Map;
 import java.util.stream.Collectors;
 
+import org.opensearch.ltr.stats.suppliers.LatencyStatsSupplier;
+import org.opensearch.ltr.stats.suppliers.ModelStatsSupplier;
+
 /**
  * This class is the main entry-point for access to the stats that the LTR plugin keeps track of.
  */
@@ -60,6 +63,34 @@ public class LTRStats {
         return stats.get(key);
     }
 
+    /**
+     * Get a node level latency histogram
+     *
+     * @param metric the measured step
+     * @return the histogram, null if latencies are not tracked
+     */
+    public LatencyHistogram getLatencyHistogram(LatencyStatsSupplier.Metric metric) {
+        LTRStat<?> stat = stats.get(StatName.LTR_LATENCY_STATS.getName());
+        if (stat == null || !(stat.getSupplier() instanceof LatencyStatsSupplier)) {
+            return null;
+        }
+        return ((LatencyStatsSupplier) stat.getSupplier()).histogram(metric);
+    }
+
+    /**
+     * Get the stats of a model
+     *
+     * @param modelName name of the model
+     * @return the stats of the model, null if models are not tracked
+     */
+    public ModelStatsSupplier.ModelStats getModelStats(String modelName) {
+        LTRStat<?> stat = stats.get(StatName.LTR_MODEL_STATS.getName());
+        if (stat == null || !(stat.getSupplier() instanceof ModelStatsSupplier)) {
+            return null;
+        }
+        return ((ModelStatsSupplier) stat.getSupplier()).model(modelName);
+    }
+
     /**
      * Add specific stat to stats map
      * @param key stat name
@@ -0,0 +1,132 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.opensearch.ltr.stats;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock free histogram of latencies with log-linear buckets, in the spirit of HDR histograms.
+ * <p>
+ * Each power of two is split into {@value #SUB_BUCKETS} linear sub-buckets so that reported percentiles are within
+ * 12.5% of the recorded values. Buckets are {@link LongAdder}s: concurrent recordings on hot paths such as
+ * per-document scoring do not contend.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // Latencies above 2^41ns (about 37 minutes) are counted in the last bucket
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKETS = bucket((1L << (MAX_EXPONENT + 1)) - 1) + 1;
+
+    private final LongAdder[] counts = new LongAdder[BUCKETS];
+    private final LongAdder sum = new LongAdder();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Record a latency
+     *
+     * @param nanos the latency in nanoseconds
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts[Math.min(bucket(value), BUCKETS - 1)].increment();
+        sum.add(value);
+    }
+
+    public long count() {
+        return total(snapshot());
+    }
+
+    /**
+     * @return the sum of the recorded latencies in nanoseconds
+     */
+    public long sum() {
+        return sum.sum();
+    }
+
+    /**
+     * The latency below which the given fraction of the recorded latencies fall, approximated by the middle of its bucket
+     *
+     * @param quantile between 0 and 1
+     * @return the latency in nanoseconds, 0 if nothing was recorded
+     */
+    public long percentile(double quantile) {
+        long[] snapshot = snapshot();
+        return percentile(snapshot, total(snapshot), quantile);
+    }
+
+    /**
+     * @return the count, mean and p50, p99 and p999 latencies in microseconds
+     */
+    public Map<String, Object> toMap() {
+        long[] snapshot = snapshot();
+        long count = total(snapshot);
+        Map<String, Object> values = new HashMap<>();
+        values.put("count", count);
+        values.put("mean_micros", count > 0 ? TimeUnit.NANOSECONDS.toMicros(sum.sum() / count) : 0L);
+        values.put("p50_micros", TimeUnit.NANOSECONDS.toMicros(percentile(snapshot, count, 0.5)));
+        values.put("p99_micros", TimeUnit.NANOSECONDS.toMicros(percentile(snapshot, count, 0.99)));
+        values.put("p999_micros", TimeUnit.NANOSECONDS.toMicros(percentile(snapshot, count, 0.999)));
+        return values;
+    }
+
+    private long[] snapshot() {
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts[i].sum();
+        }
+        return snapshot;
+    }
+
+    private static long total(long[] snapshot) {
+        long total = 0;
+        for (long count : snapshot) {
+            total += count;
+        }
+        return total;
+    }
+
+    private static long percentile(long[] snapshot, long count, double quantile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * count));
+        long seen = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return (lowerBound(i) + lowerBound(i + 1) - 1) / 2;
+            }
+        }
+        return lowerBound(snapshot.length - 1);
+    }
+
+    static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long lowerBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = bucket % SUB_BUCKETS;
+        return (1L << exponent) + (subBucket << (exponent - SUB_BUCKET_BITS));
+    }
+}
@@ -24,7 +24,12 @@ public enum StatName {
     LTR_STORES_STATS("stores"),
     LTR_REQUEST_TOTAL_COUNT("request_total_count"),
     LTR_REQUEST_ERROR_COUNT("request_error_count"),
-    LTR_CACHE_STATS("cache");
+    LTR_REQUEST_BUDGET_EXHAUSTED_COUNT("request_budget_exhausted_count"),
+    LTR_CACHE_STATS("cache"),
+    LTR_LOG_SINK_STATS("log_sink"),
+    LTR_LATENCY_STATS("latency"),
+    LTR_MODEL_STATS("models"),
+    LTR_DEGRADATION_STATS("degradation");
 
     private final String name;
 
@@ -0,0 +1,64 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.opensearch.ltr.stats.suppliers;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.opensearch.ltr.stats.LatencyHistogram;
+
+/**
+ * Node level latency histograms of the main steps of LTR queries.
+ */
+public class LatencyStatsSupplier implements Supplier<Map<String, Map<String, Object>>> {
+    public enum Metric {
+        /**
+         * Building the lucene query of a sltr query, model loading included
+         */
+        QUERY_BUILD,
+        /**
+         * Loading a model from the feature store, compiling it on a cache miss
+         */
+        MODEL_LOAD,
+        /**
+         * Scoring a single document with a model
+         */
+        DOC_SCORING,
+        /**
+         * Logging the features of a single hit in the fetch phase
+         */
+        LOGGING;
+
+        public String getName() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final Map<Metric, LatencyHistogram> histograms = new EnumMap<>(Metric.class);
+
+    public LatencyStatsSupplier() {
+        for (Metric metric : Metric.values()) {
+            histograms.put(metric, new LatencyHistogram());
+        }
+    }
+
+    public LatencyHistogram histogram(Metric metric) {
+        return histograms.get(metric);
+    }
+
+    @Override
+    public Map<String, Map<String, Object>> get() {
+        Map<String, Map<String, Object>> values = new HashMap<>();
+        for (Map.Entry<Metric, LatencyHistogram> histogram : histograms.entrySet()) {
+            values.put(histogram.getKey().getName(), histogram.getValue().toMap());
+        }
+        return Collections.unmodifiableMap(values);
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.opensearch.ltr.stats.suppliers;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.opensearch.ltr.stats.LatencyHistogram;
+
+/**
+ * Request and scoring stats of each model used on the node, keyed by model name.
+ * <p>
+ * The stats of a model are kept while it is loaded: they are removed when the model leaves the model cache.
+ */
+public class ModelStatsSupplier implements Supplier<Map<String, Map<String, Object>>> {
+    private final Map<String, ModelStats> models = new ConcurrentHashMap<>();
+
+    /**
+     * The stats of the model, created on first use
+     */
+    public ModelStats model(String modelName) {
+        return models.computeIfAbsent(modelName, (n) -> new ModelStats());
+    }
+
+    /**
+     * Drop the stats of a model no longer loaded
+     */
+    public void remove(String modelName) {
+        models.remove(modelName);
+    }
+
+    @Override
+    public Map<String, Map<String, Object>> get() {
+        Map<String, Map<String, Object>> values = new HashMap<>();
+        for (Map.Entry<String, ModelStats> model : models.entrySet()) {
+            values.put(model.getKey(), model.getValue().toMap());
+        }
+        return Collections.unmodifiableMap(values);
+    }
+
+    public static class ModelStats {
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder docsScored = new LongAdder();
+        private final LatencyHistogram docScoring = new LatencyHistogram();
+
+        public void onRequest() {
+            requests.increment();
+        }
+
+        /**
+         * Record docs scored and the time spent scoring the last of them: only one doc out of a sample is timed
+         */
+        public void onDocsScored(int docs, long nanos) {
+            docsScored.add(docs);
+            docScoring.record(nanos);
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> values = new HashMap<>();
+            values.put("request_count", requests.sum());
+            Map<String, Object> scoring = docScoring.toMap();
+            scoring.remove("count");
+            values.put("docs_scored", docsScored.sum());
+            values.put("doc_scoring", scoring);
+            return values;
+        }
+    }
+}
@@ -19,24 +19,36 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.opensearch.cluster.service.ClusterService;
+import org.opensearch.core.action.ActionListener;
 import org.opensearch.ltr.stats.suppliers.utils.StoreUtils;
 import org.opensearch.transport.client.Client;
 
 /**
- * A supplier to provide stats on the LTR stores. It retrieves basic information
- * on the store, such as the health of the underlying index and number of documents
- * in the store grouped by their type.
+ * Stats of the LTR stores.
+ * <p>
+ * Counting the content of a store requires searches, they are never run while serving the stats. The counts are cached per
+ * store generation and refreshed in the background when a store changes: stats reflect the last completed refresh and the
+ * counts of a store are missing until its first refresh completes.
  */
 public class StoreStatsSupplier implements Supplier<Map<String, Map<String, Object>>> {
+    private static final Logger logger = LogManager.getLogger(StoreStatsSupplier.class);
+
     static final String LTR_STORE_STATUS = "status";
     static final String LTR_STORE_FEATURE_COUNT = "feature_count";
     static final String LTR_STORE_FEATURE_SET_COUNT = "featureset_count";
     static final String LTR_STORE_MODEL_COUNT = "model_count";
 
     private final StoreUtils storeUtils;
+    private final Map<String, CachedStoreStats> cache = new ConcurrentHashMap<>();
+    // Only one refresh runs at a time
+    private final AtomicBoolean refreshing = new AtomicBoolean();
 
     protected StoreStatsSupplier(final StoreUtils storeUtils) {
         this.storeUtils = storeUtils;
@@ -46,6 +58,8 @@ public class StoreStatsSupplier implements Supplier<Map<String, Map<String, Obje
     public Map<String, Map<String, Object>> get() {
         Map<String, Map<String, Object>> storeStats = new ConcurrentHashMap<>();
         List<String> storeNames = storeUtils.getAllLtrStoreNames();
+        cache.keySet().retainAll(storeNames);
+        refresh(storeNames);
         storeNames.forEach(s -> storeStats.put(s, getStoreStat(s)));
         return storeStats;
     }
@@ -56,14 +70,72 @@ public class StoreStatsSupplier implements Supplier<Map<String, Map<String, Obje
         }
         Map<String, Object> storeStat = new HashMap<>();
         storeStat.put(LTR_STORE_STATUS, storeUtils.getLtrStoreHealthStatus(storeName));
-        Map<String, Integer> featureSets = storeUtils.extractFeatureSetStats(storeName);
-        storeStat.put(LTR_STORE_FEATURE_COUNT, featureSets.values().stream().reduce(Integer::sum).orElse(0));
-        storeStat.put(LTR_STORE_FEATURE_SET_COUNT, featureSets.size());
-        storeStat.put(LTR_STORE_MODEL_COUNT, storeUtils.getModelCount(storeName));
+        CachedStoreStats cached = cache.get(storeName);
+        if (cached != null) {
+            storeStat.put(LTR_STORE_FEATURE_COUNT, cached.stats.getFeatureCount());
+            storeStat.put(LTR_STORE_FEATURE_SET_COUNT, cached.stats.getFeatureSetCount());
+            storeStat.put(LTR_STORE_MODEL_COUNT, cached.stats.getModelCount());
+        }
         return storeStat;
     }
 
+    /**
+     * Count again the content of the stores whose generation changed, without waiting for the counts.
+     */
+    void refresh(List<String> storeNames) {
+        if (storeNames.isEmpty() || !refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            storeUtils.getStoreGenerations(storeNames, ActionListener.wrap(this::onGenerations, e -> {
+                logger.warn("Failed to fetch the generations of the LTR stores", e);
+                refreshing.set(false);
+            }));
+        } catch (Exception e) {
+            logger.warn("Failed to fetch the generations of the LTR stores", e);
+            refreshing.set(false);
+        }
+    }
+
+    private void onGenerations(Map<String, String> generations) {
+        Map<String, String> changed = new HashMap<>();
+        generations.forEach((store, generation) -> {
+            CachedStoreStats cached = cache.get(store);
+            if (cached == null || !cached.generation.equals(generation)) {
+                changed.put(store, generation);
+            }
+        });
+        if (changed.isEmpty()) {
+            refreshing.set(false);
+            return;
+        }
+        AtomicInteger pending = new AtomicInteger(changed.size());
+        changed.forEach((store, generation) -> storeUtils.getStoreContentStats(store, ActionListener.wrap(stats -> {
+            cache.put(store, new CachedStoreStats(generation, stats));
+            onStoreRefreshed(pending);
+        }, e -> {
+            logger.warn("Failed to count the content of the LTR store [" + store + "]", e);
+            onStoreRefreshed(pending);
+        })));
+    }
+
+    private void onStoreRefreshed(AtomicInteger pending) {
+        if (pending.decrementAndGet() == 0) {
+            refreshing.set(false);
+        }
+    }
+
     public static StoreStatsSupplier create(final Client client, final ClusterService clusterService) {
         return new StoreStatsSupplier(new StoreUtils(client, clusterService));
     }
+
+    private static class CachedStoreStats {
+        private final String generation;
+        private final StoreUtils.StoreContentStats stats;
+
+        CachedStoreStats(String generation, StoreUtils.StoreContentStats stats) {
+            this.generation = generation;
+            this.stats = stats;
+        }
+    }
 }
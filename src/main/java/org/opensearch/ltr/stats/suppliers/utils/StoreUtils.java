@@ -20,18 +20,22 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.Optional;
 
 import org.opensearch.action.admin.cluster.state.ClusterStateRequest;
-import org.opensearch.action.search.SearchType;
+import org.opensearch.action.admin.indices.stats.IndexStats;
+import org.opensearch.action.admin.indices.stats.ShardStats;
+import org.opensearch.action.support.IndicesOptions;
 import org.opensearch.cluster.health.ClusterIndexHealth;
 import org.opensearch.cluster.metadata.IndexNameExpressionResolver;
 import org.opensearch.cluster.service.ClusterService;
 import org.opensearch.common.util.concurrent.ThreadContext;
+import org.opensearch.core.action.ActionListener;
 import org.opensearch.index.IndexNotFoundException;
 import org.opensearch.index.query.QueryBuilders;
+import org.opensearch.index.shard.DocsStats;
 import org.opensearch.search.SearchHit;
-import org.opensearch.search.SearchHits;
+import org.opensearch.search.aggregations.AggregationBuilders;
+import org.opensearch.search.aggregations.bucket.terms.Terms;
 import org.opensearch.transport.client.Client;
 
 import com.o19s.es.ltr.feature.store.StoredFeatureSet;
@@ -45,8 +49,12 @@ import com.o19s.es.ltr.feature.store.index.IndexFeatureStore;
 public class StoreUtils {
 
     private static final String FEATURE_SET_KEY = "featureset";
-    private static final String FEATURE_SET_NAME_KEY = "name";
     private static final String FEATURES_KEY = "features";
+    private static final String FEATURES_SOURCE_PATH = FEATURE_SET_KEY + "." + FEATURES_KEY + ".name";
+    private static final String TYPE_FIELD = "type";
+    private static final String TYPES_AGG = "types";
+    // Feature counts are based on the first feature sets of stores holding more than a search result window
+    private static final int MAX_COUNTED_FEATURE_SETS = 10000;
     private final Client client;
     private final ClusterService clusterService;
     private final IndexNameExpressionResolver indexNameExpressionResolver;
@@ -83,49 +91,130 @@ public class StoreUtils {
     }
 
     /**
-     * Returns a map of feaureset and the number of features in the featureset.
+     * Fetch a fingerprint of the content of each store, it changes whenever documents are added, updated or deleted and
+     * become visible to searches, or when the store is recreated.
      *
-     * @param storeName the name of the index for the LTR store.
-     * @return A map of (featureset, features count)
+     * @param storeNames the names of the indices of the LTR stores
+     * @param listener receives a map of (store, generation), stores without a started primary are missing
      */
-    @SuppressWarnings("unchecked")
-    public Map<String, Integer> extractFeatureSetStats(String storeName) {
-        final Map<String, Integer> featureSetStats = new HashMap<>();
-        final SearchHits featureSetHits = searchStore(storeName, StoredFeatureSet.TYPE);
-
-        for (final SearchHit featureSetHit : featureSetHits) {
-            extractFeatureSetFromFeatureSetHit(featureSetHit).ifPresent(featureSet -> {
-                final List<String> features = (List<String>) featureSet.get(FEATURES_KEY);
-                featureSetStats.put((String) featureSet.get(FEATURE_SET_NAME_KEY), features.size());
-            });
-        }
-        return featureSetStats;
+    public void getStoreGenerations(List<String> storeNames, ActionListener<Map<String, String>> listener) {
+        client
+            .admin()
+            .indices()
+            .prepareStats(storeNames.toArray(new String[0]))
+            .clear()
+            .setDocs(true)
+            .setIndicesOptions(IndicesOptions.lenientExpandOpen())
+            .execute(ActionListener.wrap(response -> {
+                final Map<String, String> generations = new HashMap<>();
+                for (final IndexStats indexStats : response.getIndices().values()) {
+                    generations.put(indexStats.getIndex(), generation(indexStats));
+                }
+                listener.onResponse(generations);
+            }, listener::onFailure));
     }
 
-    @SuppressWarnings("unchecked")
-    private Optional<Map<String, Object>> extractFeatureSetFromFeatureSetHit(SearchHit featureSetHit) {
-        final Map<String, Object> featureSetMap = featureSetHit.getSourceAsMap();
-        if (featureSetMap != null && featureSetMap.containsKey(FEATURE_SET_KEY)) {
-            final Map<String, Object> featureSet = (Map<String, Object>) featureSetMap.get(FEATURE_SET_KEY);
-
-            if (featureSet != null && featureSet.containsKey(FEATURES_KEY) && featureSet.containsKey(FEATURE_SET_NAME_KEY)) {
-                return Optional.of(featureSet);
+    private static String generation(IndexStats indexStats) {
+        long maxSeqNo = 0;
+        for (final ShardStats shardStats : indexStats.getShards()) {
+            if (shardStats.getShardRouting().primary() && shardStats.getSeqNoStats() != null) {
+                maxSeqNo += shardStats.getSeqNoStats().getMaxSeqNo();
             }
         }
+        // seq_no moves when documents are written, docs stats when they are refreshed
+        final DocsStats docs = indexStats.getPrimaries().getDocs();
+        return indexStats.getUuid()
+            + ":"
+            + maxSeqNo
+            + ":"
+            + (docs == null ? -1 : docs.getCount())
+            + ":"
+            + (docs == null ? -1 : docs.getDeleted());
+    }
 
-        return Optional.empty();
+    /**
+     * Count the feature sets, features and models of a store.
+     * <p>
+     * Feature sets and models are counted with an aggregation, only the feature lists of the feature sets are fetched to
+     * count features.
+     *
+     * @param storeName the name of the index for the LTR store.
+     * @param listener receives the counts
+     */
+    public void getStoreContentStats(String storeName, ActionListener<StoreContentStats> listener) {
+        client
+            .prepareSearch(storeName)
+            .setSize(0)
+            .addAggregation(AggregationBuilders.terms(TYPES_AGG).field(TYPE_FIELD))
+            .execute(ActionListener.wrap(response -> {
+                final Terms types = response.getAggregations().get(TYPES_AGG);
+                final long featureSetCount = docCount(types, StoredFeatureSet.TYPE);
+                final long modelCount = docCount(types, StoredLtrModel.TYPE);
+                if (featureSetCount == 0) {
+                    listener.onResponse(new StoreContentStats(0, 0, modelCount));
+                    return;
+                }
+                countFeatures(
+                    storeName,
+                    featureSetCount,
+                    ActionListener
+                        .wrap(
+                            featureCount -> listener.onResponse(new StoreContentStats((int) featureSetCount, featureCount, modelCount)),
+                            listener::onFailure
+                        )
+                );
+            }, listener::onFailure));
     }
 
-    public long getModelCount(String storeName) {
-        return searchStore(storeName, StoredLtrModel.TYPE).getTotalHits().value();
+    private static long docCount(Terms types, String type) {
+        final Terms.Bucket bucket = types.getBucketByKey(type);
+        return bucket == null ? 0 : bucket.getDocCount();
     }
 
-    private SearchHits searchStore(String storeName, String docType) {
-        return client
+    @SuppressWarnings("unchecked")
+    private void countFeatures(String storeName, long featureSetCount, ActionListener<Integer> listener) {
+        client
             .prepareSearch(storeName)
-            .setSearchType(SearchType.DFS_QUERY_THEN_FETCH)
-            .setQuery(QueryBuilders.termQuery("type", docType))
-            .get()
-            .getHits();
+            .setQuery(QueryBuilders.termQuery(TYPE_FIELD, StoredFeatureSet.TYPE))
+            .setSize((int) Math.min(featureSetCount, MAX_COUNTED_FEATURE_SETS))
+            .setFetchSource(FEATURES_SOURCE_PATH, null)
+            .execute(ActionListener.wrap(response -> {
+                int featureCount = 0;
+                for (final SearchHit hit : response.getHits()) {
+                    final Map<String, Object> source = hit.getSourceAsMap();
+                    final Object featureSet = source == null ? null : source.get(FEATURE_SET_KEY);
+                    if (featureSet instanceof Map && ((Map<String, Object>) featureSet).get(FEATURES_KEY) instanceof List) {
+                        featureCount += ((List<Object>) ((Map<String, Object>) featureSet).get(FEATURES_KEY)).size();
+                    }
+                }
+                listener.onResponse(featureCount);
+            }, listener::onFailure));
+    }
+
+    /**
+     * Number of feature sets, features and models of a store
+     */
+    public static class StoreContentStats {
+        private final int featureSetCount;
+        private final int featureCount;
+        private final long modelCount;
+
+        public StoreContentStats(int featureSetCount, int featureCount, long modelCount) {
+            this.featureSetCount = featureSetCount;
+            this.featureCount = featureCount;
+            this.modelCount = modelCount;
+        }
+
+        public int getFeatureSetCount() {
+            return featureSetCount;
+        }
+
+        public int getFeatureCount() {
+            return featureCount;
+        }
+
+        public long getModelCount() {
+            return modelCount;
+        }
     }
 }
@@ -16,7 +16,10 @@
 package com.o19s.es.explore;
 
 import static java.util.Collections.unmodifiableMap;
+import static org.hamcrest.Matchers.allOf;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -28,6 +31,7 @@ import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.MultiReader;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.BooleanClause;
 import org.apache.lucene.search.BooleanQuery;
@@ -39,6 +43,7 @@ import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.store.ByteBuffersDirectory;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.tests.util.LuceneTestCase;
+import org.apache.lucene.util.RamUsageEstimator;
 import org.junit.After;
 import org.junit.Before;
 import org.opensearch.common.lucene.Lucene;
@@ -299,4 +304,44 @@ public class ExplorerQueryTests extends LuceneTestCase {
 
         expectThrows(RuntimeException.class, () -> searcher.search(eq, 4));
     }
+
+    public void testCollectionStatsCachedPerReader() throws Exception {
+        TermCollectionStatsCache cache = new TermCollectionStatsCache(RamUsageEstimator.ONE_MB);
+        Term term = new Term("text", "cow");
+
+        TermCollectionStatsCache.TermCollectionStats stats = cache.get(searcher, term);
+        assertThat(stats.docFreq(), equalTo(2));
+        assertThat(stats.totalTermFreq(), equalTo(2L));
+        assertSame(stats, cache.get(searcher, term));
+        assertThat(cache.get(searcher, new Term("text", "xxxxxxxxxxxxxxxxxx")).docFreq(), equalTo(0));
+        assertThat(cache.readerCount(), equalTo(1));
+
+        // A refreshed reader gets its own entry which is dropped once closed
+        IndexReader refreshed = DirectoryReader.open(dir);
+        assertThat(cache.get(new IndexSearcher(refreshed), term).docFreq(), equalTo(2));
+        assertThat(cache.readerCount(), equalTo(2));
+        refreshed.close();
+        assertThat(cache.readerCount(), equalTo(1));
+    }
+
+    public void testCollectionStatsCacheIsBounded() throws Exception {
+        TermCollectionStatsCache cache = new TermCollectionStatsCache(1024);
+        for (int i = 0; i < 1000; i++) {
+            assertThat(cache.get(searcher, new Term("text", "term" + i)).docFreq(), equalTo(0));
+        }
+        assertThat(cache.count(), allOf(greaterThan(0), lessThan(1000)));
+        assertThat(cache.get(searcher, new Term("text", "cow")).docFreq(), equalTo(2));
+    }
+
+    public void testClosedReaderIsNotCached() throws Exception {
+        TermCollectionStatsCache cache = new TermCollectionStatsCache(RamUsageEstimator.ONE_MB);
+        // The segments stay open, only the top level reader the statistics would be cached for is closed
+        MultiReader closed = new MultiReader(new IndexReader[] { reader }, false);
+        IndexSearcher closedSearcher = new IndexSearcher(closed);
+        closed.close();
+
+        assertThat(cache.get(closedSearcher, new Term("text", "cow")).docFreq(), equalTo(2));
+        assertThat(cache.count(), equalTo(0));
+        assertThat(cache.readerCount(), equalTo(0));
+    }
 }
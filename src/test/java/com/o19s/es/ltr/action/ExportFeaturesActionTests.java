@@ -0,0 +1,133 @@
+/*
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.o19s.es.ltr.action;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.opensearch.common.io.stream.BytesStreamOutput;
+import org.opensearch.core.common.bytes.BytesArray;
+import org.opensearch.core.common.bytes.BytesReference;
+import org.opensearch.test.OpenSearchTestCase;
+
+import com.o19s.es.ltr.action.ExportFeaturesAction.ExportFeaturesRequest;
+import com.o19s.es.ltr.action.ExportFeaturesAction.ExportFeaturesResponse;
+import com.o19s.es.ltr.action.ExportFeaturesAction.ExportFormat;
+import com.o19s.es.ltr.action.ExportFeaturesAction.Judgment;
+import com.o19s.es.ltr.action.ExportFeaturesAction.Record;
+
+public class ExportFeaturesActionTests extends OpenSearchTestCase {
+    public void testSvmRankFormat() {
+        StringBuilder out = new StringBuilder();
+        ExportFormat.SVMRANK.writeHeader(out, asList("title", "body"));
+        ExportFormat.SVMRANK.writeRow(out, "1", new Judgment("doc1", 3), new float[] { 0.5F, 1.25F });
+        ExportFormat.SVMRANK.writeRow(out, "1", new Judgment("doc2", 0.5), new float[] { Float.NaN, 2F });
+        assertEquals("3 qid:1 1:0.5 2:1.25 # doc1\n0.5 qid:1 2:2.0 # doc2\n", out.toString());
+    }
+
+    public void testCsvFormat() {
+        StringBuilder out = new StringBuilder();
+        ExportFormat.CSV.writeHeader(out, asList("title", "body,text"));
+        ExportFormat.CSV.writeRow(out, "1", new Judgment("doc1", 3), new float[] { 0.5F, 1.25F });
+        ExportFormat.CSV.writeRow(out, "1", new Judgment("doc\"2", 0), new float[] { Float.NaN, 2F });
+        assertEquals("qid,doc_id,grade,title,\"body,text\"\n1,doc1,3,0.5,1.25\n1,\"doc\"\"2\",0,,2.0\n", out.toString());
+    }
+
+    public void testFormatFromString() {
+        assertEquals(ExportFormat.SVMRANK, ExportFormat.fromString("svmrank"));
+        assertEquals(ExportFormat.CSV, ExportFormat.fromString("csv"));
+        expectThrows(IllegalArgumentException.class, () -> ExportFormat.fromString("ranklib"));
+    }
+
+    public void testSerialization() throws IOException {
+        ExportFeaturesRequest request = new ExportFeaturesRequest();
+        request.setStore("mystore");
+        request.setFeatureSetName("myset");
+        request.setIndex("tmdb");
+        request.setFormat(ExportFormat.CSV);
+        Record record = new Record("7", singletonMap("keywords", "rambo"), asList(new Judgment("a", 1), new Judgment("b", 0)));
+        request.setRecords(singletonList(record));
+        assertNull(request.validate());
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        request.writeTo(out);
+        ExportFeaturesRequest read = new ExportFeaturesRequest(out.bytes().streamInput());
+        assertEquals("mystore", read.getStore());
+        assertEquals("myset", read.getFeatureSetName());
+        assertEquals("tmdb", read.getIndex());
+        assertEquals(ExportFormat.CSV, read.getFormat());
+        assertEquals(1, read.getRecords().size());
+        Record readRecord = read.getRecords().get(0);
+        assertEquals("7", readRecord.getQid());
+        assertEquals("rambo", readRecord.getParams().get("keywords"));
+        assertEquals(2, readRecord.getJudgments().size());
+        assertEquals("b", readRecord.getJudgments().get(1).getDocId());
+        assertEquals(0, readRecord.getJudgments().get(1).getGrade(), 0);
+    }
+
+    public void testResponseSerialization() throws IOException {
+        BytesReference content = new BytesArray("3 qid:1 1:0.5 # doc1\n".getBytes(StandardCharsets.UTF_8));
+        ExportFeaturesResponse response = new ExportFeaturesResponse(1, content, singletonMap("2", new IllegalStateException("boom")));
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        response.writeTo(out);
+        ExportFeaturesResponse read = new ExportFeaturesResponse(out.bytes().streamInput());
+        assertEquals(1, read.getRows());
+        assertEquals(content, read.getContent());
+        assertEquals(1, read.getFailures().size());
+        assertEquals("boom", read.getFailures().get("2").getMessage());
+    }
+
+    public void testValidation() {
+        ExportFeaturesRequest request = new ExportFeaturesRequest();
+        assertNotNull(request.validate());
+        assertEquals(3, request.validate().validationErrors().size());
+    }
+
+    public void testSvmRankValidation() {
+        ExportFeaturesRequest request = new ExportFeaturesRequest();
+        request.setFeatureSetName("myset");
+        request.setIndex("tmdb");
+        request
+            .setRecords(
+                asList(
+                    new Record("1", null, singletonList(new Judgment("a", 1))),
+                    new Record("2 3", null, singletonList(new Judgment("a", 1))),
+                    new Record("4#", null, singletonList(new Judgment("a", 1))),
+                    new Record("5\n", null, singletonList(new Judgment("a", 1))),
+                    new Record("6", null, asList(new Judgment("a\nb", 1), new Judgment("c\r", 1)))
+                )
+            );
+        assertEquals(4, request.validate().validationErrors().size());
+        assertEquals(
+            "qid [2 3] must not be empty nor contain whitespaces or [#] with format [svmrank]",
+            request.validate().validationErrors().get(0)
+        );
+        assertEquals(
+            "doc id [a\nb] of qid [6] must not contain line breaks with format [svmrank]",
+            request.validate().validationErrors().get(3)
+        );
+
+        // Values are escaped in the csv format
+        request.setFormat(ExportFormat.CSV);
+        assertNull(request.validate());
+    }
+}
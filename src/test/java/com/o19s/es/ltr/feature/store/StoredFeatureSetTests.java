@@ -24,6 +24,7 @@ import static java.util.Collections.singletonList;
 import static org.hamcrest.CoreMatchers.equalTo;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -119,4 +120,24 @@ public class StoredFeatureSetTests extends LuceneTestCase {
         assertSame(feat2_v1, set_v3.feature(1));
         assertSame(feat3_v1, set_v3.feature(2));
     }
+
+    public void testOrdinalsAfterUpdates() throws IOException {
+        StoredFeatureSet set_v1 = new StoredFeatureSet("name", asList(randomFeature("feat0"), randomFeature("feat1")));
+        StoredFeatureSet set_v2 = set_v1.append(asList(randomFeature("feat2"), randomFeature("feat3")));
+        StoredFeatureSet set_v3 = set_v2.merge(asList(randomFeature("feat4"), randomFeature("feat1")));
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i, set_v3.featureOrdinal("feat" + i));
+            assertEquals("feat" + i, set_v3.feature(i).name());
+        }
+        assertFalse(set_v2.hasFeature("feat4"));
+        List<StoredFeature> features = new ArrayList<>();
+        for (int i = 0; i < set_v3.size(); i++) {
+            features.add(set_v3.feature(i));
+        }
+        assertEquals(new StoredFeatureSet("name", features), set_v3);
+
+        expectThrows(IllegalArgumentException.class, () -> set_v1.append(asList(randomFeature("feat5"), randomFeature("feat5"))));
+        expectThrows(IllegalArgumentException.class, () -> set_v1.merge(asList(randomFeature("feat5"), randomFeature("feat5"))));
+        assertFalse(set_v1.hasFeature("feat5"));
+    }
 }
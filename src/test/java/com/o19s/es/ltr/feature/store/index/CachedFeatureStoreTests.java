@@ -19,6 +19,9 @@ package com.o19s.es.ltr.feature.store.index;
 import static org.hamcrest.CoreMatchers.instanceOf;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import org.apache.lucene.tests.util.LuceneTestCase;
 import org.apache.lucene.tests.util.TestUtil;
@@ -90,6 +93,18 @@ public class CachedFeatureStoreTests extends LuceneTestCase {
         assertThat(expectThrows(IOException.class, () -> store.loadModel("unk")).getCause(), instanceOf(IllegalArgumentException.class));
     }
 
+    public void testModelRemovalListener() throws IOException {
+        List<String> removed = new ArrayList<>();
+        caches.setModelRemovalListener(removed::add);
+        CompiledLtrModel model = LtrTestUtils.buildRandomModel();
+        memStore.add(model);
+        CachedFeatureStore store = new CachedFeatureStore(memStore, caches);
+        store.loadModel(model.name());
+        assertTrue(removed.isEmpty());
+        caches.evictModel(memStore.getStoreName(), model.name());
+        assertEquals(Collections.singletonList(model.name()), removed);
+    }
+
     public void testWontBlowUp() throws IOException {
         Caches caches = new Caches(TimeValue.timeValueHours(1), TimeValue.timeValueHours(1), new ByteSizeValue(100000));
         CachedFeatureStore store = new CachedFeatureStore(memStore, caches);
@@ -0,0 +1,159 @@
+/*
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.o19s.es.ltr.logging;
+
+import static java.util.Collections.singletonMap;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.opensearch.OpenSearchSecurityException;
+import org.opensearch.action.DocWriteRequest;
+import org.opensearch.action.bulk.BulkItemResponse;
+import org.opensearch.action.bulk.BulkRequest;
+import org.opensearch.action.bulk.BulkResponse;
+import org.opensearch.action.index.IndexRequest;
+import org.opensearch.action.index.IndexResponse;
+import org.opensearch.common.settings.Settings;
+import org.opensearch.common.util.concurrent.ThreadContext;
+import org.opensearch.core.action.ActionListener;
+import org.opensearch.core.index.shard.ShardId;
+import org.opensearch.core.rest.RestStatus;
+import org.opensearch.test.OpenSearchTestCase;
+import org.opensearch.threadpool.ThreadPool;
+import org.opensearch.transport.client.Client;
+
+public class FeatureLogSinkTests extends OpenSearchTestCase {
+    public void testDropsWhenNotStarted() {
+        FeatureLogSink sink = new FeatureLogSink(Settings.EMPTY);
+        assertFalse(sink.offer(new FeatureLogSink.Entry("logs", singletonMap("logger", "test"), () -> () -> {})));
+        assertEquals(1L, sink.stats().get("dropped"));
+    }
+
+    public void testBoundedQueueAndBulkFlush() {
+        Settings settings = Settings.builder()
+            .put(FeatureLogSink.LTR_LOG_SINK_QUEUE_SIZE.getKey(), 3)
+            .put(FeatureLogSink.LTR_LOG_SINK_BULK_SIZE.getKey(), 2)
+            .build();
+        List<BulkRequest> bulks = new ArrayList<>();
+        FeatureLogSink sink = startedSink(settings, bulks);
+
+        Supplier<ThreadContext.StoredContext> context = sink.captureContext();
+        for (int i = 0; i < 5; i++) {
+            sink.offer(new FeatureLogSink.Entry("logs", singletonMap("doc_id", Integer.toString(i)), context));
+        }
+        assertEquals(3, sink.stats().get("queued"));
+        assertEquals(2L, sink.stats().get("dropped"));
+
+        sink.flush();
+        assertEquals(1, bulks.size());
+        assertEquals(2, bulks.get(0).numberOfActions());
+        IndexRequest first = (IndexRequest) bulks.get(0).requests().get(0);
+        assertEquals("logs", first.index());
+        assertEquals("0", first.sourceAsMap().get("doc_id"));
+        assertEquals(1, sink.stats().get("queued"));
+        assertEquals(2L, sink.stats().get("indexed"));
+
+        sink.flush();
+        assertEquals(2, bulks.size());
+        assertEquals(0, sink.stats().get("queued"));
+        assertEquals(3L, sink.stats().get("indexed"));
+    }
+
+    public void testLogsAreIndexedWithTheContextOfTheSearch() {
+        ThreadContext threadContext = new ThreadContext(Settings.EMPTY);
+        List<BulkRequest> bulks = new ArrayList<>();
+        List<String> users = new ArrayList<>();
+        // Only the writer may index into the logs index
+        FeatureLogSink sink = startedSink(Settings.EMPTY, threadContext, bulks, (bulk) -> {
+            String user = threadContext.getHeader("user");
+            users.add(user);
+            String index = bulk.requests().get(0).index();
+            if (!"writer".equals(user) || !"logs".equals(index)) {
+                return new OpenSearchSecurityException("user [{}] cannot write into [{}]", RestStatus.FORBIDDEN, user, index);
+            }
+            return null;
+        });
+
+        try (ThreadContext.StoredContext ignore = threadContext.stashContext()) {
+            threadContext.putHeader("user", "reader");
+            assertTrue(sink.offer(new FeatureLogSink.Entry("secrets", singletonMap("doc_id", "1"), sink.captureContext())));
+        }
+        try (ThreadContext.StoredContext ignore = threadContext.stashContext()) {
+            threadContext.putHeader("user", "writer");
+            Supplier<ThreadContext.StoredContext> context = sink.captureContext();
+            assertTrue(sink.offer(new FeatureLogSink.Entry("logs", singletonMap("doc_id", "2"), context)));
+            assertTrue(sink.offer(new FeatureLogSink.Entry("logs", singletonMap("doc_id", "3"), context)));
+        }
+
+        sink.flush();
+        assertEquals(2, bulks.size());
+        assertEquals(Arrays.asList("reader", "writer"), users);
+        assertEquals(1, bulks.get(0).numberOfActions());
+        assertEquals(2, bulks.get(1).numberOfActions());
+        assertEquals(1L, sink.stats().get("failed"));
+        assertEquals(2L, sink.stats().get("indexed"));
+        // The context of the flush is restored
+        assertNull(threadContext.getHeader("user"));
+    }
+
+    static FeatureLogSink startedSink(Settings settings, List<BulkRequest> bulks) {
+        return startedSink(settings, new ThreadContext(Settings.EMPTY), bulks, (bulk) -> null);
+    }
+
+    /**
+     * @param authorize the failure of a bulk request, null if it is allowed
+     */
+    static FeatureLogSink startedSink(
+        Settings settings,
+        ThreadContext threadContext,
+        List<BulkRequest> bulks,
+        Function<BulkRequest, Exception> authorize
+    ) {
+        ThreadPool threadPool = mock(ThreadPool.class);
+        when(threadPool.getThreadContext()).thenReturn(threadContext);
+        Client client = mock(Client.class);
+        doAnswer((invocation) -> {
+            BulkRequest bulk = invocation.getArgument(0);
+            bulks.add(bulk);
+            ActionListener<BulkResponse> listener = invocation.getArgument(1);
+            Exception failure = authorize.apply(bulk);
+            if (failure != null) {
+                listener.onFailure(failure);
+                return null;
+            }
+            BulkItemResponse[] items = new BulkItemResponse[bulk.numberOfActions()];
+            for (int i = 0; i < items.length; i++) {
+                IndexResponse response = new IndexResponse(new ShardId("logs", "_na_", 0), Integer.toString(i), i, 1, 1, true);
+                items[i] = new BulkItemResponse(i, DocWriteRequest.OpType.INDEX, response);
+            }
+            listener.onResponse(new BulkResponse(items, 0));
+            return null;
+        }).when(client).bulk(any(BulkRequest.class), any());
+        FeatureLogSink sink = new FeatureLogSink(settings);
+        sink.init(client, threadPool);
+        sink.start();
+        return sink;
+    }
+}
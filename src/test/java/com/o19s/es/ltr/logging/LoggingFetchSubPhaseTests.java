@@ -23,6 +23,7 @@ import static org.opensearch.index.fielddata.IndexNumericFieldData.NumericType.F
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -51,9 +52,12 @@ import org.apache.lucene.tests.util.LuceneTestCase;
 import org.apache.lucene.tests.util.TestUtil;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
+import org.opensearch.action.bulk.BulkRequest;
+import org.opensearch.action.index.IndexRequest;
 import org.opensearch.common.lucene.search.function.CombineFunction;
 import org.opensearch.common.lucene.search.function.FieldValueFactorFunction;
 import org.opensearch.common.lucene.search.function.FunctionScoreQuery;
+import org.opensearch.common.settings.Settings;
 import org.opensearch.index.fielddata.plain.SortedNumericIndexFieldData;
 import org.opensearch.ltr.stats.LTRStat;
 import org.opensearch.ltr.stats.LTRStats;
@@ -64,6 +68,7 @@ import org.opensearch.search.fetch.FetchSubPhase;
 import org.opensearch.search.fetch.FetchSubPhaseProcessor;
 import org.opensearch.search.lookup.SourceLookup;
 
+import com.o19s.es.ltr.LtrQueryContext;
 import com.o19s.es.ltr.feature.PrebuiltFeature;
 import com.o19s.es.ltr.feature.PrebuiltFeatureSet;
 import com.o19s.es.ltr.feature.PrebuiltLtrModel;
@@ -121,14 +126,8 @@ public class LoggingFetchSubPhaseTests extends LuceneTestCase {
         LoggingFetchSubPhase.HitLogConsumer logger2 = new LoggingFetchSubPhase.HitLogConsumer("logger2", query2.featureSet(), false);
         query1 = query1.toLoggerQuery(logger1);
         query2 = query2.toLoggerQuery(logger2);
-        BooleanQuery query = new BooleanQuery.Builder()
-            .add(new BooleanClause(query1, BooleanClause.Occur.MUST))
-            .add(new BooleanClause(query2, BooleanClause.Occur.MUST))
-            .build();
-        LoggingFetchSubPhase subPhase = new LoggingFetchSubPhase();
-        Weight weight = searcher.createWeight(query, ScoreMode.COMPLETE, 1.0F);
         List<LoggingFetchSubPhase.HitLogConsumer> loggers = Arrays.asList(logger1, logger2);
-        LoggingFetchSubPhaseProcessor processor = new LoggingFetchSubPhaseProcessor(weight, loggers);
+        LoggingFetchSubPhaseProcessor processor = new LoggingFetchSubPhaseProcessor(weights(query1, query2), loggers);
 
         SearchHit[] hits = preprocessRandomHits(processor);
         for (SearchHit hit : hits) {
@@ -162,6 +161,199 @@ public class LoggingFetchSubPhaseTests extends LuceneTestCase {
         }
     }
 
+    public void testCompactLogging() throws IOException {
+        RankerQuery query1 = buildQuery("foo");
+        RankerQuery query2 = buildQuery("bar");
+        LoggingFetchSubPhase.HitLogConsumer logger1 = new LoggingFetchSubPhase.HitLogConsumer(
+            "logger1",
+            query1.featureSet(),
+            false,
+            LoggingSearchExtBuilder.LogFormat.COMPACT
+        );
+        LoggingFetchSubPhase.HitLogConsumer logger2 = new LoggingFetchSubPhase.HitLogConsumer("logger2", query2.featureSet(), false);
+        query1 = query1.toLoggerQuery(logger1);
+        query2 = query2.toLoggerQuery(logger2);
+        LoggingFetchSubPhaseProcessor processor = new LoggingFetchSubPhaseProcessor(
+            weights(query1, query2),
+            Arrays.asList(logger1, logger2)
+        );
+
+        SearchHit[] hits = preprocessRandomHits(processor);
+        int namesLogged = 0;
+        for (SearchHit hit : hits) {
+            Document d = docs.get(hit.getId());
+            Map<String, Object> logs = hit.getFields().get("_ltrlog").getValue();
+            float[] values = (float[]) logs.get("logger1");
+            assertEquals(2, values.length);
+            if (d.get("text").equals("foo")) {
+                assertTrue(values[0] > 0F);
+            } else {
+                assertTrue(Float.isNaN(values[0]));
+            }
+            assertTrue(values[1] > 0F);
+            // verbose loggers are not affected
+            assertTrue(logs.get("logger2") instanceof List);
+
+            if (hit.getFields().containsKey("_ltrlog_features")) {
+                Map<String, Object> names = hit.getFields().get("_ltrlog_features").getValue();
+                assertEquals(Arrays.asList("text_feat", "score_feat"), names.get("logger1"));
+                assertFalse(names.containsKey("logger2"));
+                namesLogged++;
+            }
+        }
+        assertEquals(1, namesLogged);
+    }
+
+    public void testLoggingWithFeatureScoreCache() throws IOException {
+        RankerQuery cached = buildQuery("foo", true);
+        // Score part of the docs first, as the rescore phase would, so that logging mixes cache hits and misses
+        Query rescored = new BooleanQuery.Builder()
+            .add(new BooleanClause(cached, BooleanClause.Occur.MUST))
+            .add(new BooleanClause(new TermQuery(new Term("text", "bar")), BooleanClause.Occur.FILTER))
+            .build();
+        searcher.search(rescored, docs.size());
+
+        LoggingFetchSubPhase.HitLogConsumer cachedLogger = new LoggingFetchSubPhase.HitLogConsumer("cached", cached.featureSet(), false);
+        RankerQuery plain = buildQuery("foo");
+        LoggingFetchSubPhase.HitLogConsumer plainLogger = new LoggingFetchSubPhase.HitLogConsumer("plain", plain.featureSet(), false);
+        LoggingFetchSubPhaseProcessor processor = new LoggingFetchSubPhaseProcessor(
+            weights(cached.toLoggerQuery(cachedLogger), plain.toLoggerQuery(plainLogger)),
+            Arrays.asList(cachedLogger, plainLogger)
+        );
+
+        for (SearchHit hit : preprocessRandomHits(processor)) {
+            Map<String, List<Map<String, Object>>> logs = hit.getFields().get("_ltrlog").getValue();
+            assertEquals(logs.get("plain"), logs.get("cached"));
+        }
+    }
+
+    public void testLoggersAreIndependent() throws IOException {
+        RankerQuery query1 = buildQuery("foo");
+        RankerQuery query2 = buildQuery("bar");
+        LoggingFetchSubPhase.HitLogConsumer logger1 = new LoggingFetchSubPhase.HitLogConsumer("logger1", query1.featureSet(), false);
+        LoggingFetchSubPhase.HitLogConsumer logger2 = new LoggingFetchSubPhase.HitLogConsumer("logger2", query2.featureSet(), false);
+        // logger2 only matches the "bar" docs
+        Query filtered = new BooleanQuery.Builder()
+            .add(new BooleanClause(query2.toLoggerQuery(logger2), BooleanClause.Occur.MUST))
+            .add(new BooleanClause(new TermQuery(new Term("text", "bar")), BooleanClause.Occur.FILTER))
+            .build();
+        LoggingFetchSubPhaseProcessor processor = new LoggingFetchSubPhaseProcessor(
+            weights(query1.toLoggerQuery(logger1), filtered),
+            Arrays.asList(logger1, logger2)
+        );
+
+        for (SearchHit hit : preprocessRandomHits(processor)) {
+            Map<String, List<Map<String, Object>>> logs = hit.getFields().get("_ltrlog").getValue();
+            assertTrue(logs.containsKey("logger1"));
+            assertEquals(docs.get(hit.getId()).get("text").equals("bar"), logs.containsKey("logger2"));
+        }
+    }
+
+    public void testLogsOfFallbackAreFlagged() throws IOException {
+        RankerQuery fallback = buildQuery("foo");
+        RankerQuery requested = buildQuery("bar");
+        LoggingFetchSubPhase.HitLogConsumer logger1 = new LoggingFetchSubPhase.HitLogConsumer("logger1", fallback.featureSet(), false);
+        LoggingFetchSubPhase.HitLogConsumer logger2 = new LoggingFetchSubPhase.HitLogConsumer("logger2", requested.featureSet(), false);
+        logger1.setRequestedModel("big_model");
+        LoggingFetchSubPhaseProcessor processor = new LoggingFetchSubPhaseProcessor(
+            weights(fallback.toLoggerQuery(logger1), requested.toLoggerQuery(logger2)),
+            Arrays.asList(logger1, logger2)
+        );
+
+        for (SearchHit hit : preprocessRandomHits(processor)) {
+            Map<String, Object> flags = hit.getFields().get("_ltrlog_fallback").getValue();
+            assertEquals(Collections.singletonMap("logger1", "big_model"), flags);
+        }
+    }
+
+    public void testMaxHitsAndRateLimit() throws IOException {
+        RankerQuery query1 = buildQuery("foo");
+        RankerQuery query2 = buildQuery("bar");
+        LoggingFetchSubPhase.HitLogConsumer logger1 = new LoggingFetchSubPhase.HitLogConsumer("logger1", query1.featureSet(), false);
+        LoggingFetchSubPhase.HitLogConsumer logger2 = new LoggingFetchSubPhase.HitLogConsumer("logger2", query2.featureSet(), false);
+        logger1.setMaxHits(2);
+        // the clock never moves: the budget of the first window is never renewed
+        LoggingRateLimiter rateLimiter = new LoggingRateLimiter(() -> 4, () -> 0L);
+        LoggingFetchSubPhaseProcessor processor = new LoggingFetchSubPhaseProcessor(
+            weights(query1.toLoggerQuery(logger1), query2.toLoggerQuery(logger2)),
+            Arrays.asList(logger1, logger2),
+            rateLimiter
+        );
+
+        int logged1 = 0;
+        int logged2 = 0;
+        for (SearchHit hit : preprocessRandomHits(processor)) {
+            if (hit.getFields().containsKey("_ltrlog")) {
+                Map<String, Object> logs = hit.getFields().get("_ltrlog").getValue();
+                logged1 += logs.containsKey("logger1") ? 1 : 0;
+                logged2 += logs.containsKey("logger2") ? 1 : 0;
+            }
+        }
+        assertEquals(2, logged1);
+        assertEquals(4, logged2);
+        assertFalse(rateLimiter.hasCapacity());
+    }
+
+    public void testSamplingIsDecidedPerRequest() {
+        long requestSeed = random().nextLong();
+        // Every shard of a request derives the same decision from the request seed
+        assertEquals(LoggingFetchSubPhase.isSampled(0.5D, requestSeed, 0), LoggingFetchSubPhase.isSampled(0.5D, requestSeed, 0));
+        assertTrue(LoggingFetchSubPhase.isSampled(1D, requestSeed, 0));
+        assertFalse(LoggingFetchSubPhase.isSampled(0D, requestSeed, 0));
+
+        // Sequential request seeds are sampled at the requested rate, independently for each log spec
+        int sampled = 0;
+        int sampledBoth = 0;
+        for (long seed = 0; seed < 10000; seed++) {
+            boolean first = LoggingFetchSubPhase.isSampled(0.1D, seed, 0);
+            boolean second = LoggingFetchSubPhase.isSampled(0.1D, seed, 1);
+            sampled += first ? 1 : 0;
+            sampledBoth += first && second ? 1 : 0;
+        }
+        assertTrue("sampled " + sampled, sampled > 800 && sampled < 1200);
+        assertTrue("sampled both " + sampledBoth, sampledBoth > 50 && sampledBoth < 150);
+    }
+
+    public void testLoggingToSink() throws IOException {
+        RankerQuery query = buildQuery("foo");
+        LoggingFetchSubPhase.HitLogConsumer logger = new LoggingFetchSubPhase.HitLogConsumer("logger", query.featureSet(), false);
+        List<BulkRequest> bulks = new ArrayList<>();
+        FeatureLogSink sink = FeatureLogSinkTests.startedSink(Settings.EMPTY, bulks);
+        logger.sendTo(sink, "ltr_logs", "test_index");
+        LoggingFetchSubPhaseProcessor processor = new LoggingFetchSubPhaseProcessor(
+            weights(query.toLoggerQuery(logger)),
+            Collections.singletonList(logger)
+        );
+
+        SearchHit[] hits = preprocessRandomHits(processor);
+        for (SearchHit hit : hits) {
+            assertFalse(hit.getFields().containsKey("_ltrlog"));
+        }
+        assertEquals(hits.length, sink.stats().get("queued"));
+
+        sink.flush();
+        assertEquals(1, bulks.size());
+        for (int i = 0; i < hits.length; i++) {
+            IndexRequest request = (IndexRequest) bulks.get(0).requests().get(i);
+            assertEquals("ltr_logs", request.index());
+            Map<String, Object> source = request.sourceAsMap();
+            assertEquals(hits[i].getId(), source.get("doc_id"));
+            assertEquals("test_index", source.get("index"));
+            assertEquals("logger", source.get("logger"));
+            Map<?, ?> features = (Map<?, ?>) source.get("features");
+            assertEquals(docs.get(hits[i].getId()).get("text").equals("foo"), features.containsKey("text_feat"));
+            assertTrue(features.containsKey("score_feat"));
+        }
+    }
+
+    private static List<Weight> weights(Query... queries) throws IOException {
+        List<Weight> weights = new ArrayList<>(queries.length);
+        for (Query query : queries) {
+            weights.add(searcher.createWeight(searcher.rewrite(query), ScoreMode.COMPLETE, 1.0F));
+        }
+        return weights;
+    }
+
     public SearchHit[] preprocessRandomHits(FetchSubPhaseProcessor processor) throws IOException {
         int minHits = TestUtil.nextInt(random(), 5, 10);
         int maxHits = TestUtil.nextInt(random(), minHits, minHits + 10);
@@ -210,13 +402,21 @@ public class LoggingFetchSubPhaseTests extends LuceneTestCase {
     }
 
     public RankerQuery buildQuery(String text) {
+        return buildQuery(text, false);
+    }
+
+    public RankerQuery buildQuery(String text, boolean featureScoreCache) {
         List<PrebuiltFeature> features = new ArrayList<>(2);
         features.add(new PrebuiltFeature("text_feat", new TermQuery(new Term("text", text))));
         features.add(new PrebuiltFeature("score_feat", buildFunctionScore()));
         PrebuiltFeatureSet set = new PrebuiltFeatureSet("my_set", features);
         LtrRanker ranker = LinearRankerTests.generateRandomRanker(set.size());
-        return RankerQuery.build(new PrebuiltLtrModel("my_model", ranker, set), ltrStats);
-
+        PrebuiltLtrModel model = new PrebuiltLtrModel("my_model", ranker, set);
+        if (featureScoreCache) {
+            LtrQueryContext context = new LtrQueryContext(null, Collections.emptySet());
+            return RankerQuery.build(model, context, Collections.emptyMap(), true, ltrStats);
+        }
+        return RankerQuery.build(model, ltrStats);
     }
 
     public Query buildFunctionScore() {
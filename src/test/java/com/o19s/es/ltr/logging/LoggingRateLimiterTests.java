@@ -0,0 +1,52 @@
+/*
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.o19s.es.ltr.logging;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.opensearch.test.OpenSearchTestCase;
+
+public class LoggingRateLimiterTests extends OpenSearchTestCase {
+    public void testBudgetIsRenewedEverySecond() {
+        AtomicLong clock = new AtomicLong(randomLong());
+        LoggingRateLimiter limiter = new LoggingRateLimiter(() -> 3, clock::get);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.hasCapacity());
+            assertTrue(limiter.tryAcquire());
+        }
+        assertFalse(limiter.hasCapacity());
+        assertFalse(limiter.tryAcquire());
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(999));
+        assertFalse(limiter.tryAcquire());
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        assertTrue(limiter.tryAcquire());
+    }
+
+    public void testNegativeBudgetDisablesTheLimit() {
+        AtomicInteger max = new AtomicInteger(-1);
+        LoggingRateLimiter limiter = new LoggingRateLimiter(max::get, () -> 0L);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+        // the setting is dynamic
+        max.set(0);
+        assertFalse(limiter.hasCapacity());
+    }
+}
@@ -116,6 +116,84 @@ public class LoggingSearchExtBuilderTests extends OpenSearchTestCase {
         assertEquals(original, parsed);
     }
 
+    public void testCompactFormat() throws IOException {
+        String data = "{\"log_specs\":[{\"named_query\":\"query1\",\"format\":\"compact\"},{\"rescore_index\":0}]}";
+        LoggingSearchExtBuilder ext = parse(createParser(JsonXContent.jsonXContent, data));
+        List<LoggingSearchExtBuilder.LogSpec> logSpecs = ext.logSpecsStream().collect(Collectors.toList());
+        assertEquals(LoggingSearchExtBuilder.LogFormat.COMPACT, logSpecs.get(0).getFormat());
+        assertEquals(LoggingSearchExtBuilder.LogFormat.VERBOSE, logSpecs.get(1).getFormat());
+        LoggingSearchExtBuilder expected = new LoggingSearchExtBuilder();
+        expected.addQueryLogging(null, "query1", false, LoggingSearchExtBuilder.LogFormat.COMPACT);
+        expected.addRescoreLogging(null, 0, false);
+        assertEquals(expected, ext);
+
+        XContentBuilder builder = XContentFactory.jsonBuilder();
+        builder.startObject();
+        ext.toXContent(builder, ToXContent.EMPTY_PARAMS);
+        builder.endObject();
+        builder.close();
+        assertEquals("{\"ltr_log\":" + data + "}", builder.toString());
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        ext.writeTo(out);
+        out.close();
+        assertEquals(ext, new LoggingSearchExtBuilder(out.bytes().streamInput()));
+    }
+
+    public void testFailOnUnknownFormat() throws IOException {
+        String data = "{\"log_specs\":[{\"named_query\":\"query1\",\"format\":\"csv\"}]}";
+        ParsingException exc = expectThrows(ParsingException.class, () -> parse(createParser(JsonXContent.jsonXContent, data)));
+        assertThat(exc.getCause().getCause().getMessage(), containsString("Unknown log format [csv]"));
+    }
+
+    public void testSampling() throws IOException {
+        String data = "{\"log_specs\":[{\"named_query\":\"query1\",\"sample_rate\":0.01,\"max_hits\":10},{\"rescore_index\":0}]}";
+        LoggingSearchExtBuilder ext = parse(createParser(JsonXContent.jsonXContent, data));
+        List<LoggingSearchExtBuilder.LogSpec> logSpecs = ext.logSpecsStream().collect(Collectors.toList());
+        assertEquals(0.01D, logSpecs.get(0).getSampleRate(), 0D);
+        assertEquals((Integer) 10, logSpecs.get(0).getMaxHits());
+        assertEquals(1D, logSpecs.get(1).getSampleRate(), 0D);
+        assertNull(logSpecs.get(1).getMaxHits());
+        LoggingSearchExtBuilder expected = new LoggingSearchExtBuilder();
+        expected.addQueryLogging(null, "query1", false).sampling(0.01D, 10);
+        expected.addRescoreLogging(null, 0, false);
+        assertEquals(expected, ext);
+
+        XContentBuilder builder = XContentFactory.jsonBuilder();
+        builder.startObject();
+        ext.toXContent(builder, ToXContent.EMPTY_PARAMS);
+        builder.endObject();
+        builder.close();
+        assertEquals("{\"ltr_log\":" + data + "}", builder.toString());
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        ext.writeTo(out);
+        out.close();
+        assertEquals(ext, new LoggingSearchExtBuilder(out.bytes().streamInput()));
+    }
+
+    public void testSinkIndex() throws IOException {
+        String data = "{\"log_specs\":[{\"named_query\":\"query1\",\"sink_index\":\"ltr_logs\"}]}";
+        LoggingSearchExtBuilder ext = parse(createParser(JsonXContent.jsonXContent, data));
+        assertEquals("ltr_logs", ext.logSpecsStream().findFirst().get().getSinkIndex());
+        assertEquals(new LoggingSearchExtBuilder().addQueryLogging(null, "query1", false).sinkIndex("ltr_logs"), ext);
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        ext.writeTo(out);
+        out.close();
+        assertEquals(ext, new LoggingSearchExtBuilder(out.bytes().streamInput()));
+    }
+
+    public void testFailOnBadSampling() throws IOException {
+        String data = "{\"log_specs\":[{\"named_query\":\"query1\",\"sample_rate\":1.5}]}";
+        ParsingException exc = expectThrows(ParsingException.class, () -> parse(createParser(JsonXContent.jsonXContent, data)));
+        assertThat(exc.getCause().getCause().getMessage(), containsString("[sample_rate] must be between 0 and 1"));
+
+        String maxHits = "{\"log_specs\":[{\"named_query\":\"query1\",\"max_hits\":0}]}";
+        exc = expectThrows(ParsingException.class, () -> parse(createParser(JsonXContent.jsonXContent, maxHits)));
+        assertThat(exc.getCause().getCause().getMessage(), containsString("[max_hits] must be a positive integer"));
+    }
+
     public void testFailOnNoLogSpecs() throws IOException {
         String data = "{}";
         ParsingException exc = expectThrows(ParsingException.class, () -> parse(createParser(JsonXContent.jsonXContent, data)));
@@ -19,6 +19,7 @@ package com.o19s.es.ltr.query;
 import static java.util.Collections.unmodifiableMap;
 
 import java.io.IOException;
+import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -33,6 +34,7 @@ import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
 import org.apache.lucene.document.Field.Store;
 import org.apache.lucene.document.FieldType;
+import org.apache.lucene.expressions.js.JavascriptCompiler;
 import org.apache.lucene.index.IndexOptions;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.LeafReaderContext;
@@ -43,12 +45,14 @@ import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.PhraseQuery;
 import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryVisitor;
 import org.apache.lucene.search.Scorable;
 import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.ScoreMode;
 import org.apache.lucene.search.SimpleCollector;
 import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.Weight;
 import org.apache.lucene.search.similarities.AfterEffectB;
 import org.apache.lucene.search.similarities.AxiomaticF3LOG;
 import org.apache.lucene.search.similarities.BM25Similarity;
@@ -87,6 +91,7 @@ import com.o19s.es.ltr.feature.PrebuiltFeatureSet;
 import com.o19s.es.ltr.feature.PrebuiltLtrModel;
 import com.o19s.es.ltr.ranker.LogLtrRanker;
 import com.o19s.es.ltr.ranker.LtrRanker;
+import com.o19s.es.ltr.ranker.linear.LinearRanker;
 import com.o19s.es.ltr.ranker.normalizer.FeatureNormalizingRanker;
 import com.o19s.es.ltr.ranker.normalizer.Normalizer;
 import com.o19s.es.ltr.ranker.normalizer.StandardFeatureNormalizer;
@@ -440,6 +445,12 @@ public class LtrQueryTests extends LuceneTestCase {
         checkModelWithFeatures(features, null, null);
     }
 
+    public void testFeatureQueryNamedForProfiling() {
+        Query termQuery = new TermQuery(new Term("field", "brown"));
+        assertEquals("feature[2:funky_term_q](field:brown)", new RankerQuery.RankerFeatureQuery(termQuery, 2, "funky_term_q").toString());
+        assertEquals("feature[0](field:brown)", new RankerQuery.RankerFeatureQuery(termQuery, 0, null).toString());
+    }
+
     public void testOnRewrittenQueries() throws IOException {
         String userQuery = "brown cow";
 
@@ -495,6 +506,80 @@ public class LtrQueryTests extends LuceneTestCase {
         checkModelWithFeatures(features, null, ftrNorms);
     }
 
+    public void testFeaturesNotUsedByTheModelAreNotScored() throws IOException {
+        Query brown = new TermQuery(new Term("field", "brown"));
+        // Fails if the query of the unused feature is scored
+        Query unused = new Query() {
+            @Override
+            public Weight createWeight(IndexSearcher searcher, ScoreMode scoreMode, float boost) {
+                throw new AssertionError("Features not used by the model must not be scored");
+            }
+
+            @Override
+            public String toString(String field) {
+                return "unused";
+            }
+
+            @Override
+            public void visit(QueryVisitor visitor) {}
+
+            @Override
+            public boolean equals(Object obj) {
+                return sameClassAs(obj);
+            }
+
+            @Override
+            public int hashCode() {
+                return classHash();
+            }
+        };
+        List<PrebuiltFeature> features = Arrays.asList(new PrebuiltFeature("brown", brown), new PrebuiltFeature("unused", unused));
+        LinearRanker ranker = new LinearRanker(new float[] { 2F, 0F });
+        RankerQuery query = RankerQuery.build(new PrebuiltLtrModel("sliced", ranker, new PrebuiltFeatureSet(null, features)), ltrStats);
+
+        List<PrebuiltFeature> usedOnly = Collections.singletonList(new PrebuiltFeature("brown", brown));
+        RankerQuery expected = RankerQuery
+            .build(new PrebuiltLtrModel("full", new LinearRanker(new float[] { 2F }), new PrebuiltFeatureSet(null, usedOnly)), ltrStats);
+
+        ScoreDoc[] scoreDocs = searcherUnderTest.search(query, 10).scoreDocs;
+        ScoreDoc[] expectedDocs = searcherUnderTest.search(expected, 10).scoreDocs;
+        assertEquals(expectedDocs.length, scoreDocs.length);
+        for (int i = 0; i < scoreDocs.length; i++) {
+            assertEquals(expectedDocs[i].doc, scoreDocs[i].doc);
+            assertEquals(expectedDocs[i].score, scoreDocs[i].score, 0F);
+        }
+
+        Explanation explanation = searcherUnderTest.explain(query, scoreDocs[0].doc);
+        assertEquals(scoreDocs[0].score, explanation.getValue().floatValue(), 0F);
+        assertEquals("Feature 1(unused): [not used by the model]", explanation.getDetails()[1].getDescription());
+    }
+
+    public void testDerivedFeaturesSeeFeaturesWithHigherOrdinals() throws IOException, ParseException {
+        Query brown = new TermQuery(new Term("field", "brown"));
+        // The derived feature comes first and reads the second one
+        FeatureSet names = new PrebuiltFeatureSet(
+            null,
+            Arrays.asList(new PrebuiltFeature("doubled", new MatchAllDocsQuery()), new PrebuiltFeature("brown", brown))
+        );
+        Query doubled = new DerivedExpressionQuery(names, JavascriptCompiler.compile("brown * 2"), Collections.emptyMap());
+        List<PrebuiltFeature> features = Arrays.asList(new PrebuiltFeature("doubled", doubled), new PrebuiltFeature("brown", brown));
+        LinearRanker ranker = new LinearRanker(new float[] { 1F, 0F });
+        RankerQuery query = RankerQuery.build(new PrebuiltLtrModel("derived", ranker, new PrebuiltFeatureSet(null, features)), ltrStats);
+
+        TopDocs brownDocs = searcherUnderTest.search(brown, 10);
+        Map<Integer, Float> brownScores = new HashMap<>();
+        for (ScoreDoc scoreDoc : brownDocs.scoreDocs) {
+            brownScores.put(scoreDoc.doc, scoreDoc.score);
+        }
+        ScoreDoc[] scoreDocs = searcherUnderTest.search(query, 10).scoreDocs;
+        assertEquals(docs.length, scoreDocs.length);
+        for (ScoreDoc scoreDoc : scoreDocs) {
+            assertEquals(2F * brownScores.getOrDefault(scoreDoc.doc, 0F), scoreDoc.score, 0F);
+            Explanation explanation = searcherUnderTest.explain(query, scoreDoc.doc);
+            assertEquals(scoreDoc.score, explanation.getValue().floatValue(), 0F);
+        }
+    }
+
     @After
     public void closeStuff() throws IOException {
         indexReaderUnderTest.close();
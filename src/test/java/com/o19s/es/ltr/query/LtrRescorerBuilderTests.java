@@ -0,0 +1,103 @@
+/*
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.o19s.es.ltr.query;
+
+import static java.util.Collections.emptyList;
+import static org.hamcrest.CoreMatchers.containsString;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.opensearch.common.settings.Settings;
+import org.opensearch.common.xcontent.XContentFactory;
+import org.opensearch.common.xcontent.json.JsonXContent;
+import org.opensearch.core.ParseField;
+import org.opensearch.core.common.ParsingException;
+import org.opensearch.core.common.io.stream.NamedWriteableRegistry;
+import org.opensearch.core.xcontent.NamedXContentRegistry;
+import org.opensearch.core.xcontent.ToXContent;
+import org.opensearch.core.xcontent.XContentBuilder;
+import org.opensearch.core.xcontent.XContentParser;
+import org.opensearch.index.query.QueryBuilders;
+import org.opensearch.search.SearchModule;
+import org.opensearch.search.rescore.QueryRescoreMode;
+import org.opensearch.search.rescore.RescorerBuilder;
+import org.opensearch.test.OpenSearchTestCase;
+
+public class LtrRescorerBuilderTests extends OpenSearchTestCase {
+    private final SearchModule searchModule = new SearchModule(Settings.EMPTY, emptyList());
+
+    @Override
+    protected NamedXContentRegistry xContentRegistry() {
+        List<NamedXContentRegistry.Entry> entries = new ArrayList<>(searchModule.getNamedXContents());
+        ParseField name = new ParseField(LtrRescorerBuilder.NAME);
+        entries.add(new NamedXContentRegistry.Entry(RescorerBuilder.class, name, LtrRescorerBuilder::fromXContent));
+        return new NamedXContentRegistry(entries);
+    }
+
+    @Override
+    protected NamedWriteableRegistry writableRegistry() {
+        return new NamedWriteableRegistry(searchModule.getNamedWriteables());
+    }
+
+    private LtrRescorerBuilder buildTestRescorer() {
+        return new LtrRescorerBuilder(QueryBuilders.termQuery("field", "value"))
+            .queryWeight(0.5F)
+            .rescoreQueryWeight(2F)
+            .scoreMode(QueryRescoreMode.Max)
+            .windowSize(100);
+    }
+
+    public void testParse() throws IOException {
+        LtrRescorerBuilder expected = buildTestRescorer();
+        XContentBuilder builder = XContentFactory.jsonBuilder();
+        expected.toXContent(builder, ToXContent.EMPTY_PARAMS);
+        builder.close();
+        assertThat(builder.toString(), containsString("\"ltr\":{\"rescore_query\":"));
+
+        XContentParser parser = createParser(JsonXContent.jsonXContent, builder.toString());
+        parser.nextToken();
+        RescorerBuilder<?> parsed = RescorerBuilder.parseFromXContent(parser);
+        assertEquals(expected, parsed);
+        assertEquals(expected.hashCode(), parsed.hashCode());
+    }
+
+    public void testDefaults() throws IOException {
+        XContentParser parser = createParser(JsonXContent.jsonXContent, "{\"rescore_query\":{\"match_all\":{}}}");
+        parser.nextToken();
+        LtrRescorerBuilder parsed = LtrRescorerBuilder.fromXContent(parser);
+        assertEquals(QueryBuilders.matchAllQuery(), parsed.rescoreQuery());
+        assertEquals(1F, parsed.queryWeight(), 0F);
+        assertEquals(1F, parsed.rescoreQueryWeight(), 0F);
+        assertEquals(QueryRescoreMode.Total, parsed.scoreMode());
+    }
+
+    public void testRescoreQueryIsMandatory() throws IOException {
+        XContentParser parser = createParser(JsonXContent.jsonXContent, "{\"query_weight\":1}");
+        parser.nextToken();
+        ParsingException e = expectThrows(ParsingException.class, () -> LtrRescorerBuilder.fromXContent(parser));
+        assertThat(e.getMessage(), containsString("Field [rescore_query] is mandatory"));
+    }
+
+    public void testSerialization() throws IOException {
+        LtrRescorerBuilder expected = buildTestRescorer();
+        LtrRescorerBuilder copy = copyWriteable(expected, writableRegistry(), LtrRescorerBuilder::new);
+        assertEquals(expected, copy);
+        assertEquals(Integer.valueOf(100), copy.windowSize());
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.o19s.es.ltr.query;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.lucene.tests.util.LuceneTestCase;
+import org.opensearch.core.tasks.TaskCancelledException;
+
+public class ScoringBudgetTests extends LuceneTestCase {
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+    private final AtomicInteger exhaustions = new AtomicInteger();
+
+    private ScoringBudget budget(long budgetNanos, float fallbackScore) {
+        return new ScoringBudget(budgetNanos, fallbackScore, cancelled::get, clock::get, exhaustions::incrementAndGet);
+    }
+
+    public void testNoLimit() {
+        ScoringBudget budget = budget(-1, Float.NaN);
+        clock.set(Long.MAX_VALUE);
+        assertFalse(budget.check());
+        assertFalse(budget.hasFallbackScore());
+        assertEquals(0, exhaustions.get());
+    }
+
+    public void testExhausted() {
+        ScoringBudget budget = budget(1000, 0.5F);
+        clock.set(999);
+        assertFalse(budget.check());
+        clock.set(1000);
+        assertTrue(budget.check());
+        assertTrue(budget.check());
+        assertTrue(budget.isExhausted());
+        assertTrue(budget.hasFallbackScore());
+        assertEquals(0.5F, budget.fallbackScore(), 0F);
+        assertEquals(1, exhaustions.get());
+    }
+
+    public void testCancelled() {
+        ScoringBudget budget = budget(-1, Float.NaN);
+        cancelled.set(true);
+        expectThrows(TaskCancelledException.class, budget::check);
+    }
+
+    public void testLeafBudgetChecksPeriodically() {
+        ScoringBudget budget = budget(1000, Float.NaN);
+        ScoringBudget.LeafBudget leafBudget = budget.new LeafBudget();
+        clock.set(1000);
+        cancelled.set(true);
+        for (int i = 1; i < ScoringBudget.CHECK_INTERVAL; i++) {
+            assertFalse(leafBudget.exhausted());
+        }
+        expectThrows(TaskCancelledException.class, leafBudget::exhausted);
+
+        cancelled.set(false);
+        for (int i = 1; i < ScoringBudget.CHECK_INTERVAL; i++) {
+            assertFalse(leafBudget.exhausted());
+        }
+        assertTrue(leafBudget.exhausted());
+        // Exhaustion is shared by the segments without waiting for their next check
+        assertTrue(budget.new LeafBudget().exhausted());
+    }
+}
@@ -49,8 +49,11 @@ import org.opensearch.index.query.functionscore.FieldValueFactorFunctionBuilder;
 import org.opensearch.index.query.functionscore.FunctionScoreQueryBuilder;
 import org.opensearch.ltr.stats.LTRStat;
 import org.opensearch.ltr.stats.LTRStats;
+import org.opensearch.ltr.stats.LatencyHistogram;
 import org.opensearch.ltr.stats.StatName;
 import org.opensearch.ltr.stats.suppliers.CounterSupplier;
+import org.opensearch.ltr.stats.suppliers.LatencyStatsSupplier;
+import org.opensearch.ltr.stats.suppliers.ModelStatsSupplier;
 import org.opensearch.plugins.Plugin;
 import org.opensearch.test.AbstractQueryTestCase;
 import org.opensearch.test.TestGeoShapeFieldMapperPlugin;
@@ -75,6 +78,8 @@ public class StoredLtrQueryBuilderTests extends AbstractQueryTestCase<StoredLtrQ
         {
             put(StatName.LTR_REQUEST_TOTAL_COUNT.getName(), new LTRStat<>(false, new CounterSupplier()));
             put(StatName.LTR_REQUEST_ERROR_COUNT.getName(), new LTRStat<>(false, new CounterSupplier()));
+            put(StatName.LTR_LATENCY_STATS.getName(), new LTRStat<>(false, new LatencyStatsSupplier()));
+            put(StatName.LTR_MODEL_STATS.getName(), new LTRStat<>(false, new ModelStatsSupplier()));
         }
     }));
 
@@ -206,6 +211,29 @@ public class StoredLtrQueryBuilderTests extends AbstractQueryTestCase<StoredLtrQ
         assertQueryClass(MatchNoDocsQuery.class, true);
     }
 
+    @SuppressWarnings("unchecked")
+    public void testLatencyAndModelStats() throws IOException {
+        StoredLtrQueryBuilder builder = new StoredLtrQueryBuilder(LtrTestUtils.wrapMemStore(StoredLtrQueryBuilderTests.store));
+        builder.modelName("model1");
+        builder.params(Collections.singletonMap("query_string", "a wonderful query"));
+        builder.ltrStats(ltrStats);
+        LatencyHistogram queryBuild = ltrStats.getLatencyHistogram(LatencyStatsSupplier.Metric.QUERY_BUILD);
+        LatencyHistogram modelLoad = ltrStats.getLatencyHistogram(LatencyStatsSupplier.Metric.MODEL_LOAD);
+        long queryBuildCount = queryBuild.count();
+        long modelLoadCount = modelLoad.count();
+        long requestCount = (Long) ((Map<String, Map<String, Object>>) ltrStats
+            .getStat(StatName.LTR_MODEL_STATS.getName())
+            .getValue()).getOrDefault("model1", Collections.singletonMap("request_count", 0L)).get("request_count");
+
+        builder.doToQuery(createShardContext());
+        assertEquals(queryBuildCount + 1, queryBuild.count());
+        assertEquals(modelLoadCount + 1, modelLoad.count());
+        Map<String, Map<String, Object>> models = (Map<String, Map<String, Object>>) ltrStats
+            .getStat(StatName.LTR_MODEL_STATS.getName())
+            .getValue();
+        assertEquals(requestCount + 1, models.get("model1").get("request_count"));
+    }
+
     private void assertQueryClass(Class<?> clazz, boolean setActiveFeature) throws IOException {
         StoredLtrQueryBuilder builder = new StoredLtrQueryBuilder(LtrTestUtils.wrapMemStore(StoredLtrQueryBuilderTests.store));
         builder.modelName("model1");
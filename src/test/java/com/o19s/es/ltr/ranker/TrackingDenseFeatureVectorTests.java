@@ -0,0 +1,44 @@
+/*
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.o19s.es.ltr.ranker;
+
+import org.apache.lucene.tests.util.LuceneTestCase;
+
+public class TrackingDenseFeatureVectorTests extends LuceneTestCase {
+    public void testActiveOrdinals() {
+        TrackingDenseFeatureVector featureVector = new TrackingDenseFeatureVector(10);
+        featureVector.setFeatureScore(7, 1F);
+        featureVector.setFeatureScore(2, 2F);
+        featureVector.setFeatureScore(7, 3F);
+        featureVector.setFeatureScore(4, 4F);
+        assertEquals(3, featureVector.activeCount());
+        // Ordinals are returned in increasing order whatever the order the features were set in
+        assertEquals(2, featureVector.activeOrdinals()[0]);
+        assertEquals(4, featureVector.activeOrdinals()[1]);
+        assertEquals(7, featureVector.activeOrdinals()[2]);
+        assertEquals(3F, featureVector.scores[7], 0F);
+
+        featureVector.reset();
+        assertEquals(0, featureVector.activeCount());
+        for (float score : featureVector.scores) {
+            assertEquals(0F, score, 0F);
+        }
+        featureVector.setFeatureScore(2, 4F);
+        assertEquals(1, featureVector.activeCount());
+        assertEquals(2, featureVector.activeOrdinals()[0]);
+    }
+}
@@ -30,6 +30,7 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -47,6 +48,7 @@ import org.apache.lucene.tests.util.TestUtil;
 import com.o19s.es.ltr.feature.FeatureSet;
 import com.o19s.es.ltr.feature.PrebuiltFeature;
 import com.o19s.es.ltr.feature.PrebuiltFeatureSet;
+import com.o19s.es.ltr.ranker.ArrayFeatureVector;
 import com.o19s.es.ltr.ranker.LtrRanker;
 import com.o19s.es.ltr.ranker.SparseFeatureVector;
 import com.o19s.es.ltr.ranker.linear.LinearRankerTests;
@@ -66,6 +68,32 @@ public class NaiveAdditiveDecisionTreeTests extends LuceneTestCase {
         assertEquals("naive_additive_decision_tree", dectree.name());
     }
 
+    public void testUsedFeatures() {
+        NaiveAdditiveDecisionTree.Node tree1 = new NaiveAdditiveDecisionTree.Split(
+            new NaiveAdditiveDecisionTree.Leaf(1F),
+            new NaiveAdditiveDecisionTree.Split(new NaiveAdditiveDecisionTree.Leaf(2F), new NaiveAdditiveDecisionTree.Leaf(3F), 4, 0.5F),
+            1,
+            0.5F
+        );
+        // Ignored: the weight of the tree is zero
+        NaiveAdditiveDecisionTree.Node tree2 = new NaiveAdditiveDecisionTree.Split(
+            new NaiveAdditiveDecisionTree.Leaf(1F),
+            new NaiveAdditiveDecisionTree.Leaf(2F),
+            2,
+            0.5F
+        );
+        NaiveAdditiveDecisionTree ranker = new NaiveAdditiveDecisionTree(
+            new NaiveAdditiveDecisionTree.Node[] { tree1, tree2, new NaiveAdditiveDecisionTree.Leaf(1F) },
+            new float[] { 1F, 0F, 1F },
+            5,
+            Normalizers.get(Normalizers.NOOP_NORMALIZER_NAME)
+        );
+        BitSet expected = new BitSet();
+        expected.set(1);
+        expected.set(4);
+        assertEquals(expected, ranker.usedFeatures());
+    }
+
     public void testScore() throws IOException {
         NaiveAdditiveDecisionTree ranker = parseTreeModel("simple_tree.txt", Normalizers.get(Normalizers.NOOP_NORMALIZER_NAME));
         LtrRanker.FeatureVector vector = ranker.newFeatureVector(null);
@@ -77,6 +105,36 @@ public class NaiveAdditiveDecisionTreeTests extends LuceneTestCase {
         assertEquals(expected, ranker.score(vector), Math.ulp(expected));
     }
 
+    public void testDefaultDirection() {
+        NaiveAdditiveDecisionTree.Node tree1 = new NaiveAdditiveDecisionTree.Split(
+            new NaiveAdditiveDecisionTree.Leaf(1F),
+            new NaiveAdditiveDecisionTree.Leaf(2F),
+            0,
+            0.5F,
+            true
+        );
+        NaiveAdditiveDecisionTree.Node tree2 = new NaiveAdditiveDecisionTree.Split(
+            new NaiveAdditiveDecisionTree.Leaf(10F),
+            new NaiveAdditiveDecisionTree.Leaf(20F),
+            1,
+            0.5F
+        );
+        NaiveAdditiveDecisionTree ranker = new NaiveAdditiveDecisionTree(
+            new NaiveAdditiveDecisionTree.Node[] { tree1, tree2 },
+            new float[] { 1F, 1F },
+            2,
+            Normalizers.get(Normalizers.NOOP_NORMALIZER_NAME)
+        );
+        // Features missing from the vector are NaN: left for the first tree, right for the second
+        LtrRanker.FeatureVector vector = ranker.newFeatureVector(null);
+        assertEquals(21F, ranker.score(vector), 0F);
+        vector.setFeatureScore(0, 1F);
+        vector.setFeatureScore(1, 0F);
+        assertEquals(12F, ranker.score(vector), 0F);
+        vector.setFeatureScore(0, 0F);
+        assertEquals(11F, ranker.score(vector), 0F);
+    }
+
     public void testSigmoidScore() throws IOException {
         NaiveAdditiveDecisionTree ranker = parseTreeModel("simple_tree.txt", Normalizers.get(Normalizers.SIGMOID_NORMALIZER_NAME));
         LtrRanker.FeatureVector vector = ranker.newFeatureVector(null);
@@ -95,13 +153,13 @@ public class NaiveAdditiveDecisionTreeTests extends LuceneTestCase {
 
         SparseFeatureVector vector = ranker.newFeatureVector(null);
         int nPass = TestUtil.nextInt(random(), 10, 8916);
-        fillRandomWeights(vector.scores);
+        fillRandomScores(vector);
         ranker.score(vector); // warmup
 
         long time = -System.currentTimeMillis();
         for (int i = 0; i < nPass; i++) {
             vector = ranker.newFeatureVector(vector);
-            fillRandomWeights(vector.scores);
+            fillRandomScores(vector);
             ranker.score(vector);
         }
         time += System.currentTimeMillis();
@@ -360,10 +418,10 @@ public class NaiveAdditiveDecisionTreeTests extends LuceneTestCase {
         }
     }
 
-    public static void fillRandomWeights(float[] weights) {
-        for (int i = 0; i < weights.length; i++) {
+    private static void fillRandomScores(ArrayFeatureVector vector) {
+        for (int i = 0; i < vector.scores.length; i++) {
             if (random().nextBoolean())
-                weights[i] = (float) nextInt(random(), 1, 100000) / (float) nextInt(random(), 1, 100000);
+                vector.setFeatureScore(i, (float) nextInt(random(), 1, 100000) / (float) nextInt(random(), 1, 100000));
         }
     }
 }
@@ -23,11 +23,14 @@ import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.core.AllOf.allOf;
 
+import java.util.BitSet;
+
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.lucene.tests.util.LuceneTestCase;
 import org.apache.lucene.tests.util.TestUtil;
 
+import com.o19s.es.ltr.ranker.ArrayFeatureVector;
 import com.o19s.es.ltr.ranker.DenseFeatureVector;
 import com.o19s.es.ltr.ranker.LtrRanker;
 import com.o19s.es.ltr.ranker.dectree.NaiveAdditiveDecisionTreeTests;
@@ -50,6 +53,33 @@ public class LinearRankerTests extends LuceneTestCase {
         assertEquals(expected, ranker.score(point), Math.ulp(expected));
     }
 
+    public void testSparseScore() {
+        float[] weights = generateRandomWeights(nextInt(random(), 100, 1000));
+        LinearRanker ranker = new LinearRanker(weights);
+        DenseFeatureVector vector = ranker.newFeatureVector(null);
+        for (int pass = 0; pass < 10; pass++) {
+            // Features set for the previous document are reset
+            vector = ranker.newFeatureVector(vector);
+            for (int i = random().nextInt(weights.length / 4); i > 0; i--) {
+                vector.setFeatureScore(random().nextInt(weights.length), random().nextFloat());
+            }
+            // Summed in ordinal order, as the dense path does, the sparse path must give the exact same score
+            float expected = 0;
+            DenseFeatureVector untracked = new DenseFeatureVector(weights.length);
+            for (int i = 0; i < weights.length; i++) {
+                expected += weights[i] * vector.scores[i];
+                untracked.setFeatureScore(i, vector.scores[i]);
+            }
+            assertEquals(expected, ranker.score(vector), 0F);
+            assertEquals(expected, ranker.score(untracked), 0F);
+        }
+    }
+
+    public void testUsedFeatures() {
+        LinearRanker ranker = new LinearRanker(new float[] { 1, 0, 3, 0 });
+        assertEquals(BitSet.valueOf(new long[] { 0b101 }), ranker.usedFeatures());
+    }
+
     public void testSize() {
         LinearRanker ranker = new LinearRanker(new float[] { 1, 2, 3 });
         assertEquals(ranker.size(), 3);
@@ -66,13 +96,13 @@ public class LinearRankerTests extends LuceneTestCase {
 
         DenseFeatureVector vector = ranker.newFeatureVector(null);
         int nPass = TestUtil.nextInt(random(), 10, 8916);
-        LinearRankerTests.fillRandomWeights(vector.scores);
+        fillRandomScores(vector);
         ranker.score(vector); // warmup
 
         long time = -System.currentTimeMillis();
         for (int i = 0; i < nPass; i++) {
             vector = ranker.newFeatureVector(vector);
-            LinearRankerTests.fillRandomWeights(vector.scores);
+            fillRandomScores(vector);
             ranker.score(vector);
         }
         time += System.currentTimeMillis();
@@ -93,6 +123,12 @@ public class LinearRankerTests extends LuceneTestCase {
         return weights;
     }
 
+    public static void fillRandomScores(ArrayFeatureVector vector) {
+        for (int i = 0; i < vector.scores.length; i++) {
+            vector.setFeatureScore(i, (float) nextInt(random(), 1, 100000) / (float) nextInt(random(), 1, 100000));
+        }
+    }
+
     public static void fillRandomWeights(float[] weights) {
         for (int i = 0; i < weights.length; i++) {
             weights[i] = (float) nextInt(random(), 1, 100000) / (float) nextInt(random(), 1, 100000);
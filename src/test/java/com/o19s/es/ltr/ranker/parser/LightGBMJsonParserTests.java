@@ -0,0 +1,261 @@
+/*
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.o19s.es.ltr.ranker.parser;
+
+import static com.o19s.es.ltr.LtrTestUtils.randomFeature;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.lucene.tests.util.LuceneTestCase;
+import org.hamcrest.CoreMatchers;
+import org.opensearch.core.common.ParsingException;
+
+import com.o19s.es.ltr.feature.FeatureSet;
+import com.o19s.es.ltr.feature.store.StoredFeature;
+import com.o19s.es.ltr.feature.store.StoredFeatureSet;
+import com.o19s.es.ltr.ranker.SparseFeatureVector;
+import com.o19s.es.ltr.ranker.dectree.NaiveAdditiveDecisionTree;
+
+public class LightGBMJsonParserTests extends LuceneTestCase {
+    private final LightGBMJsonParser parser = new LightGBMJsonParser();
+
+    private static final String NUMERICAL_SPLIT = "{\"split_index\":0,\"split_feature\":1,\"split_gain\":1.5,\"threshold\":0.5,"
+        + "\"decision_type\":\"<=\",\"default_left\":true,\"missing_type\":\"NaN\",\"internal_value\":0,\"internal_count\":10,"
+        + "\"left_child\":{\"leaf_index\":0,\"leaf_value\":0.5,\"leaf_count\":5},"
+        + "\"right_child\":{\"leaf_index\":1,\"leaf_value\":0.25,\"leaf_count\":5}}";
+
+    private static final String CATEGORICAL_SPLIT = "{\"split_index\":0,\"split_feature\":0,\"threshold\":\"1||3\","
+        + "\"decision_type\":\"==\",\"default_left\":false,\"missing_type\":\"NaN\","
+        + "\"left_child\":{\"leaf_index\":0,\"leaf_value\":1},"
+        + "\"right_child\":{\"leaf_index\":1,\"leaf_value\":2}}";
+
+    private static String model(String objective, String... trees) {
+        StringBuilder model = new StringBuilder("{\"name\":\"tree\",\"version\":\"v4\",\"num_class\":1,\"num_tree_per_iteration\":1,")
+            .append("\"max_feature_idx\":1,\"objective\":\"")
+            .append(objective)
+            .append("\",\"average_output\":false,\"feature_names\":[\"feat2\",\"feat1\"],\"monotone_constraints\":[],")
+            .append("\"feature_infos\":{\"feat2\":{\"min_value\":0,\"max_value\":4,\"values\":[]}},\"tree_info\":[");
+        for (int i = 0; i < trees.length; i++) {
+            if (i > 0) {
+                model.append(',');
+            }
+            model.append("{\"tree_index\":").append(i).append(",\"num_leaves\":2,\"shrinkage\":1,\"tree_structure\":");
+            model.append(trees[i]).append('}');
+        }
+        return model.append("],\"feature_importances\":{\"feat1\":1},\"pandas_categorical\":null}").toString();
+    }
+
+    private FeatureSet set() throws IOException {
+        return new StoredFeatureSet("set", Arrays.asList(randomFeature("feat1"), randomFeature("feat2")));
+    }
+
+    private static float score(NaiveAdditiveDecisionTree tree, float feat1, float feat2) {
+        SparseFeatureVector v = tree.newFeatureVector(null);
+        v.setFeatureScore(0, feat1);
+        v.setFeatureScore(1, feat2);
+        return tree.score(v);
+    }
+
+    public void testNumericalSplit() throws IOException {
+        NaiveAdditiveDecisionTree tree = parser.parse(set(), model("lambdarank", NUMERICAL_SPLIT));
+        assertEquals(0.5F, score(tree, 0.5F, 0F), 0F);
+        assertEquals(0.25F, score(tree, 0.6F, 0F), 0F);
+        assertEquals(0.5F, score(tree, Float.NaN, 0F), 0F);
+    }
+
+    public void testCategoricalSplit() throws IOException {
+        NaiveAdditiveDecisionTree tree = parser.parse(set(), model("lambdarank", CATEGORICAL_SPLIT));
+        assertEquals(1F, score(tree, 0F, 1F), 0F);
+        assertEquals(1F, score(tree, 0F, 3.5F), 0F);
+        assertEquals(2F, score(tree, 0F, 2F), 0F);
+        assertEquals(2F, score(tree, 0F, Float.NaN), 0F);
+    }
+
+    public void testSeveralTrees() throws IOException {
+        String leaf = "{\"leaf_value\":10}";
+        NaiveAdditiveDecisionTree tree = parser.parse(set(), model("binary sigmoid:0.5", NUMERICAL_SPLIT, CATEGORICAL_SPLIT, leaf));
+        float raw = 0.5F * (0.25F + 1F + 10F);
+        assertEquals((float) (1 / (1 + Math.exp(-raw))), score(tree, 1F, 1F), Math.ulp(1F));
+    }
+
+    public void testFeatureNamesAfterTrees() throws IOException {
+        String model = "{\"tree_info\":[{\"tree_structure\":{\"leaf_value\":1}}],\"feature_names\":[\"feat1\"]}";
+        ParsingException e = expectThrows(ParsingException.class, () -> parser.parse(set(), model));
+        assertThat(e.getMessage(), CoreMatchers.containsString("Unable to parse LightGBM object"));
+        assertThat(e.getCause().getMessage(), CoreMatchers.containsString("[feature_names] must be defined before [tree_info]"));
+    }
+
+    public void testUnknownFeature() throws IOException {
+        FeatureSet set = new StoredFeatureSet("set", Arrays.asList(randomFeature("feat1")));
+        ParsingException e = expectThrows(ParsingException.class, () -> parser.parse(set, model("lambdarank", NUMERICAL_SPLIT)));
+        assertThat(e.getCause().getMessage(), CoreMatchers.containsString("Unknown features in model: [feat2]"));
+    }
+
+    public void testIncompleteSplit() throws IOException {
+        String split = NUMERICAL_SPLIT.replace("\"threshold\":0.5,", "");
+        ParsingException e = expectThrows(ParsingException.class, () -> parser.parse(set(), model("lambdarank", split)));
+        assertThat(e.getCause().getMessage(), CoreMatchers.containsString("This split does not have all the required fields"));
+    }
+
+    public void testNoTrees() throws IOException {
+        ParsingException e = expectThrows(ParsingException.class, () -> parser.parse(set(), model("lambdarank")));
+        assertThat(e.getMessage(), CoreMatchers.containsString("LightGBM model must define at least one tree"));
+    }
+
+    public void testRandomModelsMatchTextFormat() throws IOException {
+        List<StoredFeature> features = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        for (int i = random().nextInt(5) + 1; i > 0; i--) {
+            features.add(randomFeature("feat" + i));
+            names.add("feat" + i);
+        }
+        FeatureSet set = new StoredFeatureSet("set", features);
+        int nTrees = random().nextInt(10) + 1;
+        StringBuilder text = new StringBuilder("tree\nversion=v4\nnum_class=1\nnum_tree_per_iteration=1\nobjective=lambdarank\n");
+        text.append("feature_names=").append(String.join(" ", names)).append("\n\n");
+        StringBuilder json = new StringBuilder("{\"objective\":\"lambdarank\",\"feature_names\":[\"");
+        json.append(String.join("\",\"", names)).append("\"],\"tree_info\":[");
+        for (int i = 0; i < nTrees; i++) {
+            RandomTree tree = new RandomTree(names.size());
+            text.append("Tree=").append(i).append('\n');
+            tree.toText(text);
+            json.append(i > 0 ? "," : "").append("{\"tree_structure\":");
+            tree.toJson(json, 0);
+            json.append('}');
+        }
+        text.append("end of trees\n");
+        json.append("]}");
+
+        NaiveAdditiveDecisionTree fromText = new LightGBMTextParser().parse(set, text.toString());
+        NaiveAdditiveDecisionTree fromJson = parser.parse(set, json.toString());
+        SparseFeatureVector v = fromText.newFeatureVector(null);
+        float[] values = { Float.NaN, 0F, -0.5F, 0.5F, 1F, 1.5F, 2F, 3F, 4F, -1F };
+        for (int i = 0; i < 200; i++) {
+            for (int f = 0; f < v.scores.length; f++) {
+                v.setFeatureScore(f, random().nextBoolean() ? values[random().nextInt(values.length)] : random().nextFloat() * 6 - 1);
+            }
+            assertEquals(fromText.score(v), fromJson.score(v), 0F);
+        }
+    }
+
+    /**
+     * Random tree in the array layout of the text format, node 0 is the root and negative children reference leaves
+     */
+    private static class RandomTree {
+        private final List<Integer> feature = new ArrayList<>();
+        private final List<Double> threshold = new ArrayList<>();
+        private final List<Integer> decisionType = new ArrayList<>();
+        private final List<Integer> categories = new ArrayList<>();
+        private final List<Integer> left = new ArrayList<>();
+        private final List<Integer> right = new ArrayList<>();
+        private final List<Double> leaves = new ArrayList<>();
+
+        RandomTree(int nFeatures) {
+            if (random().nextInt(5) == 0) {
+                leaves.add(random().nextGaussian());
+            } else {
+                addSplit(nFeatures, 3);
+            }
+        }
+
+        private int addNode(int nFeatures, int depth) {
+            if (depth == 0 || random().nextBoolean()) {
+                leaves.add(random().nextGaussian());
+                return -leaves.size();
+            }
+            return addSplit(nFeatures, depth);
+        }
+
+        private int addSplit(int nFeatures, int depth) {
+            int id = feature.size();
+            feature.add(random().nextInt(nFeatures));
+            if (random().nextInt(4) == 0) {
+                // Categorical split on a random subset of the categories 0 to 4, as a one word bitset
+                decisionType.add(1);
+                threshold.add((double) categories.size());
+                categories.add(random().nextInt(31) + 1);
+            } else {
+                decisionType.add((random().nextInt(3) << 2) | (random().nextBoolean() ? 2 : 0));
+                threshold.add(random().nextDouble() * 4 - 0.5);
+            }
+            left.add(0);
+            right.add(0);
+            left.set(id, addNode(nFeatures, depth - 1));
+            right.set(id, addNode(nFeatures, depth - 1));
+            return id;
+        }
+
+        void toText(StringBuilder builder) {
+            builder.append("num_leaves=").append(leaves.size()).append("\nnum_cat=").append(categories.size());
+            builder.append("\nsplit_feature=").append(join(feature)).append("\nthreshold=").append(join(threshold));
+            builder.append("\ndecision_type=").append(join(decisionType));
+            builder.append("\nleft_child=").append(join(left)).append("\nright_child=").append(join(right));
+            builder.append("\nleaf_value=").append(join(leaves));
+            if (!categories.isEmpty()) {
+                List<Integer> boundaries = new ArrayList<>();
+                for (int i = 0; i <= categories.size(); i++) {
+                    boundaries.add(i);
+                }
+                builder.append("\ncat_boundaries=").append(join(boundaries)).append("\ncat_threshold=").append(join(categories));
+            }
+            builder.append("\nis_linear=0\nshrinkage=1\n\n\n");
+        }
+
+        void toJson(StringBuilder builder, int node) {
+            if (node < 0) {
+                builder.append("{\"leaf_value\":").append(leaves.get(~node)).append('}');
+                return;
+            }
+            if (feature.isEmpty()) {
+                builder.append("{\"leaf_value\":").append(leaves.get(0)).append('}');
+                return;
+            }
+            builder.append("{\"split_feature\":").append(feature.get(node)).append(",\"threshold\":");
+            int type = decisionType.get(node);
+            if ((type & 1) != 0) {
+                List<String> selected = new ArrayList<>();
+                int bits = categories.get(threshold.get(node).intValue());
+                for (int c = 0; c < 32; c++) {
+                    if ((bits & (1 << c)) != 0) {
+                        selected.add(Integer.toString(c));
+                    }
+                }
+                builder.append('"').append(String.join("||", selected)).append("\",\"decision_type\":\"==\"");
+            } else {
+                builder.append(threshold.get(node)).append(",\"decision_type\":\"<=\"");
+                builder.append(",\"default_left\":").append((type & 2) != 0);
+                builder.append(",\"missing_type\":\"").append(new String[] { "None", "Zero", "NaN" }[type >> 2]).append('"');
+            }
+            builder.append(",\"left_child\":");
+            toJson(builder, left.get(node));
+            builder.append(",\"right_child\":");
+            toJson(builder, right.get(node));
+            builder.append('}');
+        }
+
+        private static String join(List<?> values) {
+            StringBuilder joined = new StringBuilder();
+            for (Object value : values) {
+                joined.append(joined.length() > 0 ? " " : "").append(value);
+            }
+            return joined.toString();
+        }
+    }
+}
@@ -0,0 +1,288 @@
+/*
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.o19s.es.ltr.ranker.parser;
+
+import static com.o19s.es.ltr.LtrTestUtils.randomFeature;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.lucene.tests.util.LuceneTestCase;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.hamcrest.CoreMatchers;
+
+import com.o19s.es.ltr.feature.FeatureSet;
+import com.o19s.es.ltr.feature.store.StoredFeatureSet;
+import com.o19s.es.ltr.ranker.SparseFeatureVector;
+import com.o19s.es.ltr.ranker.dectree.NaiveAdditiveDecisionTree;
+
+public class LightGBMTextParserTests extends LuceneTestCase {
+    private final LightGBMTextParser parser = new LightGBMTextParser();
+
+    private static String model(String objective, String... trees) {
+        StringBuilder model = new StringBuilder("tree\nversion=v4\nnum_class=1\nnum_tree_per_iteration=1\nlabel_index=0\n")
+            .append("max_feature_idx=1\nobjective=")
+            .append(objective)
+            .append("\nfeature_names=feat2 feat1\nfeature_infos=none none\ntree_sizes=1\n\n");
+        for (int i = 0; i < trees.length; i++) {
+            model.append("Tree=").append(i).append('\n').append(trees[i]).append("\n\n\n");
+        }
+        model.append("end of trees\n\nfeature_importances:\nfeat1=1\n\n");
+        return model.append("parameters:\n[boosting: gbdt]\nend of parameters\n").toString();
+    }
+
+    private static String split(int feature, String threshold, int decisionType, String leftValue, String rightValue) {
+        return "num_leaves=2\nnum_cat=0\nsplit_feature="
+            + feature
+            + "\nsplit_gain=1\nthreshold="
+            + threshold
+            + "\ndecision_type="
+            + decisionType
+            + "\nleft_child=-1\nright_child=-2\nleaf_value="
+            + leftValue
+            + " "
+            + rightValue
+            + "\nleaf_weight=1 1\nleaf_count=1 1\ninternal_value=0\ninternal_weight=0\ninternal_count=2\nis_linear=0\nshrinkage=1";
+    }
+
+    private FeatureSet set() throws IOException {
+        return new StoredFeatureSet("set", Arrays.asList(randomFeature("feat1"), randomFeature("feat2")));
+    }
+
+    private static float score(NaiveAdditiveDecisionTree tree, float feat1, float feat2) {
+        SparseFeatureVector v = tree.newFeatureVector(null);
+        v.setFeatureScore(0, feat1);
+        v.setFeatureScore(1, feat2);
+        return tree.score(v);
+    }
+
+    public void testNumericalSplit() throws IOException {
+        // feat1 is the second feature of the model, a value equal to the threshold goes left
+        NaiveAdditiveDecisionTree tree = parser.parse(set(), model("lambdarank", split(1, "0.5", 0, "0.5", "0.25")));
+        assertEquals(0.5F, score(tree, 0.5F, 0F), 0F);
+        assertEquals(0.5F, score(tree, -10F, 0F), 0F);
+        assertEquals(0.25F, score(tree, 0.51F, 0F), 0F);
+        assertEquals(0.25F, score(tree, Float.POSITIVE_INFINITY, 0F), 0F);
+        // Without missing type missing values are compared as zeros
+        assertEquals(0.5F, score(tree, Float.NaN, 0F), 0F);
+
+        // Values are compared as doubles: 0.3F is greater than this threshold
+        tree = parser.parse(set(), model("lambdarank", split(1, "0.30000000000000004", 0, "0.5", "0.25")));
+        assertEquals(0.25F, score(tree, 0.3F, 0F), 0F);
+        assertEquals(0.5F, score(tree, Math.nextDown(0.3F), 0F), 0F);
+    }
+
+    public void testNanMissingValues() throws IOException {
+        // Missing type NaN (2 << 2), default right
+        NaiveAdditiveDecisionTree tree = parser.parse(set(), model("regression", split(0, "1", 8, "0.5", "0.25")));
+        assertEquals(0.25F, score(tree, 0F, Float.NaN), 0F);
+        assertEquals(0.5F, score(tree, 0F, 0F), 0F);
+        // Default left (2)
+        tree = parser.parse(set(), model("regression", split(0, "-1", 10, "0.5", "0.25")));
+        assertEquals(0.5F, score(tree, 0F, Float.NaN), 0F);
+        assertEquals(0.25F, score(tree, 0F, 0F), 0F);
+        assertEquals(0.5F, score(tree, 0F, -2F), 0F);
+    }
+
+    public void testZeroMissingValues() throws IOException {
+        // Missing type zero (1 << 2), default right: zeros and missing values go right
+        NaiveAdditiveDecisionTree tree = parser.parse(set(), model("regression", split(0, "1", 4, "0.5", "0.25")));
+        assertEquals(0.25F, score(tree, 0F, 0F), 0F);
+        assertEquals(0.25F, score(tree, 0F, -0F), 0F);
+        assertEquals(0.25F, score(tree, 0F, Float.NaN), 0F);
+        assertEquals(0.5F, score(tree, 0F, 0.5F), 0F);
+        assertEquals(0.5F, score(tree, 0F, -0.5F), 0F);
+        assertEquals(0.25F, score(tree, 0F, Float.MIN_NORMAL), 0F);
+        assertEquals(0.5F, score(tree, 0F, 1e-34F), 0F);
+        assertEquals(0.25F, score(tree, 0F, 2F), 0F);
+    }
+
+    public void testCategoricalSplit() throws IOException {
+        // Categories 1 and 3 go left (bits 0b1010)
+        String categorical = split(0, "0", 1, "0.5", "0.25").replace("num_cat=0", "num_cat=1")
+            + "\ncat_boundaries=0 1\ncat_threshold=10";
+        NaiveAdditiveDecisionTree tree = parser.parse(set(), model("lambdarank", categorical));
+        assertEquals(0.5F, score(tree, 0F, 1F), 0F);
+        assertEquals(0.5F, score(tree, 0F, 1.9F), 0F);
+        assertEquals(0.5F, score(tree, 0F, 3F), 0F);
+        assertEquals(0.25F, score(tree, 0F, 0F), 0F);
+        assertEquals(0.25F, score(tree, 0F, 2F), 0F);
+        assertEquals(0.25F, score(tree, 0F, 4F), 0F);
+        assertEquals(0.25F, score(tree, 0F, -1F), 0F);
+        assertEquals(0.25F, score(tree, 0F, Float.NaN), 0F);
+    }
+
+    public void testCategoryZeroAndHighBits() throws IOException {
+        // Categories 0 and 63 go left, the second word uses the highest bit
+        String categorical = split(0, "0", 1, "0.5", "0.25").replace("num_cat=0", "num_cat=1")
+            + "\ncat_boundaries=0 2\ncat_threshold=1 2147483648";
+        NaiveAdditiveDecisionTree tree = parser.parse(set(), model("lambdarank", categorical));
+        assertEquals(0.5F, score(tree, 0F, 0F), 0F);
+        // Truncated to 0
+        assertEquals(0.5F, score(tree, 0F, -0.5F), 0F);
+        assertEquals(0.5F, score(tree, 0F, 63.5F), 0F);
+        assertEquals(0.25F, score(tree, 0F, 62F), 0F);
+        assertEquals(0.25F, score(tree, 0F, -1F), 0F);
+    }
+
+    public void testRandomNumericalDecisions() throws IOException {
+        float[] values = { Float.NaN, 0F, -0F, 1e-36F, -1e-36F, 1e-35F, -1e-35F, 2e-35F, -2e-35F, 1F, -1F };
+        for (int i = 0; i < 100; i++) {
+            double threshold = random().nextBoolean() ? 0D : random().nextGaussian();
+            if (random().nextBoolean()) {
+                threshold *= 1e-35;
+            }
+            int missingType = random().nextInt(3);
+            boolean defaultLeft = random().nextBoolean();
+            int decisionType = (missingType << 2) | (defaultLeft ? 2 : 0);
+            NaiveAdditiveDecisionTree tree = parser
+                .parse(set(), model("regression", split(0, Double.toString(threshold), decisionType, "1", "0")));
+            float thresholdFloat = (float) threshold;
+            float[] tested = Arrays.copyOf(values, values.length + 3);
+            tested[values.length] = thresholdFloat;
+            tested[values.length + 1] = Math.nextUp(thresholdFloat);
+            tested[values.length + 2] = Math.nextDown(thresholdFloat);
+            for (float value : tested) {
+                boolean expectedLeft = goesLeft(value, threshold, missingType, defaultLeft);
+                assertEquals(
+                    "value [" + value + "] threshold [" + threshold + "] decision [" + decisionType + "]",
+                    expectedLeft ? 1F : 0F,
+                    score(tree, 0F, value),
+                    0F
+                );
+            }
+        }
+    }
+
+    /**
+     * NumericalDecision of LightGBM's tree.h
+     */
+    private static boolean goesLeft(double value, double threshold, int missingType, boolean defaultLeft) {
+        if (Double.isNaN(value) && missingType != 2) {
+            value = 0D;
+        }
+        if ((missingType == 1 && value >= -1e-35F && value <= 1e-35F) || (missingType == 2 && Double.isNaN(value))) {
+            return defaultLeft;
+        }
+        return value <= threshold;
+    }
+
+    public void testNestedDecisions() throws IOException {
+        // Chain of categorical splits on feat2 (categories 1, 3 and 5 go left) and zero missing splits on feat1 (default left),
+        // the left child of node i is node i + 1 and its right child is leaf i. Compiled decisions reuse their children
+        // on several branches.
+        int depth = 30;
+        StringBuilder features = new StringBuilder();
+        StringBuilder thresholds = new StringBuilder();
+        StringBuilder decisions = new StringBuilder();
+        StringBuilder left = new StringBuilder();
+        StringBuilder right = new StringBuilder();
+        StringBuilder leaves = new StringBuilder();
+        StringBuilder catBoundaries = new StringBuilder("0");
+        StringBuilder catThresholds = new StringBuilder();
+        int numCat = 0;
+        for (int i = 0; i < depth; i++) {
+            if (i % 2 == 0) {
+                features.append("0 ");
+                thresholds.append(numCat++).append(' ');
+                decisions.append("1 ");
+                catBoundaries.append(' ').append(numCat);
+                catThresholds.append("42 ");
+            } else {
+                features.append("1 ");
+                thresholds.append("0.5 ");
+                decisions.append("6 ");
+            }
+            left.append(i + 1 < depth ? i + 1 : ~depth).append(' ');
+            right.append(~i).append(' ');
+            leaves.append(i).append(' ');
+        }
+        leaves.append(depth);
+        String nested = "num_leaves=" + (depth + 1) + "\nnum_cat=" + numCat + "\nsplit_feature=" + features + "\nthreshold=" + thresholds
+            + "\ndecision_type=" + decisions + "\nleft_child=" + left + "\nright_child=" + right + "\nleaf_value=" + leaves
+            + "\ncat_boundaries=" + catBoundaries + "\ncat_threshold=" + catThresholds + "\nis_linear=0\nshrinkage=1";
+        NaiveAdditiveDecisionTree tree = parser.parse(set(), model("lambdarank", nested));
+
+        assertEquals(depth, score(tree, 0F, 3F), 0F);
+        assertEquals(depth, score(tree, Float.NaN, 5F), 0F);
+        assertEquals(0F, score(tree, 0F, 2F), 0F);
+        assertEquals(1F, score(tree, 1F, 1F), 0F);
+        assertEquals(depth, score(tree, -1F, 1F), 0F);
+        assertEquals(2, tree.usedFeatures().cardinality());
+        // Shared subtrees are counted once: a categorical decision compiles to 6 splits, a zero missing one to 3 at most
+        long maxNodes = depth / 2 * (6 + 1) + depth / 2 * (3 + 1) + 1;
+        assertTrue(tree.ramBytesUsed() < 2 * maxNodes * RamUsageEstimator.shallowSizeOfInstance(NaiveAdditiveDecisionTree.Split.class));
+    }
+
+    public void testSeveralTrees() throws IOException {
+        String deep = "num_leaves=3\nnum_cat=0\nsplit_feature=1 0\nthreshold=0.5 0.5\ndecision_type=0 0\n"
+            + "left_child=-1 -2\nright_child=1 -3\nleaf_value=1 2 3\nis_linear=0\nshrinkage=0.1";
+        NaiveAdditiveDecisionTree tree = parser.parse(set(), model("lambdarank", deep, split(0, "0", 0, "10", "20")));
+        assertEquals(11F, score(tree, 0F, 0F), 0F);
+        assertEquals(12F, score(tree, 1F, 0F), 0F);
+        assertEquals(23F, score(tree, 1F, 1F), 0F);
+
+        String average = model("lambdarank", deep, split(0, "0", 0, "10", "20")).replace("tree_sizes", "average_output\ntree_sizes");
+        tree = parser.parse(set(), average);
+        assertEquals(5.5F, score(tree, 0F, 0F), 0F);
+    }
+
+    public void testSingleLeafTree() throws IOException {
+        String leaf = "num_leaves=1\nnum_cat=0\nsplit_feature=\nthreshold=\ndecision_type=\nleft_child=\nright_child=\n"
+            + "leaf_value=0.75\nis_linear=0\nshrinkage=1";
+        NaiveAdditiveDecisionTree tree = parser.parse(set(), model("lambdarank", leaf));
+        assertEquals(0.75F, score(tree, 0F, 0F), 0F);
+    }
+
+    public void testBinaryObjective() throws IOException {
+        NaiveAdditiveDecisionTree tree = parser.parse(set(), model("binary sigmoid:2", split(0, "0", 0, "0.5", "-0.5")));
+        assertEquals((float) (1 / (1 + Math.exp(-1))), score(tree, 0F, 0F), Math.ulp(0.7F));
+        assertEquals((float) (1 / (1 + Math.exp(1))), score(tree, 0F, 1F), Math.ulp(0.3F));
+    }
+
+    public void testUnsupportedObjective() throws IOException {
+        String model = model("multiclass num_class:3", split(0, "0", 0, "1", "0"));
+        assertThat(
+            expectThrows(IllegalArgumentException.class, () -> parser.parse(set(), model)).getMessage(),
+            CoreMatchers.containsString("is not a supported LightGBM objective")
+        );
+    }
+
+    public void testUnknownFeature() throws IOException {
+        FeatureSet set = new StoredFeatureSet("set", Arrays.asList(randomFeature("feat1")));
+        assertThat(
+            expectThrows(IllegalArgumentException.class, () -> parser.parse(set, model("lambdarank", split(0, "0", 0, "1", "0"))))
+                .getMessage(),
+            CoreMatchers.containsString("Unknown features in model: [feat2]")
+        );
+    }
+
+    public void testLinearTree() throws IOException {
+        String linear = split(0, "0", 0, "1", "0").replace("is_linear=0", "is_linear=1");
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> parser.parse(set(), model("lambdarank", linear)));
+        assertThat(e.getMessage(), CoreMatchers.containsString("Unable to parse LightGBM tree [0]"));
+        assertThat(e.getCause().getMessage(), CoreMatchers.containsString("LightGBM linear trees are not supported"));
+    }
+
+    public void testBadSplitFeature() throws IOException {
+        IllegalArgumentException e = expectThrows(
+            IllegalArgumentException.class,
+            () -> parser.parse(set(), model("lambdarank", split(2, "0", 0, "1", "0")))
+        );
+        assertThat(e.getCause().getMessage(), CoreMatchers.containsString("Split feature index [2] is invalid"));
+    }
+}
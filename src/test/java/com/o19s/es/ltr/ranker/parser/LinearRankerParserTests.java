@@ -49,7 +49,10 @@ public class LinearRankerParserTests extends LuceneTestCase {
         LinearRankerParser parser = new LinearRankerParser();
         LinearRanker ranker = parser.parse(set, json);
         DenseFeatureVector v = ranker.newFeatureVector(null);
-        LinearRankerTests.fillRandomWeights(v.scores);
+        float[] scores = LinearRankerTests.generateRandomWeights(set.size());
+        for (int i = 0; i < scores.length; i++) {
+            v.setFeatureScore(i, scores[i]);
+        }
         LinearRanker expectedRanker = new LinearRanker(expectedWeights);
         Assert.assertEquals(expectedRanker.score(v), ranker.score(v), Math.ulp(expectedRanker.score(v)));
     }
@@ -76,7 +79,7 @@ public class LinearRankerParserTests extends LuceneTestCase {
         LinearRankerParser parser = new LinearRankerParser();
         LinearRanker ranker = parser.parse(set, "{}");
         DenseFeatureVector v = ranker.newFeatureVector(null);
-        LinearRankerTests.fillRandomWeights(v.scores);
+        LinearRankerTests.fillRandomScores(v);
         assertEquals(0F, ranker.score(v), Math.ulp(0));
     }
 
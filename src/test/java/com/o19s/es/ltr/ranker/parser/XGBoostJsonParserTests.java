@@ -26,6 +26,7 @@ import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import org.apache.lucene.tests.util.LuceneTestCase;
@@ -294,6 +295,52 @@ public class XGBoostJsonParserTests extends LuceneTestCase {
         );
     }
 
+    public void testMissingBranch() throws IOException {
+        String model = "[{"
+            + "\"nodeid\": 0,"
+            + "\"split\":\"feat1\","
+            + "\"depth\":0,"
+            + "\"split_condition\":0.123,"
+            + "\"yes\":1,"
+            + "\"no\": 2,"
+            + "\"missing\":1,"
+            + "\"children\": ["
+            + "   {\"nodeid\": 1, \"depth\": 1, \"leaf\": 0.5},"
+            + "   {\"nodeid\": 2, \"depth\": 1, \"leaf\": 0.2}"
+            + "]}]";
+        FeatureSet set = new StoredFeatureSet("set", singletonList(randomFeature("feat1")));
+        NaiveAdditiveDecisionTree tree = parser.parse(set, model);
+        FeatureVector v = tree.newFeatureVector(null);
+        // Missing from the vector
+        assertEquals(0.5F, tree.score(v), Math.ulp(0.5F));
+        v.setFeatureScore(0, 0.124F);
+        assertEquals(0.2F, tree.score(v), Math.ulp(0.2F));
+
+        // Missing values go right when the missing branch is the no branch
+        tree = parser.parse(set, model.replace("\"missing\":1", "\"missing\":2"));
+        assertEquals(0.2F, tree.score(tree.newFeatureVector(null)), Math.ulp(0.2F));
+    }
+
+    public void testBadMissingBranch() throws IOException {
+        String model = "[{"
+            + "\"nodeid\": 0,"
+            + "\"split\":\"feat1\","
+            + "\"depth\":0,"
+            + "\"split_condition\":0.123,"
+            + "\"yes\":1,"
+            + "\"no\": 2,"
+            + "\"missing\":3,"
+            + "\"children\": ["
+            + "   {\"nodeid\": 1, \"depth\": 1, \"leaf\": 0.5},"
+            + "   {\"nodeid\": 2, \"depth\": 1, \"leaf\": 0.2}"
+            + "]}]";
+        FeatureSet set = new StoredFeatureSet("set", singletonList(randomFeature("feat1")));
+        assertThat(
+            expectThrows(ParsingException.class, () -> parser.parse(set, model)).getMessage(),
+            CoreMatchers.containsString("Split structure is invalid, yes, no and/or")
+        );
+    }
+
     public void testMissingFeat() throws IOException {
         String model = "[{"
             + "\"nodeid\": 0,"
@@ -338,11 +385,66 @@ public class XGBoostJsonParserTests extends LuceneTestCase {
         assertEquals(v.scores.length, features.size());
 
         for (int i = random().nextInt(5000) + 1000; i > 0; i--) {
-            LinearRankerTests.fillRandomWeights(v.scores);
+            LinearRankerTests.fillRandomScores(v);
             assertFalse(Float.isNaN(tree.score(v)));
         }
     }
 
+    public void testRandomModelsMatchRawFormat() throws IOException {
+        List<StoredFeature> features = new ArrayList<>();
+        for (int i = random().nextInt(10) + 1; i > 0; i--) {
+            features.add(randomFeature("feat" + i));
+        }
+        StoredFeatureSet set = new StoredFeatureSet("set", features);
+        // Features of the raw model are listed in another order than the one of the set
+        List<String> modelFeatures = new ArrayList<>();
+        for (StoredFeature feature : features) {
+            modelFeatures.add(feature.name());
+        }
+        Collections.shuffle(modelFeatures, random());
+
+        List<RandomTree> trees = new ArrayList<>();
+        StringBuilder mjolnir = new StringBuilder("[");
+        StringBuilder rawTrees = new StringBuilder();
+        for (int i = random().nextInt(20) + 1; i > 0; i--) {
+            RandomTree tree = new RandomTree(set.size());
+            trees.add(tree);
+            if (mjolnir.length() > 1) {
+                mjolnir.append(',');
+                rawTrees.append(',');
+            }
+            tree.toMjolnir(mjolnir, set, 0, 0);
+            tree.toRaw(rawTrees, set, modelFeatures);
+        }
+        mjolnir.append(']');
+
+        String raw = "{\"learner\":{"
+            + "\"feature_names\":[\"" + String.join("\",\"", modelFeatures) + "\"],"
+            + "\"feature_types\":[\"" + String.join("\",\"", Collections.nCopies(modelFeatures.size(), "float")) + "\"],"
+            + "\"gradient_booster\":{\"model\":{\"trees\":[" + rawTrees + "]},\"name\":\"gbtree\"},"
+            + "\"objective\":{\"name\":\"reg:linear\"}"
+            + "}}";
+
+        NaiveAdditiveDecisionTree fromMjolnir = parser.parse(set, mjolnir.toString());
+        NaiveAdditiveDecisionTree fromRaw = new XGBoostRawJsonParser().parse(set, raw);
+        SparseFeatureVector v = fromMjolnir.newFeatureVector(null);
+        for (int i = random().nextInt(500) + 100; i > 0; i--) {
+            LinearRankerTests.fillRandomScores(v);
+            // Documents missing a feature follow the default direction of the splits
+            for (int f = 0; f < v.scores.length; f++) {
+                if (random().nextInt(4) == 0) {
+                    v.setFeatureScore(f, Float.NaN);
+                }
+            }
+            float expected = 0;
+            for (RandomTree tree : trees) {
+                expected += tree.score(v.scores);
+            }
+            assertEquals(expected, fromMjolnir.score(v), Math.ulp(expected));
+            assertEquals(expected, fromRaw.score(v), Math.ulp(expected));
+        }
+    }
+
     private String readModel(String model) throws IOException {
         try (InputStream is = this.getClass().getResourceAsStream(model)) {
             ByteArrayOutputStream bos = new ByteArrayOutputStream();
@@ -350,4 +452,91 @@ public class XGBoostJsonParserTests extends LuceneTestCase {
             return bos.toString(StandardCharsets.UTF_8.name());
         }
     }
+
+    /**
+     * Random tree stored as the arrays of the raw XGBoost format, nodes are numbered in pre-order
+     */
+    private static class RandomTree {
+        private final List<Integer> left = new ArrayList<>();
+        private final List<Integer> right = new ArrayList<>();
+        private final List<Integer> feature = new ArrayList<>();
+        private final List<Float> value = new ArrayList<>();
+        private final List<Integer> defaultLeft = new ArrayList<>();
+
+        RandomTree(int nFeatures) {
+            addNode(nFeatures, random().nextInt(6));
+        }
+
+        private int addNode(int nFeatures, int depth) {
+            int id = left.size();
+            left.add(-1);
+            right.add(-1);
+            defaultLeft.add(random().nextInt(2));
+            if (depth > 0 && random().nextInt(4) > 0) {
+                feature.add(random().nextInt(nFeatures));
+                value.add(random().nextFloat());
+                left.set(id, addNode(nFeatures, depth - 1));
+                right.set(id, addNode(nFeatures, depth - 1));
+            } else {
+                feature.add(0);
+                value.add(random().nextFloat() * 2 - 1);
+            }
+            return id;
+        }
+
+        float score(float[] scores) {
+            int node = 0;
+            while (left.get(node) != -1) {
+                float score = scores[feature.get(node)];
+                boolean goLeft = Float.isNaN(score) ? defaultLeft.get(node) == 1 : score < value.get(node);
+                node = goLeft ? left.get(node) : right.get(node);
+            }
+            return value.get(node);
+        }
+
+        void toMjolnir(StringBuilder builder, FeatureSet set, int node, int depth) {
+            builder.append("{\"nodeid\":").append(node).append(",\"depth\":").append(depth);
+            if (left.get(node) == -1) {
+                builder.append(",\"leaf\":").append(value.get(node)).append('}');
+                return;
+            }
+            builder
+                .append(",\"split\":\"")
+                .append(set.feature(feature.get(node)).name())
+                .append("\",\"split_condition\":")
+                .append(value.get(node))
+                .append(",\"yes\":")
+                .append(left.get(node))
+                .append(",\"no\":")
+                .append(right.get(node))
+                .append(",\"missing\":")
+                .append(defaultLeft.get(node) == 1 ? left.get(node) : right.get(node))
+                .append(",\"children\":[");
+            toMjolnir(builder, set, left.get(node), depth + 1);
+            builder.append(',');
+            toMjolnir(builder, set, right.get(node), depth + 1);
+            builder.append("]}");
+        }
+
+        void toRaw(StringBuilder builder, FeatureSet set, List<String> modelFeatures) {
+            List<Integer> splitIndices = new ArrayList<>();
+            for (int i = 0; i < feature.size(); i++) {
+                splitIndices.add(modelFeatures.indexOf(set.feature(feature.get(i)).name()));
+            }
+            builder
+                .append("{\"left_children\":")
+                .append(left)
+                .append(",\"right_children\":")
+                .append(right)
+                .append(",\"split_indices\":")
+                .append(splitIndices)
+                .append(",\"split_conditions\":")
+                .append(value)
+                .append(",\"base_weights\":")
+                .append(value)
+                .append(",\"default_left\":")
+                .append(defaultLeft)
+                .append('}');
+        }
+    }
 }
@@ -169,4 +169,44 @@ public class TermStatQueryTests extends LuceneTestCase {
         Explanation explanation = searcher.explain(tsq, docs.scoreDocs[0].doc);
         assertThat(explanation.toString().trim(), equalTo("3.0 = weight(" + expr + " in doc 0)"));
     }
+
+    public void testPositions() throws Exception {
+        String expr = "tp";
+        AggrType aggr = AggrType.AVG;
+        AggrType pos_aggr = AggrType.AVG;
+
+        Set<Term> terms = new HashSet<>();
+        terms.add(new Term("text", "dance"));
+
+        Expression compiledExpression = (Expression) Scripting.compile(expr);
+        TermStatQuery tsq = new TermStatQuery(compiledExpression, aggr, pos_aggr, terms);
+
+        // Verify explain
+        TopDocs docs = searcher.search(tsq, 4);
+        Explanation explanation = searcher.explain(tsq, docs.scoreDocs[0].doc);
+        assertThat(explanation.toString().trim(), equalTo("5.0 = weight(" + expr + " in doc 4)"));
+    }
+
+    public void testScoresAllDocs() throws Exception {
+        String expr = "tf";
+        AggrType aggr = AggrType.SUM;
+        AggrType pos_aggr = AggrType.AVG;
+
+        Set<Term> terms = new HashSet<>();
+        terms.add(new Term("text", "brown"));
+        terms.add(new Term("text", "break"));
+
+        Expression compiledExpression = (Expression) Scripting.compile(expr);
+        TermStatQuery tsq = new TermStatQuery(compiledExpression, aggr, pos_aggr, terms);
+
+        // Postings are streamed while iterating, every doc must still see its own frequencies
+        TopDocs topDocs = searcher.search(tsq, docs.length);
+        assertEquals(docs.length, topDocs.scoreDocs.length);
+        assertEquals(5, topDocs.scoreDocs[0].doc);
+        assertEquals(3.0f, topDocs.scoreDocs[0].score, 0.0f);
+        for (int i = 1; i < 4; i++) {
+            assertEquals(1.0f, topDocs.scoreDocs[i].score, 0.0f);
+        }
+        assertEquals(0.0f, topDocs.scoreDocs[4].score, 0.0f);
+    }
 }
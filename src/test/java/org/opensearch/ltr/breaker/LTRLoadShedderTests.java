@@ -0,0 +1,114 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.opensearch.ltr.breaker;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.opensearch.common.unit.TimeValue;
+import org.opensearch.ltr.stats.LatencyHistogram;
+import org.opensearch.test.OpenSearchTestCase;
+
+public class LTRLoadShedderTests extends OpenSearchTestCase {
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicInteger searchQueue = new AtomicInteger();
+    private LTRLoadShedder loadShedder;
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        loadShedder = new LTRLoadShedder(clock::get);
+        loadShedder.init(searchQueue::get, null);
+        loadShedder.setEnabled(true);
+        loadShedder.setFallbackModels(Collections.singletonMap("model", "small_model"));
+    }
+
+    private void setSearchQueue(int size) {
+        searchQueue.set(size);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+    }
+
+    public void testDisabled() {
+        loadShedder.setEnabled(false);
+        setSearchQueue(1000);
+        assertEquals(0D, loadShedder.pressure(), 0D);
+        assertEquals(100, loadShedder.rescoreWindow(100));
+        assertNull(loadShedder.fallbackModel("model"));
+        assertFalse(loadShedder.skipExpensiveFeatures());
+    }
+
+    public void testPressureIsSampledPeriodically() {
+        setSearchQueue(50);
+        assertEquals(0.5D, loadShedder.pressure(), 0D);
+        searchQueue.set(200);
+        assertEquals(0.5D, loadShedder.pressure(), 0D);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertEquals(2D, loadShedder.pressure(), 0D);
+    }
+
+    public void testDocScoringPressure() {
+        LatencyHistogram docScoring = new LatencyHistogram();
+        loadShedder.init(searchQueue::get, docScoring);
+        docScoring.record(TimeUnit.MICROSECONDS.toNanos(500));
+        // No budget, latencies are ignored
+        setSearchQueue(0);
+        assertEquals(0D, loadShedder.pressure(), 0D);
+
+        loadShedder.setDocScoringBudget(TimeValue.timeValueNanos(250_000));
+        docScoring.record(TimeUnit.MICROSECONDS.toNanos(400));
+        docScoring.record(TimeUnit.MICROSECONDS.toNanos(600));
+        setSearchQueue(0);
+        // Only the documents scored since the last evaluation count
+        assertEquals(2D, loadShedder.pressure(), 0D);
+        setSearchQueue(0);
+        assertEquals(0D, loadShedder.pressure(), 0D);
+    }
+
+    public void testRescoreWindow() {
+        setSearchQueue(50);
+        assertEquals(400, loadShedder.rescoreWindow(400));
+
+        setSearchQueue(400);
+        assertEquals(100, loadShedder.rescoreWindow(400));
+        // Never smaller than the minimum window
+        assertEquals(10, loadShedder.rescoreWindow(20));
+        assertEquals(5, loadShedder.rescoreWindow(5));
+    }
+
+    public void testFallbackModel() {
+        setSearchQueue(100);
+        assertNull(loadShedder.fallbackModel("model"));
+
+        setSearchQueue(150);
+        assertEquals("small_model", loadShedder.fallbackModel("model"));
+        assertNull(loadShedder.fallbackModel("other_model"));
+    }
+
+    public void testSkipExpensiveFeatures() {
+        setSearchQueue(150);
+        assertFalse(loadShedder.skipExpensiveFeatures());
+
+        setSearchQueue(200);
+        assertTrue(loadShedder.skipExpensiveFeatures());
+    }
+
+    public void testStats() {
+        setSearchQueue(400);
+        loadShedder.rescoreWindow(400);
+        loadShedder.fallbackModel("model");
+        loadShedder.skipExpensiveFeatures();
+        loadShedder.skipExpensiveFeatures();
+
+        Map<String, Object> stats = loadShedder.stats();
+        assertEquals(4D, stats.get("pressure"));
+        assertEquals(1L, stats.get("shrunk_rescore_windows"));
+        assertEquals(1L, stats.get("fallback_models"));
+        assertEquals(2L, stats.get("skipped_expensive_features"));
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.opensearch.ltr.breaker;
+
+import java.util.Collections;
+
+import org.opensearch.common.settings.ClusterSettings;
+import org.opensearch.common.settings.Settings;
+import org.opensearch.core.common.breaker.CircuitBreaker;
+import org.opensearch.core.common.breaker.CircuitBreakingException;
+import org.opensearch.indices.breaker.HierarchyCircuitBreakerService;
+import org.opensearch.search.internal.SearchContext;
+import org.opensearch.test.OpenSearchTestCase;
+import org.opensearch.test.TestSearchContext;
+
+public class LTRRequestBreakerTests extends OpenSearchTestCase {
+    private LTRRequestBreaker requestBreaker;
+    private CircuitBreaker breaker;
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        Settings settings = Settings
+            .builder()
+            .put(LTRRequestBreaker.LTR_BREAKER_REQUEST_LIMIT.getKey(), "1kb")
+            .put("indices.breaker.total.use_real_memory", false)
+            .build();
+        HierarchyCircuitBreakerService service = new HierarchyCircuitBreakerService(
+            settings,
+            Collections.singletonList(LTRRequestBreaker.breakerSettings(settings)),
+            new ClusterSettings(settings, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS)
+        );
+        breaker = service.getBreaker(LTRRequestBreaker.NAME);
+        requestBreaker = new LTRRequestBreaker();
+        requestBreaker.setBreaker(breaker);
+    }
+
+    public void testCheckedOutsideOfSearchPhases() {
+        LTRRequestBreaker.Account account = requestBreaker.account("test");
+        account.reserve(512);
+        assertEquals(0, account.getReserved());
+        assertEquals(0, breaker.getUsed());
+        expectThrows(CircuitBreakingException.class, () -> account.reserve(2048));
+        assertEquals(0, breaker.getUsed());
+    }
+
+    public void testHeldUntilTheSearchContextIsClosed() {
+        SearchContext context = new TestSearchContext(null);
+        requestBreaker.searchOperationListener().onPreQueryPhase(context);
+        LTRRequestBreaker.Account account = requestBreaker.account("test");
+        requestBreaker.searchOperationListener().onQueryPhase(context, 0);
+
+        account.reserve(512);
+        account.reserve(256);
+        assertEquals(768, account.getReserved());
+        assertEquals(768, breaker.getUsed());
+        expectThrows(CircuitBreakingException.class, () -> account.reserve(512));
+        assertEquals(768, breaker.getUsed());
+
+        context.close();
+        assertEquals(0, account.getReserved());
+        assertEquals(0, breaker.getUsed());
+        // The phase completed, new accounts are not attached to its context
+        requestBreaker.account("test").reserve(512);
+        assertEquals(0, breaker.getUsed());
+    }
+
+    public void testReservedByChunks() {
+        SearchContext context = new TestSearchContext(null);
+        requestBreaker.searchOperationListener().onPreQueryPhase(context);
+        LTRRequestBreaker.Account account = requestBreaker.account("test");
+        requestBreaker.searchOperationListener().onQueryPhase(context, 0);
+
+        LTRRequestBreaker.Account.Reservation reservation = account.reservation(256);
+        reservation.reserve(100);
+        assertEquals(256, breaker.getUsed());
+        reservation.reserve(100);
+        assertEquals(256, breaker.getUsed());
+        reservation.reserve(100);
+        assertEquals(512, breaker.getUsed());
+        // Larger than a chunk: only what is missing is reserved
+        reservation.reserve(600);
+        assertEquals(900, breaker.getUsed());
+        assertEquals(900, account.getReserved());
+        expectThrows(CircuitBreakingException.class, () -> reservation.reserve(512));
+
+        context.close();
+        assertEquals(0, breaker.getUsed());
+    }
+}
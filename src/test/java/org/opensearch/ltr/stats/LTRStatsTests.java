@@ -16,6 +16,7 @@
 package org.opensearch.ltr.stats;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
@@ -26,6 +27,8 @@ import java.util.Set;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.opensearch.ltr.stats.suppliers.LatencyStatsSupplier;
+import org.opensearch.ltr.stats.suppliers.ModelStatsSupplier;
 
 public class LTRStatsTests {
 
@@ -85,4 +88,20 @@ public class LTRStatsTests {
             assertTrue((stat.isClusterLevel() && clusterStats.contains(stat)) || (!stat.isClusterLevel() && !clusterStats.contains(stat)));
         }
     }
+
+    @Test
+    public void testLatencyAndModelStats() {
+        assertNull(ltrStats.getLatencyHistogram(LatencyStatsSupplier.Metric.DOC_SCORING));
+        assertNull(ltrStats.getModelStats("my_model"));
+
+        LatencyStatsSupplier latencyStats = new LatencyStatsSupplier();
+        ModelStatsSupplier modelStats = new ModelStatsSupplier();
+        ltrStats.addStats(StatName.LTR_LATENCY_STATS.getName(), new LTRStat<>(false, latencyStats));
+        ltrStats.addStats(StatName.LTR_MODEL_STATS.getName(), new LTRStat<>(false, modelStats));
+        assertSame(
+            latencyStats.histogram(LatencyStatsSupplier.Metric.DOC_SCORING),
+            ltrStats.getLatencyHistogram(LatencyStatsSupplier.Metric.DOC_SCORING)
+        );
+        assertSame(modelStats.model("my_model"), ltrStats.getModelStats("my_model"));
+    }
 }
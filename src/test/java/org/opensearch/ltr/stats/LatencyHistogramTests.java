@@ -0,0 +1,62 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.opensearch.ltr.stats;
+
+import java.util.Map;
+
+import org.opensearch.test.OpenSearchTestCase;
+
+public class LatencyHistogramTests extends OpenSearchTestCase {
+    public void testEmpty() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.percentile(0.99));
+        Map<String, Object> values = histogram.toMap();
+        assertEquals(0L, values.get("count"));
+        assertEquals(0L, values.get("mean_micros"));
+        assertEquals(0L, values.get("p99_micros"));
+    }
+
+    public void testBuckets() {
+        long previousLowerBound = -1;
+        for (int bucket = 0; bucket < 200; bucket++) {
+            long lowerBound = LatencyHistogram.lowerBound(bucket);
+            assertTrue(lowerBound > previousLowerBound);
+            assertEquals(bucket, LatencyHistogram.bucket(lowerBound));
+            assertEquals(bucket, LatencyHistogram.bucket(LatencyHistogram.lowerBound(bucket + 1) - 1));
+            previousLowerBound = lowerBound;
+        }
+    }
+
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        assertEquals(1000, histogram.count());
+        assertRelativeError(500_000, histogram.percentile(0.5));
+        assertRelativeError(990_000, histogram.percentile(0.99));
+        assertRelativeError(999_000, histogram.percentile(0.999));
+        assertRelativeError(1000, histogram.percentile(0));
+
+        Map<String, Object> values = histogram.toMap();
+        assertEquals(1000L, values.get("count"));
+        assertEquals(500L, values.get("mean_micros"));
+    }
+
+    public void testOutOfRange() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-10);
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(2, histogram.count());
+        assertEquals(0, histogram.percentile(0.5));
+        assertTrue(histogram.percentile(1) > 0);
+    }
+
+    private static void assertRelativeError(long expected, long actual) {
+        assertTrue("expected [" + expected + "] but got [" + actual + "]", Math.abs(expected - actual) <= expected * 0.125);
+    }
+}
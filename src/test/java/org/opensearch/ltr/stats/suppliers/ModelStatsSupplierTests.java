@@ -0,0 +1,46 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.opensearch.ltr.stats.suppliers;
+
+import java.util.Map;
+
+import org.opensearch.test.OpenSearchTestCase;
+
+public class ModelStatsSupplierTests extends OpenSearchTestCase {
+    @SuppressWarnings("unchecked")
+    public void testGet() {
+        ModelStatsSupplier supplier = new ModelStatsSupplier();
+        assertTrue(supplier.get().isEmpty());
+
+        ModelStatsSupplier.ModelStats stats = supplier.model("my_model");
+        assertSame(stats, supplier.model("my_model"));
+        stats.onRequest();
+        stats.onDocsScored(16, 1000);
+        stats.onDocsScored(16, 3000);
+
+        Map<String, Map<String, Object>> models = supplier.get();
+        assertEquals(1, models.size());
+        Map<String, Object> model = models.get("my_model");
+        assertEquals(1L, model.get("request_count"));
+        assertEquals(32L, model.get("docs_scored"));
+        Map<String, Object> scoring = (Map<String, Object>) model.get("doc_scoring");
+        assertEquals(2L, scoring.get("mean_micros"));
+        assertFalse(scoring.containsKey("count"));
+
+        supplier.remove("my_model");
+        assertTrue(supplier.get().isEmpty());
+        assertNotSame(stats, supplier.model("my_model"));
+    }
+
+    public void testLatencyStats() {
+        LatencyStatsSupplier supplier = new LatencyStatsSupplier();
+        supplier.histogram(LatencyStatsSupplier.Metric.MODEL_LOAD).record(5000);
+        Map<String, Map<String, Object>> values = supplier.get();
+        assertEquals(LatencyStatsSupplier.Metric.values().length, values.size());
+        assertEquals(1L, values.get("model_load").get("count"));
+        assertEquals(0L, values.get("doc_scoring").get("count"));
+    }
+}
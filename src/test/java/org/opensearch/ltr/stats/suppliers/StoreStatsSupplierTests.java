@@ -15,16 +15,23 @@
 
 package org.opensearch.ltr.stats.suppliers;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.opensearch.core.action.ActionListener;
 import org.opensearch.ltr.stats.suppliers.utils.StoreUtils;
 import org.opensearch.test.OpenSearchTestCase;
 
@@ -54,10 +61,8 @@ public class StoreStatsSupplierTests extends OpenSearchTestCase {
         when(storeUtils.getAllLtrStoreNames()).thenReturn(Collections.singletonList(STORE_NAME));
         when(storeUtils.checkLtrStoreExists(STORE_NAME)).thenReturn(true);
         when(storeUtils.getLtrStoreHealthStatus(STORE_NAME)).thenReturn("green");
-        Map<String, Integer> featureSets = new HashMap<>();
-        featureSets.put("featureset_1", 10);
-        when(storeUtils.extractFeatureSetStats(STORE_NAME)).thenReturn(featureSets);
-        when(storeUtils.getModelCount(STORE_NAME)).thenReturn(5L);
+        mockGenerations("gen1");
+        mockContentStats(new StoreUtils.StoreContentStats(1, 10, 5L));
 
         Map<String, Map<String, Object>> stats = storeStatsSupplier.get();
         Map<String, Object> ltrStoreStats = stats.get(STORE_NAME);
@@ -68,4 +73,55 @@ public class StoreStatsSupplierTests extends OpenSearchTestCase {
         assertEquals(1, ltrStoreStats.get(StoreStatsSupplier.LTR_STORE_FEATURE_SET_COUNT));
         assertEquals(5L, ltrStoreStats.get(StoreStatsSupplier.LTR_STORE_MODEL_COUNT));
     }
+
+    @Test
+    public void getStoreStats_CachedPerGeneration() {
+        when(storeUtils.getAllLtrStoreNames()).thenReturn(Collections.singletonList(STORE_NAME));
+        when(storeUtils.checkLtrStoreExists(STORE_NAME)).thenReturn(true);
+        when(storeUtils.getLtrStoreHealthStatus(STORE_NAME)).thenReturn("green");
+        mockGenerations("gen1");
+        mockContentStats(new StoreUtils.StoreContentStats(1, 10, 5L));
+
+        storeStatsSupplier.get();
+        storeStatsSupplier.get();
+        verify(storeUtils, times(1)).getStoreContentStats(eq(STORE_NAME), any());
+
+        mockGenerations("gen2");
+        mockContentStats(new StoreUtils.StoreContentStats(2, 12, 5L));
+        Map<String, Object> ltrStoreStats = storeStatsSupplier.get().get(STORE_NAME);
+        verify(storeUtils, times(2)).getStoreContentStats(eq(STORE_NAME), any());
+        assertEquals(12, ltrStoreStats.get(StoreStatsSupplier.LTR_STORE_FEATURE_COUNT));
+        assertEquals(2, ltrStoreStats.get(StoreStatsSupplier.LTR_STORE_FEATURE_SET_COUNT));
+    }
+
+    @Test
+    public void getStoreStats_NotCountedYet() {
+        when(storeUtils.getAllLtrStoreNames()).thenReturn(Collections.singletonList(STORE_NAME));
+        when(storeUtils.checkLtrStoreExists(STORE_NAME)).thenReturn(true);
+        when(storeUtils.getLtrStoreHealthStatus(STORE_NAME)).thenReturn("green");
+        // Generations are still being fetched
+        doNothing().when(storeUtils).getStoreGenerations(any(), any());
+
+        Map<String, Object> ltrStoreStats = storeStatsSupplier.get().get(STORE_NAME);
+        assertEquals("green", ltrStoreStats.get(StoreStatsSupplier.LTR_STORE_STATUS));
+        assertFalse(ltrStoreStats.containsKey(StoreStatsSupplier.LTR_STORE_FEATURE_COUNT));
+        verify(storeUtils, never()).getStoreContentStats(any(), any());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void mockGenerations(String generation) {
+        doAnswer(invocation -> {
+            ((ActionListener<Map<String, String>>) invocation.getArgument(1))
+                .onResponse(Collections.singletonMap(STORE_NAME, generation));
+            return null;
+        }).when(storeUtils).getStoreGenerations(any(), any());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void mockContentStats(StoreUtils.StoreContentStats stats) {
+        doAnswer(invocation -> {
+            ((ActionListener<StoreUtils.StoreContentStats>) invocation.getArgument(1)).onResponse(stats);
+            return null;
+        }).when(storeUtils).getStoreContentStats(eq(STORE_NAME), any());
+    }
 }
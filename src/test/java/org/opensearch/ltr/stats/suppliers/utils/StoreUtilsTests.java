@@ -15,10 +15,12 @@
 
 package org.opensearch.ltr.stats.suppliers.utils;
 
+import java.util.Collections;
 import java.util.Map;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.opensearch.action.support.PlainActionFuture;
 import org.opensearch.index.IndexNotFoundException;
 import org.opensearch.test.OpenSearchIntegTestCase;
 
@@ -66,34 +68,48 @@ public class StoreUtilsTests extends OpenSearchIntegTestCase {
     }
 
     @Test(expected = IndexNotFoundException.class)
-    public void extractFeatureSetStats_IndexNotExist() {
-        storeUtils.extractFeatureSetStats("non-existent");
+    public void getStoreContentStats_IndexNotExist() {
+        PlainActionFuture<StoreUtils.StoreContentStats> future = new PlainActionFuture<>();
+        storeUtils.getStoreContentStats("non-existent", future);
+        future.actionGet();
     }
 
     @Test
-    public void extractFeatureSetStats() {
-        createIndex(IndexFeatureStore.DEFAULT_STORE);
-        flush();
+    public void getStoreContentStats() {
+        createStore();
         index(IndexFeatureStore.DEFAULT_STORE, "_doc", "featureset_1", testFeatureSet());
+        index(IndexFeatureStore.DEFAULT_STORE, "_doc", "model_1", testModel());
         flushAndRefresh(IndexFeatureStore.DEFAULT_STORE);
-        Map<String, Integer> featureset = storeUtils.extractFeatureSetStats(IndexFeatureStore.DEFAULT_STORE);
+        PlainActionFuture<StoreUtils.StoreContentStats> future = new PlainActionFuture<>();
+        storeUtils.getStoreContentStats(IndexFeatureStore.DEFAULT_STORE, future);
+        StoreUtils.StoreContentStats stats = future.actionGet();
 
-        assertEquals(1, featureset.size());
-        assertEquals(2, (int) featureset.values().stream().reduce(Integer::sum).get());
-    }
-
-    @Test(expected = IndexNotFoundException.class)
-    public void getModelCount_IndexNotExist() {
-        storeUtils.getModelCount("non-existent");
+        assertEquals(1, stats.getFeatureSetCount());
+        assertEquals(2, stats.getFeatureCount());
+        assertEquals(1, stats.getModelCount());
     }
 
     @Test
-    public void getModelCount() {
-        createIndex(IndexFeatureStore.DEFAULT_STORE);
-        flush();
+    public void getStoreGenerations() {
+        createStore();
+        String generation = storeGeneration();
+        assertNotNull(generation);
+        assertEquals(generation, storeGeneration());
+
         index(IndexFeatureStore.DEFAULT_STORE, "_doc", "model_1", testModel());
         flushAndRefresh(IndexFeatureStore.DEFAULT_STORE);
-        assertEquals(1, storeUtils.getModelCount(IndexFeatureStore.DEFAULT_STORE));
+        assertNotEquals(generation, storeGeneration());
+    }
+
+    private void createStore() {
+        client().admin().indices().create(IndexFeatureStore.buildIndexRequest(IndexFeatureStore.DEFAULT_STORE)).actionGet();
+        ensureGreen(IndexFeatureStore.DEFAULT_STORE);
+    }
+
+    private String storeGeneration() {
+        PlainActionFuture<Map<String, String>> future = new PlainActionFuture<>();
+        storeUtils.getStoreGenerations(Collections.singletonList(IndexFeatureStore.DEFAULT_STORE), future);
+        return future.actionGet().get(IndexFeatureStore.DEFAULT_STORE);
     }
 
     private String testFeatureSet() {